@@ -40,6 +40,13 @@ import be.tarsos.dsp.io.TarsosDSPAudioInputStream;
  * implementors. This class can be used to feed FFT's, pitch detectors, audio players, ...
  * Using a (blocking) audio player it is even possible to synchronize execution of
  * AudioProcessors and sound. This behavior can be used for visualization.
+ * <p>
+ * Multichannel streams are not mixed down: buffer size and overlap are then
+ * expressed in sample frames and the float buffer holds the interleaved
+ * samples of every channel, so it is <code>channels</code> times longer. Use
+ * {@link AudioEvent#getChannelBuffers()} for a per channel view or a
+ * {@link MultichannelToMono} processor to fold the channels.
+ * </p>
  * @author Joren Six
  */
 public class AudioDispatcher implements Runnable {
@@ -85,7 +92,9 @@ public class AudioDispatcher implements Runnable {
 	/**
 	 * The floatOverlap: the number of elements that are copied in the buffer
 	 * from the previous buffer. Overlap should be smaller (strict) than the
-	 * buffer size and can be zero. Defined in number of samples.
+	 * buffer size and can be zero. Defined in number of samples, for
+	 * multichannel audio this is the number of frames times the number of
+	 * channels.
 	 */
 	private int floatOverlap, floatStepSize;
 
@@ -133,6 +142,12 @@ public class AudioDispatcher implements Runnable {
 	 * processors must be prepared to handle shorter audio buffers.
 	 */
 	private boolean zeroPadLastBuffer;
+	
+	/**
+	 * Times the processors and keeps track of deadline overruns when the
+	 * real-time mode is enabled. Null otherwise.
+	 */
+	private RealTimeMonitor realTimeMonitor;
 
 	/**
 	 * Create a new dispatcher from a stream.
@@ -141,9 +156,10 @@ public class AudioDispatcher implements Runnable {
 	 *            The stream to read data from.
 	 * @param audioBufferSize
 	 *            The size of the buffer defines how much samples are processed
-	 *            in one step. Common values are 1024,2048.
+	 *            in one step. Common values are 1024,2048. For multichannel
+	 *            audio the size is in sample frames.
 	 * @param bufferOverlap
-	 *            How much consecutive buffers overlap (in samples). Half of the
+	 *            How much consecutive buffers overlap (in samples or frames). Half of the
 	 *            AudioBufferSize is common (512, 1024) for an FFT.
 	 */
 	public AudioDispatcher(final TarsosDSPAudioInputStream stream, final int audioBufferSize, final int bufferOverlap){
@@ -160,7 +176,7 @@ public class AudioDispatcher implements Runnable {
 		
 		audioEvent = new AudioEvent(format);
 		audioEvent.setFloatBuffer(audioFloatBuffer);
-		audioEvent.setOverlap(bufferOverlap);
+		audioEvent.setOverlap(floatOverlap);
 		
 		converter = TarsosDSPAudioFloatConverter.getConverter(format);
 		
@@ -180,9 +196,9 @@ public class AudioDispatcher implements Runnable {
 	}
 	
 	/**
-	 * Set a new step size and overlap size. Both in number of samples. Watch
-	 * out with this method: it should be called after a batch of samples is
-	 * processed, not during.
+	 * Set a new step size and overlap size. Both in number of samples, or
+	 * sample frames for multichannel audio. Watch out with this method: it
+	 * should be called after a batch of samples is processed, not during.
 	 * 
 	 * @param audioBufferSize
 	 *            The size of the buffer defines how much samples are processed
@@ -192,13 +208,42 @@ public class AudioDispatcher implements Runnable {
 	 *            AudioBufferSize is common (512, 1024) for an FFT.
 	 */
 	public void setStepSizeAndOverlap(final int audioBufferSize, final int bufferOverlap){
-		audioFloatBuffer = new float[audioBufferSize];
-		floatOverlap = bufferOverlap;
+		final int channels = format.getChannels();
+		audioFloatBuffer = new float[audioBufferSize * channels];
+		floatOverlap = bufferOverlap * channels;
 		floatStepSize = audioFloatBuffer.length - floatOverlap;
 
-		audioByteBuffer = new byte[audioFloatBuffer.length * format.getFrameSize()];
-		byteOverlap = floatOverlap * format.getFrameSize();
-		byteStepSize = floatStepSize * format.getFrameSize();
+		audioByteBuffer = new byte[audioBufferSize * format.getFrameSize()];
+		byteOverlap = bufferOverlap * format.getFrameSize();
+		byteStepSize = (audioBufferSize - bufferOverlap) * format.getFrameSize();
+		
+		if(realTimeMonitor != null){
+			realTimeMonitor.setFraming(format.getSampleRate(), audioBufferSize, bufferOverlap);
+		}
+	}
+	
+	/**
+	 * Enables the real-time mode. In real-time mode the buffer period, defined
+	 * by the step size and the sample rate, is used as a deadline for the
+	 * chain of processors. Each process call is timed and overruns are
+	 * counted. For live sources dropped and duplicated buffers can be counted
+	 * as well, see {@link RealTimeMonitor#setXrunDetection(boolean)}.
+	 * Non-essential processors can be skipped under load.
+	 * 
+	 * @return The monitor that keeps the timing information for this dispatcher.
+	 */
+	public RealTimeMonitor enableRealTimeMode(){
+		if(realTimeMonitor == null){
+			realTimeMonitor = new RealTimeMonitor(format.getSampleRate(), audioFloatBuffer.length / format.getChannels(), floatOverlap / format.getChannels());
+		}
+		return realTimeMonitor;
+	}
+	
+	/**
+	 * @return The real-time monitor or null if the real-time mode is not enabled.
+	 */
+	public RealTimeMonitor getRealTimeMonitor(){
+		return realTimeMonitor;
 	}
 	
 	/**
@@ -268,11 +313,15 @@ public class AudioDispatcher implements Runnable {
 		while (bytesRead != 0 && !stopped) {
 			
 			//Makes sure the right buffers are processed, they can be changed by audio processors.
-			for (final AudioProcessor processor : audioProcessors) {
-				if(!processor.process(audioEvent)){
-					//skip to the next audio processors if false is returned.
-					break;
-				}	
+			if(realTimeMonitor != null){
+				realTimeMonitor.process(audioEvent, audioProcessors);
+			}else{
+				for (final AudioProcessor processor : audioProcessors) {
+					if(!processor.process(audioEvent)){
+						//skip to the next audio processors if false is returned.
+						break;
+					}	
+				}
 			}
 			
 			if(!stopped){			
@@ -426,8 +475,8 @@ public class AudioDispatcher implements Runnable {
 				for(int i = 0 ; i < audioByteBuffer.length ; i++){
 					audioByteBuffer[i] = audioByteBufferContent[i];
 				}
-				int totalSamplesRead = totalBytesRead/format.getFrameSize();
-				audioFloatBuffer = new float[offsetInSamples + totalBytesRead/format.getFrameSize()];
+				int totalSamplesRead = totalBytesRead/format.getFrameSize() * format.getChannels();
+				audioFloatBuffer = new float[offsetInSamples + totalSamplesRead];
 				converter.toFloatArray(audioByteBuffer, offsetInBytes, audioFloatBuffer, offsetInSamples, totalSamplesRead);
 				
 				
@@ -448,7 +497,14 @@ public class AudioDispatcher implements Runnable {
 		
 		
 		// Makes sure AudioEvent contains correct info.
-		audioEvent.setFloatBuffer(audioFloatBuffer);
+		if(offsetInSamples == 0){
+			// the whole buffer was converted from the bytes, the channel
+			// buffers can be converted from them as well
+			audioEvent.setFloatBuffer(audioFloatBuffer, audioByteBuffer);
+		}else{
+			// the overlap was shifted and may have been changed by processors
+			audioEvent.setFloatBuffer(audioFloatBuffer);
+		}
 		audioEvent.setOverlap(offsetInSamples);
 		
 		return totalBytesRead; 
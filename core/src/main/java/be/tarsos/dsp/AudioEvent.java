@@ -32,6 +32,17 @@ import be.tarsos.dsp.io.TarsosDSPAudioFormat;
 /**
  * An audio event flows through the processing pipeline. The object is reused for performance reasons.
  * The arrays with audio information are also reused, so watch out when using the buffer getter and setters. 
+ * <p>
+ * For multichannel audio the float buffer contains interleaved samples.
+ * {@link #getChannelBuffers()} offers a deinterleaved view with one array per
+ * channel, which is only calculated when it is requested.
+ * </p>
+ * <p>
+ * Values derived from the float buffer, the byte buffer, the RMS, peak, DC
+ * offset and zero crossing rate, are calculated once per block and shared by
+ * all processors. Processors that change the float buffer in place should call
+ * {@link #floatBufferChanged()} so following processors see up to date values.
+ * </p>
  * 
  * @author Joren Six
  */
@@ -70,6 +81,39 @@ public class AudioEvent {
 
 	private int bytesProcessing;
 
+	/**
+	 * The deinterleaved audio data, one array per channel. Reused between
+	 * buffers.
+	 */
+	private float[][] channelBuffers;
+
+	/**
+	 * True if the channel buffers reflect the current float buffer.
+	 */
+	private boolean channelBuffersValid;
+
+	/**
+	 * The interleaved bytes the float buffer was converted from, or null. The
+	 * channel buffers are then converted from these bytes directly. The
+	 * array is owned by the caller and never written.
+	 */
+	private byte[] sourceBytes;
+
+	/**
+	 * True if the byte buffer reflects the current float buffer.
+	 */
+	private boolean byteBufferValid;
+
+	/**
+	 * True if the statistics below reflect the current float buffer. They
+	 * are calculated together, in one pass over the buffer.
+	 */
+	private boolean statisticsValid;
+	private double rms;
+	private double peak;
+	private double dc;
+	private double zeroCrossingRate;
+
 	/**
 	 * Creates a new audio event with a certain audio format
 	 * @param format The format to use to convert from bytes to floats.
@@ -95,6 +139,14 @@ public class AudioEvent {
 	public int getBufferSize(){
 		return getFloatBuffer().length;
 	}
+
+	/**
+	 * The number of interleaved channels in the float buffer.
+	 * @return The number of channels, as defined by the format.
+	 */
+	public int getChannelCount(){
+		return format.getChannels();
+	}
 	
 	/**
 	 * The length of the stream, expressed in sample frames rather than byte
@@ -164,17 +216,20 @@ public class AudioEvent {
 	}
 	
 	/**
-	 * Return a byte array with the audio data in bytes.
-	 *  A conversion is done from float, cache accordingly on the other side...
+	 * Return a byte array with the audio data in bytes. The conversion from
+	 * floats is done once per block, the array is reused for following blocks.
 	 * 
 	 * @return a byte array with the audio data in bytes.
 	 */
 	public byte[] getByteBuffer(){
-		int length = getFloatBuffer().length * format.getFrameSize();
-		if(byteBuffer == null || byteBuffer.length != length){
-			byteBuffer = new byte[length];
+		if(!byteBufferValid){
+			int length = getFloatBuffer().length * ((format.getSampleSizeInBits() + 7) / 8);
+			if(byteBuffer == null || byteBuffer.length != length){
+				byteBuffer = new byte[length];
+			}
+			converter.toByteArray(getFloatBuffer(), byteBuffer);
+			byteBufferValid = true;
 		}
-		converter.toByteArray(getFloatBuffer(), byteBuffer);
 		return byteBuffer;
 	}
 
@@ -184,6 +239,127 @@ public class AudioEvent {
 	 */
 	public void setFloatBuffer(float[] floatBuffer) {
 		this.floatBuffer = floatBuffer;
+		floatBufferChanged();
+	}
+
+	/**
+	 * Set a new audio block together with the bytes it was converted from.
+	 * For multichannel audio {@link #getChannelBuffers()} then deinterleaves
+	 * while converting the bytes, instead of copying the float buffer. The
+	 * bytes are no longer used once the float buffer changes.
+	 * 
+	 * @param floatBuffer The audio block that is passed to the next processor.
+	 * @param sourceBytes The bytes the whole float buffer was converted from.
+	 */
+	public void setFloatBuffer(float[] floatBuffer, byte[] sourceBytes) {
+		setFloatBuffer(floatBuffer);
+		this.sourceBytes = sourceBytes;
+	}
+
+	/**
+	 * Marks the values derived from the float buffer, the channel buffers, the
+	 * byte buffer and the statistics, as out of date. Call this after changing
+	 * the float buffer in place.
+	 */
+	public void floatBufferChanged() {
+		sourceBytes = null;
+		channelBuffersValid = false;
+		byteBufferValid = false;
+		statisticsValid = false;
+	}
+
+	/**
+	 * Returns the audio block split per channel: <code>buffers[c][i]</code>
+	 * is sample frame <code>i</code> of channel <code>c</code>. For mono
+	 * audio the only channel buffer is the float buffer itself. For
+	 * multichannel audio the buffers are a copy which is made once per
+	 * block and reused for following blocks. If the interleaved float
+	 * buffer is changed in place, call {@link #floatBufferChanged()} to
+	 * refresh the copy. Changes to the channel buffers are only visible in
+	 * the float buffer after {@link #setChannelBuffers(float[][])}.
+	 * 
+	 * @return The deinterleaved audio, one array per channel.
+	 */
+	public float[][] getChannelBuffers(){
+		final int channels = format.getChannels();
+		if(channels == 1){
+			if(channelBuffers == null || channelBuffers.length != 1){
+				channelBuffers = new float[1][];
+			}
+			channelBuffers[0] = floatBuffer;
+			return channelBuffers;
+		}
+		if(!channelBuffersValid){
+			final int frames = floatBuffer.length / channels;
+			if(channelBuffers == null || channelBuffers.length != channels || channelBuffers[0].length != frames){
+				channelBuffers = new float[channels][frames];
+			}
+			if(sourceBytes != null){
+				converter.toFloatArrays(sourceBytes, 0, channelBuffers, 0, frames);
+			} else {
+				deinterleave(floatBuffer, channelBuffers, frames);
+			}
+			channelBuffersValid = true;
+		}
+		return channelBuffers;
+	}
+
+	/**
+	 * Interleaves the given channel buffers into the float buffer. All
+	 * channel buffers should have the same length; the float buffer is
+	 * replaced if its length does not match.
+	 * 
+	 * @param buffers The audio per channel, one array for each channel.
+	 */
+	public void setChannelBuffers(float[][] buffers){
+		final int channels = format.getChannels();
+		if(buffers.length != channels){
+			throw new IllegalArgumentException("Expected " + channels + " channel buffers, got " + buffers.length);
+		}
+		final int frames = buffers[0].length;
+		if(channels == 1){
+			floatBuffer = buffers[0];
+		} else {
+			if(floatBuffer == null || floatBuffer.length != frames * channels){
+				floatBuffer = new float[frames * channels];
+			}
+			interleave(buffers, floatBuffer, frames);
+		}
+		floatBufferChanged();
+		// the arrays of the caller are not adopted, they might be reused elsewhere
+		channelBuffersValid = buffers == channelBuffers;
+	}
+
+	/**
+	 * Copies interleaved samples to one array per channel.
+	 * @param interleaved The interleaved samples.
+	 * @param channels The destination, one array for each channel.
+	 * @param frames The number of sample frames to copy.
+	 */
+	public static void deinterleave(float[] interleaved, float[][] channels, int frames){
+		final int channelCount = channels.length;
+		for(int c = 0 ; c < channelCount ; c++){
+			final float[] channel = channels[c];
+			for(int i = 0, j = c ; i < frames ; i++, j += channelCount){
+				channel[i] = interleaved[j];
+			}
+		}
+	}
+
+	/**
+	 * Copies one array per channel to interleaved samples.
+	 * @param channels The audio, one array for each channel.
+	 * @param interleaved The destination for the interleaved samples.
+	 * @param frames The number of sample frames to copy.
+	 */
+	public static void interleave(float[][] channels, float[] interleaved, int frames){
+		final int channelCount = channels.length;
+		for(int c = 0 ; c < channelCount ; c++){
+			final float[] channel = channels[c];
+			for(int i = 0, j = c ; i < frames ; i++, j += channelCount){
+				interleaved[j] = channel[i];
+			}
+		}
 	}
 
 	/**
@@ -195,14 +371,15 @@ public class AudioEvent {
 	}
 	
 	/**
-	 * Calculates and returns the root mean square of the signal. Please
-	 * cache the result since it is calculated every time.
+	 * Returns the root mean square of the signal. It is calculated once per
+	 * block.
 	 * @return The <a
 	 *         href="http://en.wikipedia.org/wiki/Root_mean_square">RMS</a> of
 	 *         the signal present in the current buffer.
 	 */
 	public double getRMS() {
-		return calculateRMS(floatBuffer);
+		calculateStatistics();
+		return rms;
 	}
 	
 	
@@ -212,7 +389,64 @@ public class AudioEvent {
 	 * @return The dBSPL level for the buffer.
 	 */
 	public double getdBSPL() {
-		return soundPressureLevel(floatBuffer);
+		return linearToDecibel(getRMS());
+	}
+
+	/**
+	 * @return The largest absolute sample value in the current buffer.
+	 */
+	public double getPeak() {
+		calculateStatistics();
+		return peak;
+	}
+
+	/**
+	 * @return The mean sample value, the DC offset, of the current buffer.
+	 */
+	public double getDC() {
+		calculateStatistics();
+		return dc;
+	}
+
+	/**
+	 * @return The number of sign changes between consecutive samples divided
+	 *         by the number of sample pairs, as calculated by the
+	 *         {@link ZeroCrossingRateProcessor}.
+	 */
+	public double getZeroCrossingRate() {
+		calculateStatistics();
+		return zeroCrossingRate;
+	}
+
+	/**
+	 * Calculates all statistics in one pass, if the buffer changed since the
+	 * previous calculation.
+	 */
+	private void calculateStatistics() {
+		if(statisticsValid){
+			return;
+		}
+		final float[] buffer = floatBuffer;
+		double sumOfSquares = 0.0;
+		double sum = 0.0;
+		float max = 0;
+		int zeroCrossings = 0;
+		float previous = buffer.length > 0 ? buffer[0] : 0;
+		for (int i = 0; i < buffer.length; i++) {
+			final float sample = buffer[i];
+			sumOfSquares += sample * sample;
+			sum += sample;
+			max = Math.max(max, Math.abs(sample));
+			if(sample * previous < 0){
+				zeroCrossings++;
+			}
+			previous = sample;
+		}
+		rms = Math.sqrt(sumOfSquares / buffer.length);
+		peak = max;
+		dc = sum / buffer.length;
+		zeroCrossingRate = zeroCrossings / (float) (buffer.length - 1);
+		statisticsValid = true;
 	}
 	
 	/**
@@ -238,20 +472,9 @@ public class AudioEvent {
 	 */
 	public void clearFloatBuffer() {
 		Arrays.fill(floatBuffer, 0);
+		floatBufferChanged();
 	}
 
-	/**
-	 * Returns the dBSPL for a buffer.
-	 * 
-	 * @param buffer
-	 *            The buffer with audio information.
-	 * @return The dBSPL level for the buffer.
-	 */
-	private static double soundPressureLevel(final float[] buffer) {
-		double rms = calculateRMS(buffer);
-		return linearToDecibel(rms);
-	}
-	
 	/**
 	 * Converts a linear to a dB value.
 	 * 
@@ -269,7 +492,7 @@ public class AudioEvent {
 	 * @return True if SPL is below the threshold. False otherwise.
 	 */
 	public boolean isSilence(double silenceThreshold) {
-		return soundPressureLevel(floatBuffer) < silenceThreshold;
+		return getdBSPL() < silenceThreshold;
 	}
 
 	/**
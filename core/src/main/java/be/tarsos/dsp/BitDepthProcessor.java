@@ -62,6 +62,7 @@ public class BitDepthProcessor implements AudioProcessor {
 			// ((int)(0.3 * 7)) / 7 = 0.28
 			buffer[i]=((int) (buffer[i] * factor))/factor;
 		}
+		audioEvent.floatBufferChanged();
 		return true;
 	}
 
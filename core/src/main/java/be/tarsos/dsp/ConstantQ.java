@@ -159,6 +159,11 @@ public class ConstantQ implements AudioProcessor {
 	 * The underlying FFT object.
 	 */
 	private FFT fft;
+	
+	/**
+	 * The shared spectrum, or null if the FFT is calculated here.
+	 */
+	private final SpectrumProcessor spectrum;
 
 
 	/**
@@ -182,6 +187,23 @@ public class ConstantQ implements AudioProcessor {
 	 * @param spread the spread used to calculate the Constant Q
 	 */
 	public ConstantQ(float sampleRate, float minFreq, float maxFreq,float binsPerOctave, float threshold,float spread) {
+		this(null,sampleRate,minFreq,maxFreq,binsPerOctave,threshold,spread);
+	}
+	
+	/**
+	 * Create a new ConstantQ instance which uses a shared spectrum. The
+	 * spectrum should be calculated without a window, with the FFT length
+	 * that follows from the other parameters, see {@link #getFFTlength()}.
+	 * @param spectrum The shared spectrum, added to the chain before this processor, or null to calculate the FFT here.
+	 * @param sampleRate The audio sample rate
+	 * @param minFreq The minimum frequency to report in Hz
+	 * @param maxFreq The maximum frequency to report in Hz
+	 * @param binsPerOctave The number of bins per octave
+	 * @param threshold The threshold used in kernel construction.
+	 * @param spread the spread used to calculate the Constant Q
+	 */
+	public ConstantQ(SpectrumProcessor spectrum, float sampleRate, float minFreq, float maxFreq,float binsPerOctave, float threshold,float spread) {
+		this.spectrum = spectrum;
 		this.minimumFrequency = minFreq;
 		this.maximumFreqency = maxFreq;
 		this.binsPerOctave = (int) binsPerOctave;
@@ -286,6 +308,10 @@ public class ConstantQ implements AudioProcessor {
 			qKernel_indexes[i] = indexes;
 			qKernel[i] = sKernel;
 		}
+		
+		if(spectrum != null && (spectrum.getBufferSize() != fftLength || spectrum.getWindowFunction() != null)){
+			throw new IllegalArgumentException(String.format("The shared spectrum should have a length of %d and no window, it has a length of %d",fftLength,spectrum.getBufferSize()));
+		}
 	}
 
 	/**
@@ -299,6 +325,14 @@ public class ConstantQ implements AudioProcessor {
 	 */
 	public void calculate(float[] inputBuffer) {
 		fft.forwardTransform(inputBuffer);
+		applyKernels(inputBuffer);
+	}
+	
+	/**
+	 * Calculates the constant Q coefficients from an FFT.
+	 * @param inputBuffer The FFT of the audio.
+	 */
+	private void applyKernels(float[] inputBuffer) {
 		for (int i = 0; i < qKernel.length; i++) {
 			float[] kernel = qKernel[i];
 			int[] indexes = qKernel_indexes[i];
@@ -325,6 +359,10 @@ public class ConstantQ implements AudioProcessor {
 	 */
 	public void calculateMagintudes(float[] inputBuffer) {
 		calculate(inputBuffer);
+		calculateMagnitudesFromCoefficients();
+	}
+	
+	private void calculateMagnitudesFromCoefficients() {
 		for(int i = 0 ; i < magnitudes.length ; i++){
 			magnitudes[i] = (float) Math.sqrt(coefficients[i*2] * coefficients[i*2] + coefficients[i*2+1] * coefficients[i*2+1]); 
 		}
@@ -333,6 +371,11 @@ public class ConstantQ implements AudioProcessor {
 
 	@Override
 	public boolean process(AudioEvent audioEvent) {
+		if(spectrum != null){
+			applyKernels(spectrum.getFFTData());
+			calculateMagnitudesFromCoefficients();
+			return true;
+		}
 		float[] audioBuffer = audioEvent.getFloatBuffer().clone();
 		if(audioBuffer.length != getFFTlength()){
 			throw new IllegalArgumentException(String.format("The length of the fft (%d) should be the same as the length of the audio buffer (%d)",getFFTlength(),audioBuffer.length));
@@ -104,6 +104,7 @@ public class EnvelopeFollower implements AudioProcessor {
 	public boolean process(AudioEvent audioEvent) {
 		float[] buffer = audioEvent.getFloatBuffer();
 		calculateEnvelope(buffer);
+		audioEvent.floatBufferChanged();
 		return true;
 	}
 
@@ -64,6 +64,7 @@ public class GainProcessor implements AudioProcessor {
 			}
 			audioFloatBuffer[i] = newValue;
 		}
+		audioEvent.floatBufferChanged();
 		return true;
 	}
 	
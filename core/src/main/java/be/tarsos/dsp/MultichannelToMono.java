@@ -24,12 +24,14 @@
 package be.tarsos.dsp;
 
 /**
- * Process multi channels audio to mono
+ * Process multi channels audio to mono. The interleaved buffer is folded into
+ * a mono buffer which is reused for every block.
  */
 public class MultichannelToMono implements AudioProcessor{
 	
 	private int channels;
 	private boolean mean;
+	private float[] newBuffer;
 	
 	public MultichannelToMono(int numberOfChannels,boolean meanOfchannels){
 		channels = numberOfChannels;
@@ -39,7 +41,9 @@ public class MultichannelToMono implements AudioProcessor{
 	@Override
 	public boolean process(AudioEvent audioEvent) {
 		float[] buffer = audioEvent.getFloatBuffer();
-		float[] newBuffer = new float[buffer.length/channels];
+		if(newBuffer == null || newBuffer.length != buffer.length/channels){
+			newBuffer = new float[buffer.length/channels];
+		}
 		
 		if(mean){
 			if(channels==2){
@@ -62,6 +66,7 @@ public class MultichannelToMono implements AudioProcessor{
 		}
 		
 		audioEvent.setFloatBuffer(newBuffer);
+		audioEvent.setOverlap(audioEvent.getOverlap()/channels);
 		return true;
 	}
 
@@ -0,0 +1,404 @@
+/*
+*      _______                       _____   _____ _____  
+*     |__   __|                     |  __ \ / ____|  __ \ 
+*        | | __ _ _ __ ___  ___  ___| |  | | (___ | |__) |
+*        | |/ _` | '__/ __|/ _ \/ __| |  | |\___ \|  ___/ 
+*        | | (_| | |  \__ \ (_) \__ \ |__| |____) | |     
+*        |_|\__,_|_|  |___/\___/|___/_____/|_____/|_|     
+*                                                         
+* -------------------------------------------------------------
+*
+* TarsosDSP is developed by Joren Six at IPEM, University Ghent
+*  
+* -------------------------------------------------------------
+*
+*  Info: http://0110.be/tag/TarsosDSP
+*  Github: https://github.com/JorenSix/TarsosDSP
+*  Releases: http://0110.be/releases/TarsosDSP/
+*  
+*  TarsosDSP includes modified source code by various authors,
+*  for credits and info, see README.
+* 
+*/
+
+
+
+package be.tarsos.dsp;
+
+import java.util.Arrays;
+
+import be.tarsos.dsp.util.PitchConverter;
+
+/**
+ * <p>
+ * Follows sinusoidal partials over time, in the style of McAulay and Quatieri
+ * 1986 - Speech analysis/synthesis based on a sinusoidal representation. The
+ * spectral peaks of each frame are linked to the partials of the previous
+ * frames: the closest pairs of a partial and a peak, in cents, are matched
+ * first. A partial that finds no peak may skip a few frames, after that it is
+ * finished and passed to a {@link PartialHandler}. Peaks that are not matched
+ * start new partials.
+ * </p>
+ * <p>
+ * The active partials are kept in slots in arrays. A partial keeps its slot
+ * while it lasts, so the slots can be used as the partial indexes of an
+ * {@link be.tarsos.dsp.synthesis.OscillatorBank} for resynthesis. Only a
+ * summary of each partial is kept, which means the memory use depends on the
+ * number of active partials and not on the length of the audio.
+ * </p>
+ * <p>
+ * Add the tracker after a {@link SpectralPeakProcessor}; it extracts the peaks
+ * with a {@link SpectralPeakExtractor}. Peaks found elsewhere can be passed to
+ * {@link #track(double, float[], float[], int)} directly.
+ * </p>
+ *
+ * @author Joren Six
+ */
+public class PartialTracker implements AudioProcessor {
+
+	private final SpectralPeakProcessor peakProcessor;
+	private final SpectralPeakExtractor extractor;
+	private final int medianFilterLength;
+	private final float noiseFloorFactor;
+	private final PartialHandler handler;
+
+	private double maxJumpInCents = 100;
+	private int maxGap = 2;
+	private int minLength = 3;
+
+	/** The state of the partial in each slot. */
+	private final boolean[] active;
+	private final long[] ids;
+	private final float[] frequencies;
+	private final double[] cents;
+	private final float[] magnitudes;
+	private final double[] startTimes;
+	private final double[] endTimes;
+	private final int[] lengths;
+	private final int[] gaps;
+	private final double[] centSums;
+	private final double[] magnitudeSums;
+	private final float[] minFrequencies;
+	private final float[] maxFrequencies;
+	private final float[] maxMagnitudes;
+
+	private final int[] freeSlots;
+	private int freeCount;
+	private long nextId;
+
+	/** Candidate matches: the distance in cents, the slot and the peak packed in a long. */
+	private long[] pairs;
+	private double[] peakCents;
+	private int[] peakSlots;
+	private final boolean[] slotMatched;
+
+	/**
+	 * Create a new partial tracker.
+	 *
+	 * @param peakProcessor
+	 *            The spectral peak processor, added to the chain before this
+	 *            tracker.
+	 * @param medianFilterLength
+	 *            The length of the median filter for the noise floor, see
+	 *            {@link SpectralPeakProcessor#calculateNoiseFloor(float[], int, float)}.
+	 * @param noiseFloorFactor
+	 *            The factor the peaks should rise above the noise floor.
+	 * @param maxPeaks
+	 *            The maximum number of peaks per frame.
+	 * @param minDistanceInCents
+	 *            The minimum distance in cents between peaks.
+	 * @param handler
+	 *            Receives the finished partials.
+	 */
+	public PartialTracker(SpectralPeakProcessor peakProcessor, int medianFilterLength, float noiseFloorFactor, int maxPeaks, int minDistanceInCents, PartialHandler handler) {
+		if(maxPeaks < 1 || maxPeaks > 0x7FFF){
+			throw new IllegalArgumentException("The number of peaks should be between 1 and 32767, it is " + maxPeaks);
+		}
+		this.peakProcessor = peakProcessor;
+		this.medianFilterLength = medianFilterLength;
+		this.noiseFloorFactor = noiseFloorFactor;
+		this.handler = handler;
+		extractor = new SpectralPeakExtractor(maxPeaks, minDistanceInCents);
+
+		//room for partials that skip a frame next to the new ones
+		final int capacity = 2 * maxPeaks;
+		active = new boolean[capacity];
+		ids = new long[capacity];
+		frequencies = new float[capacity];
+		cents = new double[capacity];
+		magnitudes = new float[capacity];
+		startTimes = new double[capacity];
+		endTimes = new double[capacity];
+		lengths = new int[capacity];
+		gaps = new int[capacity];
+		centSums = new double[capacity];
+		magnitudeSums = new double[capacity];
+		minFrequencies = new float[capacity];
+		maxFrequencies = new float[capacity];
+		maxMagnitudes = new float[capacity];
+		slotMatched = new boolean[capacity];
+		freeSlots = new int[capacity];
+		for(int i = 0 ; i < capacity ; i++){
+			freeSlots[i] = capacity - 1 - i;
+		}
+		freeCount = capacity;
+
+		pairs = new long[0];
+		peakCents = new double[0];
+		peakSlots = new int[0];
+	}
+
+	@Override
+	public boolean process(AudioEvent audioEvent) {
+		final float[] spectrum = peakProcessor.getMagnitudes();
+		final float[] noiseFloor = SpectralPeakProcessor.calculateNoiseFloor(spectrum, medianFilterLength, noiseFloorFactor);
+		final int count = extractor.extract(spectrum, peakProcessor.getFrequencyEstimates(), noiseFloor);
+		track(audioEvent.getTimeStamp(), extractor.getFrequencies(), extractor.getMagnitudes(), count);
+		return true;
+	}
+
+	/**
+	 * Links the peaks of a frame to the active partials.
+	 *
+	 * @param timeStamp
+	 *            The time of the frame, in seconds.
+	 * @param peakFrequencies
+	 *            The frequencies of the peaks in Hz.
+	 * @param peakMagnitudes
+	 *            The magnitudes of the peaks.
+	 * @param peakCount
+	 *            The number of peaks, peaks beyond {@link #getCapacity()} are ignored.
+	 */
+	public void track(double timeStamp, float[] peakFrequencies, float[] peakMagnitudes, int peakCount) {
+		final int capacity = active.length;
+		peakCount = Math.min(peakCount, capacity);
+		if(peakCents.length < peakCount){
+			peakCents = new double[peakCount];
+			peakSlots = new int[peakCount];
+		}
+		if(pairs.length < peakCount * capacity){
+			pairs = new long[peakCount * capacity];
+		}
+		for(int p = 0 ; p < peakCount ; p++){
+			peakCents[p] = peakFrequencies[p] > 0 ? PitchConverter.hertzToAbsoluteCent(peakFrequencies[p]) : Double.NaN;
+			peakSlots[p] = -1;
+		}
+
+		//all pairs of a partial and a peak that are close enough, closest first
+		int pairCount = 0;
+		for(int slot = 0 ; slot < capacity ; slot++){
+			slotMatched[slot] = false;
+			if(!active[slot]){
+				continue;
+			}
+			for(int p = 0 ; p < peakCount ; p++){
+				final double distance = Math.abs(peakCents[p] - cents[slot]);
+				if(distance <= maxJumpInCents){
+					pairs[pairCount++] = ((long) Float.floatToIntBits((float) distance) << 32) | ((long) slot << 16) | p;
+				}
+			}
+		}
+		Arrays.sort(pairs, 0, pairCount);
+		for(int i = 0 ; i < pairCount ; i++){
+			final int slot = (int) (pairs[i] >>> 16) & 0xFFFF;
+			final int p = (int) pairs[i] & 0xFFFF;
+			if(!slotMatched[slot] && peakSlots[p] < 0){
+				slotMatched[slot] = true;
+				peakSlots[p] = slot;
+			}
+		}
+
+		for(int slot = 0 ; slot < capacity ; slot++){
+			if(active[slot] && !slotMatched[slot]){
+				magnitudes[slot] = 0;
+				gaps[slot]++;
+				if(gaps[slot] > maxGap){
+					finish(slot);
+				}
+			}
+		}
+		for(int p = 0 ; p < peakCount ; p++){
+			int slot = peakSlots[p];
+			if(slot < 0){
+				if(Double.isNaN(peakCents[p]) || freeCount == 0){
+					continue;
+				}
+				slot = freeSlots[--freeCount];
+				active[slot] = true;
+				ids[slot] = nextId++;
+				startTimes[slot] = timeStamp;
+				lengths[slot] = 0;
+				centSums[slot] = 0;
+				magnitudeSums[slot] = 0;
+				minFrequencies[slot] = peakFrequencies[p];
+				maxFrequencies[slot] = peakFrequencies[p];
+				maxMagnitudes[slot] = peakMagnitudes[p];
+			}
+			frequencies[slot] = peakFrequencies[p];
+			cents[slot] = peakCents[p];
+			magnitudes[slot] = peakMagnitudes[p];
+			endTimes[slot] = timeStamp;
+			lengths[slot]++;
+			gaps[slot] = 0;
+			centSums[slot] += peakCents[p];
+			magnitudeSums[slot] += peakMagnitudes[p];
+			minFrequencies[slot] = Math.min(minFrequencies[slot], peakFrequencies[p]);
+			maxFrequencies[slot] = Math.max(maxFrequencies[slot], peakFrequencies[p]);
+			maxMagnitudes[slot] = Math.max(maxMagnitudes[slot], peakMagnitudes[p]);
+		}
+	}
+
+	private void finish(int slot) {
+		active[slot] = false;
+		magnitudes[slot] = 0;
+		freeSlots[freeCount++] = slot;
+		if(lengths[slot] >= minLength){
+			final double meanFrequency = PitchConverter.absoluteCentToHertz(centSums[slot] / lengths[slot]);
+			handler.handlePartial(new Partial(ids[slot], startTimes[slot], endTimes[slot], lengths[slot], meanFrequency, minFrequencies[slot], maxFrequencies[slot], magnitudeSums[slot] / lengths[slot], maxMagnitudes[slot]));
+		}
+	}
+
+	/**
+	 * Finishes all active partials.
+	 */
+	@Override
+	public void processingFinished() {
+		for(int slot = 0 ; slot < active.length ; slot++){
+			if(active[slot]){
+				finish(slot);
+			}
+		}
+	}
+
+	/**
+	 * @param maxJumpInCents The largest change in frequency, in cents, between two frames of a partial. The default is 100 cents.
+	 */
+	public void setMaxJump(double maxJumpInCents) {
+		this.maxJumpInCents = maxJumpInCents;
+	}
+
+	/**
+	 * @param maxGap The number of frames a partial may skip before it is finished. The default is two.
+	 */
+	public void setMaxGap(int maxGap) {
+		this.maxGap = maxGap;
+	}
+
+	/**
+	 * @param minLength The number of frames a partial needs to be passed to the handler. The default is three.
+	 */
+	public void setMinLength(int minLength) {
+		this.minLength = minLength;
+	}
+
+	/**
+	 * @return The number of slots for partials.
+	 */
+	public int getCapacity() {
+		return active.length;
+	}
+
+	/**
+	 * @return The frequency in Hz of the partial in each slot, in the last frame it had a peak.
+	 */
+	public float[] getFrequencies() {
+		return frequencies;
+	}
+
+	/**
+	 * @return The magnitude of the partial in each slot in the last frame, zero for empty slots and skipped frames.
+	 */
+	public float[] getMagnitudes() {
+		return magnitudes;
+	}
+
+	/**
+	 * @param slot The slot.
+	 * @return True if the slot holds a partial.
+	 */
+	public boolean isActive(int slot) {
+		return active[slot];
+	}
+
+	/**
+	 * A summary of a finished partial.
+	 */
+	public static class Partial {
+		private final long id;
+		private final double startTime;
+		private final double endTime;
+		private final int length;
+		private final double meanFrequency;
+		private final float minFrequency;
+		private final float maxFrequency;
+		private final double meanMagnitude;
+		private final float maxMagnitude;
+
+		public Partial(long id, double startTime, double endTime, int length, double meanFrequency, float minFrequency, float maxFrequency, double meanMagnitude, float maxMagnitude) {
+			this.id = id;
+			this.startTime = startTime;
+			this.endTime = endTime;
+			this.length = length;
+			this.meanFrequency = meanFrequency;
+			this.minFrequency = minFrequency;
+			this.maxFrequency = maxFrequency;
+			this.meanMagnitude = meanMagnitude;
+			this.maxMagnitude = maxMagnitude;
+		}
+
+		/**
+		 * @return A number that identifies the partial, partials are numbered in the order they start.
+		 */
+		public long getId() {
+			return id;
+		}
+
+		/**
+		 * @return The time of the first frame of the partial, in seconds.
+		 */
+		public double getStartTime() {
+			return startTime;
+		}
+
+		/**
+		 * @return The time of the last frame with a peak, in seconds.
+		 */
+		public double getEndTime() {
+			return endTime;
+		}
+
+		/**
+		 * @return The number of frames with a peak.
+		 */
+		public int getLength() {
+			return length;
+		}
+
+		/**
+		 * @return The mean frequency in Hz, averaged in cents.
+		 */
+		public double getMeanFrequency() {
+			return meanFrequency;
+		}
+
+		public float getMinFrequency() {
+			return minFrequency;
+		}
+
+		public float getMaxFrequency() {
+			return maxFrequency;
+		}
+
+		public double getMeanMagnitude() {
+			return meanMagnitude;
+		}
+
+		public float getMaxMagnitude() {
+			return maxMagnitude;
+		}
+
+		public String toString() {
+			return String.format("%.3f %.3f %.2f %.2f", startTime, endTime, meanFrequency, meanMagnitude);
+		}
+	}
+}
@@ -0,0 +1,196 @@
+/*
+*      _______                       _____   _____ _____  
+*     |__   __|                     |  __ \ / ____|  __ \ 
+*        | | __ _ _ __ ___  ___  ___| |  | | (___ | |__) |
+*        | |/ _` | '__/ __|/ _ \/ __| |  | |\___ \|  ___/ 
+*        | | (_| | |  \__ \ (_) \__ \ |__| |____) | |     
+*        |_|\__,_|_|  |___/\___/|___/_____/|_____/|_|     
+*                                                         
+* -------------------------------------------------------------
+*
+* TarsosDSP is developed by Joren Six at IPEM, University Ghent
+*  
+* -------------------------------------------------------------
+*
+*  Info: http://0110.be/tag/TarsosDSP
+*  Github: https://github.com/JorenSix/TarsosDSP
+*  Releases: http://0110.be/releases/TarsosDSP/
+*  
+*  TarsosDSP includes modified source code by various authors,
+*  for credits and info, see README.
+* 
+*/
+
+
+
+
+package be.tarsos.dsp;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.IntFunction;
+
+import be.tarsos.dsp.io.TarsosDSPAudioFormat;
+
+/**
+ * Runs a separate mono processor for every channel of a multichannel stream.
+ * Each channel processor receives its own {@link AudioEvent} with a one
+ * channel format, the deinterleaved samples of its channel and the time
+ * stamps of the multichannel event. With an {@link ExecutorService} the
+ * channels are processed in parallel; the calling thread handles the first
+ * channel and waits for the others.
+ * <p>
+ * By default the channel buffers are interleaved again after processing, so
+ * filters and effects applied per channel are visible to the processors
+ * that follow. For analysis only chains (pitch, onsets, ...) this can be
+ * switched off with {@link #setWriteBack(boolean)}.
+ * </p>
+ * 
+ * @author Joren Six
+ */
+public class PerChannelProcessor implements AudioProcessor {
+
+	private final AudioProcessor[] processors;
+	private final AudioEvent[] channelEvents;
+	private final Runnable[] tasks;
+	private final Future<?>[] futures;
+	private final float[][] results;
+	private final int bytesPerSample;
+	private final ExecutorService executor;
+	private boolean writeBack;
+
+	/**
+	 * Create a processor which handles the channels one after the other on
+	 * the dispatching thread.
+	 * 
+	 * @param format
+	 *            The multichannel format of the stream.
+	 * @param factory
+	 *            Creates the processor for a channel index.
+	 */
+	public PerChannelProcessor(TarsosDSPAudioFormat format, IntFunction<AudioProcessor> factory) {
+		this(format, factory, null);
+	}
+
+	/**
+	 * Create a processor which handles the channels in parallel.
+	 * 
+	 * @param format
+	 *            The multichannel format of the stream.
+	 * @param factory
+	 *            Creates the processor for a channel index.
+	 * @param executor
+	 *            Runs the channel processors, or null to run them on the
+	 *            dispatching thread. The executor is not shut down by this
+	 *            class.
+	 */
+	public PerChannelProcessor(TarsosDSPAudioFormat format, IntFunction<AudioProcessor> factory, ExecutorService executor) {
+		final int channels = format.getChannels();
+		final TarsosDSPAudioFormat monoFormat = new TarsosDSPAudioFormat(format.getEncoding(), format.getSampleRate(),
+				format.getSampleSizeInBits(), 1, format.getFrameSize() / channels, format.getFrameRate(), format.isBigEndian());
+		this.bytesPerSample = monoFormat.getFrameSize();
+		this.processors = new AudioProcessor[channels];
+		this.channelEvents = new AudioEvent[channels];
+		this.tasks = new Runnable[channels];
+		this.futures = new Future<?>[channels];
+		this.results = new float[channels][];
+		for (int c = 0; c < channels; c++) {
+			final AudioProcessor processor = factory.apply(c);
+			final AudioEvent event = new AudioEvent(monoFormat);
+			processors[c] = processor;
+			channelEvents[c] = event;
+			tasks[c] = new Runnable() {
+				@Override
+				public void run() {
+					processor.process(event);
+				}
+			};
+		}
+		this.executor = executor;
+		this.writeBack = true;
+	}
+
+	/**
+	 * @param writeBack
+	 *            If true the processed channel buffers are interleaved into
+	 *            the multichannel event again. If false the multichannel
+	 *            event is left untouched.
+	 */
+	public void setWriteBack(boolean writeBack) {
+		this.writeBack = writeBack;
+	}
+
+	/**
+	 * @param channel
+	 *            The channel index.
+	 * @return The processor handling the channel.
+	 */
+	public AudioProcessor getProcessor(int channel) {
+		return processors[channel];
+	}
+
+	@Override
+	public boolean process(AudioEvent audioEvent) {
+		final float[][] buffers = audioEvent.getChannelBuffers();
+		final int channels = buffers.length;
+		if (channels != processors.length) {
+			throw new IllegalArgumentException("Expected " + processors.length + " channels, got " + channels);
+		}
+		final int overlap = audioEvent.getOverlap() / channels;
+		final long bytesProcessed = audioEvent.getSamplesProcessed() * bytesPerSample;
+		for (int c = 0; c < channels; c++) {
+			final AudioEvent event = channelEvents[c];
+			event.setFloatBuffer(buffers[c]);
+			event.setOverlap(overlap);
+			event.setBytesProcessed(bytesProcessed);
+			event.setBytesProcessing((buffers[c].length - overlap) * bytesPerSample);
+		}
+
+		if (executor == null || channels == 1) {
+			for (int c = 0; c < channels; c++) {
+				tasks[c].run();
+			}
+		} else {
+			for (int c = 1; c < channels; c++) {
+				futures[c] = executor.submit(tasks[c]);
+			}
+			tasks[0].run();
+			for (int c = 1; c < channels; c++) {
+				await(futures[c]);
+				futures[c] = null;
+			}
+		}
+
+		if (writeBack) {
+			boolean inPlace = true;
+			for (int c = 0; c < channels; c++) {
+				results[c] = channelEvents[c].getFloatBuffer();
+				inPlace = inPlace && results[c] == buffers[c];
+			}
+			audioEvent.setChannelBuffers(inPlace ? buffers : results);
+		}
+		return true;
+	}
+
+	private static void await(Future<?> future) {
+		try {
+			future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while processing a channel", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new IllegalStateException("Processing a channel failed", e.getCause());
+		}
+	}
+
+	@Override
+	public void processingFinished() {
+		for (AudioProcessor processor : processors) {
+			processor.processingFinished();
+		}
+	}
+}
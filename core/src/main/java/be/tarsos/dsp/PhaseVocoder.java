@@ -0,0 +1,343 @@
+/*
+*      _______                       _____   _____ _____  
+*     |__   __|                     |  __ \ / ____|  __ \ 
+*        | | __ _ _ __ ___  ___  ___| |  | | (___ | |__) |
+*        | |/ _` | '__/ __|/ _ \/ __| |  | |\___ \|  ___/ 
+*        | | (_| | |  \__ \ (_) \__ \ |__| |____) | |     
+*        |_|\__,_|_|  |___/\___/|___/_____/|_____/|_|     
+*                                                         
+* -------------------------------------------------------------
+*
+* TarsosDSP is developed by Joren Six at IPEM, University Ghent
+*  
+* -------------------------------------------------------------
+*
+*  Info: http://0110.be/tag/TarsosDSP
+*  Github: https://github.com/JorenSix/TarsosDSP
+*  Releases: http://0110.be/releases/TarsosDSP/
+*  
+*  TarsosDSP includes modified source code by various authors,
+*  for credits and info, see README.
+* 
+*/
+
+
+
+package be.tarsos.dsp;
+
+import java.util.Arrays;
+
+import be.tarsos.dsp.util.fft.FloatFFT;
+
+/**
+ * <p>
+ * A phase vocoder which changes the tempo and the pitch of audio
+ * independently. Each buffer is handled as one analysis frame: use a
+ * dispatcher with a buffer size and overlap equal to the ones passed to the
+ * constructor. A size of 2048 and an overlap of 1536 (four times overlap) is a
+ * good start for music at 44.1kHz.
+ * </p>
+ * <p>
+ * To keep the sound of transients and chords the vocoder uses identity phase
+ * locking: the spectrum is split into regions around spectral peaks, only the
+ * phase of the peaks is propagated and each region is rotated together with
+ * its peak (Laroche and Dolson, Improved phase vocoder time-scale modification
+ * of audio, 1999). Pitch shifting moves these regions to the new peak
+ * frequency, so no resampling is needed.
+ * </p>
+ * <p>
+ * Windows and buffers are allocated in the constructor. Changing the tempo or
+ * pitch only allocates an output buffer the first time an output length is
+ * used. After processing the buffer of the audio event contains the next
+ * output samples, the number of samples depends on the tempo.
+ * </p>
+ * 
+ * @author Joren Six
+ * @see WaveformSimilarityBasedOverlapAdd
+ * @see PitchShifter
+ */
+public class PhaseVocoder implements AudioProcessor {
+
+	private final int size;
+	private final int analysisHop;
+	private final int bins;
+	
+	private final FloatFFT fft;
+	private final float[] window;
+	/** Sum of the squared window, used to normalize the overlap-add. */
+	private final double windowEnergy;
+	
+	private final float[] spectrum;
+	private final float[] previousSpectrum;
+	private final float[] synthesis;
+	private final float[] previousSynthesis;
+	private final float[] power;
+	private final int[] peaks;
+	
+	private float[] outputAccumulator;
+	private float[][] outputBuffers;
+	
+	private double tempo;
+	private double pitchShiftFactor;
+	private double synthesisPosition;
+	private boolean firstFrame;
+	
+	/**
+	 * Create a new phase vocoder which does not change tempo or pitch.
+	 * 
+	 * @param size
+	 *            The size of the audio buffers, a power of two.
+	 * @param overlap
+	 *            The overlap of the audio buffers. The difference between
+	 *            size and overlap is the analysis hop size.
+	 */
+	public PhaseVocoder(int size, int overlap){
+		this(1.0, 1.0, size, overlap);
+	}
+	
+	/**
+	 * Create a new phase vocoder.
+	 * 
+	 * @param tempo
+	 *            The tempo factor: 2.0 plays twice as fast, 0.5 twice as slow.
+	 * @param pitchShiftFactor
+	 *            The pitch shift factor: 2.0 shifts one octave up, 0.5 one
+	 *            octave down.
+	 * @param size
+	 *            The size of the audio buffers, a power of two.
+	 * @param overlap
+	 *            The overlap of the audio buffers. The difference between
+	 *            size and overlap is the analysis hop size.
+	 */
+	public PhaseVocoder(double tempo, double pitchShiftFactor, int size, int overlap){
+		if(size < 4 || Integer.bitCount(size) != 1){
+			throw new IllegalArgumentException("The buffer size should be a power of two, it is " + size);
+		}
+		if(overlap < 0 || overlap >= size){
+			throw new IllegalArgumentException("The overlap should be between 0 and the buffer size, it is " + overlap);
+		}
+		this.size = size;
+		this.analysisHop = size - overlap;
+		this.bins = size / 2;
+		
+		fft = new FloatFFT(size);
+		window = new float[size];
+		double energy = 0;
+		for(int i = 0 ; i < size ; i++){
+			//periodic Hann window
+			window[i] = (float) (0.5 - 0.5 * Math.cos(2.0 * Math.PI * i / size));
+			energy += window[i] * window[i];
+		}
+		windowEnergy = energy;
+		
+		spectrum = new float[size];
+		previousSpectrum = new float[size];
+		synthesis = new float[size];
+		previousSynthesis = new float[size];
+		power = new float[bins + 1];
+		peaks = new int[bins / 2 + 1];
+		outputBuffers = new float[0][];
+		
+		setTempo(tempo);
+		setPitchShiftFactor(pitchShiftFactor);
+		reset();
+	}
+	
+	/**
+	 * Change the tempo. The change is applied from the next buffer onwards.
+	 * @param tempo The tempo factor: 2.0 plays twice as fast, 0.5 twice as slow.
+	 */
+	public void setTempo(double tempo){
+		if(tempo <= 0){
+			throw new IllegalArgumentException("The tempo should be positive, it is " + tempo);
+		}
+		this.tempo = tempo;
+		int maxSynthesisHop = (int) Math.ceil(analysisHop / tempo) + 1;
+		if(outputAccumulator == null || outputAccumulator.length < size + maxSynthesisHop){
+			float[] accumulator = new float[size + maxSynthesisHop];
+			if(outputAccumulator != null){
+				System.arraycopy(outputAccumulator, 0, accumulator, 0, outputAccumulator.length);
+			}
+			outputAccumulator = accumulator;
+		}
+	}
+	
+	/**
+	 * Change the pitch. The change is applied from the next buffer onwards.
+	 * @param pitchShiftFactor The pitch shift factor: 2.0 shifts one octave up, 0.5 one octave down.
+	 */
+	public void setPitchShiftFactor(double pitchShiftFactor){
+		if(pitchShiftFactor <= 0){
+			throw new IllegalArgumentException("The pitch shift factor should be positive, it is " + pitchShiftFactor);
+		}
+		this.pitchShiftFactor = pitchShiftFactor;
+	}
+	
+	public double getTempo(){
+		return tempo;
+	}
+	
+	public double getPitchShiftFactor(){
+		return pitchShiftFactor;
+	}
+	
+	/**
+	 * Clears the phase and overlap-add state, e.g. after a seek.
+	 */
+	public void reset(){
+		Arrays.fill(outputAccumulator, 0);
+		Arrays.fill(previousSpectrum, 0);
+		Arrays.fill(previousSynthesis, 0);
+		synthesisPosition = 0;
+		firstFrame = true;
+	}
+	
+	@Override
+	public boolean process(AudioEvent audioEvent) {
+		float[] audioBuffer = audioEvent.getFloatBuffer();
+		if(audioBuffer.length != size){
+			throw new IllegalArgumentException("Expected a buffer of " + size + " samples, got " + audioBuffer.length);
+		}
+		
+		//the synthesis hop follows the tempo, the fractional part is carried over
+		double nextPosition = synthesisPosition + analysisHop / tempo;
+		int synthesisHop = (int) (Math.round(nextPosition) - Math.round(synthesisPosition));
+		synthesisPosition = nextPosition;
+		
+		for(int i = 0 ; i < size ; i++){
+			spectrum[i] = audioBuffer[i] * window[i];
+		}
+		fft.realForward(spectrum);
+		
+		transform(synthesisHop);
+		
+		System.arraycopy(spectrum, 0, previousSpectrum, 0, size);
+		System.arraycopy(synthesis, 0, previousSynthesis, 0, size);
+		firstFrame = false;
+		
+		fft.realInverse(synthesis, true);
+		
+		//normalize the overlap-add of the analysis and synthesis window
+		float gain = (float) (synthesisHop / windowEnergy);
+		for(int i = 0 ; i < size ; i++){
+			outputAccumulator[i] += synthesis[i] * window[i] * gain;
+		}
+		
+		float[] output = outputBuffer(synthesisHop);
+		System.arraycopy(outputAccumulator, 0, output, 0, synthesisHop);
+		System.arraycopy(outputAccumulator, synthesisHop, outputAccumulator, 0, size);
+		Arrays.fill(outputAccumulator, size, size + synthesisHop, 0);
+		
+		audioEvent.setFloatBuffer(output);
+		audioEvent.setOverlap(0);
+		return true;
+	}
+	
+	/**
+	 * Calculates the synthesis spectrum from the analysis spectrum. Peaks are
+	 * local maxima of the power spectrum and every bin belongs to the region
+	 * of the nearest peak. Each region is moved to its shifted peak and
+	 * rotated so that the phase of the peak advances with its instantaneous
+	 * frequency during the synthesis hop.
+	 * 
+	 * @param synthesisHop The number of samples between this frame and the previous one, in the output.
+	 */
+	private void transform(int synthesisHop){
+		final float[] x = spectrum;
+		final float[] y = synthesis;
+		
+		power[0] = x[0] * x[0];
+		power[bins] = x[1] * x[1];
+		for(int k = 1 ; k < bins ; k++){
+			power[k] = x[2 * k] * x[2 * k] + x[2 * k + 1] * x[2 * k + 1];
+		}
+		
+		//a peak is larger than its two neighbours on each side
+		int peakCount = 0;
+		for(int k = 1 ; k < bins ; k++){
+			final float value = power[k];
+			if(value > power[k - 1] && value >= power[k + 1]
+					&& (k < 2 || value > power[k - 2]) && (k + 2 > bins || value >= power[k + 2])){
+				peaks[peakCount++] = k;
+			}
+		}
+		
+		Arrays.fill(y, 0);
+		//DC maps onto itself, the Nyquist bin is dropped
+		y[0] = x[0];
+		
+		final double expectedAdvance = 2.0 * Math.PI * analysisHop / size;
+		final double factor = pitchShiftFactor;
+		
+		int regionStart = 1;
+		for(int p = 0 ; p < peakCount ; p++){
+			final int peak = peaks[p];
+			final int regionEnd = p + 1 < peakCount ? (peak + peaks[p + 1]) / 2 + 1 : bins;
+			final int shift = (int) Math.round(peak * factor) - peak;
+			
+			//rotation to apply to the region, as a unit complex number
+			double rotationReal = 1;
+			double rotationImaginary = 0;
+			if(!firstFrame){
+				final int target = peak + shift;
+				final float xr = x[2 * peak], xi = x[2 * peak + 1];
+				final float pr = previousSpectrum[2 * peak], pi = previousSpectrum[2 * peak + 1];
+				
+				//instantaneous frequency from the phase difference with the previous frame
+				double delta = Math.atan2(xi * pr - xr * pi, xr * pr + xi * pi);
+				double deviation = delta - expectedAdvance * peak;
+				deviation -= 2.0 * Math.PI * Math.rint(deviation / (2.0 * Math.PI));
+				double frequency = (expectedAdvance * peak + deviation) / analysisHop;
+				double advance = frequency * factor * synthesisHop;
+				
+				//new peak phase: previous synthesis phase at the target bin plus advance
+				double sr, si;
+				if(target > 0 && target < bins && (previousSynthesis[2 * target] != 0 || previousSynthesis[2 * target + 1] != 0)){
+					sr = previousSynthesis[2 * target];
+					si = previousSynthesis[2 * target + 1];
+				} else {
+					//no synthesis history: continue from the analysis phase
+					sr = pr;
+					si = pi;
+				}
+				double cos = Math.cos(advance), sin = Math.sin(advance);
+				double nr = sr * cos - si * sin;
+				double ni = sr * sin + si * cos;
+				//rotation = unit(new phase) * conj(unit(analysis phase))
+				double rr = nr * xr + ni * xi;
+				double ri = ni * xr - nr * xi;
+				double magnitude = Math.sqrt(rr * rr + ri * ri);
+				if(magnitude > 0){
+					rotationReal = rr / magnitude;
+					rotationImaginary = ri / magnitude;
+				}
+			}
+			
+			final float cr = (float) rotationReal, ci = (float) rotationImaginary;
+			final int from = Math.max(regionStart, 1 - shift);
+			final int to = Math.min(regionEnd, bins - shift);
+			for(int k = from ; k < to ; k++){
+				final float re = x[2 * k], im = x[2 * k + 1];
+				final int j = 2 * (k + shift);
+				y[j] += re * cr - im * ci;
+				y[j + 1] += re * ci + im * cr;
+			}
+			regionStart = regionEnd;
+		}
+	}
+	
+	private float[] outputBuffer(int length){
+		if(length >= outputBuffers.length){
+			outputBuffers = Arrays.copyOf(outputBuffers, length + 1);
+		}
+		if(outputBuffers[length] == null){
+			outputBuffers[length] = new float[length];
+		}
+		return outputBuffers[length];
+	}
+
+	@Override
+	public void processingFinished() {
+		
+	}
+}
@@ -9,6 +9,7 @@ import be.tarsos.dsp.util.fft.FFT;
  * 
  * @author Joren Six
  * @author Stephan M. Bernsee
+ * @see PhaseVocoder
  */
 public class PitchShifter implements AudioProcessor{
 	
@@ -19,6 +20,7 @@ public class PitchShifter implements AudioProcessor{
 	private final float[] currentFrequencies;
 	private final float[] outputAccumulator;
 	private final float[] summedPhase;
+	private final float[] window;
 	
 	private  float[] previousPhase;
 	
@@ -51,6 +53,11 @@ public class PitchShifter implements AudioProcessor{
 		previousPhase = new float[size/2];
 		summedPhase = new float[size/2];
 		outputAccumulator = new float[size*2];
+		
+		window = new float[size];
+		for(int i = 0 ; i<size ; i++){
+			window[i] = (float) (-.5*Math.cos(2.*Math.PI*(double)i/(double)size)+.5);
+		}
 	}
 	
 	public void setPitchShiftFactor(float newPitchShiftFactor){
@@ -65,8 +72,7 @@ public class PitchShifter implements AudioProcessor{
 		float[] fftData = audioEvent.getFloatBuffer().clone();
 		
 		for(int i = 0 ; i<size ; i++){
-			float window = (float) (-.5*Math.cos(2.*Math.PI*(double)i/(double)size)+.5);
-			fftData[i] = window * fftData[i];
+			fftData[i] = window[i] * fftData[i];
 		}
 		//Fourier transform the audio 
 		fft.forwardTransform(fftData);
@@ -153,12 +159,8 @@ public class PitchShifter implements AudioProcessor{
 		
 		fft.backwardsTransform(newFFTData);
 		for(int i = 0 ; i < newFFTData.length ; i ++){
-			float window = (float) (-.5*Math.cos(2.*Math.PI*(double)i/(double)size)+.5);
 			//outputAccumulator[i] += 2000*window*newFFTData[i]/(float) (size*osamp);
-			outputAccumulator[i] += window*newFFTData[i]/(float) osamp;
-			if(outputAccumulator[i] > 1.0 ||  outputAccumulator[i] < -1.0 ){
-				System.err.println("Clipping!");
-			}
+			outputAccumulator[i] += window[i]*newFFTData[i]/(float) osamp;
 		}
 		
 		int stepSize = (int) (size/osamp);
@@ -0,0 +1,480 @@
+/*
+*      _______                       _____   _____ _____  
+*     |__   __|                     |  __ \ / ____|  __ \ 
+*        | | __ _ _ __ ___  ___  ___| |  | | (___ | |__) |
+*        | |/ _` | '__/ __|/ _ \/ __| |  | |\___ \|  ___/ 
+*        | | (_| | |  \__ \ (_) \__ \ |__| |____) | |     
+*        |_|\__,_|_|  |___/\___/|___/_____/|_____/|_|     
+*                                                         
+* -------------------------------------------------------------
+*
+* TarsosDSP is developed by Joren Six at IPEM, University Ghent
+*  
+* -------------------------------------------------------------
+*
+*  Info: http://0110.be/tag/TarsosDSP
+*  Github: https://github.com/JorenSix/TarsosDSP
+*  Releases: http://0110.be/releases/TarsosDSP/
+*  
+*  TarsosDSP includes modified source code by various authors,
+*  for credits and info, see README.
+* 
+*/
+
+
+
+package be.tarsos.dsp;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * <p>
+ * Keeps track of the timing of an {@link AudioDispatcher} chain that runs in
+ * real-time, e.g. when connected to a microphone. The period of one buffer is
+ * known from the step size (buffer size minus overlap) and the sample rate: it is
+ * the deadline the whole chain needs to meet to keep up with the audio device.
+ * </p>
+ * <p>
+ * The monitor times each process call and counts deadline overruns. For live
+ * sources it can also estimate dropped or duplicated buffers by comparing the
+ * audio time with the wall clock time, see
+ * {@link #setXrunDetection(boolean, double)}. Optionally, processors marked as non-essential are skipped (shed) while
+ * the chain is under load. All counters can be read safely from another thread,
+ * e.g. to show them in a user interface.
+ * </p>
+ * <p>
+ * Use {@link AudioDispatcher#enableRealTimeMode()} to attach a monitor to a
+ * dispatcher.
+ * </p>
+ * 
+ * @author Joren Six
+ */
+public class RealTimeMonitor {
+	
+	/**
+	 * Log messages.
+	 */
+	private static final Logger LOG = Logger.getLogger(RealTimeMonitor.class.getName());
+	
+	/**
+	 * The default load (fraction of the period) above which non-essential processors are shed.
+	 */
+	public static final double DEFAULT_SHED_LOAD = 0.8;
+	
+	/**
+	 * The default load (fraction of the period) below which shed processors are restored.
+	 */
+	public static final double DEFAULT_RESTORE_LOAD = 0.5;
+	
+	/**
+	 * Timing information for one audio processor in the chain.
+	 */
+	public static class ProcessorTiming {
+		private volatile long calls;
+		private volatile long totalNanos;
+		private volatile long maxNanos;
+		private volatile long shed;
+		
+		/**
+		 * Timings are created by the monitor.
+		 */
+		private ProcessorTiming(){
+		}
+		
+		private void record(long nanos){
+			calls++;
+			totalNanos += nanos;
+			if(nanos > maxNanos){
+				maxNanos = nanos;
+			}
+		}
+		
+		/**
+		 * @return The number of times the process method has been called.
+		 */
+		public long getCalls() {
+			return calls;
+		}
+		
+		/**
+		 * @return The total time spent in the process method, in nanoseconds.
+		 */
+		public long getTotalNanos() {
+			return totalNanos;
+		}
+		
+		/**
+		 * @return The longest process call, in nanoseconds.
+		 */
+		public long getMaxNanos() {
+			return maxNanos;
+		}
+		
+		/**
+		 * @return The average duration of a process call, in nanoseconds.
+		 */
+		public double getAverageNanos(){
+			long c = calls;
+			return c == 0 ? 0 : totalNanos / (double) c;
+		}
+		
+		/**
+		 * @return The number of buffers that were not processed because the processor was shed.
+		 */
+		public long getShed() {
+			return shed;
+		}
+	}
+
+	/**
+	 * The period of one buffer in nanoseconds.
+	 */
+	private long periodNanos;
+	
+	private final Map<AudioProcessor,ProcessorTiming> timings;
+	private final Set<AudioProcessor> nonEssential;
+	private final Set<AudioProcessor> excludedFromDeadline;
+	
+	private boolean sheddingEnabled;
+	private double shedLoad;
+	private double restoreLoad;
+	private volatile boolean shedding;
+	
+	private boolean xrunDetection;
+	/**
+	 * The tolerance in seconds, or a negative value to use two periods.
+	 */
+	private double xrunTolerance;
+	
+	private LongSupplier clock;
+	
+	private volatile long buffersProcessed;
+	private volatile long deadlineOverruns;
+	private volatile long droppedBuffers;
+	private volatile long duplicatedBuffers;
+	private volatile long maxChainNanos;
+	private volatile long totalChainNanos;
+	private volatile double lastLoad;
+	
+	private long startNanos;
+	private double startTimeStamp;
+	/**
+	 * The number of periods the stream is known to lag behind (positive) or
+	 * run ahead of (negative) the wall clock, already counted as xruns.
+	 */
+	private long slipped;
+	
+	/**
+	 * Create a new monitor for a chain with the given framing.
+	 * @param sampleRate The sample rate of the audio in Hz.
+	 * @param audioBufferSize The size of the buffer in samples.
+	 * @param bufferOverlap The overlap between consecutive buffers in samples.
+	 */
+	public RealTimeMonitor(float sampleRate, int audioBufferSize, int bufferOverlap){
+		// Concurrent collections allow configuring the monitor while the
+		// dispatcher is running.
+		timings = new ConcurrentHashMap<AudioProcessor,ProcessorTiming>();
+		nonEssential = ConcurrentHashMap.newKeySet();
+		excludedFromDeadline = ConcurrentHashMap.newKeySet();
+		shedLoad = DEFAULT_SHED_LOAD;
+		restoreLoad = DEFAULT_RESTORE_LOAD;
+		xrunDetection = false;
+		xrunTolerance = -1;
+		clock = System::nanoTime;
+		setFraming(sampleRate, audioBufferSize, bufferOverlap);
+		reset();
+	}
+	
+	/**
+	 * Change the framing, e.g. after the step size and overlap of the dispatcher changed.
+	 * @param sampleRate The sample rate of the audio in Hz.
+	 * @param audioBufferSize The size of the buffer in samples.
+	 * @param bufferOverlap The overlap between consecutive buffers in samples.
+	 */
+	public void setFraming(float sampleRate, int audioBufferSize, int bufferOverlap){
+		int stepSize = audioBufferSize - bufferOverlap;
+		periodNanos = Math.round(stepSize / (double) sampleRate * 1e9);
+	}
+	
+	/**
+	 * Replace the clock used to time the chain, by default
+	 * {@link System#nanoTime()}. This is meant for tests, or to follow the
+	 * clock of an audio device.
+	 * @param clock A clock returning the time in nanoseconds.
+	 */
+	public void setClock(LongSupplier clock){
+		this.clock = clock;
+	}
+	
+	/**
+	 * Mark a processor as non-essential: it is skipped while the chain is under load and shedding is enabled.
+	 * @param processor The processor that can be skipped under load.
+	 */
+	public void setNonEssential(AudioProcessor processor){
+		nonEssential.add(processor);
+	}
+	
+	/**
+	 * Exclude a processor from the deadline calculation. This is meant for
+	 * processors that block on purpose to keep in sync with an audio device,
+	 * like an audio player blocking on a write call. Its duration is still
+	 * timed.
+	 * @param processor The processor to exclude from the chain load.
+	 */
+	public void excludeFromDeadline(AudioProcessor processor){
+		excludedFromDeadline.add(processor);
+	}
+	
+	/**
+	 * Enable or disable shedding non-essential processors under load.
+	 * @param enabled True if non-essential processors should be skipped under load.
+	 */
+	public void setShedding(boolean enabled){
+		setShedding(enabled, DEFAULT_SHED_LOAD, DEFAULT_RESTORE_LOAD);
+	}
+	
+	/**
+	 * Enable or disable shedding non-essential processors under load.
+	 * @param enabled True if non-essential processors should be skipped under load.
+	 * @param shedLoad The load, as a fraction of the period, above which non-essential processors are skipped.
+	 * @param restoreLoad The load, as a fraction of the period, below which non-essential processors are executed again. 
+	 */
+	public void setShedding(boolean enabled, double shedLoad, double restoreLoad){
+		if(restoreLoad > shedLoad){
+			throw new IllegalArgumentException("The restore load should be smaller than the shed load.");
+		}
+		this.sheddingEnabled = enabled;
+		this.shedLoad = shedLoad;
+		this.restoreLoad = restoreLoad;
+		if(!enabled){
+			shedding = false;
+		}
+	}
+	
+	/**
+	 * Dropped and duplicated buffers are estimated by comparing the time in
+	 * the audio stream with the wall clock time. The stream may drift two
+	 * periods from the wall clock. This only makes sense for live sources, it
+	 * is disabled by default.
+	 * @param enabled True if dropped and duplicated buffers should be counted.
+	 */
+	public void setXrunDetection(boolean enabled){
+		setXrunDetection(enabled, -1);
+	}
+	
+	/**
+	 * Dropped and duplicated buffers are estimated by comparing the time in
+	 * the audio stream with the wall clock time. This only makes sense for
+	 * live sources, it is disabled by default.
+	 * @param enabled True if dropped and duplicated buffers should be counted.
+	 * @param toleranceInSeconds How much the stream may drift from the wall clock before a buffer counts as dropped or duplicated, a negative value means two periods. The tolerance is kept when the framing changes.
+	 */
+	public void setXrunDetection(boolean enabled, double toleranceInSeconds){
+		this.xrunDetection = enabled;
+		this.xrunTolerance = toleranceInSeconds;
+	}
+	
+	/**
+	 * Reset all counters.
+	 */
+	public void reset(){
+		buffersProcessed = 0;
+		deadlineOverruns = 0;
+		droppedBuffers = 0;
+		duplicatedBuffers = 0;
+		maxChainNanos = 0;
+		totalChainNanos = 0;
+		lastLoad = 0;
+		shedding = false;
+		timings.clear();
+	}
+	
+	/**
+	 * Sends the audio event through the chain of processors while timing each call.
+	 * @param audioEvent The audio event to process.
+	 * @param audioProcessors The chain of processors.
+	 */
+	void process(AudioEvent audioEvent, List<AudioProcessor> audioProcessors){
+		final LongSupplier clock = this.clock;
+		long bufferStart = clock.getAsLong();
+		if(xrunDetection){
+			detectXruns(audioEvent, bufferStart);
+		}
+		
+		long chainNanos = 0;
+		boolean shedNow = shedding;
+		for (final AudioProcessor processor : audioProcessors) {
+			ProcessorTiming timing = timing(processor);
+			if(shedNow && nonEssential.contains(processor)){
+				timing.shed++;
+				continue;
+			}
+			long start = clock.getAsLong();
+			boolean proceed = processor.process(audioEvent);
+			long duration = clock.getAsLong() - start;
+			timing.record(duration);
+			if(!excludedFromDeadline.contains(processor)){
+				chainNanos += duration;
+			}
+			if(!proceed){
+				//skip to the next audio processors if false is returned.
+				break;
+			}
+		}
+		
+		buffersProcessed++;
+		totalChainNanos += chainNanos;
+		if(chainNanos > maxChainNanos){
+			maxChainNanos = chainNanos;
+		}
+		double load = chainNanos / (double) periodNanos;
+		lastLoad = load;
+		if(chainNanos > periodNanos){
+			deadlineOverruns++;
+			if(LOG.isLoggable(Level.FINE)){
+				LOG.fine(String.format("Deadline overrun at %.3fs: chain took %.3fms, period is %.3fms", audioEvent.getTimeStamp(), chainNanos / 1e6, periodNanos / 1e6));
+			}
+		}
+		if(sheddingEnabled){
+			if(!shedding && load > shedLoad){
+				shedding = true;
+			}else if(shedding && load < restoreLoad){
+				shedding = false;
+			}
+		}
+	}
+	
+	private ProcessorTiming timing(AudioProcessor processor){
+		ProcessorTiming timing = timings.get(processor);
+		if(timing == null){
+			timing = new ProcessorTiming();
+			timings.put(processor, timing);
+		}
+		return timing;
+	}
+	
+	/**
+	 * Compares the audio time with the wall clock time. If the stream falls
+	 * behind the clock audio was lost (e.g. the capture buffer overflowed), if
+	 * it runs ahead buffers were repeated or delivered too fast. A stream that
+	 * returns within the tolerance caught up, e.g. a buffered capture line
+	 * delivering late buffers, and is not counted again.
+	 */
+	private void detectXruns(AudioEvent audioEvent, long now){
+		if(buffersProcessed == 0){
+			startNanos = now;
+			startTimeStamp = audioEvent.getTimeStamp();
+			slipped = 0;
+			return;
+		}
+		double wallTime = (now - startNanos) / 1e9;
+		double streamTime = audioEvent.getTimeStamp() - startTimeStamp;
+		double drift = wallTime - streamTime;
+		double period = periodNanos / 1e9;
+		// by default allow the stream to drift two periods from the wall clock
+		double xrunTolerance = this.xrunTolerance < 0 ? 2 * period : this.xrunTolerance;
+		if(drift > xrunTolerance){
+			long slip = (long) ((drift - xrunTolerance) / period) + 1;
+			long accounted = Math.max(slipped, 0);
+			if(slip > accounted){
+				droppedBuffers += slip - accounted;
+				slipped = slip;
+			}
+		}else if(drift < -xrunTolerance){
+			long slip = (long) ((drift + xrunTolerance) / period) - 1;
+			long accounted = Math.min(slipped, 0);
+			if(slip < accounted){
+				duplicatedBuffers += accounted - slip;
+				slipped = slip;
+			}
+		}else{
+			// caught up with the wall clock
+			slipped = 0;
+		}
+	}
+	
+	/**
+	 * @return The period of one buffer, the deadline for the chain, in nanoseconds.
+	 */
+	public long getPeriodNanos(){
+		return periodNanos;
+	}
+	
+	/**
+	 * @return The number of buffers sent through the chain.
+	 */
+	public long getBuffersProcessed() {
+		return buffersProcessed;
+	}
+	
+	/**
+	 * @return The number of buffers for which the chain took longer than the period.
+	 */
+	public long getDeadlineOverruns() {
+		return deadlineOverruns;
+	}
+	
+	/**
+	 * @return The estimated number of buffers lost because the stream fell behind the wall clock.
+	 */
+	public long getDroppedBuffers() {
+		return droppedBuffers;
+	}
+	
+	/**
+	 * @return The estimated number of buffers that were delivered ahead of the wall clock.
+	 */
+	public long getDuplicatedBuffers() {
+		return duplicatedBuffers;
+	}
+	
+	/**
+	 * @return The longest chain duration, in nanoseconds.
+	 */
+	public long getMaxChainNanos(){
+		return maxChainNanos;
+	}
+	
+	/**
+	 * @return The chain duration of the last buffer as a fraction of the period.
+	 */
+	public double getLoad(){
+		return lastLoad;
+	}
+	
+	/**
+	 * @return The average chain duration as a fraction of the period.
+	 */
+	public double getAverageLoad(){
+		long buffers = buffersProcessed;
+		return buffers == 0 ? 0 : totalChainNanos / (double) buffers / periodNanos;
+	}
+	
+	/**
+	 * @return True if non-essential processors are currently being skipped.
+	 */
+	public boolean isShedding(){
+		return shedding;
+	}
+	
+	/**
+	 * Returns the timing information of a processor.
+	 * @param processor The processor in the chain.
+	 * @return The timing information or null if the processor has not been called yet.
+	 */
+	public ProcessorTiming getTiming(AudioProcessor processor){
+		return timings.get(processor);
+	}
+	
+	@Override
+	public String toString(){
+		return String.format("%d buffers, %d overruns, %d dropped, %d duplicated, load %.2f (avg %.2f, max %.2f)",
+				buffersProcessed, deadlineOverruns, droppedBuffers, duplicatedBuffers, lastLoad, getAverageLoad(), maxChainNanos / (double) periodNanos);
+	}
+}
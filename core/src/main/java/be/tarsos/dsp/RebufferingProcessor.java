@@ -0,0 +1,246 @@
+/*
+*      _______                       _____   _____ _____  
+*     |__   __|                     |  __ \ / ____|  __ \ 
+*        | | __ _ _ __ ___  ___  ___| |  | | (___ | |__) |
+*        | |/ _` | '__/ __|/ _ \/ __| |  | |\___ \|  ___/ 
+*        | | (_| | |  \__ \ (_) \__ \ |__| |____) | |     
+*        |_|\__,_|_|  |___/\___/|___/_____/|_____/|_|     
+*                                                         
+* -------------------------------------------------------------
+*
+* TarsosDSP is developed by Joren Six at IPEM, University Ghent
+*  
+* -------------------------------------------------------------
+*
+*  Info: http://0110.be/tag/TarsosDSP
+*  Github: https://github.com/JorenSix/TarsosDSP
+*  Releases: http://0110.be/releases/TarsosDSP/
+*  
+*  TarsosDSP includes modified source code by various authors,
+*  for credits and info, see README.
+* 
+*/
+
+
+
+
+package be.tarsos.dsp;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import be.tarsos.dsp.io.TarsosDSPAudioFormat;
+
+/**
+ * Drives a nested chain of processors with its own buffer size and overlap.
+ * An {@link AudioDispatcher} uses one buffer size and overlap for all its
+ * processors; processors with other demands can be attached to a
+ * re-buffering processor instead. E.g. a {@link ConstantQ} transform, which
+ * needs buffers of exactly {@link ConstantQ#getFFTlength()} samples, next to
+ * MFCCs calculated on buffers of 512 samples:
+ * 
+ * <pre>
+ * AudioDispatcher dispatcher = AudioDispatcherFactory.fromFile(file, 512, 256);
+ * dispatcher.addAudioProcessor(mfcc);
+ * RebufferingProcessor rebuffer = new RebufferingProcessor(dispatcher.getFormat(), constantQ.getFFTlength(), constantQ.getFFTlength() - 2048);
+ * rebuffer.addAudioProcessor(constantQ);
+ * dispatcher.addAudioProcessor(rebuffer);
+ * </pre>
+ * <p>
+ * The new samples of every incoming buffer are written to a ring buffer.
+ * As soon as enough samples are available a window is copied from the ring
+ * buffer and sent through the nested chain, with time stamps that follow the
+ * same conventions as the dispatcher. Since every window is copied from the
+ * ring buffer, nested processors can modify their buffer without affecting
+ * the next window. The overlap of the incoming buffers is ignored. When
+ * processing finishes the last, partial window is zero padded and
+ * processed.
+ * </p>
+ * <p>
+ * Multichannel audio is supported: sizes are then expressed in sample
+ * frames, like for the dispatcher.
+ * </p>
+ * 
+ * @author Joren Six
+ */
+public class RebufferingProcessor implements AudioProcessor {
+
+	private final TarsosDSPAudioFormat format;
+	private final int channels;
+	private final int bufferSize;
+	private final int overlap;
+	private final List<AudioProcessor> processors;
+	private final AudioEvent audioEvent;
+
+	/** The window sent through the nested chain, in samples. */
+	private final float[] window;
+	/** The ring buffer, its length is a power of two. */
+	private final float[] ring;
+	private final int mask;
+	/** The total number of samples written to the ring buffer. */
+	private long written;
+	/** The ring position (total sample count) of the start of the next window. */
+	private long windowStart;
+
+	/** The frame index of the first sample of the stream. */
+	private long streamOffset;
+	private boolean started;
+	private boolean firstWindow;
+
+	/**
+	 * Create a new re-buffering processor.
+	 * 
+	 * @param format
+	 *            The format of the incoming audio, also used for the nested
+	 *            chain.
+	 * @param bufferSize
+	 *            The size of the buffers for the nested chain, in samples (or
+	 *            sample frames for multichannel audio).
+	 * @param overlap
+	 *            The overlap between consecutive buffers of the nested chain.
+	 */
+	public RebufferingProcessor(TarsosDSPAudioFormat format, int bufferSize, int overlap) {
+		if (overlap < 0 || overlap >= bufferSize) {
+			throw new IllegalArgumentException("The overlap should be smaller than the buffer size: " + overlap + " >= " + bufferSize);
+		}
+		this.format = format;
+		this.channels = format.getChannels();
+		this.bufferSize = bufferSize;
+		this.overlap = overlap;
+		this.processors = new CopyOnWriteArrayList<AudioProcessor>();
+		this.audioEvent = new AudioEvent(format);
+		this.window = new float[bufferSize * channels];
+		this.ring = new float[Integer.highestOneBit(window.length * 2 - 1)];
+		this.mask = ring.length - 1;
+		this.firstWindow = true;
+	}
+
+	/**
+	 * Adds a processor to the end of the nested chain.
+	 * 
+	 * @param processor
+	 *            The processor to add.
+	 */
+	public void addAudioProcessor(AudioProcessor processor) {
+		processors.add(processor);
+	}
+
+	/**
+	 * Removes a processor from the nested chain.
+	 * 
+	 * @param processor
+	 *            The processor to remove.
+	 */
+	public void removeAudioProcessor(AudioProcessor processor) {
+		processors.remove(processor);
+		processor.processingFinished();
+	}
+
+	/**
+	 * @return The format of the audio in the nested chain.
+	 */
+	public TarsosDSPAudioFormat getFormat() {
+		return format;
+	}
+
+	/**
+	 * @return The buffer size of the nested chain.
+	 */
+	public int getBufferSize() {
+		return bufferSize;
+	}
+
+	/**
+	 * @return The overlap of the nested chain.
+	 */
+	public int getOverlap() {
+		return overlap;
+	}
+
+	@Override
+	public boolean process(AudioEvent event) {
+		if (!started) {
+			// follow the position of the outer stream, e.g. after skipping
+			streamOffset = event.getSamplesProcessed();
+			started = true;
+		}
+		final float[] buffer = event.getFloatBuffer();
+		final int eventOverlap = event.getOverlap();
+		feed(buffer, eventOverlap, buffer.length - eventOverlap);
+		return true;
+	}
+
+	/**
+	 * Adds samples to the stream and processes every window that is
+	 * completed by them.
+	 * 
+	 * @param samples
+	 *            The new samples, interleaved for multichannel audio.
+	 * @param offset
+	 *            The index of the first new sample.
+	 * @param length
+	 *            The number of new samples.
+	 */
+	public void feed(float[] samples, int offset, int length) {
+		int position = offset;
+		final int end = offset + length;
+		while (position < end) {
+			// never overwrite samples of the pending window
+			final int free = (int) (ring.length - (written - windowStart));
+			final int count = Math.min(free, end - position);
+			final int start = (int) (written & mask);
+			final int first = Math.min(count, ring.length - start);
+			System.arraycopy(samples, position, ring, start, first);
+			System.arraycopy(samples, position + first, ring, 0, count - first);
+			written += count;
+			position += count;
+			while (written - windowStart >= window.length) {
+				dispatch(window.length);
+			}
+		}
+	}
+
+	/**
+	 * Copies the next window from the ring buffer and sends it through the
+	 * nested chain.
+	 * 
+	 * @param available
+	 *            The number of samples of the window that are available, the
+	 *            rest is set to zero.
+	 */
+	private void dispatch(int available) {
+		final int start = (int) (windowStart & mask);
+		final int first = Math.min(available, ring.length - start);
+		System.arraycopy(ring, start, window, 0, first);
+		System.arraycopy(ring, 0, window, first, available - first);
+		Arrays.fill(window, available, window.length, 0);
+
+		final int eventOverlap = firstWindow ? 0 : overlap * channels;
+		final long firstNewFrame = streamOffset + (windowStart + eventOverlap) / channels;
+		audioEvent.setFloatBuffer(window);
+		audioEvent.setOverlap(eventOverlap);
+		audioEvent.setBytesProcessed(firstNewFrame * format.getFrameSize());
+		audioEvent.setBytesProcessing((window.length - eventOverlap) / channels * format.getFrameSize());
+		for (AudioProcessor processor : processors) {
+			if (!processor.process(audioEvent)) {
+				break;
+			}
+		}
+		firstWindow = false;
+		windowStart += window.length - overlap * channels;
+	}
+
+	@Override
+	public void processingFinished() {
+		// process the remaining samples, if any were not processed yet
+		final long pending = written - windowStart;
+		final int alreadyProcessed = firstWindow ? 0 : overlap * channels;
+		if (pending > alreadyProcessed) {
+			dispatch((int) pending);
+		}
+		for (AudioProcessor processor : processors) {
+			processor.processingFinished();
+		}
+	}
+}
@@ -65,13 +65,7 @@ public class SilenceDetector implements AudioProcessor {
 	 *         the signal present in the current buffer.
 	 */
 	public static double calculateRMS(float[] floatBuffer){
-		double rms = 0.0;
-		for (int i = 0; i < floatBuffer.length; i++) {
-			rms += floatBuffer[i] * floatBuffer[i];
-		}
-		rms = rms / Double.valueOf(floatBuffer.length);
-		rms = Math.sqrt(rms);
-		return rms;
+		return AudioEvent.calculateRMS(floatBuffer);
 	}
 
 	/**
@@ -124,7 +118,9 @@ public class SilenceDetector implements AudioProcessor {
 
 	@Override
 	public boolean process(AudioEvent audioEvent) {
-		boolean isSilence = isSilence(audioEvent.getFloatBuffer());
+		//the level is calculated once per block and shared with other processors
+		currentSPL = audioEvent.getdBSPL();
+		boolean isSilence = currentSPL < threshold;
 		//break processing chain on silence?
 		if(breakProcessingQueueOnSilence){
 			//break if silent
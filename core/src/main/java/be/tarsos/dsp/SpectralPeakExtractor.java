@@ -0,0 +1,245 @@
+/*
+*      _______                       _____   _____ _____  
+*     |__   __|                     |  __ \ / ____|  __ \ 
+*        | | __ _ _ __ ___  ___  ___| |  | | (___ | |__) |
+*        | |/ _` | '__/ __|/ _ \/ __| |  | |\___ \|  ___/ 
+*        | | (_| | |  \__ \ (_) \__ \ |__| |____) | |     
+*        |_|\__,_|_|  |___/\___/|___/_____/|_____/|_|     
+*                                                         
+* -------------------------------------------------------------
+*
+* TarsosDSP is developed by Joren Six at IPEM, University Ghent
+*  
+* -------------------------------------------------------------
+*
+*  Info: http://0110.be/tag/TarsosDSP
+*  Github: https://github.com/JorenSix/TarsosDSP
+*  Releases: http://0110.be/releases/TarsosDSP/
+*  
+*  TarsosDSP includes modified source code by various authors,
+*  for credits and info, see README.
+* 
+*/
+
+
+
+package be.tarsos.dsp;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import be.tarsos.dsp.SpectralPeakProcessor.SpectralPeak;
+import be.tarsos.dsp.util.PitchConverter;
+
+/**
+ * <p>
+ * Extracts the strongest spectral peaks from a frame of magnitudes, with the
+ * same rules as
+ * {@link SpectralPeakProcessor#findLocalMaxima(float[], float[])} followed by
+ * {@link SpectralPeakProcessor#findPeaks(float[], float[], List, int, int)},
+ * but without boxing, list removals or allocations per frame.
+ * </p>
+ * <p>
+ * A peak is a local maximum above the noise floor with a positive frequency
+ * estimate. Of two peaks closer than the minimum distance in cents the weaker
+ * one is dropped, in one pass over the peaks from low to high bins. The cent
+ * value of each peak is calculated only once. Of the remaining peaks the
+ * strongest are kept;
+ * a small min-heap determines the magnitude threshold. The results are stored
+ * in arrays in the extractor, ordered by bin, and are overwritten by the next
+ * call to {@link #extract(float[], float[], float[])}.
+ * </p>
+ *
+ * @author Joren Six
+ */
+public class SpectralPeakExtractor {
+
+	private final int maxPeaks;
+	private final int minDistanceInCents;
+
+	/** The surviving local maxima, a stack while filtering on distance. */
+	private int[] candidates;
+	private double[] candidateCents;
+	/** Min-heap with the largest candidate magnitudes. */
+	private final float[] heap;
+
+	private final int[] bins;
+	private final float[] frequencies;
+	private final float[] magnitudes;
+	private int peakCount;
+	private float referenceFrequency;
+
+	/**
+	 * Create a new peak extractor.
+	 * @param maxPeaks The maximum number of peaks per frame.
+	 * @param minDistanceInCents The minimum distance in cents between peaks.
+	 */
+	public SpectralPeakExtractor(int maxPeaks, int minDistanceInCents) {
+		if(maxPeaks < 1){
+			throw new IllegalArgumentException("The number of peaks should be positive, it is " + maxPeaks);
+		}
+		this.maxPeaks = maxPeaks;
+		this.minDistanceInCents = minDistanceInCents;
+		candidates = new int[0];
+		candidateCents = new double[0];
+		heap = new float[maxPeaks];
+		bins = new int[maxPeaks];
+		frequencies = new float[maxPeaks];
+		magnitudes = new float[maxPeaks];
+	}
+
+	/**
+	 * Extracts the peaks of a frame.
+	 *
+	 * @param magnitudes The magnitudes of the frame, e.g. from {@link SpectralPeakProcessor#getMagnitudes()}.
+	 * @param frequencyEstimates The frequency estimate of each bin, e.g. from {@link SpectralPeakProcessor#getFrequencyEstimates()}.
+	 * @param noiseFloor Peaks should rise above this value, e.g. from {@link SpectralPeakProcessor#calculateNoiseFloor(float[], int, float)}.
+	 * @return The number of peaks found.
+	 */
+	public int extract(float[] magnitudes, float[] frequencyEstimates, float[] noiseFloor) {
+		final int length = magnitudes.length;
+		if(candidates.length < length / 2 + 1){
+			candidates = new int[length / 2 + 1];
+			candidateCents = new double[length / 2 + 1];
+		}
+
+		//the local maxima, the weaker of two close peaks is dropped
+		int candidateCount = 0;
+		int maxIndex = 0;
+		float max = -1e6f;
+		for(int i = 1 ; i < length - 1 ; i++){
+			final float magnitude = magnitudes[i];
+			if(magnitude > max){
+				max = magnitude;
+				maxIndex = i;
+			}
+			if(!(magnitudes[i - 1] < magnitude && magnitude > magnitudes[i + 1] && magnitude > noiseFloor[i]) || !(frequencyEstimates[i] > 0)){
+				continue;
+			}
+			final double cents = PitchConverter.hertzToAbsoluteCent(frequencyEstimates[i]);
+			boolean keep = true;
+			while(candidateCount > 0 && cents - candidateCents[candidateCount - 1] < minDistanceInCents){
+				if(magnitude > magnitudes[candidates[candidateCount - 1]]){
+					candidateCount--;
+				} else {
+					keep = false;
+					break;
+				}
+			}
+			if(keep){
+				candidates[candidateCount] = i;
+				candidateCents[candidateCount] = cents;
+				candidateCount++;
+			}
+		}
+		referenceFrequency = frequencyEstimates[maxIndex];
+
+		//the threshold is the smallest of the largest magnitudes
+		int heapSize = 0;
+		for(int c = 0 ; c < candidateCount ; c++){
+			final float magnitude = magnitudes[candidates[c]];
+			if(heapSize < maxPeaks){
+				heap[heapSize] = magnitude;
+				siftUp(heapSize++);
+			} else if(magnitude > heap[0]){
+				heap[0] = magnitude;
+				siftDown(heapSize);
+			}
+		}
+		final float threshold = heapSize == 0 ? 0 : heap[0];
+
+		peakCount = 0;
+		for(int c = 0 ; c < candidateCount && peakCount < maxPeaks ; c++){
+			final int bin = candidates[c];
+			if(magnitudes[bin] >= threshold){
+				bins[peakCount] = bin;
+				frequencies[peakCount] = frequencyEstimates[bin];
+				this.magnitudes[peakCount] = magnitudes[bin];
+				peakCount++;
+			}
+		}
+		return peakCount;
+	}
+
+	private void siftUp(int position) {
+		final float value = heap[position];
+		while(position > 0){
+			final int parent = (position - 1) >> 1;
+			if(heap[parent] <= value){
+				break;
+			}
+			heap[position] = heap[parent];
+			position = parent;
+		}
+		heap[position] = value;
+	}
+
+	private void siftDown(int size) {
+		final float value = heap[0];
+		int position = 0;
+		while(true){
+			int child = 2 * position + 1;
+			if(child >= size){
+				break;
+			}
+			if(child + 1 < size && heap[child + 1] < heap[child]){
+				child++;
+			}
+			if(heap[child] >= value){
+				break;
+			}
+			heap[position] = heap[child];
+			position = child;
+		}
+		heap[position] = value;
+	}
+
+	/**
+	 * @return The number of peaks found in the last frame.
+	 */
+	public int getPeakCount() {
+		return peakCount;
+	}
+
+	/**
+	 * @return The bins of the peaks, the first {@link #getPeakCount()} values are valid.
+	 */
+	public int[] getBins() {
+		return bins;
+	}
+
+	/**
+	 * @return The frequencies of the peaks in Hz, the first {@link #getPeakCount()} values are valid.
+	 */
+	public float[] getFrequencies() {
+		return frequencies;
+	}
+
+	/**
+	 * @return The magnitudes of the peaks, the first {@link #getPeakCount()} values are valid.
+	 */
+	public float[] getMagnitudes() {
+		return magnitudes;
+	}
+
+	/**
+	 * @return The frequency of the bin with the largest magnitude in the last frame.
+	 */
+	public float getReferenceFrequency() {
+		return referenceFrequency;
+	}
+
+	/**
+	 * Creates peak objects for the peaks of the last frame, for code that
+	 * works with lists of peaks.
+	 * @param timeStamp The time stamp of the frame, in seconds.
+	 * @return A new list with the peaks.
+	 */
+	public List<SpectralPeak> getPeakList(float timeStamp) {
+		List<SpectralPeak> peaks = new ArrayList<SpectralPeak>(peakCount);
+		for(int i = 0 ; i < peakCount ; i++){
+			peaks.add(new SpectralPeak(timeStamp, frequencies[i], magnitudes[i], referenceFrequency, bins[i]));
+		}
+		return peaks;
+	}
+}
@@ -28,6 +28,7 @@ import java.util.Arrays;
 import java.util.List;
 
 import be.tarsos.dsp.util.PitchConverter;
+import be.tarsos.dsp.util.RunningPercentile;
 import be.tarsos.dsp.util.fft.FFT;
 import be.tarsos.dsp.util.fft.HammingWindow;
 
@@ -90,9 +91,15 @@ public class SpectralPeakProcessor implements AudioProcessor {
 	private final double inv_2pideltat;
 
 	/**
-	 * The fft object used to calculate phase and magnitudes.
+	 * The fft object used to calculate phase and magnitudes, or null if a
+	 * shared spectrum is used.
 	 */
 	private final FFT fft;
+	
+	/**
+	 * The shared spectrum, or null.
+	 */
+	private final SpectrumProcessor spectrum;
 
 	/**
 	 * The pahse info of the current frame.
@@ -117,7 +124,29 @@ public class SpectralPeakProcessor implements AudioProcessor {
 	
 
 	public SpectralPeakProcessor(int bufferSize, int overlap, int sampleRate) {
-		fft = new FFT(bufferSize, new HammingWindow());
+		this(bufferSize, overlap, sampleRate, new FFT(bufferSize, new HammingWindow()), null);
+	}
+	
+	/**
+	 * Create a spectral peak processor which uses a shared spectrum. To get
+	 * the same results as with its own FFT the spectrum should use a
+	 * {@link HammingWindow}.
+	 * 
+	 * @param spectrum
+	 *            The shared spectrum, added to the chain before this
+	 *            processor.
+	 * @param overlap
+	 *            The overlap of the audio buffers.
+	 * @param sampleRate
+	 *            The sample rate of the audio.
+	 */
+	public SpectralPeakProcessor(SpectrumProcessor spectrum, int overlap, int sampleRate) {
+		this(spectrum.getBufferSize(), overlap, sampleRate, null, spectrum);
+	}
+	
+	private SpectralPeakProcessor(int bufferSize, int overlap, int sampleRate, FFT fft, SpectrumProcessor spectrum) {
+		this.fft = fft;
+		this.spectrum = spectrum;
 
 		magnitudes = new float[bufferSize / 2];
 		currentPhaseOffsets = new float[bufferSize / 2];
@@ -135,6 +164,12 @@ public class SpectralPeakProcessor implements AudioProcessor {
 	}
 
 	private void calculateFFT(float[] audio) {
+		if(spectrum != null){
+			// Copy the shared spectrum, the magnitudes are normalized in place
+			System.arraycopy(spectrum.getMagnitudes(), 0, magnitudes, 0, magnitudes.length);
+			System.arraycopy(spectrum.getPhases(), 0, currentPhaseOffsets, 0, currentPhaseOffsets.length);
+			return;
+		}
 		// Clone to prevent overwriting audio data
 		float[] fftData = audio.clone();
 		// Extract the power and phase data
@@ -222,7 +257,7 @@ public class SpectralPeakProcessor implements AudioProcessor {
 			long k = Math.round(cbin * binIndex - inv_2pi * phaseDelta);
 			frequencyInHertz = (float) (inv_2pideltat * phaseDelta  + inv_deltat * k);
 		} else {
-			frequencyInHertz = (float) fft.binToHz(binIndex, sampleRate);
+			frequencyInHertz = (float) (binIndex * sampleRate / (double) (magnitudes.length * 2));
 		}
 		return frequencyInHertz;
 	}
@@ -236,27 +271,23 @@ public class SpectralPeakProcessor implements AudioProcessor {
 	 * @return a float array representing the noise floor.
 	 */
 	public static float[] calculateNoiseFloor(float[] magnitudes, int medianFilterLength, float noiseFloorFactor) {
-		double[] noiseFloorBuffer;
 		float[] noisefloor = new float[magnitudes.length];
 		
 		float median = (float) median(magnitudes.clone());
 		
-		// Naive median filter implementation.
-		// For each element take a median of surrounding values (noiseFloorBuffer) 
+		// Running median filter: for each element the median of the surrounding
+		// values, the window slides one value per element. Values outside of the
+		// magnitudes are replaced by the overall median.
 		// Store the median as the noise floor.
-		for (int i = 0; i < magnitudes.length; i++) {
-			noiseFloorBuffer = new double[medianFilterLength];
-			int index = 0;
-			for (int j = i - medianFilterLength/2; j <= i + medianFilterLength/2 && index < noiseFloorBuffer.length; j++) {
-			  if(j >= 0 && j < magnitudes.length){
-				noiseFloorBuffer[index] = magnitudes[j];
-			  } else{
-				noiseFloorBuffer[index] = median;
-			  } 
-			  index++;
-			}		
+		RunningPercentile window = new RunningPercentile(medianFilterLength);
+		int next = -medianFilterLength/2;
+		for (; next < -medianFilterLength/2 + medianFilterLength - 1; next++) {
+			window.add(next >= 0 && next < magnitudes.length ? magnitudes[next] : median);
+		}
+		for (int i = 0; i < magnitudes.length; i++, next++) {
+			window.add(next >= 0 && next < magnitudes.length ? magnitudes[next] : median);
 			// calculate the noise floor value.
-			noisefloor[i] = (float) (median(noiseFloorBuffer) * (noiseFloorFactor)) ;
+			noisefloor[i] = ((float) window.get()) * noiseFloorFactor;
 		}
 		
 		float rampLength = 12.0f;
@@ -409,14 +440,24 @@ public class SpectralPeakProcessor implements AudioProcessor {
 		return (float) ((i + 1 - t)*arr[i] + (t - i)*arr[i + 1]);
 	}
 	
+	/**
+	 * Returns the median of an array. The order of the values in the array is
+	 * changed by this method.
+	 * @param m The values.
+	 * @return The median, the mean of the two middle values for an even number of values.
+	 */
 	public static double median(float[] m) {
-//		Sort the array in ascending order.
-		Arrays.sort(m);
 	    int middle = m.length/2;
+	    float upperMiddle = RunningPercentile.select(m, m.length, middle);
 	    if (m.length%2 == 1) {
-	        return m[middle];
+	        return upperMiddle;
 	    } else {
-	        return (m[middle-1] + m[middle]) / 2.0;
+	        //after selection the values before the middle are not larger than it
+	        float lowerMiddle = m[0];
+	        for (int i = 1; i < middle; i++) {
+	            lowerMiddle = Math.max(lowerMiddle, m[i]);
+	        }
+	        return (lowerMiddle + upperMiddle) / 2.0;
 	    }
 	}
 	
@@ -0,0 +1,176 @@
+/*
+*      _______                       _____   _____ _____  
+*     |__   __|                     |  __ \ / ____|  __ \ 
+*        | | __ _ _ __ ___  ___  ___| |  | | (___ | |__) |
+*        | |/ _` | '__/ __|/ _ \/ __| |  | |\___ \|  ___/ 
+*        | | (_| | |  \__ \ (_) \__ \ |__| |____) | |     
+*        |_|\__,_|_|  |___/\___/|___/_____/|_____/|_|     
+*                                                         
+* -------------------------------------------------------------
+*
+* TarsosDSP is developed by Joren Six at IPEM, University Ghent
+*  
+* -------------------------------------------------------------
+*
+*  Info: http://0110.be/tag/TarsosDSP
+*  Github: https://github.com/JorenSix/TarsosDSP
+*  Releases: http://0110.be/releases/TarsosDSP/
+*  
+*  TarsosDSP includes modified source code by various authors,
+*  for credits and info, see README.
+* 
+*/
+
+
+
+package be.tarsos.dsp;
+
+import be.tarsos.dsp.util.fft.FFT;
+import be.tarsos.dsp.util.fft.WindowFunction;
+
+/**
+ * <p>
+ * Calculates the spectrum of each audio buffer once so that several spectral
+ * processors can share it. Add the spectrum processor to the dispatcher before
+ * the processors which use it, these are constructed with the spectrum
+ * processor instead of their own FFT:
+ * </p>
+ * <code>
+SpectrumProcessor spectrum = new SpectrumProcessor(bufferSize, new HammingWindow());
+dispatcher.addAudioProcessor(spectrum);
+dispatcher.addAudioProcessor(new MFCC(spectrum, sampleRate));
+dispatcher.addAudioProcessor(new SpectralPeakProcessor(spectrum, overlap, sampleRate));
+</code>
+ * <p>
+ * Magnitudes, phases and powers are only calculated when they are requested,
+ * at most once for each buffer. The returned arrays are reused for the next
+ * buffer and should not be modified.
+ * </p>
+ * 
+ * @author Joren Six
+ */
+public class SpectrumProcessor implements AudioProcessor {
+
+	private final int bufferSize;
+	private final WindowFunction windowFunction;
+	private final FFT fft;
+	
+	private final float[] fftData;
+	private final float[] magnitudes;
+	private final float[] phases;
+	private final float[] powers;
+	
+	private boolean magnitudesCalculated;
+	private boolean phasesCalculated;
+	private boolean powersCalculated;
+	
+	/**
+	 * Create a new spectrum processor without a window function.
+	 * @param bufferSize The size of the audio buffers and the FFT.
+	 */
+	public SpectrumProcessor(int bufferSize){
+		this(bufferSize, null);
+	}
+	
+	/**
+	 * Create a new spectrum processor.
+	 * @param bufferSize The size of the audio buffers and the FFT.
+	 * @param windowFunction The window applied before the FFT, or null.
+	 */
+	public SpectrumProcessor(int bufferSize, WindowFunction windowFunction){
+		this.bufferSize = bufferSize;
+		this.windowFunction = windowFunction;
+		fft = new FFT(bufferSize, windowFunction);
+		fftData = new float[bufferSize];
+		magnitudes = new float[bufferSize / 2];
+		phases = new float[bufferSize / 2];
+		powers = new float[bufferSize / 2];
+	}
+
+	@Override
+	public boolean process(AudioEvent audioEvent) {
+		float[] audioBuffer = audioEvent.getFloatBuffer();
+		if(audioBuffer.length != bufferSize){
+			throw new IllegalArgumentException(String.format("The length of the fft (%d) should be the same as the length of the audio buffer (%d)", bufferSize, audioBuffer.length));
+		}
+		System.arraycopy(audioBuffer, 0, fftData, 0, bufferSize);
+		fft.forwardTransform(fftData);
+		magnitudesCalculated = false;
+		phasesCalculated = false;
+		powersCalculated = false;
+		return true;
+	}
+
+	@Override
+	public void processingFinished() {
+	}
+	
+	/**
+	 * @return The FFT of the current buffer, in the packed layout of
+	 *         {@link be.tarsos.dsp.util.fft.FloatFFT#realForward(float[])}.
+	 */
+	public float[] getFFTData(){
+		return fftData;
+	}
+	
+	/**
+	 * The magnitudes of the current buffer, as calculated by
+	 * {@link FFT#powerAndPhaseFromFFT(float[], float[], float[])}.
+	 * @return The magnitude of each bin, half the buffer size.
+	 */
+	public float[] getMagnitudes(){
+		if(!magnitudesCalculated){
+			magnitudes[0] = -fftData[0];
+			for(int i = 1 ; i < magnitudes.length ; i++){
+				final float real = fftData[2 * i];
+				final float imaginary = fftData[2 * i + 1];
+				magnitudes[i] = (float) Math.sqrt(real * real + imaginary * imaginary);
+			}
+			magnitudesCalculated = true;
+		}
+		return magnitudes;
+	}
+	
+	/**
+	 * The phases of the current buffer, as calculated by
+	 * {@link FFT#powerAndPhaseFromFFT(float[], float[], float[])}.
+	 * @return The phase of each bin, half the buffer size.
+	 */
+	public float[] getPhases(){
+		if(!phasesCalculated){
+			phases[0] = (float) Math.PI;
+			for(int i = 1 ; i < phases.length ; i++){
+				phases[i] = (float) Math.atan2(fftData[2 * i + 1], fftData[2 * i]);
+			}
+			phasesCalculated = true;
+		}
+		return phases;
+	}
+	
+	/**
+	 * @return The squared magnitude of each bin of the current buffer, half the buffer size.
+	 */
+	public float[] getPowers(){
+		if(!powersCalculated){
+			powers[0] = fftData[0] * fftData[0];
+			for(int i = 1 ; i < powers.length ; i++){
+				final float real = fftData[2 * i];
+				final float imaginary = fftData[2 * i + 1];
+				powers[i] = real * real + imaginary * imaginary;
+			}
+			powersCalculated = true;
+		}
+		return powers;
+	}
+	
+	public int getBufferSize(){
+		return bufferSize;
+	}
+	
+	/**
+	 * @return The window applied before the FFT, or null.
+	 */
+	public WindowFunction getWindowFunction(){
+		return windowFunction;
+	}
+}
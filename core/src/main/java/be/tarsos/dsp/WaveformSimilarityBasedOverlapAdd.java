@@ -24,6 +24,9 @@
 
 package be.tarsos.dsp;
 
+import java.util.Arrays;
+
+import be.tarsos.dsp.util.fft.FloatFFT;
 
 /**
  *
@@ -45,6 +48,12 @@ package be.tarsos.dsp;
  * Inspired by the work soundtouch by Olli Parviainen,
  * http://www.surina.net/soundtouch, especially the TDStrech.cpp file.
  * </p>
+ * <p>
+ * The search for the best overlap position can optionally use an FFT: the
+ * cross correlation for all offsets in the seek window is then calculated at
+ * once in O(n log n) instead of one offset at a time in O(n<sup>2</sup>). The
+ * resulting offsets are the same, up to rounding errors.
+ * </p>
  * @author Joren Six
  * @author Olli Parviainen
  */
@@ -66,11 +75,33 @@ public class WaveformSimilarityBasedOverlapAdd implements AudioProcessor {
 
 	private Parameters newParameters;
 	
+	/**
+	 * True if the best overlap position is searched with an FFT based cross
+	 * correlation.
+	 */
+	private final boolean useFFT;
+	
+	private FloatFFT fft;
+	private float[] fftReference;
+	private float[] fftCompare;
+	
 	/**
 	 * Create a new instance based on algorithm parameters for a certain audio format.
 	 * @param params The parameters for the algorithm.
 	 */
 	public WaveformSimilarityBasedOverlapAdd(Parameters  params){
+		this(params, false);
+	}
+	
+	/**
+	 * Create a new instance based on algorithm parameters for a certain audio format.
+	 * @param params The parameters for the algorithm.
+	 * @param useFFT If true the cross correlation for all offsets in the seek
+	 *            window is calculated via an FFT, which is a lot faster for
+	 *            the default parameters.
+	 */
+	public WaveformSimilarityBasedOverlapAdd(Parameters  params, boolean useFFT){
+		this.useFFT = useFFT;
 		setParameters(params);
 		applyNewParameters();
 	}
@@ -156,6 +187,9 @@ public class WaveformSimilarityBasedOverlapAdd implements AudioProcessor {
 	 * @return The best position.
 	 */
 	private int seekBestOverlapPosition(float[] inputBuffer, int postion) {
+		if(useFFT){
+			return seekBestOverlapPositionFFT(inputBuffer, postion);
+		}
 		int bestOffset;
 		double bestCorrelation, currentCorrelation;
 		int tempOffset;
@@ -195,6 +229,76 @@ public class WaveformSimilarityBasedOverlapAdd implements AudioProcessor {
 
 	}
 	
+	/**
+	 * Seeks for the optimal overlap-mixing position, like
+	 * {@link #seekBestOverlapPosition(float[], int)}, but calculates the
+	 * cross correlation for every offset at once: the inverse FFT of the
+	 * spectrum of the input times the conjugate spectrum of the reference.
+	 * The normalisation only depends on the reference so it is calculated
+	 * once.
+	 * 
+	 * @param inputBuffer The input buffer
+	 * @param postion The position where to start the seek operation, in the input buffer. 
+	 * @return The best position.
+	 */
+	private int seekBestOverlapPositionFFT(float[] inputBuffer, int postion) {
+		precalcCorrReferenceMono();
+
+		// correlations for offsets 0..seekLength-1 need this many input samples,
+		// no circular wrap around occurs if the FFT is at least as long
+		final int compareLength = seekLength + overlapLength - 1;
+		final int fftSize = Integer.highestOneBit(Math.max(compareLength, 1) * 2 - 1);
+		if(fft == null || fftReference.length != fftSize){
+			fft = new FloatFFT(fftSize);
+			fftReference = new float[fftSize];
+			fftCompare = new float[fftSize];
+		}
+
+		// as in calcCrossCorr the first sample is skipped
+		double norm = 0;
+		fftReference[0] = 0;
+		for (int i = 1; i < overlapLength; i++) {
+			fftReference[i] = pRefMidBuffer[i];
+			norm += pRefMidBuffer[i] * pRefMidBuffer[i];
+		}
+		Arrays.fill(fftReference, overlapLength, fftSize, 0);
+		if (norm < 1e-8) {
+			norm = 1.0;
+		}
+		final double scale = 1.0 / Math.pow(norm, 0.5);
+
+		System.arraycopy(inputBuffer, postion, fftCompare, 0, compareLength);
+		Arrays.fill(fftCompare, compareLength, fftSize, 0);
+
+		fft.realForward(fftReference);
+		fft.realForward(fftCompare);
+		// multiply the input spectrum with the conjugate reference spectrum
+		fftCompare[0] = fftCompare[0] * fftReference[0];
+		fftCompare[1] = fftCompare[1] * fftReference[1];
+		for (int k = 2; k < fftSize; k += 2) {
+			final float xr = fftCompare[k], xi = fftCompare[k + 1];
+			final float rr = fftReference[k], ri = fftReference[k + 1];
+			fftCompare[k] = xr * rr + xi * ri;
+			fftCompare[k + 1] = xi * rr - xr * ri;
+		}
+		fft.realInverse(fftCompare, true);
+
+		double bestCorrelation = -10;
+		int bestOffset = 0;
+		for (int tempOffset = 0; tempOffset < seekLength; tempOffset++) {
+			double currentCorrelation = fftCompare[tempOffset] * scale;
+			// heuristic rule to slightly favor values close to mid of the
+			// range
+			double tmp = (double) (2 * tempOffset - seekLength) / seekLength;
+			currentCorrelation = ((currentCorrelation + 0.1) * (1.0 - 0.25 * tmp * tmp));
+			if (currentCorrelation > bestCorrelation) {
+				bestCorrelation = currentCorrelation;
+				bestOffset = tempOffset;
+			}
+		}
+		return bestOffset;
+	}
+	
 	/**
 	* Slopes the amplitude of the 'midBuffer' samples so that cross correlation
 	* is faster to calculate. Why is this faster?
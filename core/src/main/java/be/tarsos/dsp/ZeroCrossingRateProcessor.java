@@ -33,16 +33,7 @@ public class ZeroCrossingRateProcessor implements AudioProcessor{
 	private float zeroCrossingRate = 0;
 	@Override
 	public boolean process(AudioEvent audioEvent) {
-		float[] buffer = audioEvent.getFloatBuffer();
-		
-		int numberOfZeroCrossings = 0;
-		for(int i = 1 ; i < buffer.length ; i++){
-			if(buffer[i] * buffer[i-1] < 0){
-				numberOfZeroCrossings++;
-			}
-		}
-		
-		zeroCrossingRate = numberOfZeroCrossings / (float) (buffer.length - 1);
+		zeroCrossingRate = (float) audioEvent.getZeroCrossingRate();
 		
 		return true;
 	}
@@ -110,6 +110,7 @@ public class DelayEffect implements AudioProcessor {
 		
 		applyNewEchoLength();
 		
+		audioEvent.floatBufferChanged();
 		return true;
 	}
 
@@ -157,6 +157,7 @@ public class FlangerEffect implements AudioProcessor {
 			// buffer
 			audioFloatBuffer[i] = dry * audioFloatBuffer[i] + wet * flangerBuffer[readPosition];
 		}
+		audioEvent.floatBufferChanged();
 		return true;
 	}
 
@@ -79,7 +79,7 @@ public class BandPass extends IIRFilter
   public void setBandWidth(float bandWidth)
   {
     bw = bandWidth / getSampleRate();
-    calcCoeff();
+    updateCoefficients();
   }
 
   /**
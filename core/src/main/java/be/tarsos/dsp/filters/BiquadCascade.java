@@ -0,0 +1,300 @@
+/*
+*      _______                       _____   _____ _____  
+*     |__   __|                     |  __ \ / ____|  __ \ 
+*        | | __ _ _ __ ___  ___  ___| |  | | (___ | |__) |
+*        | |/ _` | '__/ __|/ _ \/ __| |  | |\___ \|  ___/ 
+*        | | (_| | |  \__ \ (_) \__ \ |__| |____) | |     
+*        |_|\__,_|_|  |___/\___/|___/_____/|_____/|_|     
+*                                                         
+* -------------------------------------------------------------
+*
+* TarsosDSP is developed by Joren Six at IPEM, University Ghent
+*  
+* -------------------------------------------------------------
+*
+*  Info: http://0110.be/tag/TarsosDSP
+*  Github: https://github.com/JorenSix/TarsosDSP
+*  Releases: http://0110.be/releases/TarsosDSP/
+*  
+*  TarsosDSP includes modified source code by various authors,
+*  for credits and info, see README.
+* 
+*/
+
+
+
+package be.tarsos.dsp.filters;
+
+import java.util.Arrays;
+
+import be.tarsos.dsp.AudioEvent;
+import be.tarsos.dsp.AudioProcessor;
+
+/**
+ * A cascade of second order IIR sections (biquads) that filters whole blocks
+ * of audio at once. Each section is evaluated in transposed direct form II, so
+ * the filter history is only two values per section which are kept in local
+ * variables while a block is processed. No history arrays are shifted and no
+ * memory is allocated while filtering.
+ * <p>
+ * Sections are described by a flat array of coefficients, five per section:
+ * <code>b0, b1, b2, a1, a2</code> for the transfer function
+ * <code>(b0 + b1 z<sup>-1</sup> + b2 z<sup>-2</sup>) / (1 + a1 z<sup>-1</sup> + a2 z<sup>-2</sup>)</code>.
+ * A first order section simply has <code>b2</code> and <code>a2</code> set to
+ * zero. {@link FilterDesign} calculates these arrays for Butterworth and
+ * Chebyshev filters of arbitrary order.
+ * </p>
+ * <p>
+ * The same cascade can filter several channels at once. The audio is then
+ * expected to be interleaved and each channel keeps its own history. With
+ * more than one channel each frame is copied to a small double precision
+ * buffer and all sections are applied to it; the inner loop runs over the
+ * channels, which are independent of each other and can be vectorized by the
+ * JIT.
+ * </p>
+ * 
+ * @author Joren Six
+ */
+public class BiquadCascade implements AudioProcessor {
+
+	/** The number of coefficients describing one section. */
+	public static final int COEFFICIENTS_PER_SECTION = 5;
+
+	private final int sectionCount;
+	private final int channels;
+
+	/** b0, b1, b2, a1, a2 for each section. */
+	private final double[] coefficients;
+
+	/** The first state variable, indexed by section * channels + channel. */
+	private final double[] z1;
+	/** The second state variable, indexed by section * channels + channel. */
+	private final double[] z2;
+
+	/** One frame of interleaved audio, in double precision. */
+	private final double[] frame;
+
+	/**
+	 * Create a new mono cascade.
+	 * 
+	 * @param sections
+	 *            The coefficients, five for each section:
+	 *            <code>b0, b1, b2, a1, a2</code>.
+	 */
+	public BiquadCascade(double[] sections) {
+		this(sections, 1);
+	}
+
+	/**
+	 * Create a new cascade which filters interleaved audio with the given
+	 * number of channels.
+	 * 
+	 * @param sections
+	 *            The coefficients, five for each section:
+	 *            <code>b0, b1, b2, a1, a2</code>.
+	 * @param channels
+	 *            The number of interleaved channels.
+	 */
+	public BiquadCascade(double[] sections, int channels) {
+		if (sections.length == 0 || sections.length % COEFFICIENTS_PER_SECTION != 0) {
+			throw new IllegalArgumentException("Expected five coefficients per section, got " + sections.length + " coefficients.");
+		}
+		if (channels < 1) {
+			throw new IllegalArgumentException("At least one channel is needed, got " + channels);
+		}
+		this.sectionCount = sections.length / COEFFICIENTS_PER_SECTION;
+		this.channels = channels;
+		this.coefficients = sections.clone();
+		this.z1 = new double[sectionCount * channels];
+		this.z2 = new double[sectionCount * channels];
+		this.frame = new double[channels];
+	}
+
+	/**
+	 * Replaces the coefficients of the cascade while keeping the filter
+	 * history, which allows e.g. a smooth cutoff sweep.
+	 * 
+	 * @param sections
+	 *            The new coefficients, the number of sections can not change.
+	 */
+	public void setCoefficients(double[] sections) {
+		if (sections.length != coefficients.length) {
+			throw new IllegalArgumentException("Expected " + coefficients.length + " coefficients, got " + sections.length);
+		}
+		System.arraycopy(sections, 0, coefficients, 0, coefficients.length);
+	}
+
+	/**
+	 * @return The number of second order sections in the cascade.
+	 */
+	public int getSectionCount() {
+		return sectionCount;
+	}
+
+	/**
+	 * @return The number of interleaved channels this cascade filters.
+	 */
+	public int getChannels() {
+		return channels;
+	}
+
+	/**
+	 * Clears the filter history of every channel.
+	 */
+	public void reset() {
+		Arrays.fill(z1, 0);
+		Arrays.fill(z2, 0);
+	}
+
+	/**
+	 * Filters a block of audio in place.
+	 * 
+	 * @param buffer
+	 *            The audio, interleaved when there is more than one channel.
+	 * @param offset
+	 *            The index of the first sample to filter.
+	 * @param frames
+	 *            The number of frames to filter. A frame contains one sample
+	 *            for each channel.
+	 */
+	public void filter(float[] buffer, int offset, int frames) {
+		if (channels == 1) {
+			// two sections per pass: their recursions are independent within
+			// a sample, so the processor can overlap them
+			int s = 0;
+			for (; s + 1 < sectionCount; s += 2) {
+				filterSectionPair(s, buffer, offset, frames);
+			}
+			if (s < sectionCount) {
+				filterSection(s, buffer, offset, frames);
+			}
+		} else {
+			filterInterleaved(buffer, offset, frames);
+		}
+	}
+
+	private void filterSection(int section, float[] buffer, int offset, int frames) {
+		final int c = section * COEFFICIENTS_PER_SECTION;
+		final double b0 = coefficients[c];
+		final double b1 = coefficients[c + 1];
+		final double b2 = coefficients[c + 2];
+		final double a1 = coefficients[c + 3];
+		final double a2 = coefficients[c + 4];
+		double s1 = z1[section];
+		double s2 = z2[section];
+		final int end = offset + frames;
+		for (int i = offset; i < end; i++) {
+			final double x = buffer[i];
+			final double y = b0 * x + s1;
+			s1 = b1 * x - a1 * y + s2;
+			s2 = b2 * x - a2 * y;
+			buffer[i] = (float) y;
+		}
+		z1[section] = s1;
+		z2[section] = s2;
+	}
+
+	private void filterSectionPair(int section, float[] buffer, int offset, int frames) {
+		final int c = section * COEFFICIENTS_PER_SECTION;
+		final double b0 = coefficients[c];
+		final double b1 = coefficients[c + 1];
+		final double b2 = coefficients[c + 2];
+		final double a1 = coefficients[c + 3];
+		final double a2 = coefficients[c + 4];
+		final double d0 = coefficients[c + 5];
+		final double d1 = coefficients[c + 6];
+		final double d2 = coefficients[c + 7];
+		final double c1 = coefficients[c + 8];
+		final double c2 = coefficients[c + 9];
+		double s1 = z1[section];
+		double s2 = z2[section];
+		double t1 = z1[section + 1];
+		double t2 = z2[section + 1];
+		final int end = offset + frames;
+		for (int i = offset; i < end; i++) {
+			final double x = buffer[i];
+			final double y = b0 * x + s1;
+			s1 = b1 * x - a1 * y + s2;
+			s2 = b2 * x - a2 * y;
+			final double v = d0 * y + t1;
+			t1 = d1 * y - c1 * v + t2;
+			t2 = d2 * y - c2 * v;
+			buffer[i] = (float) v;
+		}
+		z1[section] = s1;
+		z2[section] = s2;
+		z1[section + 1] = t1;
+		z2[section + 1] = t2;
+	}
+
+	private void filterInterleaved(float[] buffer, int offset, int frames) {
+		final double[] x = frame;
+		final double[] s1 = z1;
+		final double[] s2 = z2;
+		int index = offset;
+		for (int f = 0; f < frames; f++) {
+			for (int ch = 0; ch < channels; ch++) {
+				x[ch] = buffer[index + ch];
+			}
+			for (int s = 0; s < sectionCount; s++) {
+				final int c = s * COEFFICIENTS_PER_SECTION;
+				final double b0 = coefficients[c];
+				final double b1 = coefficients[c + 1];
+				final double b2 = coefficients[c + 2];
+				final double a1 = coefficients[c + 3];
+				final double a2 = coefficients[c + 4];
+				final int st = s * channels;
+				for (int ch = 0; ch < channels; ch++) {
+					final double in = x[ch];
+					final double y = b0 * in + s1[st + ch];
+					s1[st + ch] = b1 * in - a1 * y + s2[st + ch];
+					s2[st + ch] = b2 * in - a2 * y;
+					x[ch] = y;
+				}
+			}
+			for (int ch = 0; ch < channels; ch++) {
+				buffer[index + ch] = (float) x[ch];
+			}
+			index += channels;
+		}
+	}
+
+	/**
+	 * Calculates the magnitude response of the cascade at a frequency.
+	 * 
+	 * @param frequency
+	 *            The frequency in Hz.
+	 * @param sampleRate
+	 *            The sample rate in Hz.
+	 * @return The gain of the cascade at the frequency, linear.
+	 */
+	public double magnitudeAt(double frequency, double sampleRate) {
+		final double w = 2 * Math.PI * frequency / sampleRate;
+		final double cos1 = Math.cos(w), sin1 = Math.sin(w);
+		final double cos2 = Math.cos(2 * w), sin2 = Math.sin(2 * w);
+		double gain = 1;
+		for (int s = 0; s < sectionCount; s++) {
+			final int c = s * COEFFICIENTS_PER_SECTION;
+			final double numRe = coefficients[c] + coefficients[c + 1] * cos1 + coefficients[c + 2] * cos2;
+			final double numIm = -coefficients[c + 1] * sin1 - coefficients[c + 2] * sin2;
+			final double denRe = 1 + coefficients[c + 3] * cos1 + coefficients[c + 4] * cos2;
+			final double denIm = -coefficients[c + 3] * sin1 - coefficients[c + 4] * sin2;
+			gain *= Math.sqrt((numRe * numRe + numIm * numIm) / (denRe * denRe + denIm * denIm));
+		}
+		return gain;
+	}
+
+	@Override
+	public boolean process(AudioEvent audioEvent) {
+		final float[] buffer = audioEvent.getFloatBuffer();
+		final int offset = audioEvent.getOverlap();
+		filter(buffer, offset, (buffer.length - offset) / channels);
+		audioEvent.floatBufferChanged();
+		return true;
+	}
+
+	@Override
+	public void processingFinished() {
+
+	}
+}
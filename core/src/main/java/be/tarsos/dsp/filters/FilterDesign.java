@@ -0,0 +1,211 @@
+/*
+*      _______                       _____   _____ _____  
+*     |__   __|                     |  __ \ / ____|  __ \ 
+*        | | __ _ _ __ ___  ___  ___| |  | | (___ | |__) |
+*        | |/ _` | '__/ __|/ _ \/ __| |  | |\___ \|  ___/ 
+*        | | (_| | |  \__ \ (_) \__ \ |__| |____) | |     
+*        |_|\__,_|_|  |___/\___/|___/_____/|_____/|_|     
+*                                                         
+* -------------------------------------------------------------
+*
+* TarsosDSP is developed by Joren Six at IPEM, University Ghent
+*  
+* -------------------------------------------------------------
+*
+*  Info: http://0110.be/tag/TarsosDSP
+*  Github: https://github.com/JorenSix/TarsosDSP
+*  Releases: http://0110.be/releases/TarsosDSP/
+*  
+*  TarsosDSP includes modified source code by various authors,
+*  for credits and info, see README.
+* 
+*/
+
+
+
+package be.tarsos.dsp.filters;
+
+/**
+ * Designs Butterworth and Chebyshev (type I) low and high pass filters of
+ * arbitrary order as a cascade of second order sections. The analog
+ * prototype poles are paired into sections and mapped to the digital domain
+ * with a pre-warped bilinear transform, so the cutoff frequency is exact.
+ * An odd order adds one first order section.
+ * <p>
+ * The returned arrays hold five coefficients per section, as expected by
+ * {@link BiquadCascade}.
+ * </p>
+ * 
+ * @author Joren Six
+ */
+public final class FilterDesign {
+
+	private FilterDesign() {
+	}
+
+	/**
+	 * Designs a Butterworth low pass filter.
+	 * 
+	 * @param order
+	 *            The order of the filter, each order adds 6dB/octave.
+	 * @param cutoff
+	 *            The -3dB frequency in Hz.
+	 * @param sampleRate
+	 *            The sample rate in Hz.
+	 * @return The coefficients of the second order sections.
+	 */
+	public static double[] butterworthLowPass(int order, double cutoff, double sampleRate) {
+		return design(order, 0, cutoff, sampleRate, false);
+	}
+
+	/**
+	 * Designs a Butterworth high pass filter.
+	 * 
+	 * @param order
+	 *            The order of the filter, each order adds 6dB/octave.
+	 * @param cutoff
+	 *            The -3dB frequency in Hz.
+	 * @param sampleRate
+	 *            The sample rate in Hz.
+	 * @return The coefficients of the second order sections.
+	 */
+	public static double[] butterworthHighPass(int order, double cutoff, double sampleRate) {
+		return design(order, 0, cutoff, sampleRate, true);
+	}
+
+	/**
+	 * Designs a Chebyshev type I low pass filter: a steeper roll off than a
+	 * Butterworth filter of the same order at the cost of ripple in the pass
+	 * band.
+	 * 
+	 * @param order
+	 *            The order of the filter.
+	 * @param ripple
+	 *            The pass band ripple in dB, e.g. 0.5.
+	 * @param cutoff
+	 *            The edge of the pass band in Hz, where the gain last equals
+	 *            minus the ripple.
+	 * @param sampleRate
+	 *            The sample rate in Hz.
+	 * @return The coefficients of the second order sections.
+	 */
+	public static double[] chebyshevLowPass(int order, double ripple, double cutoff, double sampleRate) {
+		checkRipple(ripple);
+		return design(order, ripple, cutoff, sampleRate, false);
+	}
+
+	/**
+	 * Designs a Chebyshev type I high pass filter.
+	 * 
+	 * @param order
+	 *            The order of the filter.
+	 * @param ripple
+	 *            The pass band ripple in dB, e.g. 0.5.
+	 * @param cutoff
+	 *            The edge of the pass band in Hz.
+	 * @param sampleRate
+	 *            The sample rate in Hz.
+	 * @return The coefficients of the second order sections.
+	 */
+	public static double[] chebyshevHighPass(int order, double ripple, double cutoff, double sampleRate) {
+		checkRipple(ripple);
+		return design(order, ripple, cutoff, sampleRate, true);
+	}
+
+	private static void checkRipple(double ripple) {
+		if (ripple <= 0) {
+			throw new IllegalArgumentException("The pass band ripple should be positive, got " + ripple + "dB");
+		}
+	}
+
+	/**
+	 * Pairs the poles of the analog prototype (cutoff of 1 rad/s) into
+	 * sections and applies the bilinear transform to each of them.
+	 * 
+	 * @param ripple
+	 *            Zero for Butterworth, the pass band ripple in dB for
+	 *            Chebyshev.
+	 */
+	private static double[] design(int order, double ripple, double cutoff, double sampleRate, boolean highPass) {
+		if (order < 1) {
+			throw new IllegalArgumentException("The filter order should be at least one, got " + order);
+		}
+		if (cutoff <= 0 || cutoff >= sampleRate / 2) {
+			throw new IllegalArgumentException("The cutoff frequency should be between 0 and " + sampleRate / 2 + "Hz, got " + cutoff + "Hz");
+		}
+		final int sectionCount = (order + 1) / 2;
+		final double[] sections = new double[sectionCount * BiquadCascade.COEFFICIENTS_PER_SECTION];
+		// pre-warped frequency for the bilinear transform s = (1/k)(1-z^-1)/(1+z^-1)
+		final double k = Math.tan(Math.PI * cutoff / sampleRate);
+
+		final double sinhMu;
+		final double coshMu;
+		if (ripple > 0) {
+			final double epsilon = Math.sqrt(Math.pow(10, ripple / 10) - 1);
+			final double mu = asinh(1 / epsilon) / order;
+			sinhMu = Math.sinh(mu);
+			coshMu = Math.cosh(mu);
+		} else {
+			sinhMu = 1;
+			coshMu = 1;
+		}
+
+		for (int i = 0; i < order / 2; i++) {
+			// poles in the left half plane: -sinh(mu) sin(theta) +/- j cosh(mu) cos(theta)
+			final double theta = Math.PI * (2 * i + 1) / (2 * order);
+			final double re = -sinhMu * Math.sin(theta);
+			final double im = coshMu * Math.cos(theta);
+			// section 1/(s^2 + a s + b) of the prototype
+			final double a = -2 * re;
+			final double b = re * re + im * im;
+			final int c = i * BiquadCascade.COEFFICIENTS_PER_SECTION;
+			if (highPass) {
+				// s -> 1/s, normalised: s^2 / (s^2 + (a/b) s + 1/b)
+				final double a0 = 1 + a / b * k + k * k / b;
+				sections[c] = 1 / a0;
+				sections[c + 1] = -2 / a0;
+				sections[c + 2] = 1 / a0;
+				sections[c + 3] = (2 * k * k / b - 2) / a0;
+				sections[c + 4] = (1 - a / b * k + k * k / b) / a0;
+			} else {
+				// b / (s^2 + a s + b)
+				final double a0 = 1 + a * k + b * k * k;
+				final double gain = b * k * k / a0;
+				sections[c] = gain;
+				sections[c + 1] = 2 * gain;
+				sections[c + 2] = gain;
+				sections[c + 3] = (2 * b * k * k - 2) / a0;
+				sections[c + 4] = (1 - a * k + b * k * k) / a0;
+			}
+		}
+
+		if (order % 2 == 1) {
+			// the real pole -sinh(mu), first order section p / (s + p)
+			final double p = sinhMu;
+			final int c = (sectionCount - 1) * BiquadCascade.COEFFICIENTS_PER_SECTION;
+			if (highPass) {
+				// s / (s + 1/p)
+				final double a0 = 1 + k / p;
+				sections[c] = 1 / a0;
+				sections[c + 1] = -1 / a0;
+				sections[c + 3] = (k / p - 1) / a0;
+			} else {
+				final double a0 = 1 + p * k;
+				sections[c] = p * k / a0;
+				sections[c + 1] = p * k / a0;
+				sections[c + 3] = (p * k - 1) / a0;
+			}
+		} else if (ripple > 0) {
+			// an even order Chebyshev filter starts at the bottom of the ripple
+			final double passBandGain = Math.pow(10, -ripple / 20);
+			sections[0] *= passBandGain;
+			sections[1] *= passBandGain;
+			sections[2] *= passBandGain;
+		}
+		return sections;
+	}
+
+	private static double asinh(double x) {
+		return Math.log(x + Math.sqrt(x * x + 1));
+	}
+}
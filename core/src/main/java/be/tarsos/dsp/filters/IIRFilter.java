@@ -54,6 +54,13 @@ import be.tarsos.dsp.AudioProcessor;
  * defining the <code>calcCoeff()</code> function. When filling the coefficient
  * arrays, be aware that <code>b[0]</code> corresponds to
  * <code>b<sub>1</sub></code>.
+ * <p>
+ * Filters with at most three <code>a</code> and two <code>b</code>
+ * coefficients are evaluated as a single {@link BiquadCascade} section.
+ * Sub-classes with higher order coefficients can factor them into second
+ * order sections by overriding {@link #toSecondOrderSections()}; otherwise
+ * the coefficients are applied directly, sample by sample.
+ * </p>
  * 
  * @author Damien Di Fede
  * @author Joren Six
@@ -80,6 +87,9 @@ public abstract class IIRFilter implements AudioProcessor {
 	
 	private final float sampleRate;
 
+	/** The block based engine, null when the coefficients can not be expressed as sections. */
+	private BiquadCascade cascade;
+
 
 	/**
 	 * Constructs an IIRFilter with the given cutoff frequency that will be used
@@ -93,14 +103,55 @@ public abstract class IIRFilter implements AudioProcessor {
 	public IIRFilter(float freq, float sampleRate) {
 		this.sampleRate = sampleRate;
 		this.frequency = freq;	
-		calcCoeff();
+		updateCoefficients();
 		in = new float[a.length];
 		out = new float[b.length];
 	}
 	
 	public void setFrequency(float freq){
 		this.frequency = freq;	
-		calcCoeff();	
+		updateCoefficients();
+	}
+
+	/**
+	 * Recalculates the coefficients with {@link #calcCoeff()} and hands them
+	 * to the block based engine. The filter history is kept, so the cutoff
+	 * can be changed while filtering.
+	 */
+	protected final void updateCoefficients() {
+		calcCoeff();
+		double[] sections = toSecondOrderSections();
+		if (sections == null) {
+			cascade = null;
+		} else if (cascade != null && cascade.getSectionCount() * BiquadCascade.COEFFICIENTS_PER_SECTION == sections.length) {
+			cascade.setCoefficients(sections);
+		} else {
+			cascade = new BiquadCascade(sections);
+		}
+	}
+
+	/**
+	 * Expresses the current coefficients as second order sections for a
+	 * {@link BiquadCascade}: five coefficients per section,
+	 * <code>b0, b1, b2, a1, a2</code>. Note that the naming is swapped with
+	 * respect to the <code>a</code> and <code>b</code> fields of this class
+	 * and that the feedback coefficients change sign.
+	 * 
+	 * @return The sections, or null if the coefficients can not be mapped on
+	 *         a single section and the sub-class does not factor them.
+	 */
+	protected double[] toSecondOrderSections() {
+		if (a.length > 3 || b.length > 2) {
+			return null;
+		}
+		double[] sections = new double[BiquadCascade.COEFFICIENTS_PER_SECTION];
+		for (int i = 0; i < a.length; i++) {
+			sections[i] = a[i];
+		}
+		for (int i = 0; i < b.length; i++) {
+			sections[3 + i] = -b[i];
+		}
+		return sections;
 	}
 
 	/**
@@ -132,6 +183,13 @@ public abstract class IIRFilter implements AudioProcessor {
 	public boolean process(AudioEvent audioEvent) {
 		float[] audioFloatBuffer = audioEvent.getFloatBuffer();
 		
+		if (cascade != null) {
+			int overlap = audioEvent.getOverlap();
+			cascade.filter(audioFloatBuffer, overlap, audioFloatBuffer.length - overlap);
+			audioEvent.floatBufferChanged();
+			return true;
+		}
+		
 		for (int i = audioEvent.getOverlap(); i < audioFloatBuffer.length; i++) {
 			//shift the in array
 			System.arraycopy(in, 0, in, 1, in.length - 1);
@@ -152,6 +210,7 @@ public abstract class IIRFilter implements AudioProcessor {
 			
 			audioFloatBuffer[i] = y;
 		} 
+		audioEvent.floatBufferChanged();
 		return true;
 	}
 	
@@ -60,5 +60,18 @@ public class LowPassFS extends IIRFilter{
 		b = new float[] { 4 * x, -6 * x * x, 4 * x * x * x, -x * x * x * x };
 	}
 
+	/**
+	 * The four poles all lie at <code>x</code>, which factors into two
+	 * identical sections <code>(1-x)^2 / (1 - 2x z^-1 + x^2 z^-2)</code>.
+	 */
+	@Override
+	protected double[] toSecondOrderSections() {
+		float freqFrac = getFrequency() / getSampleRate();
+		double x = (float) Math.exp(-14.445 * freqFrac);
+		double gain = (1 - x) * (1 - x);
+		return new double[] { gain, 0, 0, -2 * x, x * x,
+				gain, 0, 0, -2 * x, x * x };
+	}
+
 
 }
@@ -0,0 +1,329 @@
+/*
+*      _______                       _____   _____ _____  
+*     |__   __|                     |  __ \ / ____|  __ \ 
+*        | | __ _ _ __ ___  ___  ___| |  | | (___ | |__) |
+*        | |/ _` | '__/ __|/ _ \/ __| |  | |\___ \|  ___/ 
+*        | | (_| | |  \__ \ (_) \__ \ |__| |____) | |     
+*        |_|\__,_|_|  |___/\___/|___/_____/|_____/|_|     
+*                                                         
+* -------------------------------------------------------------
+*
+* TarsosDSP is developed by Joren Six at IPEM, University Ghent
+*  
+* -------------------------------------------------------------
+*
+*  Info: http://0110.be/tag/TarsosDSP
+*  Github: https://github.com/JorenSix/TarsosDSP
+*  Releases: http://0110.be/releases/TarsosDSP/
+*  
+*  TarsosDSP includes modified source code by various authors,
+*  for credits and info, see README.
+* 
+*/
+
+
+
+package be.tarsos.dsp.filters;
+
+import java.util.Arrays;
+
+import be.tarsos.dsp.AudioEvent;
+import be.tarsos.dsp.AudioProcessor;
+import be.tarsos.dsp.util.fft.FloatFFT;
+
+/**
+ * Convolves audio with a (long) impulse response, e.g. a room response or a
+ * FIR filter, using partitioned overlap-save convolution with
+ * {@link FloatFFT}.
+ * <p>
+ * The impulse response is split into partitions. The spectra of the
+ * partitions are calculated once and kept in a {@link Kernel}, which can be
+ * shared by several processors, for example one per channel. Every block of
+ * input is transformed once and multiplied with all partition spectra, so the
+ * cost per sample grows with the number of partitions instead of with the
+ * length of the impulse response.
+ * </p>
+ * <p>
+ * With uniform partitions every partition is as long as the block size. With
+ * non-uniform partitions the first part of the impulse response uses short
+ * partitions and the partitions double in size, two at a time, up to a
+ * maximum size. The block size, and therefore the latency, stays small while
+ * the tail of a long response is handled with few, long FFTs. Long partitions
+ * are only calculated when enough input is available for them, so the
+ * processing time differs from block to block.
+ * </p>
+ * <p>
+ * The number of new samples in each audio block (the buffer size minus the
+ * overlap) should be a multiple of the block size; the output is then not
+ * delayed. The processor does not allocate memory while processing. It
+ * handles one channel, use a {@link be.tarsos.dsp.PerChannelProcessor} with a
+ * shared kernel for multichannel audio.
+ * </p>
+ *
+ * @author Joren Six
+ */
+public class PartitionedConvolution implements AudioProcessor {
+
+	/**
+	 * The precalculated spectra of the partitions of an impulse response. A
+	 * kernel is immutable and can be shared by any number of
+	 * {@link PartitionedConvolution} processors, also on different threads.
+	 */
+	public static final class Kernel {
+
+		private final int blockSize;
+		private final int length;
+		/** The partition size of each level, a power of two multiple of the block size. */
+		private final int[] partitionSizes;
+		/** The position in the impulse response where each level starts. */
+		private final int[] offsets;
+		/** The spectra, in the packed FloatFFT format, indexed by level and partition. */
+		private final float[][][] spectra;
+
+		/**
+		 * Partitions an impulse response uniformly.
+		 * @param impulseResponse The impulse response.
+		 * @param blockSize The block size and partition size, a power of two.
+		 */
+		public Kernel(float[] impulseResponse, int blockSize) {
+			this(impulseResponse, blockSize, blockSize);
+		}
+
+		/**
+		 * Partitions an impulse response non-uniformly.
+		 * @param impulseResponse The impulse response.
+		 * @param blockSize The block size and the size of the first partitions, a power of two.
+		 * @param maxPartitionSize The maximum partition size, a power of two not smaller than the block size.
+		 */
+		public Kernel(float[] impulseResponse, int blockSize, int maxPartitionSize) {
+			if(blockSize < 1 || Integer.bitCount(blockSize) != 1){
+				throw new IllegalArgumentException("The block size should be a power of two, it is " + blockSize);
+			}
+			if(maxPartitionSize < blockSize || Integer.bitCount(maxPartitionSize) != 1){
+				throw new IllegalArgumentException("The maximum partition size should be a power of two of at least " + blockSize + ", it is " + maxPartitionSize);
+			}
+			if(impulseResponse.length == 0){
+				throw new IllegalArgumentException("The impulse response is empty");
+			}
+			this.blockSize = blockSize;
+			this.length = impulseResponse.length;
+
+			//count the levels: two partitions per size, the largest size takes the rest
+			int levels = 0;
+			for(int offset = 0, size = blockSize ; offset < length ; size *= 2){
+				levels++;
+				offset += size == maxPartitionSize ? length : 2 * size;
+			}
+			partitionSizes = new int[levels];
+			offsets = new int[levels];
+			spectra = new float[levels][][];
+
+			int offset = 0;
+			int size = blockSize;
+			for(int level = 0 ; level < levels ; level++){
+				final int remaining = length - offset;
+				final int count = size == maxPartitionSize ? (remaining + size - 1) / size : Math.min(2, (remaining + size - 1) / size);
+				final FloatFFT fft = new FloatFFT(2 * size);
+				partitionSizes[level] = size;
+				offsets[level] = offset;
+				spectra[level] = new float[count][2 * size];
+				for(int p = 0 ; p < count ; p++){
+					final int start = offset + p * size;
+					System.arraycopy(impulseResponse, start, spectra[level][p], 0, Math.min(size, length - start));
+					fft.realForward(spectra[level][p]);
+				}
+				offset += count * size;
+				size *= 2;
+			}
+		}
+
+		/**
+		 * @return The block size the impulse response is partitioned for.
+		 */
+		public int getBlockSize() {
+			return blockSize;
+		}
+
+		/**
+		 * @return The length of the impulse response in samples.
+		 */
+		public int getLength() {
+			return length;
+		}
+
+		/**
+		 * @return The number of partitions.
+		 */
+		public int getPartitionCount() {
+			int count = 0;
+			for(float[][] level : spectra){
+				count += level.length;
+			}
+			return count;
+		}
+	}
+
+	private final Kernel kernel;
+	private final int blockSize;
+
+	/** The transform for each level. */
+	private final FloatFFT[] ffts;
+	/** The last two partitions of input for each level. */
+	private final float[][] inputs;
+	/** The number of samples in the second half of the input of each level. */
+	private final int[] fills;
+	/** The spectra of the previous inputs, the frequency domain delay line, per level. */
+	private final float[][][] delayLines;
+	/** The position of the newest spectrum in the delay line of each level. */
+	private final int[] delayLinePositions;
+	/** The sum of the products of the spectra, per level. */
+	private final float[][] accumulators;
+
+	/** Convolved samples, added at the time they are due. */
+	private final float[] output;
+	private final int outputMask;
+	/** The number of samples processed, the time of the next block. */
+	private long time;
+
+	/**
+	 * Convolve with an impulse response using uniform partitions.
+	 * @param impulseResponse The impulse response.
+	 * @param blockSize The block size and partition size, a power of two.
+	 */
+	public PartitionedConvolution(float[] impulseResponse, int blockSize) {
+		this(new Kernel(impulseResponse, blockSize));
+	}
+
+	/**
+	 * Convolve with a partitioned impulse response.
+	 * @param kernel The partitioned impulse response, it can be shared with other processors.
+	 */
+	public PartitionedConvolution(Kernel kernel) {
+		this.kernel = kernel;
+		this.blockSize = kernel.blockSize;
+		final int levels = kernel.partitionSizes.length;
+		ffts = new FloatFFT[levels];
+		inputs = new float[levels][];
+		fills = new int[levels];
+		delayLines = new float[levels][][];
+		delayLinePositions = new int[levels];
+		accumulators = new float[levels][];
+		int end = 0;
+		for(int level = 0 ; level < levels ; level++){
+			final int size = kernel.partitionSizes[level];
+			ffts[level] = new FloatFFT(2 * size);
+			inputs[level] = new float[2 * size];
+			delayLines[level] = new float[kernel.spectra[level].length][2 * size];
+			accumulators[level] = new float[2 * size];
+			end = Math.max(end, kernel.offsets[level] + size);
+		}
+		int outputLength = Integer.highestOneBit(end + blockSize) << 1;
+		output = new float[outputLength];
+		outputMask = outputLength - 1;
+	}
+
+	@Override
+	public boolean process(AudioEvent audioEvent) {
+		final float[] buffer = audioEvent.getFloatBuffer();
+		final int overlap = audioEvent.getOverlap();
+		if((buffer.length - overlap) % blockSize != 0){
+			throw new IllegalArgumentException("The number of new samples, " + (buffer.length - overlap) + ", is not a multiple of the block size " + blockSize);
+		}
+		for(int start = overlap ; start < buffer.length ; start += blockSize){
+			processBlock(buffer, start);
+		}
+		audioEvent.floatBufferChanged();
+		return true;
+	}
+
+	/**
+	 * Convolves one block in place.
+	 * @param buffer The audio.
+	 * @param start The start of the block in the audio.
+	 */
+	private void processBlock(float[] buffer, int start) {
+		for(int level = 0 ; level < ffts.length ; level++){
+			final int size = kernel.partitionSizes[level];
+			final float[] input = inputs[level];
+			System.arraycopy(buffer, start, input, size + fills[level], blockSize);
+			fills[level] += blockSize;
+			if(fills[level] == size){
+				convolve(level, size);
+				//the output of the partitions at this level starts at their offset
+				addToOutput(accumulators[level], size, time + blockSize - size + kernel.offsets[level]);
+				System.arraycopy(input, size, input, 0, size);
+				fills[level] = 0;
+			}
+		}
+		final int position = (int) (time & outputMask);
+		System.arraycopy(output, position, buffer, start, blockSize);
+		Arrays.fill(output, position, position + blockSize, 0);
+		time += blockSize;
+	}
+
+	/**
+	 * Transforms the input of a level and multiplies it, and the previous
+	 * inputs, with the partition spectra. The result, in the accumulator, is
+	 * transformed back to the time domain.
+	 */
+	private void convolve(int level, int size) {
+		final float[][] delayLine = delayLines[level];
+		final float[][] partitions = kernel.spectra[level];
+		final int count = partitions.length;
+		final int newest = (delayLinePositions[level] + 1) % count;
+		delayLinePositions[level] = newest;
+		System.arraycopy(inputs[level], 0, delayLine[newest], 0, 2 * size);
+		ffts[level].realForward(delayLine[newest]);
+
+		final float[] accumulator = accumulators[level];
+		Arrays.fill(accumulator, 0);
+		for(int p = 0 ; p < count ; p++){
+			final float[] x = delayLine[(newest - p + count) % count];
+			final float[] h = partitions[p];
+			//the real values at DC and at the Nyquist frequency are packed in the first two floats
+			accumulator[0] += x[0] * h[0];
+			accumulator[1] += x[1] * h[1];
+			for(int i = 2 ; i < 2 * size ; i += 2){
+				final float re = x[i] * h[i] - x[i + 1] * h[i + 1];
+				final float im = x[i] * h[i + 1] + x[i + 1] * h[i];
+				accumulator[i] += re;
+				accumulator[i + 1] += im;
+			}
+		}
+		ffts[level].realInverse(accumulator, true);
+	}
+
+	/**
+	 * Adds the valid second half of an overlap-save result to the output.
+	 */
+	private void addToOutput(float[] result, int size, long from) {
+		for(int i = 0 ; i < size ; i++){
+			output[(int) ((from + i) & outputMask)] += result[size + i];
+		}
+	}
+
+	@Override
+	public void processingFinished() {
+	}
+
+	/**
+	 * Clears the input history and the pending output, e.g. after seeking.
+	 */
+	public void reset() {
+		for(int level = 0 ; level < ffts.length ; level++){
+			Arrays.fill(inputs[level], 0);
+			for(float[] spectrum : delayLines[level]){
+				Arrays.fill(spectrum, 0);
+			}
+			fills[level] = 0;
+		}
+		Arrays.fill(output, 0);
+	}
+
+	/**
+	 * @return The partitioned impulse response.
+	 */
+	public Kernel getKernel() {
+		return kernel;
+	}
+}
@@ -0,0 +1,432 @@
+package be.tarsos.dsp.granulator;
+
+
+import java.util.Arrays;
+
+import be.tarsos.dsp.AudioEvent;
+import be.tarsos.dsp.AudioProcessor;
+import be.tarsos.dsp.util.fft.CosineWindow;
+
+/**
+ * <p>
+ * StreamingGranulator plays back a stream using granular synthesis, like
+ * {@link Granulator}, with a bounded memory footprint. It is meant to run for
+ * hours and to run many instances in one process.
+ * </p>
+ * <p>
+ * The history is kept in a circular buffer that is only as large as the
+ * furthest a grain can reach back: twice the maximum grain size plus one
+ * block. Grains are kept in a fixed, preallocated pool with index based free
+ * and active lists, so no objects are created while processing. Each grain
+ * renders a whole block in a tight inner loop, instead of iterating all grains
+ * for every sample.
+ * </p>
+ * <p>
+ * The playback position follows the incoming audio at the time stretch rate.
+ * For a live stream the position can not run ahead of the newest sample nor
+ * fall behind the history, it is kept within those bounds. The processor
+ * expects buffers without overlap.
+ * </p>
+ *
+ * @author Joren Six
+ */
+public class StreamingGranulator implements AudioProcessor {
+
+	/** The default maximum grain size in milliseconds. */
+	public static final float DEFAULT_MAX_GRAIN_SIZE = 500.0f;
+
+	/** The default number of grains in the pool. */
+	public static final int DEFAULT_MAX_GRAINS = 64;
+
+	private final float sampleRate;
+
+	/** The length of one sample in milliseconds. */
+	private final double msPerSample;
+
+	private float grainInterval;
+	private float grainSize;
+	private float grainRandomness;
+	private float pitchFactor;
+	private float timeStretchFactor;
+
+	/** The time in milliseconds since the last grain was activated. */
+	private float timeSinceLastGrain;
+
+	/** Flag to indicate special case for the first grain. */
+	private boolean firstGrain;
+
+	/** The playback position, in samples since the start of the stream. */
+	private double position;
+
+	//------------------------ History
+
+	/** The circular buffer with the most recent audio, its length is a power of two. */
+	private final float[] history;
+
+	/** Mask to map a sample index to an index in the history. */
+	private final int historyMask;
+
+	/** The number of samples written to the history since the start of the stream. */
+	private long written;
+
+	/** The largest grain, in samples. */
+	private final int maxGrainLength;
+
+	//------------------------ Grain pool, as a structure of arrays
+
+	private final double[] grainPosition;
+	private final double[] grainAge;
+	private final double[] grainLength;
+	private final double[] grainWindowStep;
+
+	/** The offset in the current block where a grain starts to play. */
+	private final int[] grainStartOffset;
+
+	/** Indexes of free grains, used as a stack. */
+	private final int[] freeGrains;
+	private int freeGrainCount;
+
+	/** Indexes of active grains. */
+	private final int[] activeGrains;
+	private int activeGrainCount;
+
+	/** The number of grains that could not start because the pool was empty. */
+	private long droppedGrains;
+
+	/** The window used by grains. */
+	private final float[] window;
+
+	private float[] outputBuffer;
+
+	/** State of the xorshift random generator, used for the grain size randomness. */
+	private long randomState;
+
+	/**
+	 * Create a new streaming granulator with a maximum grain size of
+	 * {@value #DEFAULT_MAX_GRAIN_SIZE} ms and {@value #DEFAULT_MAX_GRAINS}
+	 * grains.
+	 *
+	 * @param sampleRate the sample rate.
+	 * @param bufferSize the size of an output buffer.
+	 */
+	public StreamingGranulator(float sampleRate, int bufferSize) {
+		this(sampleRate, bufferSize, DEFAULT_MAX_GRAIN_SIZE, DEFAULT_MAX_GRAINS);
+	}
+
+	/**
+	 * Create a new streaming granulator.
+	 *
+	 * @param sampleRate the sample rate.
+	 * @param bufferSize the size of an output buffer.
+	 * @param maxGrainSize the size of the largest grain in milliseconds, after
+	 *            randomization and time stretching. Larger grains are
+	 *            shortened. It determines the size of the history.
+	 * @param maxGrains the number of grains in the pool.
+	 */
+	public StreamingGranulator(float sampleRate, int bufferSize, float maxGrainSize, int maxGrains) {
+		this.sampleRate = sampleRate;
+		this.msPerSample = 1000.0 / sampleRate;
+
+		maxGrainLength = (int) Math.ceil(maxGrainSize / msPerSample);
+		int historySize = Integer.highestOneBit(2 * maxGrainLength + bufferSize + 4) << 1;
+		history = new float[historySize];
+		historyMask = historySize - 1;
+
+		grainPosition = new double[maxGrains];
+		grainAge = new double[maxGrains];
+		grainLength = new double[maxGrains];
+		grainWindowStep = new double[maxGrains];
+		grainStartOffset = new int[maxGrains];
+		freeGrains = new int[maxGrains];
+		activeGrains = new int[maxGrains];
+
+		window = new CosineWindow().generateCurve(512);
+		outputBuffer = new float[bufferSize];
+
+		grainInterval = 40.0f;
+		grainSize = 100.0f;
+		grainRandomness = 0.1f;
+		pitchFactor = 1.0f;
+		timeStretchFactor = 1.0f;
+		randomState = System.nanoTime() | 1;
+
+		reset();
+	}
+
+	/**
+	 * Forget the history and stop all grains.
+	 */
+	public void reset() {
+		Arrays.fill(history, 0);
+		written = 0;
+		position = 0;
+		activeGrainCount = 0;
+		freeGrainCount = freeGrains.length;
+		for (int i = 0; i < freeGrains.length; i++) {
+			freeGrains[i] = freeGrains.length - 1 - i;
+		}
+		timeSinceLastGrain = 0;
+		firstGrain = true;
+	}
+
+	@Override
+	public boolean process(AudioEvent audioEvent) {
+		final float[] input = audioEvent.getFloatBuffer();
+		final int bufferSize = input.length;
+		if (outputBuffer.length != bufferSize) {
+			outputBuffer = new float[bufferSize];
+		}
+
+		write(input);
+
+		// keep the position within the available history
+		final double newest = written;
+		final double oldest = Math.max(0, written - history.length + maxGrainLength + bufferSize);
+		position = Math.max(oldest, Math.min(newest, position));
+
+		scheduleGrains(bufferSize);
+
+		Arrays.fill(outputBuffer, 0);
+		for (int i = 0; i < activeGrainCount;) {
+			final int g = activeGrains[i];
+			if (renderGrain(g, bufferSize)) {
+				i++;
+			} else {
+				// the grain died: swap it with the last active grain
+				activeGrains[i] = activeGrains[--activeGrainCount];
+				freeGrains[freeGrainCount++] = g;
+			}
+		}
+
+		audioEvent.setFloatBuffer(outputBuffer);
+		return true;
+	}
+
+	/**
+	 * Appends a block to the circular history.
+	 */
+	private void write(float[] input) {
+		int start = (int) (written & historyMask);
+		int firstPart = Math.min(input.length, history.length - start);
+		System.arraycopy(input, 0, history, start, firstPart);
+		System.arraycopy(input, firstPart, history, 0, input.length - firstPart);
+		written += input.length;
+	}
+
+	/**
+	 * Advances the playback position over the block and starts grains at the
+	 * right offsets within the block.
+	 */
+	private void scheduleGrains(int bufferSize) {
+		if (firstGrain) {
+			final int g = startGrain(0);
+			if (g >= 0) {
+				grainPosition[g] = position;
+				grainLength[g] = Math.min(grainSize / msPerSample, maxGrainLength);
+				grainAge[g] = grainLength[g] / 4.0;
+				grainWindowStep[g] = window.length / grainLength[g];
+			}
+			firstGrain = false;
+			timeSinceLastGrain = grainInterval / 2f;
+		}
+		for (int i = 0; i < bufferSize; i++) {
+			if (timeSinceLastGrain > grainInterval) {
+				final int g = startGrain(i);
+				if (g >= 0) {
+					final double randomTimeDiff = (nextRandomBit() ? +1 : -1) * grainSize * grainRandomness;
+					final double stretch = Math.max(Math.abs(timeStretchFactor), 1e-3);
+					final double actualGrainSize = (grainSize + randomTimeDiff) / stretch + 1;
+					final double length = Math.max(1, Math.min(actualGrainSize / msPerSample, maxGrainLength));
+					grainLength[g] = length;
+					grainPosition[g] = position - length;
+					grainAge[g] = 0;
+					grainWindowStep[g] = window.length / length;
+				}
+				timeSinceLastGrain = 0f;
+			}
+			position += timeStretchFactor;
+			timeSinceLastGrain += msPerSample;
+		}
+	}
+
+	/**
+	 * Takes a grain from the pool.
+	 *
+	 * @param offset The offset in the current block where the grain starts.
+	 * @return The index of the grain or -1 if the pool is empty.
+	 */
+	private int startGrain(int offset) {
+		if (freeGrainCount == 0) {
+			droppedGrains++;
+			return -1;
+		}
+		final int g = freeGrains[--freeGrainCount];
+		activeGrains[activeGrainCount++] = g;
+		grainStartOffset[g] = offset;
+		return g;
+	}
+
+	/**
+	 * Adds the output of one grain to the output buffer.
+	 *
+	 * @return False if the grain died during this block.
+	 */
+	private boolean renderGrain(int g, int bufferSize) {
+		final double increment = (timeStretchFactor >= 0 ? 1 : -1) * pitchFactor;
+		final double length = grainLength[g];
+		final double windowStep = grainWindowStep[g];
+		final int windowEnd = window.length - 1;
+		final long oldest = written - history.length;
+		double pos = grainPosition[g];
+		double age = grainAge[g];
+		final int grainStartOffsetBefore = grainStartOffset[g];
+		int i = grainStartOffsetBefore;
+		grainStartOffset[g] = 0;
+
+		// the number of samples the grain plays in this block
+		final int end = (int) Math.min(bufferSize, i + Math.floor(length - age) + 1);
+		final double lastPos = pos + increment * (end - i);
+		final boolean inHistory = Math.min(pos, lastPos) > oldest + 1 && Math.max(pos, lastPos) < written - 3;
+		final boolean noInterpolation = pitchFactor > Granulator.ADAPTIVE_INTERP_HIGH_THRESH;
+		final boolean linear = pitchFactor > Granulator.ADAPTIVE_INTERP_LOW_THRESH;
+		double windowPosition = age * windowStep;
+
+		for (; i < end; i++) {
+			// window value, linear interpolation
+			final double clampedWindowPosition = Math.min(windowPosition, windowEnd);
+			final int lowerIndex = (int) clampedWindowPosition;
+			final float offset = (float) (clampedWindowPosition - lowerIndex);
+			final float windowScale = (1 - offset) * window[lowerIndex] + offset * window[Math.min(lowerIndex + 1, windowEnd)];
+
+			final float sample;
+			if (!inHistory) {
+				sample = frame(pos, oldest);
+			} else if (noInterpolation) {
+				sample = history[(int) ((long) pos & historyMask)];
+			} else if (linear) {
+				// all positions are positive here, so a cast floors
+				final long index = (long) pos;
+				final float fraction = (float) (pos - index);
+				final float y0 = history[(int) (index & historyMask)];
+				final float y1 = history[(int) ((index + 1) & historyMask)];
+				sample = y0 + fraction * (y1 - y0);
+			} else {
+				sample = frame(pos, oldest);
+			}
+			outputBuffer[i] += windowScale * sample;
+
+			windowPosition += windowStep;
+			pos += increment;
+		}
+		age += end - grainStartOffsetBefore;
+		grainPosition[g] = pos;
+		grainAge[g] = age;
+		return age <= length;
+	}
+
+	/**
+	 * Reads a frame from the history with the interpolation chosen by the
+	 * pitch factor, as in {@link Granulator}. Frames outside the history are
+	 * zero.
+	 */
+	private float frame(double pos, long oldest) {
+		final long index = (long) Math.floor(pos);
+		if (index <= oldest || index >= written - 1) {
+			return 0;
+		}
+		if (pitchFactor > Granulator.ADAPTIVE_INTERP_HIGH_THRESH) {
+			return history[(int) (index & historyMask)];
+		}
+		final float fraction = (float) (pos - index);
+		final float y0 = history[(int) (index & historyMask)];
+		final float y1 = history[(int) ((index + 1) & historyMask)];
+		if (pitchFactor > Granulator.ADAPTIVE_INTERP_LOW_THRESH || index + 2 >= written) {
+			return y0 + fraction * (y1 - y0);
+		}
+		final float ym1 = history[(int) ((index - 1) & historyMask)];
+		final float y2 = history[(int) ((index + 2) & historyMask)];
+		final float mu2 = fraction * fraction;
+		final float a0 = y2 - y1 - ym1 + y0;
+		final float a1 = ym1 - y0 - a0;
+		final float a2 = y1 - ym1;
+		return a0 * fraction * mu2 + a1 * mu2 + a2 * fraction + y0;
+	}
+
+	/**
+	 * An xorshift generator: cheap and, unlike Math.random(), not shared between threads.
+	 */
+	private boolean nextRandomBit() {
+		randomState ^= randomState << 13;
+		randomState ^= randomState >>> 7;
+		randomState ^= randomState << 17;
+		return randomState < 0;
+	}
+
+	@Override
+	public void processingFinished() {
+
+	}
+
+	/**
+	 * @param currentFactor The time stretch factor, 1 follows the incoming
+	 *            audio, smaller values slow it down. The playback position
+	 *            can not run ahead of the stream.
+	 */
+	public void setTimestretchFactor(float currentFactor) {
+		timeStretchFactor = currentFactor;
+	}
+
+	/**
+	 * @param currentFactor The pitch shift factor, the playback speed of
+	 *            the grains: 2 is an octave up, 0.5 an octave down.
+	 */
+	public void setPitchShiftFactor(float currentFactor) {
+		pitchFactor = currentFactor;
+	}
+
+	/**
+	 * @param grainInterval The time between the start of two grains, in
+	 *            milliseconds.
+	 */
+	public void setGrainInterval(int grainInterval) {
+		this.grainInterval = grainInterval;
+	}
+
+	/**
+	 * @param grainSize The size of a grain in milliseconds, before
+	 *            randomization and time stretching.
+	 */
+	public void setGrainSize(int grainSize) {
+		this.grainSize = grainSize;
+	}
+
+	/**
+	 * @param grainRandomness The relative random variation of the grain
+	 *            size, between 0 and 1.
+	 */
+	public void setGrainRandomness(float grainRandomness) {
+		this.grainRandomness = grainRandomness;
+	}
+
+	/**
+	 * @param position in seconds since the start of the stream. It is kept
+	 *            within the available history.
+	 */
+	public void setPosition(float position) {
+		this.position = position * sampleRate;
+	}
+
+	/**
+	 * @return The number of grains currently playing.
+	 */
+	public int getActiveGrainCount() {
+		return activeGrainCount;
+	}
+
+	/**
+	 * @return The number of grains that were skipped because the pool was exhausted.
+	 */
+	public long getDroppedGrainCount() {
+		return droppedGrains;
+	}
+}
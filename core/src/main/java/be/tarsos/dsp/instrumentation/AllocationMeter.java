@@ -0,0 +1,53 @@
+/*
+*      _______                       _____   _____ _____  
+*     |__   __|                     |  __ \ / ____|  __ \ 
+*        | | __ _ _ __ ___  ___  ___| |  | | (___ | |__) |
+*        | |/ _` | '__/ __|/ _ \/ __| |  | |\___ \|  ___/ 
+*        | | (_| | |  \__ \ (_) \__ \ |__| |____) | |     
+*        |_|\__,_|_|  |___/\___/|___/_____/|_____/|_|     
+*                                                         
+* -------------------------------------------------------------
+*
+* TarsosDSP is developed by Joren Six at IPEM, University Ghent
+*  
+* -------------------------------------------------------------
+*
+*  Info: http://0110.be/tag/TarsosDSP
+*  Github: https://github.com/JorenSix/TarsosDSP
+*  Releases: http://0110.be/releases/TarsosDSP/
+*  
+*  TarsosDSP includes modified source code by various authors,
+*  for credits and info, see README.
+* 
+*/
+
+
+
+package be.tarsos.dsp.instrumentation;
+
+/**
+ * Measures the number of bytes allocated by the current thread. The core of
+ * TarsosDSP does not depend on <code>java.lang.management</code>, which is not
+ * available on every platform, so implementations are provided elsewhere, e.g.
+ * by <code>be.tarsos.dsp.instrumentation.jvm.ThreadAllocationMeter</code>.
+ * 
+ * @author Joren Six
+ */
+public interface AllocationMeter {
+	
+	/**
+	 * An allocation meter for platforms without support: it always returns -1.
+	 */
+	AllocationMeter UNSUPPORTED = new AllocationMeter() {
+		@Override
+		public long currentThreadAllocatedBytes() {
+			return -1;
+		}
+	};
+	
+	/**
+	 * @return The total number of bytes allocated by the current thread, or a
+	 *         negative number if unsupported.
+	 */
+	long currentThreadAllocatedBytes();
+}
@@ -0,0 +1,153 @@
+/*
+*      _______                       _____   _____ _____  
+*     |__   __|                     |  __ \ / ____|  __ \ 
+*        | | __ _ _ __ ___  ___  ___| |  | | (___ | |__) |
+*        | |/ _` | '__/ __|/ _ \/ __| |  | |\___ \|  ___/ 
+*        | | (_| | |  \__ \ (_) \__ \ |__| |____) | |     
+*        |_|\__,_|_|  |___/\___/|___/_____/|_____/|_|     
+*                                                         
+* -------------------------------------------------------------
+*
+* TarsosDSP is developed by Joren Six at IPEM, University Ghent
+*  
+* -------------------------------------------------------------
+*
+*  Info: http://0110.be/tag/TarsosDSP
+*  Github: https://github.com/JorenSix/TarsosDSP
+*  Releases: http://0110.be/releases/TarsosDSP/
+*  
+*  TarsosDSP includes modified source code by various authors,
+*  for credits and info, see README.
+* 
+*/
+
+
+
+package be.tarsos.dsp.instrumentation;
+
+import be.tarsos.dsp.AudioEvent;
+import be.tarsos.dsp.AudioProcessor;
+
+/**
+ * Wraps an audio processor and records metrics for each process call: the
+ * latency, the number of new sample frames, the audio duration and, when an
+ * {@link AllocationMeter} is supported, the bytes allocated by the processing
+ * thread.
+ * <p>
+ * For multichannel audio a frame holds one sample of each channel of the
+ * event format.
+ * </p>
+ * 
+ * @author Joren Six
+ */
+public class InstrumentedAudioProcessor implements AudioProcessor, ProcessorMetrics {
+	
+	private final AudioProcessor processor;
+	private final String name;
+	private final AllocationMeter allocationMeter;
+	private final LatencyHistogram latencies;
+	
+	private volatile long frames;
+	private volatile double audioSeconds;
+	private volatile long processingNanos;
+	private volatile long allocatedBytes;
+	
+	/**
+	 * Wrap a processor without allocation metrics.
+	 * @param processor The processor to wrap.
+	 * @param name A human readable name for the processor.
+	 */
+	public InstrumentedAudioProcessor(AudioProcessor processor, String name){
+		this(processor, name, AllocationMeter.UNSUPPORTED);
+	}
+	
+	/**
+	 * Wrap a processor.
+	 * @param processor The processor to wrap.
+	 * @param name A human readable name for the processor.
+	 * @param allocationMeter The meter to measure allocated bytes.
+	 */
+	public InstrumentedAudioProcessor(AudioProcessor processor, String name, AllocationMeter allocationMeter){
+		this.processor = processor;
+		this.name = name;
+		this.allocationMeter = allocationMeter;
+		this.latencies = new LatencyHistogram();
+		this.allocatedBytes = allocationMeter.currentThreadAllocatedBytes() < 0 ? -1 : 0;
+	}
+
+	@Override
+	public boolean process(AudioEvent audioEvent) {
+		// read before calling the processor, it may change the event
+		// the buffer size and overlap count interleaved samples
+		int newFrames = (audioEvent.getBufferSize() - audioEvent.getOverlap()) / audioEvent.getChannelCount();
+		long bytesBefore = allocationMeter.currentThreadAllocatedBytes();
+		long start = System.nanoTime();
+		boolean proceed = processor.process(audioEvent);
+		long duration = System.nanoTime() - start;
+		long bytesAfter = allocationMeter.currentThreadAllocatedBytes();
+		
+		latencies.record(duration);
+		processingNanos += duration;
+		frames += newFrames;
+		audioSeconds += newFrames / (double) audioEvent.getSampleRate();
+		if(bytesBefore >= 0 && bytesAfter >= 0){
+			allocatedBytes += bytesAfter - bytesBefore;
+		}
+		return proceed;
+	}
+
+	@Override
+	public void processingFinished() {
+		processor.processingFinished();
+	}
+	
+	/**
+	 * @return The wrapped processor.
+	 */
+	public AudioProcessor getProcessor(){
+		return processor;
+	}
+
+	@Override
+	public String getName() {
+		return name;
+	}
+
+	@Override
+	public LatencyHistogram getLatencyHistogram() {
+		return latencies;
+	}
+
+	@Override
+	public double getFramesPerSecond() {
+		long nanos = processingNanos;
+		return nanos == 0 ? 0 : frames / (nanos / 1e9);
+	}
+
+	@Override
+	public double getRealtimeFactor() {
+		long nanos = processingNanos;
+		return nanos == 0 ? 0 : audioSeconds / (nanos / 1e9);
+	}
+
+	@Override
+	public long getAllocatedBytes() {
+		return allocatedBytes;
+	}
+
+	@Override
+	public void reset() {
+		latencies.reset();
+		frames = 0;
+		audioSeconds = 0;
+		processingNanos = 0;
+		if(allocatedBytes > 0){
+			allocatedBytes = 0;
+		}
+	}
+	
+	@Override
+	public String toString(){
+		return name;
+	}
+}
@@ -0,0 +1,174 @@
+/*
+*      _______                       _____   _____ _____  
+*     |__   __|                     |  __ \ / ____|  __ \ 
+*        | | __ _ _ __ ___  ___  ___| |  | | (___ | |__) |
+*        | |/ _` | '__/ __|/ _ \/ __| |  | |\___ \|  ___/ 
+*        | | (_| | |  \__ \ (_) \__ \ |__| |____) | |     
+*        |_|\__,_|_|  |___/\___/|___/_____/|_____/|_|     
+*                                                         
+* -------------------------------------------------------------
+*
+* TarsosDSP is developed by Joren Six at IPEM, University Ghent
+*  
+* -------------------------------------------------------------
+*
+*  Info: http://0110.be/tag/TarsosDSP
+*  Github: https://github.com/JorenSix/TarsosDSP
+*  Releases: http://0110.be/releases/TarsosDSP/
+*  
+*  TarsosDSP includes modified source code by various authors,
+*  for credits and info, see README.
+* 
+*/
+
+
+
+package be.tarsos.dsp.instrumentation;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * <p>
+ * A lock-free histogram of durations in nanoseconds, in the style of an HDR
+ * histogram. Each power of two is split in a fixed number of linear sub-buckets
+ * so the relative error of a recorded value is bounded (about 3%), while values
+ * from nanoseconds to a minute fit in about a thousand buckets.
+ * </p>
+ * <p>
+ * Recording is a couple of shifts and an atomic increment. It does not allocate
+ * or lock, so it can be used on the audio thread while another thread reads
+ * percentiles.
+ * </p>
+ * 
+ * @author Joren Six
+ */
+public class LatencyHistogram {
+	
+	/**
+	 * The number of bits used for the linear sub-buckets.
+	 */
+	private static final int SUB_BUCKET_BITS = 5;
+	private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+	
+	/**
+	 * The largest value that is recorded exactly, larger values end up in the last bucket: about 68 seconds.
+	 */
+	public static final long MAX_VALUE = (1L << 36) - 1;
+	
+	private final AtomicLongArray counts;
+	private final AtomicLong totalCount;
+	private final AtomicLong sum;
+	private final AtomicLong max;
+	
+	/**
+	 * Create a new empty histogram.
+	 */
+	public LatencyHistogram(){
+		counts = new AtomicLongArray(bucketIndex(MAX_VALUE) + 1);
+		totalCount = new AtomicLong();
+		sum = new AtomicLong();
+		max = new AtomicLong();
+	}
+	
+	/**
+	 * Maps a value to a bucket index.
+	 * @param value The value to map, non negative.
+	 * @return The index of the bucket the value belongs to.
+	 */
+	static int bucketIndex(long value){
+		if(value < 2 * SUB_BUCKET_COUNT){
+			return (int) value;
+		}
+		int exponent = 63 - Long.numberOfLeadingZeros(value);
+		int shift = exponent - SUB_BUCKET_BITS;
+		int mantissa = (int) (value >>> shift);
+		return shift * SUB_BUCKET_COUNT + mantissa;
+	}
+	
+	/**
+	 * Returns the largest value that maps to a bucket.
+	 * @param index The bucket index.
+	 * @return The highest value equivalent to the values in the bucket.
+	 */
+	static long highestEquivalentValue(int index){
+		if(index < 2 * SUB_BUCKET_COUNT){
+			return index;
+		}
+		int shift = index / SUB_BUCKET_COUNT - 1;
+		long mantissa = index - shift * SUB_BUCKET_COUNT;
+		return ((mantissa + 1) << shift) - 1;
+	}
+	
+	/**
+	 * Record a duration.
+	 * @param nanos The duration in nanoseconds.
+	 */
+	public void record(long nanos){
+		long value = Math.max(0, Math.min(nanos, MAX_VALUE));
+		counts.incrementAndGet(bucketIndex(value));
+		totalCount.incrementAndGet();
+		sum.addAndGet(value);
+		long currentMax = max.get();
+		while(value > currentMax && !max.compareAndSet(currentMax, value)){
+			currentMax = max.get();
+		}
+	}
+	
+	/**
+	 * @return The number of recorded values.
+	 */
+	public long getCount(){
+		return totalCount.get();
+	}
+	
+	/**
+	 * @return The largest recorded value in nanoseconds.
+	 */
+	public long getMax(){
+		return max.get();
+	}
+	
+	/**
+	 * @return The mean of the recorded values in nanoseconds.
+	 */
+	public double getMean(){
+		long count = totalCount.get();
+		return count == 0 ? 0 : sum.get() / (double) count;
+	}
+	
+	/**
+	 * Returns the value at a percentile. The value is the highest value
+	 * equivalent to the bucket the percentile falls in.
+	 * @param percentile The percentile, from 0 to 100.
+	 * @return The value at the percentile in nanoseconds, or zero if nothing is recorded.
+	 */
+	public long getValueAtPercentile(double percentile){
+		long count = totalCount.get();
+		if(count == 0){
+			return 0;
+		}
+		long target = Math.max(1, (long) Math.ceil(Math.min(100, percentile) / 100.0 * count));
+		long seen = 0;
+		for(int i = 0 ; i < counts.length() ; i++){
+			seen += counts.get(i);
+			if(seen >= target){
+				return Math.min(highestEquivalentValue(i), getMax());
+			}
+		}
+		return getMax();
+	}
+	
+	/**
+	 * Remove all recorded values. Values recorded concurrently with a reset
+	 * may or may not be kept.
+	 */
+	public void reset(){
+		for(int i = 0 ; i < counts.length() ; i++){
+			counts.set(i, 0);
+		}
+		totalCount.set(0);
+		sum.set(0);
+		max.set(0);
+	}
+}
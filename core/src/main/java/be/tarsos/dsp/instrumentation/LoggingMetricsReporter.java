@@ -0,0 +1,83 @@
+/*
+*      _______                       _____   _____ _____  
+*     |__   __|                     |  __ \ / ____|  __ \ 
+*        | | __ _ _ __ ___  ___  ___| |  | | (___ | |__) |
+*        | |/ _` | '__/ __|/ _ \/ __| |  | |\___ \|  ___/ 
+*        | | (_| | |  \__ \ (_) \__ \ |__| |____) | |     
+*        |_|\__,_|_|  |___/\___/|___/_____/|_____/|_|     
+*                                                         
+* -------------------------------------------------------------
+*
+* TarsosDSP is developed by Joren Six at IPEM, University Ghent
+*  
+* -------------------------------------------------------------
+*
+*  Info: http://0110.be/tag/TarsosDSP
+*  Github: https://github.com/JorenSix/TarsosDSP
+*  Releases: http://0110.be/releases/TarsosDSP/
+*  
+*  TarsosDSP includes modified source code by various authors,
+*  for credits and info, see README.
+* 
+*/
+
+
+
+package be.tarsos.dsp.instrumentation;
+
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Writes processor metrics to a logger, one line per processor.
+ * 
+ * @author Joren Six
+ */
+public class LoggingMetricsReporter implements MetricsReporter {
+	
+	private final Logger logger;
+	private final Level level;
+	
+	/**
+	 * Report to the logger of this class on level INFO.
+	 */
+	public LoggingMetricsReporter(){
+		this(LoggingMetricsReporter.class.getName(), "INFO");
+	}
+	
+	/**
+	 * Report to a logger. The name and level are strings so that the
+	 * java.logging types are not part of the API of this module.
+	 * @param loggerName The name of the logger to report to.
+	 * @param levelName The level to log on, e.g. "INFO" or "FINE", see {@link Level#parse(String)}.
+	 * @throws IllegalArgumentException If the level is not known.
+	 */
+	public LoggingMetricsReporter(String loggerName, String levelName){
+		this.logger = Logger.getLogger(loggerName);
+		this.level = Level.parse(levelName);
+	}
+
+	@Override
+	public void report(List<ProcessorMetrics> metrics) {
+		if(!logger.isLoggable(level)){
+			return;
+		}
+		for(ProcessorMetrics m : metrics){
+			logger.log(level, format(m));
+		}
+	}
+	
+	/**
+	 * Formats the metrics of one processor.
+	 * @param m The metrics to format.
+	 * @return A line with the latency percentiles (in microseconds), throughput and allocations.
+	 */
+	public static String format(ProcessorMetrics m){
+		LatencyHistogram h = m.getLatencyHistogram();
+		String allocated = m.getAllocatedBytes() < 0 ? "n/a" : String.valueOf(m.getAllocatedBytes() / Math.max(1, h.getCount()));
+		return String.format("%-30s calls: %8d  mean: %9.1fus  p50: %9.1fus  p99: %9.1fus  max: %9.1fus  frames/s: %12.0f  realtime: %8.1fx  bytes/call: %s",
+				m.getName(), h.getCount(), h.getMean() / 1000.0, h.getValueAtPercentile(50) / 1000.0,
+				h.getValueAtPercentile(99) / 1000.0, h.getMax() / 1000.0, m.getFramesPerSecond(), m.getRealtimeFactor(), allocated);
+	}
+}
@@ -0,0 +1,135 @@
+/*
+*      _______                       _____   _____ _____  
+*     |__   __|                     |  __ \ / ____|  __ \ 
+*        | | __ _ _ __ ___  ___  ___| |  | | (___ | |__) |
+*        | |/ _` | '__/ __|/ _ \/ __| |  | |\___ \|  ___/ 
+*        | | (_| | |  \__ \ (_) \__ \ |__| |____) | |     
+*        |_|\__,_|_|  |___/\___/|___/_____/|_____/|_|     
+*                                                         
+* -------------------------------------------------------------
+*
+* TarsosDSP is developed by Joren Six at IPEM, University Ghent
+*  
+* -------------------------------------------------------------
+*
+*  Info: http://0110.be/tag/TarsosDSP
+*  Github: https://github.com/JorenSix/TarsosDSP
+*  Releases: http://0110.be/releases/TarsosDSP/
+*  
+*  TarsosDSP includes modified source code by various authors,
+*  for credits and info, see README.
+* 
+*/
+
+
+
+package be.tarsos.dsp.instrumentation;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import be.tarsos.dsp.AudioProcessor;
+
+/**
+ * <p>
+ * Keeps track of instrumented audio processors. Instrumentation is opt-in:
+ * wrap each processor before adding it to a dispatcher.
+ * </p>
+ * <pre>
+ * MetricsRegistry registry = new MetricsRegistry();
+ * dispatcher.addAudioProcessor(registry.instrument(new PitchProcessor(...), "pitch"));
+ * ...
+ * registry.report(new LoggingMetricsReporter());
+ * </pre>
+ * 
+ * @author Joren Six
+ */
+public class MetricsRegistry {
+	
+	private final List<ProcessorMetrics> metrics;
+	private final AllocationMeter allocationMeter;
+	
+	/**
+	 * Create a registry without allocation metrics.
+	 */
+	public MetricsRegistry(){
+		this(AllocationMeter.UNSUPPORTED);
+	}
+	
+	/**
+	 * Create a registry.
+	 * @param allocationMeter The meter used to measure allocated bytes for each instrumented processor.
+	 */
+	public MetricsRegistry(AllocationMeter allocationMeter){
+		this.metrics = new CopyOnWriteArrayList<ProcessorMetrics>();
+		this.allocationMeter = allocationMeter;
+	}
+	
+	/**
+	 * Wrap a processor and register its metrics. The name of the class is used as name.
+	 * @param processor The processor to instrument.
+	 * @return The instrumented processor, which should be added to the dispatcher instead of the original.
+	 */
+	public InstrumentedAudioProcessor instrument(AudioProcessor processor){
+		return instrument(processor, processor.getClass().getSimpleName());
+	}
+	
+	/**
+	 * Wrap a processor and register its metrics.
+	 * @param processor The processor to instrument.
+	 * @param name A human readable name for the processor, unique within the registry.
+	 * @return The instrumented processor, which should be added to the dispatcher instead of the original.
+	 */
+	public InstrumentedAudioProcessor instrument(AudioProcessor processor, String name){
+		InstrumentedAudioProcessor instrumented = new InstrumentedAudioProcessor(processor, name, allocationMeter);
+		metrics.add(instrumented);
+		return instrumented;
+	}
+	
+	/**
+	 * Register metrics gathered elsewhere.
+	 * @param processorMetrics The metrics to register.
+	 */
+	public void register(ProcessorMetrics processorMetrics){
+		metrics.add(processorMetrics);
+	}
+	
+	/**
+	 * @return An unmodifiable view of the registered metrics.
+	 */
+	public List<ProcessorMetrics> getMetrics(){
+		return Collections.unmodifiableList(metrics);
+	}
+	
+	/**
+	 * @return The registered metrics, the processor with the highest total latency first.
+	 */
+	public List<ProcessorMetrics> getMetricsByLoad(){
+		List<ProcessorMetrics> sorted = new ArrayList<ProcessorMetrics>(metrics);
+		Collections.sort(sorted, (a,b) -> Double.compare(total(b), total(a)));
+		return sorted;
+	}
+	
+	private static double total(ProcessorMetrics m){
+		return m.getLatencyHistogram().getMean() * m.getLatencyHistogram().getCount();
+	}
+	
+	/**
+	 * Send the current metrics to a reporter.
+	 * @param reporter The reporter to send the metrics to.
+	 */
+	public void report(MetricsReporter reporter){
+		reporter.report(getMetricsByLoad());
+	}
+	
+	/**
+	 * Reset the metrics of all registered processors.
+	 */
+	public void reset(){
+		for(ProcessorMetrics m : metrics){
+			m.reset();
+		}
+	}
+}
@@ -0,0 +1,68 @@
+/*
+*      _______                       _____   _____ _____  
+*     |__   __|                     |  __ \ / ____|  __ \ 
+*        | | __ _ _ __ ___  ___  ___| |  | | (___ | |__) |
+*        | |/ _` | '__/ __|/ _ \/ __| |  | |\___ \|  ___/ 
+*        | | (_| | |  \__ \ (_) \__ \ |__| |____) | |     
+*        |_|\__,_|_|  |___/\___/|___/_____/|_____/|_|     
+*                                                         
+* -------------------------------------------------------------
+*
+* TarsosDSP is developed by Joren Six at IPEM, University Ghent
+*  
+* -------------------------------------------------------------
+*
+*  Info: http://0110.be/tag/TarsosDSP
+*  Github: https://github.com/JorenSix/TarsosDSP
+*  Releases: http://0110.be/releases/TarsosDSP/
+*  
+*  TarsosDSP includes modified source code by various authors,
+*  for credits and info, see README.
+* 
+*/
+
+
+
+package be.tarsos.dsp.instrumentation;
+
+/**
+ * The metrics gathered for one audio processor. This simple interface is
+ * meant to be consumed by reporters, e.g. to log the metrics or to publish
+ * them via JMX.
+ * 
+ * @author Joren Six
+ */
+public interface ProcessorMetrics {
+	
+	/**
+	 * @return A human readable name for the processor.
+	 */
+	String getName();
+	
+	/**
+	 * @return The latencies of the process calls.
+	 */
+	LatencyHistogram getLatencyHistogram();
+	
+	/**
+	 * @return The number of (new) sample frames processed per second of processing time.
+	 */
+	double getFramesPerSecond();
+	
+	/**
+	 * @return The number of seconds of audio processed per second of
+	 *         processing time. A value of 100 means the processor runs a
+	 *         hundred times faster than real-time.
+	 */
+	double getRealtimeFactor();
+	
+	/**
+	 * @return The total number of bytes allocated during process calls, or a negative number if unknown.
+	 */
+	long getAllocatedBytes();
+	
+	/**
+	 * Reset all metrics.
+	 */
+	void reset();
+}
@@ -148,6 +148,23 @@ public class PipeDecoder {
 
 	
 	public InputStream getDecodedStream(final String resource,final int targetSampleRate,final double timeOffset, double numberOfSeconds) {
+		return getDecodedStream(resource, targetSampleRate, timeOffset, numberOfSeconds, 1);
+	}
+
+	/**
+	 * Decodes a resource to interleaved, signed 16 bit PCM with the requested
+	 * number of channels. With more than one channel ffmpeg keeps the
+	 * channel layout of the resource (or up- and down mixes to match the
+	 * requested number of channels) so all channels can be decoded at once.
+	 * 
+	 * @param resource The file or stream to decode.
+	 * @param targetSampleRate The sample rate to decode to.
+	 * @param timeOffset The number of seconds to skip.
+	 * @param numberOfSeconds The number of seconds to decode, or a negative number to decode until the end.
+	 * @param channels The number of channels to decode to.
+	 * @return A stream with interleaved PCM samples.
+	 */
+	public InputStream getDecodedStream(final String resource,final int targetSampleRate,final double timeOffset, double numberOfSeconds, int channels) {
 		
 		try {
 			String command = pipeCommand;
@@ -162,7 +179,7 @@ public class PipeDecoder {
 			}
 			command = command.replace("%resource%", resource);
 			command = command.replace("%sample_rate%", String.valueOf(targetSampleRate));
-			command = command.replace("%channels%","1");
+			command = command.replace("%channels%",String.valueOf(channels));
 			
 			ProcessBuilder pb;
 			pb= new ProcessBuilder(pipeEnvironment, pipeArgument , command);
@@ -291,11 +308,25 @@ public class PipeDecoder {
 	 * @return The audio format after conversion.
 	 */
 	public static TarsosDSPAudioFormat getTargetAudioFormat(int targetSampleRate) {
+		return getTargetAudioFormat(targetSampleRate, 1);
+	}
+
+	/**
+	 * Constructs the target audio format: signed PCM of a given sample rate
+	 * with interleaved channels.
+	 * 
+	 * @param targetSampleRate
+	 *            The sample rate to convert to.
+	 * @param channels
+	 *            The number of channels.
+	 * @return The audio format after conversion.
+	 */
+	public static TarsosDSPAudioFormat getTargetAudioFormat(int targetSampleRate, int channels) {
 		TarsosDSPAudioFormat audioFormat = new TarsosDSPAudioFormat(TarsosDSPAudioFormat.Encoding.PCM_SIGNED, 
 	        		targetSampleRate, 
 	        		2 * 8, 
-	        		1, 
-	        		2 * 1, 
+	        		channels, 
+	        		2 * channels, 
 	        		targetSampleRate, 
 	                ByteOrder.BIG_ENDIAN.equals(ByteOrder.nativeOrder()));
 		 return audioFormat;
@@ -73,8 +73,8 @@ public class PipedAudioStream {
 		return getMonoStream(targetSampleRate, startTimeOffset,-1);
 	}
 	
-	private TarsosDSPAudioFormat getTargetFormat(int targetSampleRate){
-		return new TarsosDSPAudioFormat(targetSampleRate, 16, 1, true, false);
+	private TarsosDSPAudioFormat getTargetFormat(int targetSampleRate, int channels){
+		return new TarsosDSPAudioFormat(targetSampleRate, 16, channels, true, false);
 	}
 
 
@@ -89,6 +89,21 @@ public class PipedAudioStream {
 			double numberOfSeconds) {
 		InputStream stream = null;
 		stream = decoder.getDecodedStream(resource, targetSampleRate,startTimeOffset,numberOfSeconds);
-		return new UniversalAudioInputStream(stream, getTargetFormat(targetSampleRate));
+		return new UniversalAudioInputStream(stream, getTargetFormat(targetSampleRate, 1));
+	}
+
+	/**
+	 * Return a signed PCM stream of audio of a defined sample rate with
+	 * interleaved channels. All channels are decoded by a single sub process.
+	 * @param targetSampleRate The target sample stream.
+	 * @param startTimeOffset The start time offset.
+	 * @param numberOfSeconds the number of seconds to pipe. If negative the stream is processed until end of stream.
+	 * @param channels The number of channels to decode.
+	 * @return An audio stream which can be used to read samples from.
+	 */
+	public TarsosDSPAudioInputStream getStream(int targetSampleRate, double startTimeOffset,
+			double numberOfSeconds, int channels) {
+		InputStream stream = decoder.getDecodedStream(resource, targetSampleRate,startTimeOffset,numberOfSeconds,channels);
+		return new UniversalAudioInputStream(stream, getTargetFormat(targetSampleRate, channels));
 	}
 }
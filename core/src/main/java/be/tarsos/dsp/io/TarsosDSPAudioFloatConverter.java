@@ -414,6 +414,23 @@ public abstract class TarsosDSPAudioFloatConverter {
             }
             return out_buff;
         }
+
+        public float[][] toFloatArrays(byte[] in_buff, int in_offset,
+                float[][] out_buffs, int out_offset, int out_len) {
+            final int channels = out_buffs.length;
+            final int frameSize = 2 * channels;
+            for (int c = 0; c < channels; c++) {
+                final float[] out_buff = out_buffs[c];
+                int ix = in_offset + 2 * c;
+                final int len = out_offset + out_len;
+                for (int ox = out_offset; ox < len; ox++) {
+                    out_buff[ox] = ((short) ((in_buff[ix] & 0xFF) | 
+                            (in_buff[ix + 1] << 8))) * (1.0f / 32767.0f);
+                    ix += frameSize;
+                }
+            }
+            return out_buffs;
+        }
     }
 
     // PCM 16 bit, signed, big-endian
@@ -1034,10 +1051,91 @@ public abstract class TarsosDSPAudioFloatConverter {
 
     private TarsosDSPAudioFormat format;
 
+    /**
+     * Scratch space for the generic (de)interleaving conversions, allocated
+     * on first use.
+     */
+    private float[] interleaved;
+
     public TarsosDSPAudioFormat getFormat() {
         return format;
     }
 
+    /**
+     * Converts interleaved multichannel bytes to one float array per
+     * channel, so no separate deinterleaving pass over the floats is
+     * needed. The number of channels is the number of output arrays.
+     * 
+     * @param in_buff
+     *            The interleaved audio bytes.
+     * @param in_offset
+     *            The offset in bytes of the first frame.
+     * @param out_buffs
+     *            The destination, one array for each channel.
+     * @param out_offset
+     *            The index in each channel array of the first frame.
+     * @param out_len
+     *            The number of sample frames to convert.
+     * @return The destination arrays.
+     */
+    public float[][] toFloatArrays(byte[] in_buff, int in_offset,
+            float[][] out_buffs, int out_offset, int out_len) {
+        final int channels = out_buffs.length;
+        final int bytesPerFrame = ((format.getSampleSizeInBits() + 7) / 8) * channels;
+        final int blockFrames = Math.max(1, 1024 / channels);
+        if (interleaved == null || interleaved.length < blockFrames * channels) {
+            interleaved = new float[blockFrames * channels];
+        }
+        for (int done = 0; done < out_len; done += blockFrames) {
+            final int frames = Math.min(blockFrames, out_len - done);
+            toFloatArray(in_buff, in_offset + done * bytesPerFrame, interleaved, 0, frames * channels);
+            for (int c = 0; c < channels; c++) {
+                final float[] out_buff = out_buffs[c];
+                for (int i = 0, j = c; i < frames; i++, j += channels) {
+                    out_buff[out_offset + done + i] = interleaved[j];
+                }
+            }
+        }
+        return out_buffs;
+    }
+
+    /**
+     * Converts one float array per channel to interleaved multichannel
+     * bytes.
+     * 
+     * @param in_buffs
+     *            The audio, one array for each channel.
+     * @param in_offset
+     *            The index in each channel array of the first frame.
+     * @param in_len
+     *            The number of sample frames to convert.
+     * @param out_buff
+     *            The destination for the interleaved bytes.
+     * @param out_offset
+     *            The offset in bytes of the first frame.
+     * @return The destination array.
+     */
+    public byte[] toByteArray(float[][] in_buffs, int in_offset, int in_len,
+            byte[] out_buff, int out_offset) {
+        final int channels = in_buffs.length;
+        final int bytesPerFrame = ((format.getSampleSizeInBits() + 7) / 8) * channels;
+        final int blockFrames = Math.max(1, 1024 / channels);
+        if (interleaved == null || interleaved.length < blockFrames * channels) {
+            interleaved = new float[blockFrames * channels];
+        }
+        for (int done = 0; done < in_len; done += blockFrames) {
+            final int frames = Math.min(blockFrames, in_len - done);
+            for (int c = 0; c < channels; c++) {
+                final float[] in_buff = in_buffs[c];
+                for (int i = 0, j = c; i < frames; i++, j += channels) {
+                    interleaved[j] = in_buff[in_offset + done + i];
+                }
+            }
+            toByteArray(interleaved, 0, frames * channels, out_buff, out_offset + done * bytesPerFrame);
+        }
+        return out_buff;
+    }
+
     public abstract float[] toFloatArray(byte[] in_buff, int in_offset,
             float[] out_buff, int out_offset, int out_len);
 
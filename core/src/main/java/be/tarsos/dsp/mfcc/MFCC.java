@@ -25,10 +25,22 @@ package be.tarsos.dsp.mfcc;
 
 import be.tarsos.dsp.AudioEvent;
 import be.tarsos.dsp.AudioProcessor;
+import be.tarsos.dsp.SpectrumProcessor;
 import be.tarsos.dsp.util.fft.FFT;
 import be.tarsos.dsp.util.fft.HammingWindow;
 
 
+/**
+ * Calculates Mel-frequency cepstral coefficients for each audio buffer. The
+ * triangular mel filters and the DCT-II basis are calculated once, when the
+ * filter banks are calculated, and the buffers are reused between frames.
+ * <p>
+ * Delta features and cepstral mean and variance normalization are available
+ * as static helpers which operate on a sequence of frames, see
+ * {@link #deltas(float[][], int)} and
+ * {@link #meanVarianceNormalization(float[][])}.
+ * </p>
+ */
 public class MFCC implements AudioProcessor {
 	
     private int amountOfCepstrumCoef; //Number of MFCCs per frame
@@ -42,8 +54,20 @@ public class MFCC implements AudioProcessor {
     private float[] mfcc;
     
     int centerFrequencies[];
+    
+    /** The first FFT bin of each mel filter. */
+    private int[] filterStart;
+    /** The weights of each mel filter, starting at the first bin of the filter. */
+    private float[][] filterWeights;
+    /** The DCT-II basis, one row for each cepstral coefficient. */
+    private float[][] dctBasis;
+    
+    private float[] magnitudes;
+    private float[] melEnergies;
 
     private FFT fft;
+    /** The shared spectrum, or null if the FFT is calculated here. */
+    private final SpectrumProcessor spectrum;
     private int samplesPerFrame; 
     private float sampleRate;
     
@@ -52,29 +76,90 @@ public class MFCC implements AudioProcessor {
     }
 
     public MFCC(int samplesPerFrame, float sampleRate, int amountOfCepstrumCoef, int amountOfMelFilters, float lowerFilterFreq, float upperFilterFreq) {
+    	this(samplesPerFrame, new FFT(samplesPerFrame, new HammingWindow()), null, sampleRate, amountOfCepstrumCoef, amountOfMelFilters, lowerFilterFreq, upperFilterFreq);
+    }
+    
+    /**
+     * Create an MFCC processor which uses the magnitudes of a shared spectrum.
+     * To get the same results as with its own FFT the spectrum should use a
+     * {@link HammingWindow}.
+     * @param spectrum The shared spectrum, added to the chain before this processor.
+     * @param sampleRate The sample rate of the audio.
+     */
+    public MFCC(SpectrumProcessor spectrum, int sampleRate){
+    	this(spectrum, sampleRate, 30, 30, 133.3334f, ((float)sampleRate)/2f);
+    }
+    
+    /**
+     * Create an MFCC processor which uses the magnitudes of a shared spectrum.
+     * To get the same results as with its own FFT the spectrum should use a
+     * {@link HammingWindow}. The own FFT is only used by
+     * {@link #magnitudeSpectrum(float[])}.
+     * @param spectrum The shared spectrum, added to the chain before this processor.
+     * @param sampleRate The sample rate of the audio.
+     * @param amountOfCepstrumCoef Number of MFCCs per frame.
+     * @param amountOfMelFilters Number of mel filters.
+     * @param lowerFilterFreq Lower limit of the filters in Hz.
+     * @param upperFilterFreq Upper limit of the filters in Hz.
+     */
+    public MFCC(SpectrumProcessor spectrum, float sampleRate, int amountOfCepstrumCoef, int amountOfMelFilters, float lowerFilterFreq, float upperFilterFreq) {
+    	this(spectrum.getBufferSize(), new FFT(spectrum.getBufferSize(), spectrum.getWindowFunction()), spectrum, sampleRate, amountOfCepstrumCoef, amountOfMelFilters, lowerFilterFreq, upperFilterFreq);
+    }
+    
+    private MFCC(int samplesPerFrame, FFT fft, SpectrumProcessor spectrum, float sampleRate, int amountOfCepstrumCoef, int amountOfMelFilters, float lowerFilterFreq, float upperFilterFreq) {
         this.samplesPerFrame = samplesPerFrame; 
         this.sampleRate = sampleRate;
         this.amountOfCepstrumCoef = amountOfCepstrumCoef;
         this.amountOfMelFilters = amountOfMelFilters;
-        this.fft = new FFT(samplesPerFrame, new HammingWindow());
+        this.fft = fft;
+        this.spectrum = spectrum;
         
         this.lowerFilterFreq = Math.max(lowerFilterFreq, 25);
         this.upperFilterFreq = Math.min(upperFilterFreq, sampleRate / 2);
+        
+        audioFloatBuffer = new float[samplesPerFrame];
+        magnitudes = new float[samplesPerFrame / 2 + 1];
+        mfcc = new float[amountOfCepstrumCoef];
         calculateFilterBanks();       
     }
 
 	@Override
 	public boolean process(AudioEvent audioEvent) {
-		audioFloatBuffer = audioEvent.getFloatBuffer().clone();
-
-        // Magnitude Spectrum
-        float bin[] = magnitudeSpectrum(audioFloatBuffer);
-        // get Mel Filterbank
-        float fbank[] = melFilter(bin, centerFrequencies);
-        // Non-linear transformation
-        float f[] = nonLinearTransformation(fbank);
+        // Magnitude Spectrum, the last bin is mirrored as in magnitudeSpectrum
+        final int half = samplesPerFrame / 2;
+        if (spectrum == null){
+        	System.arraycopy(audioEvent.getFloatBuffer(), 0, audioFloatBuffer, 0, samplesPerFrame);
+        	fft.forwardTransform(audioFloatBuffer);
+        	for (int k = 0; k < half; k++){
+        		magnitudes[k] = fft.modulus(audioFloatBuffer, k);
+        	}
+        } else {
+        	System.arraycopy(spectrum.getMagnitudes(), 0, magnitudes, 0, half);
+        	magnitudes[0] = Math.abs(magnitudes[0]);
+        }
+        magnitudes[half] = magnitudes[half - 1];
+        
+        // Mel Filterbank with the non-linear transformation
+        final float FLOOR = -50;
+        for (int k = 0; k < amountOfMelFilters; k++){
+        	final float[] weights = filterWeights[k];
+        	final int start = filterStart[k];
+        	float energy = 0;
+        	for (int i = 0; i < weights.length; i++){
+        		energy += weights[i] * magnitudes[start + i];
+        	}
+        	melEnergies[k] = Math.max((float) Math.log(energy), FLOOR);
+        }
+        
         // Cepstral coefficients
-        mfcc = cepCoefficients(f);
+        for (int i = 0; i < amountOfCepstrumCoef; i++){
+        	final float[] basis = dctBasis[i];
+        	float sum = 0;
+        	for (int j = 0; j < amountOfMelFilters; j++){
+        		sum += melEnergies[j] * basis[j];
+        	}
+        	mfcc[i] = sum;
+        }
         
 		return true;
 	}
@@ -129,7 +214,34 @@ public class MFCC implements AudioProcessor {
             float fc = (inverseMel(mel[0] + factor * i) / sampleRate) * samplesPerFrame;
             centerFrequencies[i] = Math.round(fc);
         }
-
+        
+        // The weights of the triangular filters, as applied in melFilter.
+        filterStart = new int[amountOfMelFilters];
+        filterWeights = new float[amountOfMelFilters][];
+        for (int k = 1; k <= amountOfMelFilters; k++) {
+        	final int start = centerFrequencies[k - 1];
+        	final int center = centerFrequencies[k];
+        	final int stop = centerFrequencies[k + 1];
+        	final float[] weights = new float[Math.max(stop - start + 1, 0)];
+        	float den = (center - start + 1);
+        	for (int i = start; i <= center; i++) {
+        		weights[i - start] = (i - start + 1) / den;
+        	}
+        	den = (stop - center + 1);
+        	for (int i = center + 1; i <= stop; i++) {
+        		weights[i - start] = 1 - ((i - center) / den);
+        	}
+        	filterStart[k - 1] = start;
+        	filterWeights[k - 1] = weights;
+        }
+        melEnergies = new float[amountOfMelFilters];
+        
+        dctBasis = new float[amountOfCepstrumCoef][amountOfMelFilters];
+        for (int i = 0; i < amountOfCepstrumCoef; i++){
+        	for (int j = 0; j < amountOfMelFilters; j++){
+        		dctBasis[i][j] = (float) Math.cos(Math.PI * i / amountOfMelFilters * (j + 0.5));
+        	}
+        }
     }
     
 	
@@ -203,6 +315,15 @@ public class MFCC implements AudioProcessor {
     public float[] cepCoefficients(float f[]){
         float cepc[] = new float[amountOfCepstrumCoef];
         
+        if (f.length == amountOfMelFilters){
+        	for (int i = 0; i < cepc.length; i++){
+        		for (int j = 0; j < f.length; j++){
+        			cepc[i] += f[j] * dctBasis[i][j];
+        		}
+        	}
+        	return cepc;
+        }
+        
         for (int i = 0; i < cepc.length; i++){
             for (int j = 0; j < f.length; j++){
                 cepc[i] += f[j] * Math.cos(Math.PI * i / f.length * (j + 0.5));
@@ -267,4 +388,76 @@ public class MFCC implements AudioProcessor {
 	public int[] getCenterFrequencies() {
 		return centerFrequencies;
 	}
+	
+	/**
+	 * Calculates delta (differential) features with the regression formula
+	 * used by HTK: the delta of frame t is sum(n * (c[t+n] - c[t-n])) / (2 *
+	 * sum(n * n)) for n from 1 to window. Frames before the first or after the
+	 * last frame are replaced by the first or the last frame. Delta-delta
+	 * features are the deltas of the deltas.
+	 * 
+	 * @param features
+	 *            The features of consecutive frames, e.g. MFCCs.
+	 * @param window
+	 *            The number of frames on each side, typically 2.
+	 * @return A new array with the delta features of each frame.
+	 */
+	public static float[][] deltas(float[][] features, int window) {
+		final int frames = features.length;
+		final float[][] deltas = new float[frames][];
+		float denominator = 0;
+		for (int n = 1; n <= window; n++) {
+			denominator += 2 * n * n;
+		}
+		for (int t = 0; t < frames; t++) {
+			final float[] delta = new float[features[t].length];
+			for (int n = 1; n <= window; n++) {
+				final float[] next = features[Math.min(t + n, frames - 1)];
+				final float[] previous = features[Math.max(t - n, 0)];
+				for (int i = 0; i < delta.length; i++) {
+					delta[i] += n * (next[i] - previous[i]);
+				}
+			}
+			for (int i = 0; i < delta.length; i++) {
+				delta[i] /= denominator;
+			}
+			deltas[t] = delta;
+		}
+		return deltas;
+	}
+	
+	/**
+	 * Cepstral mean and variance normalization: each coefficient is modified in
+	 * place so that it has zero mean and unit variance over all frames.
+	 * Coefficients without variance are only centered.
+	 * 
+	 * @param features
+	 *            The features of consecutive frames, e.g. MFCCs.
+	 */
+	public static void meanVarianceNormalization(float[][] features) {
+		if (features.length == 0) {
+			return;
+		}
+		final int coefficients = features[0].length;
+		final double[] sum = new double[coefficients];
+		final double[] sumOfSquares = new double[coefficients];
+		for (float[] frame : features) {
+			for (int i = 0; i < coefficients; i++) {
+				sum[i] += frame[i];
+				sumOfSquares[i] += frame[i] * frame[i];
+			}
+		}
+		final float[] mean = new float[coefficients];
+		final float[] scale = new float[coefficients];
+		for (int i = 0; i < coefficients; i++) {
+			mean[i] = (float) (sum[i] / features.length);
+			final double variance = sumOfSquares[i] / features.length - mean[i] * (double) mean[i];
+			scale[i] = variance > 1e-12 ? (float) (1.0 / Math.sqrt(variance)) : 1f;
+		}
+		for (float[] frame : features) {
+			for (int i = 0; i < coefficients; i++) {
+				frame[i] = (frame[i] - mean[i]) * scale[i];
+			}
+		}
+	}
 }
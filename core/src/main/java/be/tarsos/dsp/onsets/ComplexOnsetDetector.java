@@ -25,6 +25,7 @@ package be.tarsos.dsp.onsets;
 
 import be.tarsos.dsp.AudioEvent;
 import be.tarsos.dsp.AudioProcessor;
+import be.tarsos.dsp.SpectrumProcessor;
 import be.tarsos.dsp.util.PeakPicker;
 import be.tarsos.dsp.util.fft.FFT;
 import be.tarsos.dsp.util.fft.HannWindow;
@@ -75,6 +76,18 @@ public class ComplexOnsetDetector implements AudioProcessor, OnsetDetector{
 	 */
 	private final FFT fft;
 	
+	/**
+	 * The shared spectrum, or null if the detector uses its own FFT.
+	 */
+	private final SpectrumProcessor spectrum;
+	
+	/**
+	 * Buffers for the FFT, magnitudes and phases when no shared spectrum is used.
+	 */
+	private final float[] data;
+	private final float[] power;
+	private final float[] phase;
+	
 	/**
 	 * Previous phase vector, one frame behind
 	 */
@@ -102,7 +115,25 @@ public class ComplexOnsetDetector implements AudioProcessor, OnsetDetector{
 	 * @param minimumInterOnsetInterval The minimum inter-onset-interval in seconds. When two onsets are detected within this interval the last one does not count. Default is 0.004 seconds.
 	 */
 	public ComplexOnsetDetector(int fftSize,double peakThreshold,double minimumInterOnsetInterval,double silenceThreshold){
-		fft = new FFT(fftSize,new HannWindow());
+		this(fftSize, new FFT(fftSize,new HannWindow()), null, peakThreshold, minimumInterOnsetInterval, silenceThreshold);
+	}
+	
+	/**
+	 * Create a new detector which uses a shared spectrum. To get the same
+	 * results as with its own FFT the spectrum should use a {@link HannWindow}.
+	 * 
+	 * @param spectrum The shared spectrum, added to the chain before this detector.
+	 * @param peakThreshold A threshold used for peak picking. Values between 0.1 and 0.8. Default is 0.3, if too many onsets are detected adjust to 0.4 or 0.5.
+	 * @param minimumInterOnsetInterval The minimum inter-onset-interval in seconds. When two onsets are detected within this interval the last one does not count. Default is 0.004 seconds.
+	 * @param silenceThreshold The threshold that defines when a buffer is silent. Default is -70dBSPL. -90 is also used.
+	 */
+	public ComplexOnsetDetector(SpectrumProcessor spectrum,double peakThreshold,double minimumInterOnsetInterval,double silenceThreshold){
+		this(spectrum.getBufferSize(), null, spectrum, peakThreshold, minimumInterOnsetInterval, silenceThreshold);
+	}
+	
+	private ComplexOnsetDetector(int fftSize,FFT fft,SpectrumProcessor spectrum,double peakThreshold,double minimumInterOnsetInterval,double silenceThreshold){
+		this.fft = fft;
+		this.spectrum = spectrum;
 		this.silenceThreshold = silenceThreshold;
 		this.minimumInterOnsetInterval = minimumInterOnsetInterval;
 		
@@ -114,6 +145,10 @@ public class ComplexOnsetDetector implements AudioProcessor, OnsetDetector{
 		theta1 = new float[rsize];
 		theta2 = new float[rsize];
 		
+		data = new float[fftSize];
+		power = new float[fftSize/2];
+		phase = new float[fftSize/2];
+		
 		handler = new PrintOnsetHandler();
 	}
 
@@ -153,10 +188,17 @@ public class ComplexOnsetDetector implements AudioProcessor, OnsetDetector{
 	
 	private void onsetDetection(AudioEvent audioEvent){
 		//calculate the complex fft (the magnitude and phase)
-		float[] data = audioEvent.getFloatBuffer().clone();
-		float[] power = new float[data.length/2];
-		float[] phase = new float[data.length/2];
-		fft.powerPhaseFFT(data, power, phase);
+		final float[] power;
+		final float[] phase;
+		if(spectrum == null){
+			System.arraycopy(audioEvent.getFloatBuffer(), 0, data, 0, data.length);
+			fft.powerPhaseFFT(data, this.power, this.phase);
+			power = this.power;
+			phase = this.phase;
+		} else {
+			power = spectrum.getMagnitudes();
+			phase = spectrum.getPhases();
+		}
 		
 		float onsetValue = 0;
 		
@@ -26,6 +26,7 @@ package be.tarsos.dsp.onsets;
 
 import be.tarsos.dsp.AudioEvent;
 import be.tarsos.dsp.AudioProcessor;
+import be.tarsos.dsp.SpectrumProcessor;
 import be.tarsos.dsp.util.fft.FFT;
 
 /**
@@ -83,6 +84,16 @@ public class PercussionOnsetDetector implements AudioProcessor, OnsetDetector {
 	public static final double DEFAULT_SENSITIVITY = 20;
 
 	private final FFT fft;
+	
+	/**
+	 * The shared spectrum, or null if the detector uses its own FFT.
+	 */
+	private final SpectrumProcessor spectrum;
+
+	/**
+	 * A copy of the audio for the FFT, the audio event is not changed.
+	 */
+	private float[] fftBuffer = new float[0];
 
 	private final float[] priorMagnitudes;
 	private final float[] currentMagnitudes;
@@ -142,7 +153,41 @@ public class PercussionOnsetDetector implements AudioProcessor, OnsetDetector {
 	 *            broadband total (dB). In [0-20].
 	 */
 	public PercussionOnsetDetector(float sampleRate, int bufferSize, OnsetHandler handler, double sensitivity, double threshold) {
-		fft = new FFT(bufferSize / 2);
+		this(sampleRate, bufferSize, new FFT(bufferSize / 2), null, handler, sensitivity, threshold);
+	}
+	
+	/**
+	 * Create a new percussion onset detector which uses the magnitudes of a
+	 * shared spectrum.
+	 * <p>
+	 * The results differ from a detector with its own FFT. That detector
+	 * transforms the first half of each buffer with an FFT of half the
+	 * buffer size, without a window, and reads <code>bufferSize/2</code>
+	 * values of the result. The shared spectrum is the windowed FFT of the
+	 * whole buffer. The bins over the threshold, and so the detected onsets,
+	 * are not the same; the threshold and sensitivity may need tuning.
+	 * </p>
+	 * 
+	 * @param sampleRate
+	 *            The sample rate in Hz (used to calculate timestamps)
+	 * @param spectrum
+	 *            The shared spectrum, added to the chain before this detector.
+	 * @param handler
+	 *            An interface implementor to handle percussion onset events.
+	 * @param sensitivity
+	 *            Sensitivity of the peak detector applied to broadband
+	 *            detection function (%). In [0-100].
+	 * @param threshold
+	 *            Energy rise within a frequency bin necessary to count toward
+	 *            broadband total (dB). In [0-20].
+	 */
+	public PercussionOnsetDetector(float sampleRate, SpectrumProcessor spectrum, OnsetHandler handler, double sensitivity, double threshold) {
+		this(sampleRate, spectrum.getBufferSize(), null, spectrum, handler, sensitivity, threshold);
+	}
+	
+	private PercussionOnsetDetector(float sampleRate, int bufferSize, FFT fft, SpectrumProcessor spectrum, OnsetHandler handler, double sensitivity, double threshold) {
+		this.fft = fft;
+		this.spectrum = spectrum;
 		this.threshold = threshold;
 		this.sensitivity = sensitivity;
 		priorMagnitudes = new float[bufferSize / 2];
@@ -158,8 +203,18 @@ public class PercussionOnsetDetector implements AudioProcessor, OnsetDetector {
 		this.processedSamples += audioFloatBuffer.length;
 		this.processedSamples -= audioEvent.getOverlap();
 
-		fft.forwardTransform(audioFloatBuffer);
-		fft.modulus(audioFloatBuffer, currentMagnitudes);
+		final float[] currentMagnitudes;
+		if(spectrum == null){
+			if(fftBuffer.length != audioFloatBuffer.length){
+				fftBuffer = new float[audioFloatBuffer.length];
+			}
+			System.arraycopy(audioFloatBuffer, 0, fftBuffer, 0, audioFloatBuffer.length);
+			fft.forwardTransform(fftBuffer);
+			fft.modulus(fftBuffer, this.currentMagnitudes);
+			currentMagnitudes = this.currentMagnitudes;
+		} else {
+			currentMagnitudes = spectrum.getMagnitudes();
+		}
 		int binsOverThreshold = 0;
 		for (int i = 0; i < currentMagnitudes.length; i++) {
 			if (priorMagnitudes[i] > 0.f) {
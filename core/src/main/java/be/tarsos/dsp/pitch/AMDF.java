@@ -23,6 +23,10 @@
 
 package be.tarsos.dsp.pitch;
 
+import java.util.Arrays;
+
+import be.tarsos.dsp.util.fft.FloatFFT;
+
 /**
  * <p>
  * A pitch extractor that extracts the Average Magnitude Difference (AMDF) from
@@ -62,6 +66,23 @@ public class AMDF implements PitchDetector{
 	 * The result of the pitch detection iteration.
 	 */
 	private final PitchDetectionResult result;
+	
+	//------------------------ FFT instance members
+	
+	/**
+	 * True if the difference function is calculated via the FFT.
+	 */
+	private final boolean useFFT;
+	
+	/**
+	 * Holds the zero padded audio, its power spectrum and finally the auto correlation.
+	 */
+	private final float[] acf;
+	
+	/**
+	 * An FFT object to quickly calculate the auto correlation function.
+	 */
+	private final FloatFFT fft;
 
 	/**
 	 * Construct a new Average Magnitude Difference pitch detector.
@@ -73,6 +94,17 @@ public class AMDF implements PitchDetector{
 		this(sampleRate,bufferSize,DEFAULT_MIN_FREQUENCY,DEFAULT_MAX_FREQUENCY);
 	}
 
+	/**
+	 * Construct a new Average Magnitude Difference pitch detector.
+	 *
+	 * @param sampleRate The audio sample rate
+	 * @param bufferSize the buffer size of a block of samples
+	 * @param useFFT If true the difference function is approximated via an FFT.
+	 */
+	public AMDF(float sampleRate, int bufferSize, boolean useFFT) {
+		this(sampleRate,bufferSize,DEFAULT_MIN_FREQUENCY,DEFAULT_MAX_FREQUENCY,useFFT);
+	}
+
 	/**
 	 * Construct a new Average Magnitude Difference pitch detector.
 	 *
@@ -82,54 +114,58 @@ public class AMDF implements PitchDetector{
 	 * @param maxFrequency The max frequency to detect in Hz
 	 */
 	public AMDF(float sampleRate, int bufferSize,double minFrequency,double maxFrequency) {
+		this(sampleRate,bufferSize,minFrequency,maxFrequency,false);
+	}
+	
+	/**
+	 * Construct a new Average Magnitude Difference pitch detector.
+	 *
+	 * @param sampleRate The audio sample rate
+	 * @param bufferSize the buffer size of a block of samples
+	 * @param minFrequency The min frequency to detect in Hz
+	 * @param maxFrequency The max frequency to detect in Hz
+	 * @param useFFT If true the squared difference function is calculated with an
+	 *            FFT in O(n log n), as in {@link FastYin}, and used to
+	 *            approximate the magnitude difference. Otherwise the magnitude
+	 *            difference is calculated directly in O(n*maxPeriod).
+	 */
+	public AMDF(float sampleRate, int bufferSize,double minFrequency,double maxFrequency, boolean useFFT) {
 		this.sampleRate = sampleRate;
 		amd = new double[bufferSize];
 		this.ratio = DEFAULT_RATIO;
 		this.sensitivity = DEFAULT_SENSITIVITY;
 		this.maxPeriod = Math.round(sampleRate / minFrequency + 0.5);
 		this.minPeriod = Math.round(sampleRate / maxFrequency + 0.5);
+		this.useFFT = useFFT;
+		if(useFFT){
+			// Zero pad to avoid circular wrap around for the lags of interest
+			int fftSize = Integer.highestOneBit(bufferSize + (int) maxPeriod + 1) << 1;
+			acf = new float[fftSize];
+			fft = new FloatFFT(fftSize);
+		}else{
+			acf = null;
+			fft = null;
+		}
 		result = new PitchDetectionResult();
 	}
+	
+	/**
+	 * The last lag used by the peak picking step.
+	 */
+	private int maxLag(int bufferLength){
+		return (int) Math.min(maxPeriod + 1, Math.min(bufferLength, amd.length) - 1);
+	}
 
 	@Override
 	public PitchDetectionResult getPitch(float[] audioBuffer) {
-		int t = 0;
 		float f0 = -1;
 		double minval = Double.POSITIVE_INFINITY;
 		double maxval = Double.NEGATIVE_INFINITY;
-		double[] frames1 = new double[0];
-		double[] frames2 = new double[0];
-		double[] calcSub = new double[0];
-
-		int maxShift = audioBuffer.length;
 		
-
-		for (int i = 0; i < maxShift; i++) {
-			frames1 = new double[maxShift - i + 1];
-			frames2 = new double[maxShift - i + 1];
-			t = 0;
-			for (int aux1 = 0; aux1 < maxShift - i; aux1++) {
-				t = t + 1;
-				frames1[t] = audioBuffer[aux1];
-
-			}
-			t = 0;
-			for (int aux2 = i; aux2 < maxShift; aux2++) {
-				t = t + 1;
-				frames2[t] = audioBuffer[aux2];
-			}
-
-			int frameLength = frames1.length;
-			calcSub = new double[frameLength];
-			for (int u = 0; u < frameLength; u++) {
-				calcSub[u] = frames1[u] - frames2[u];
-			}
-
-			double summation = 0;
-			for (int l = 0; l < frameLength; l++) {
-				summation +=  Math.abs(calcSub[l]);
-			}
-			amd[i] = summation;
+		if(useFFT){
+			squaredDifference(audioBuffer);
+		}else{
+			magnitudeDifference(audioBuffer);
 		}
 		
 		for (int j = (int)minPeriod; j < (int)maxPeriod; j++){
@@ -168,5 +204,62 @@ public class AMDF implements PitchDetector{
 		result.setProbability(-1);
 
 		return result;
-	}	
+	}
+	
+	/**
+	 * Calculates the average magnitude difference for the lags used in the
+	 * peak picking step, without allocating memory.
+	 */
+	private void magnitudeDifference(float[] audioBuffer){
+		final int length = audioBuffer.length;
+		final int maxLag = maxLag(length);
+		for (int lag = (int) minPeriod; lag <= maxLag; lag++) {
+			double summation = 0;
+			for (int k = 0; k < length - lag; k++) {
+				summation += Math.abs((double) audioBuffer[k] - audioBuffer[k + lag]);
+			}
+			amd[lag] = summation;
+		}
+	}
+	
+	/**
+	 * Calculates the squared difference function via the FFT:
+	 * <code>d(lag) = head(lag) + tail(lag) - 2 acf(lag)</code> with head and
+	 * tail the energy of the overlapping parts. To keep the scale of the
+	 * magnitude difference - the thresholds depend on it - the difference is
+	 * mapped to <code>sqrt((n - lag) * d(lag))</code>, the L2 counterpart of
+	 * the summed absolute differences.
+	 */
+	private void squaredDifference(float[] audioBuffer){
+		final int length = audioBuffer.length;
+		final int maxLag = maxLag(length);
+		
+		// auto correlation via the power spectrum
+		System.arraycopy(audioBuffer, 0, acf, 0, length);
+		Arrays.fill(acf, length, acf.length, 0);
+		fft.realForward(acf);
+		acf[0] = acf[0] * acf[0];
+		acf[1] = acf[1] * acf[1];
+		for (int k = 2; k < acf.length; k += 2) {
+			acf[k] = acf[k] * acf[k] + acf[k + 1] * acf[k + 1];
+			acf[k + 1] = 0;
+		}
+		fft.realInverse(acf, true);
+		
+		double energy = 0;
+		for (int k = 0; k < length; k++) {
+			energy += audioBuffer[k] * audioBuffer[k];
+		}
+		// energy of the first (length - lag) and the last (length - lag) samples
+		double head = energy;
+		double tail = energy;
+		for (int lag = 1; lag <= maxLag; lag++) {
+			head -= audioBuffer[length - lag] * audioBuffer[length - lag];
+			tail -= audioBuffer[lag - 1] * audioBuffer[lag - 1];
+			if(lag >= minPeriod){
+				double difference = Math.max(0, head + tail - 2 * acf[lag]);
+				amd[lag] = Math.sqrt((length - lag) * difference);
+			}
+		}
+	}
 }
@@ -37,6 +37,16 @@ public class GeneralizedGoertzel implements AudioProcessor{
 	 */
 	private final double[] calculatedPowers;
 	private final Complex[] calculatedComplex;
+	
+	/**
+	 * The window applied to each buffer, it keeps its curve between buffers.
+	 */
+	private final WindowFunction window = new HammingWindow();
+	
+	/**
+	 * The windowed copy of the buffer, the audio event is not changed.
+	 */
+	private float[] x = new float[0];
 
 	private final FrequenciesDetectedHandler handler;
 
@@ -77,9 +87,12 @@ public class GeneralizedGoertzel implements AudioProcessor{
 	@Override
 	public boolean process(AudioEvent audioEvent) {
 		
-		float[] x = audioEvent.getFloatBuffer();
-		WindowFunction f  = new HammingWindow();
-		f.apply(x);
+		float[] audio = audioEvent.getFloatBuffer();
+		if(x.length != audio.length){
+			x = new float[audio.length];
+		}
+		System.arraycopy(audio, 0, x, 0, audio.length);
+		window.apply(x);
 		for (int j = 0; j < frequenciesToDetect.length; j++) {
 			double pik_term = 2 * Math.PI * indvec[j]/(float) audioEvent.getBufferSize(); 
 			double cos_pik_term2 = Math.cos(pik_term) * 2;
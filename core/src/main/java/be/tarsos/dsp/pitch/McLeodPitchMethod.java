@@ -26,8 +26,9 @@
  */
 package be.tarsos.dsp.pitch;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Arrays;
+
+import be.tarsos.dsp.util.fft.FloatFFT;
 
 /**
  * <p>
@@ -50,13 +51,12 @@ import java.util.List;
  * </p>
  * </blockquote>
  * <p>
- * For the moment this implementation uses the inefficient way of calculating
+ * By default this implementation uses the straightforward way of calculating
  * the pitch. It uses <code>O(Ww)</code> with W the window size in samples and w
- * the desired number of ACF coefficients. The implementation can be optimized
- * to <code>O((W+w)log(W+w))</code> by using an Fast Fourier Transform
- * to calculate the Auto-Correlation Function. But I am still afraid of the
- * dark magic of the FFT and clinging to the familiar, friendly, laggard time
- * domain.
+ * the desired number of ACF coefficients. Optionally, it uses
+ * <code>O((W+w)log(W+w))</code> by using an Fast Fourier Transform to
+ * calculate the Auto-Correlation Function, with an incrementally updated
+ * energy term. See {@link PitchProcessor.PitchEstimationAlgorithm#FFT_MPM}.
  * </p>
  * 
  * @author Phillip McLeod
@@ -114,20 +114,41 @@ public final class McLeodPitchMethod implements PitchDetector {
 	private float turningPointX, turningPointY;
 
 	/**
-	 * A list with minimum and maximum values of the nsdf curve.
+	 * The positions of the maximum values of the nsdf curve. Only the first
+	 * <code>maxPositionCount</code> elements are valid.
 	 */
-	private final List<Integer> maxPositions = new ArrayList<Integer>();
+	private final int[] maxPositions;
+	private int maxPositionCount;
 
 	/**
-	 * A list of estimates of the period of the signal (in samples).
+	 * Estimates of the period of the signal (in samples).
 	 */
-	private final List<Float> periodEstimates = new ArrayList<Float>();
+	private final float[] periodEstimates;
 
 	/**
-	 * A list of estimates of the amplitudes corresponding with the period
-	 * estimates.
+	 * Estimates of the amplitudes corresponding with the period estimates.
+	 * Only the first <code>estimateCount</code> elements of both arrays are
+	 * valid.
+	 */
+	private final float[] ampEstimates;
+	private int estimateCount;
+	
+	//------------------------ FFT instance members
+	
+	/**
+	 * True if the auto correlation is calculated via the FFT.
 	 */
-	private final List<Float> ampEstimates = new ArrayList<Float>();
+	private final boolean useFFT;
+	
+	/**
+	 * Holds the zero padded audio, its power spectrum and finally the auto correlation.
+	 */
+	private final float[] acf;
+	
+	/**
+	 * An FFT object to quickly calculate the auto correlation function.
+	 */
+	private final FloatFFT fft;
 
 	/**
 	 * The result of the pitch detection iteration.
@@ -157,6 +178,21 @@ public final class McLeodPitchMethod implements PitchDetector {
 		this(audioSampleRate, audioBufferSize, DEFAULT_CUTOFF);
 	}
 
+	/**
+	 * Create a new pitch detector.
+	 * 
+	 * @param audioSampleRate
+	 *            The sample rate of the audio.
+	 * @param audioBufferSize
+	 *            The size of one audio buffer 1024 samples is common.
+	 * @param useFFT
+	 *            If true the auto correlation function is calculated with an
+	 *            FFT.
+	 */
+	public McLeodPitchMethod(final float audioSampleRate, final int audioBufferSize, final boolean useFFT) {
+		this(audioSampleRate, audioBufferSize, DEFAULT_CUTOFF, useFFT);
+	}
+
 	/**
 	 * Create a new pitch detector.
 	 * 
@@ -169,9 +205,41 @@ public final class McLeodPitchMethod implements PitchDetector {
 	 *            paper 0.93 is used.
 	 */
 	public McLeodPitchMethod(final float audioSampleRate, final int audioBufferSize, final double cutoffMPM) {
+		this(audioSampleRate, audioBufferSize, cutoffMPM, false);
+	}
+	
+	/**
+	 * Create a new pitch detector.
+	 * 
+	 * @param audioSampleRate
+	 *            The sample rate of the audio.
+	 * @param audioBufferSize
+	 *            The size of one audio buffer 1024 samples is common.
+	 * @param cutoffMPM
+	 *            The cutoff (similar to the YIN threshold). In the Tartini
+	 *            paper 0.93 is used.
+	 * @param useFFT
+	 *            If true the auto correlation function is calculated with an
+	 *            FFT in <code>O(W log W)</code> instead of <code>O(W^2)</code>.
+	 */
+	public McLeodPitchMethod(final float audioSampleRate, final int audioBufferSize, final double cutoffMPM, final boolean useFFT) {
 		this.sampleRate = audioSampleRate;
 		nsdf = new float[audioBufferSize];
 		this.cutoff = cutoffMPM;
+		// there is at most one maximum for each pair of zero crossings
+		maxPositions = new int[audioBufferSize / 2 + 1];
+		periodEstimates = new float[maxPositions.length];
+		ampEstimates = new float[maxPositions.length];
+		this.useFFT = useFFT;
+		if (useFFT) {
+			// Zero pad to twice the buffer size to avoid circular wrap around
+			final int fftSize = Integer.highestOneBit(2 * audioBufferSize - 1) << 1;
+			acf = new float[fftSize];
+			fft = new FloatFFT(fftSize);
+		} else {
+			acf = null;
+			fft = null;
+		}
 		result = new PitchDetectionResult();
 	}
 
@@ -194,6 +262,43 @@ public final class McLeodPitchMethod implements PitchDetector {
 			nsdf[tau] = 2 * acf / divisorM;
 		}
 	}
+	
+	/**
+	 * Implements the normalized square difference function with an FFT. The
+	 * auto correlation is the inverse transform of the power spectrum of the
+	 * zero padded buffer. The divisor <code>m(tau)</code> is updated
+	 * incrementally by removing the energy of the two samples that leave the
+	 * overlapping parts.
+	 * 
+	 * @param audioBuffer
+	 *            The buffer with audio information.
+	 */
+	private void normalizedSquareDifferenceFFT(final float[] audioBuffer) {
+		final int length = audioBuffer.length;
+		System.arraycopy(audioBuffer, 0, acf, 0, length);
+		Arrays.fill(acf, length, acf.length, 0);
+		fft.realForward(acf);
+		acf[0] = acf[0] * acf[0];
+		acf[1] = acf[1] * acf[1];
+		for (int k = 2; k < acf.length; k += 2) {
+			acf[k] = acf[k] * acf[k] + acf[k + 1] * acf[k + 1];
+			acf[k + 1] = 0;
+		}
+		fft.realInverse(acf, true);
+		
+		double divisorM = 0;
+		for (int i = 0; i < length; i++) {
+			divisorM += 2 * audioBuffer[i] * audioBuffer[i];
+		}
+		for (int tau = 0; tau < length; tau++) {
+			if (tau > 0) {
+				divisorM -= audioBuffer[tau - 1] * audioBuffer[tau - 1] + audioBuffer[length - tau] * audioBuffer[length - tau];
+			}
+			final float value = (float) (2 * acf[tau] / Math.max(divisorM, 0));
+			// rounding errors can push the value slightly out of [-1,1]
+			nsdf[tau] = Math.max(-1, Math.min(1, value));
+		}
+	}
 
 	/*
 	 * (non-Javadoc)
@@ -203,20 +308,23 @@ public final class McLeodPitchMethod implements PitchDetector {
 	public PitchDetectionResult getPitch(final float[] audioBuffer) {
 		final float pitch;
 
-		// 0. Clear previous results (Is this faster than initializing a list
-		// again and again?)
-		maxPositions.clear();
-		periodEstimates.clear();
-		ampEstimates.clear();
+		// 0. Clear previous results
+		maxPositionCount = 0;
+		estimateCount = 0;
 
 		// 1. Calculate the normalized square difference for each Tau value.
-		normalizedSquareDifference(audioBuffer);
+		if (useFFT) {
+			normalizedSquareDifferenceFFT(audioBuffer);
+		} else {
+			normalizedSquareDifference(audioBuffer);
+		}
 		// 2. Peak picking time: time to pick some peaks.
 		peakPicking();
 
 		double highestAmplitude = Double.NEGATIVE_INFINITY;
 
-		for (final Integer tau : maxPositions) {
+		for (int i = 0; i < maxPositionCount; i++) {
+			final int tau = maxPositions[i];
 			// make sure every annotation has a probability attached
 			highestAmplitude = Math.max(highestAmplitude, nsdf[tau]);
 
@@ -224,14 +332,15 @@ public final class McLeodPitchMethod implements PitchDetector {
 				// calculates turningPointX and Y
 				parabolicInterpolation(tau);
 				// store the turning points
-				ampEstimates.add(turningPointY);
-				periodEstimates.add(turningPointX);
+				ampEstimates[estimateCount] = turningPointY;
+				periodEstimates[estimateCount] = turningPointX;
+				estimateCount++;
 				// remember the highest amplitude
 				highestAmplitude = Math.max(highestAmplitude, turningPointY);
 			}
 		}
 
-		if (periodEstimates.isEmpty()) {
+		if (estimateCount == 0) {
 			pitch = -1;
 		} else {
 			// use the overall maximum to calculate a cutoff.
@@ -241,14 +350,14 @@ public final class McLeodPitchMethod implements PitchDetector {
 
 			// find first period above or equal to cutoff
 			int periodIndex = 0;
-			for (int i = 0; i < ampEstimates.size(); i++) {
-				if (ampEstimates.get(i) >= actualCutoff) {
+			for (int i = 0; i < estimateCount; i++) {
+				if (ampEstimates[i] >= actualCutoff) {
 					periodIndex = i;
 					break;
 				}
 			}
 
-			final double period = periodEstimates.get(periodIndex);
+			final double period = periodEstimates[periodIndex];
 			final float pitchEstimate = (float) (sampleRate / period);
 			if (pitchEstimate > LOWER_PITCH_CUTOFF) {
 				pitch = pitchEstimate;
@@ -381,7 +490,7 @@ public final class McLeodPitchMethod implements PitchDetector {
 			if (pos < nsdf.length - 1 && nsdf[pos] <= 0) {
 				// if there was a maximum add it to the list of maxima
 				if (curMaxPos > 0) {
-					maxPositions.add(curMaxPos);
+					maxPositions[maxPositionCount++] = curMaxPos;
 					curMaxPos = 0; // clear the maximum position, so we start
 					// looking for a new ones
 				}
@@ -391,7 +500,7 @@ public final class McLeodPitchMethod implements PitchDetector {
 			}
 		}
 		if (curMaxPos > 0) { // if there was a maximum in the last part
-			maxPositions.add(curMaxPos); // add it to the vector of maxima
+			maxPositions[maxPositionCount++] = curMaxPos; // add it to the array of maxima
 		}
 	}
 }
@@ -52,6 +52,11 @@ public class PitchProcessor implements AudioProcessor {
 		 * >A Smarter Way to Find Pitch</a>".
 		 */
 		MPM,
+		/**
+		 * See {@link McLeodPitchMethod}. The normalized square difference
+		 * function is calculated with an FFT.
+		 */
+		FFT_MPM,
 		/**
 		 * A YIN implementation with a faster  {@link FastYin} for the implementation. Or see <a href=
 		 * "http://recherche.ircam.fr/equipes/pcm/cheveign/ps/2002_JASA_YIN_proof.pdf"
@@ -73,7 +78,12 @@ public class PitchProcessor implements AudioProcessor {
 		 * (AMDF) from an audio buffer. This is a good measure of the Pitch (f0)
 		 * of a signal.
 		 */
-		AMDF;
+		AMDF,
+		/**
+		 * See {@link be.tarsos.dsp.pitch.AMDF}. The difference function is
+		 * approximated with an FFT, which scales better to large buffers.
+		 */
+		FFT_AMDF;
 		
 		/**
 		 * Returns a new instance of a pitch detector object based on the provided values.
@@ -85,12 +95,16 @@ public class PitchProcessor implements AudioProcessor {
 			PitchDetector detector;
 			if (this == MPM ) {
 				detector = new McLeodPitchMethod(sampleRate, bufferSize);
+			} else if (this == FFT_MPM ) {
+				detector = new McLeodPitchMethod(sampleRate, bufferSize, true);
 			} else if(this == DYNAMIC_WAVELET ) {
 				detector = new DynamicWavelet(sampleRate,bufferSize);
 			} else if(this == FFT_YIN){
 				detector = new FastYin(sampleRate, bufferSize);
 			} else if(this==AMDF){
 				detector = new AMDF(sampleRate, bufferSize);
+			} else if(this==FFT_AMDF){
+				detector = new AMDF(sampleRate, bufferSize, true);
 			}  else {
 				detector = new Yin(sampleRate, bufferSize);
 			}
@@ -125,6 +139,20 @@ public class PitchProcessor implements AudioProcessor {
 		this.handler = handler;	
 	}
 	
+	/**
+	 * Initialize a new pitch processor with a configured pitch detector, e.g.
+	 * a {@link StreamingYin} which needs to know the overlap.
+	 * 
+	 * @param detector
+	 *            The pitch detector to use.
+	 * @param handler
+	 *            The handler handles detected pitch.
+	 */
+	public PitchProcessor(PitchDetector detector, PitchDetectionHandler handler) {
+		this.detector = detector;
+		this.handler = handler;
+	}
+	
 	@Override
 	public boolean process(AudioEvent audioEvent) {
 		float[] audioFloatBuffer = audioEvent.getFloatBuffer();
@@ -0,0 +1,450 @@
+/*
+*      _______                       _____   _____ _____  
+*     |__   __|                     |  __ \ / ____|  __ \ 
+*        | | __ _ _ __ ___  ___  ___| |  | | (___ | |__) |
+*        | |/ _` | '__/ __|/ _ \/ __| |  | |\___ \|  ___/ 
+*        | | (_| | |  \__ \ (_) \__ \ |__| |____) | |     
+*        |_|\__,_|_|  |___/\___/|___/_____/|_____/|_|     
+*                                                         
+* -------------------------------------------------------------
+*
+* TarsosDSP is developed by Joren Six at IPEM, University Ghent
+*  
+* -------------------------------------------------------------
+*
+*  Info: http://0110.be/tag/TarsosDSP
+*  Github: https://github.com/JorenSix/TarsosDSP
+*  Releases: http://0110.be/releases/TarsosDSP/
+*  
+*  TarsosDSP includes modified source code by various authors,
+*  for credits and info, see README.
+* 
+*/
+
+
+
+package be.tarsos.dsp.pitch;
+
+import java.util.Arrays;
+
+/**
+ * <p>
+ * An implementation of the YIN pitch tracking algorithm for overlapping
+ * buffers. See <a href=
+ * "http://recherche.ircam.fr/equipes/pcm/cheveign/ps/2002_JASA_YIN_proof.pdf"
+ * >the YIN paper.</a> It calculates the same difference function as
+ * {@link Yin} but reuses work done for previous buffers.
+ * </p>
+ * <p>
+ * The difference function is written as
+ * <code>d(tau) = p(0) + p(tau) - 2 r(tau)</code> with <code>p</code> the power
+ * terms and <code>r</code> the YIN-style auto correlation over a window of
+ * half the buffer size. The window is split in blocks of one hop size. The
+ * contribution of each block to <code>r</code> is stored: when a new buffer
+ * arrives only the block that entered the window is calculated, the block
+ * that left the window is subtracted. With the default 75% overlap this
+ * halves the work of {@link Yin#getPitch(float[])}, smaller hops save even
+ * more.
+ * </p>
+ * <p>
+ * To bound the drift of the running sum, it is rebuilt from the stored blocks
+ * at regular intervals. Buffers are expected to follow each other with the
+ * configured overlap, as sent by an {@link be.tarsos.dsp.AudioDispatcher}.
+ * If a buffer does not continue the previous one, or the hop size does not
+ * divide the window, everything is recalculated.
+ * </p>
+ * 
+ * @author Joren Six
+ * @author Paul Brossier
+ */
+public final class StreamingYin implements PitchDetector {
+	/**
+	 * The default YIN threshold value. Should be around 0.10~0.15. See YIN
+	 * paper for more information.
+	 */
+	private static final double DEFAULT_THRESHOLD = 0.20;
+	
+	/**
+	 * The number of buffers after which the running auto correlation sum is
+	 * rebuilt from the stored blocks.
+	 */
+	private static final int DEFAULT_REFRESH_INTERVAL = 64;
+
+	/**
+	 * The actual YIN threshold.
+	 */
+	private final double threshold;
+
+	/**
+	 * The audio sample rate. Most audio has a sample rate of 44.1kHz.
+	 */
+	private final float sampleRate;
+
+	/**
+	 * The buffer that stores the calculated values. It is exactly half the size
+	 * of the input buffer.
+	 */
+	private final float[] yinBuffer;
+
+	/**
+	 * The result of the pitch detection iteration.
+	 */
+	private final PitchDetectionResult result;
+	
+	//------------------------ Streaming instance members
+	
+	/**
+	 * The number of new samples in each buffer.
+	 */
+	private final int hopSize;
+	
+	/**
+	 * The overlap between consecutive buffers, in samples.
+	 */
+	private final int overlap;
+	
+	/**
+	 * The number of blocks in the window, zero if the hop size does not divide the window.
+	 */
+	private final int blockCount;
+	
+	/**
+	 * The contribution of each block to the auto correlation, a ring buffer of blocks.
+	 */
+	private final float[][] blockCorrelation;
+	
+	/**
+	 * The index of the oldest block in the ring buffer.
+	 */
+	private int oldestBlock;
+	
+	/**
+	 * The running sum of the block contributions.
+	 */
+	private final double[] correlation;
+	
+	/**
+	 * A copy of the previous buffer, to check whether the current buffer continues it.
+	 */
+	private final float[] previousBuffer;
+	
+	private boolean hasPrevious;
+	
+	private final int refreshInterval;
+	
+	private int buffersSinceRefresh;
+
+	/**
+	 * Create a new pitch detector for a stream with the defined sample rate.
+	 * Processes the audio in overlapping blocks of the defined size.
+	 * 
+	 * @param audioSampleRate
+	 *            The sample rate of the audio stream. E.g. 44.1 kHz.
+	 * @param bufferSize
+	 *            The size of a buffer. E.g. 2048.
+	 * @param overlap
+	 *            The overlap between consecutive buffers. E.g. 1536.
+	 */
+	public StreamingYin(final float audioSampleRate, final int bufferSize, final int overlap) {
+		this(audioSampleRate, bufferSize, overlap, DEFAULT_THRESHOLD);
+	}
+
+	/**
+	 * Create a new pitch detector for a stream with the defined sample rate.
+	 * Processes the audio in overlapping blocks of the defined size.
+	 * 
+	 * @param audioSampleRate
+	 *            The sample rate of the audio stream. E.g. 44.1 kHz.
+	 * @param bufferSize
+	 *            The size of a buffer. E.g. 2048.
+	 * @param overlap
+	 *            The overlap between consecutive buffers. E.g. 1536.
+	 * @param yinThreshold
+	 *            The parameter that defines which peaks are kept as possible
+	 *            pitch candidates. See the YIN paper for more details.
+	 */
+	public StreamingYin(final float audioSampleRate, final int bufferSize, final int overlap, final double yinThreshold) {
+		this.sampleRate = audioSampleRate;
+		this.threshold = yinThreshold;
+		this.overlap = overlap;
+		this.hopSize = bufferSize - overlap;
+		yinBuffer = new float[bufferSize / 2];
+		result = new PitchDetectionResult();
+		
+		final int windowSize = yinBuffer.length;
+		if (hopSize > 0 && hopSize < windowSize && windowSize % hopSize == 0) {
+			blockCount = windowSize / hopSize;
+		} else {
+			blockCount = 0;
+		}
+		blockCorrelation = new float[Math.max(1, blockCount)][windowSize];
+		correlation = new double[windowSize];
+		previousBuffer = new float[bufferSize];
+		refreshInterval = DEFAULT_REFRESH_INTERVAL;
+	}
+
+	/**
+	 * The main flow of the YIN algorithm. Returns a pitch value in Hz or -1 if
+	 * no pitch is detected.
+	 * 
+	 * @return a pitch value in Hz or -1 if no pitch is detected.
+	 */
+	public PitchDetectionResult getPitch(final float[] audioBuffer) {
+
+		final int tauEstimate;
+		final float pitchInHertz;
+
+		// step 2
+		difference(audioBuffer);
+
+		// step 3
+		cumulativeMeanNormalizedDifference();
+
+		// step 4
+		tauEstimate = absoluteThreshold();
+
+		// step 5
+		if (tauEstimate != -1) {
+			final float betterTau = parabolicInterpolation(tauEstimate);
+
+			// conversion to Hz
+			pitchInHertz = sampleRate / betterTau;
+		} else{
+			// no pitch found
+			pitchInHertz = -1;
+		}
+		
+		result.setPitch(pitchInHertz);
+
+		return result;
+	}
+	
+	/**
+	 * Forget the previous buffers, e.g. after a seek.
+	 */
+	public void reset() {
+		hasPrevious = false;
+	}
+
+	/**
+	 * Implements the difference function as described in step 2 of the YIN
+	 * paper, reusing the auto correlation of the overlapping part.
+	 */
+	private void difference(final float[] audioBuffer) {
+		final int windowSize = yinBuffer.length;
+		
+		// AUTO CORRELATION
+		if (blockCount > 0 && continuesPrevious(audioBuffer)) {
+			// the oldest block left the window, the last block entered it
+			final float[] block = blockCorrelation[oldestBlock];
+			for (int tau = 0; tau < windowSize; tau++) {
+				correlation[tau] -= block[tau];
+			}
+			blockCorrelation(audioBuffer, windowSize - hopSize, block);
+			for (int tau = 0; tau < windowSize; tau++) {
+				correlation[tau] += block[tau];
+			}
+			oldestBlock = (oldestBlock + 1) % blockCount;
+			buffersSinceRefresh++;
+			if (buffersSinceRefresh >= refreshInterval) {
+				refreshCorrelation();
+			}
+		} else if (blockCount > 0) {
+			for (int b = 0; b < blockCount; b++) {
+				blockCorrelation(audioBuffer, b * hopSize, blockCorrelation[b]);
+			}
+			oldestBlock = 0;
+			refreshCorrelation();
+		} else {
+			// the hop size does not divide the window: calculate everything
+			blockCorrelation(audioBuffer, 0, windowSize, blockCorrelation[0]);
+			for (int tau = 0; tau < windowSize; tau++) {
+				correlation[tau] = blockCorrelation[0][tau];
+			}
+		}
+		
+		if (previousBuffer.length == audioBuffer.length) {
+			System.arraycopy(audioBuffer, 0, previousBuffer, 0, audioBuffer.length);
+			hasPrevious = true;
+		}
+		
+		// POWER TERMS and the difference function, according to (7) in the Yin paper.
+		double powerTermZero = 0;
+		for (int j = 0; j < windowSize; j++) {
+			powerTermZero += audioBuffer[j] * audioBuffer[j];
+		}
+		double powerTerm = powerTermZero;
+		yinBuffer[0] = 0;
+		for (int tau = 1; tau < windowSize; tau++) {
+			powerTerm += audioBuffer[tau + windowSize - 1] * audioBuffer[tau + windowSize - 1] - audioBuffer[tau - 1] * audioBuffer[tau - 1];
+			yinBuffer[tau] = (float) Math.max(0, powerTermZero + powerTerm - 2 * correlation[tau]);
+		}
+	}
+	
+	/**
+	 * Checks whether the overlapping part of the buffer equals the end of the previous buffer.
+	 */
+	private boolean continuesPrevious(final float[] audioBuffer) {
+		if (!hasPrevious || audioBuffer.length != previousBuffer.length) {
+			return false;
+		}
+		for (int i = 0; i < overlap; i++) {
+			if (audioBuffer[i] != previousBuffer[i + hopSize]) {
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	/**
+	 * Rebuilds the running sum from the stored block contributions.
+	 */
+	private void refreshCorrelation() {
+		for (int tau = 0; tau < correlation.length; tau++) {
+			double sum = 0;
+			for (int b = 0; b < blockCount; b++) {
+				sum += blockCorrelation[b][tau];
+			}
+			correlation[tau] = sum;
+		}
+		buffersSinceRefresh = 0;
+	}
+	
+	private void blockCorrelation(final float[] audioBuffer, final int start, final float[] target) {
+		blockCorrelation(audioBuffer, start, hopSize, target);
+	}
+	
+	/**
+	 * Calculates the contribution of the samples in <code>[start, start+length[</code> to the auto correlation.
+	 * The inner loop runs over the lags so the sum for each lag stays in the target array.
+	 */
+	private void blockCorrelation(final float[] audioBuffer, final int start, final int length, final float[] target) {
+		Arrays.fill(target, 0);
+		final int end = start + length;
+		int j = start;
+		// four samples at a time: a quarter of the loads and stores on the target
+		for (; j + 3 < end; j += 4) {
+			final float s0 = audioBuffer[j];
+			final float s1 = audioBuffer[j + 1];
+			final float s2 = audioBuffer[j + 2];
+			final float s3 = audioBuffer[j + 3];
+			for (int tau = 0; tau < target.length; tau++) {
+				target[tau] += s0 * audioBuffer[j + tau] + s1 * audioBuffer[j + 1 + tau] + s2 * audioBuffer[j + 2 + tau] + s3 * audioBuffer[j + 3 + tau];
+			}
+		}
+		for (; j < end; j++) {
+			final float sample = audioBuffer[j];
+			for (int tau = 0; tau < target.length; tau++) {
+				target[tau] += sample * audioBuffer[j + tau];
+			}
+		}
+	}
+
+	/**
+	 * The cumulative mean normalized difference function as described in step 3
+	 * of the YIN paper. <br>
+	 * <code>
+	 * yinBuffer[0] == yinBuffer[1] = 1
+	 * </code>
+	 */
+	private void cumulativeMeanNormalizedDifference() {
+		int tau;
+		yinBuffer[0] = 1;
+		float runningSum = 0;
+		for (tau = 1; tau < yinBuffer.length; tau++) {
+			runningSum += yinBuffer[tau];
+			yinBuffer[tau] *= tau / runningSum;
+		}
+	}
+
+	/**
+	 * Implements step 4 of the AUBIO_YIN paper.
+	 */
+	private int absoluteThreshold() {
+		// Uses another loop construct
+		// than the AUBIO implementation
+		int tau;
+		// first two positions in yinBuffer are always 1
+		// So start at the third (index 2)
+		for (tau = 2; tau < yinBuffer.length; tau++) {
+			if (yinBuffer[tau] < threshold) {
+				while (tau + 1 < yinBuffer.length && yinBuffer[tau + 1] < yinBuffer[tau]) {
+					tau++;
+				}
+				// found tau, exit loop and return
+				// store the probability
+				// From the YIN paper: The threshold determines the list of
+				// candidates admitted to the set, and can be interpreted as the
+				// proportion of aperiodic power tolerated
+				// within a periodic signal.
+				//
+				// Since we want the periodicity and and not aperiodicity:
+				// periodicity = 1 - aperiodicity
+				result.setProbability(1 - yinBuffer[tau]);
+				break;
+			}
+		}
+
+		
+		// if no pitch found, tau => -1
+		if (tau == yinBuffer.length || yinBuffer[tau] >= threshold) {
+			tau = -1;
+			result.setProbability(0);
+			result.setPitched(false);	
+		} else {
+			result.setPitched(true);
+		}
+
+		return tau;
+	}
+
+	/**
+	 * Implements step 5 of the AUBIO_YIN paper. It refines the estimated tau
+	 * value using parabolic interpolation. This is needed to detect higher
+	 * frequencies more precisely. See http://fizyka.umk.pl/nrbook/c10-2.pdf and
+	 * for more background
+	 * http://fedc.wiwi.hu-berlin.de/xplore/tutorials/xegbohtmlnode62.html
+	 * 
+	 * @param tauEstimate
+	 *            The estimated tau value.
+	 * @return A better, more precise tau value.
+	 */
+	private float parabolicInterpolation(final int tauEstimate) {
+		final float betterTau;
+		final int x0;
+		final int x2;
+
+		if (tauEstimate < 1) {
+			x0 = tauEstimate;
+		} else {
+			x0 = tauEstimate - 1;
+		}
+		if (tauEstimate + 1 < yinBuffer.length) {
+			x2 = tauEstimate + 1;
+		} else {
+			x2 = tauEstimate;
+		}
+		if (x0 == tauEstimate) {
+			if (yinBuffer[tauEstimate] <= yinBuffer[x2]) {
+				betterTau = tauEstimate;
+			} else {
+				betterTau = x2;
+			}
+		} else if (x2 == tauEstimate) {
+			if (yinBuffer[tauEstimate] <= yinBuffer[x0]) {
+				betterTau = tauEstimate;
+			} else {
+				betterTau = x0;
+			}
+		} else {
+			float s0, s1, s2;
+			s0 = yinBuffer[x0];
+			s1 = yinBuffer[tauEstimate];
+			s2 = yinBuffer[x2];
+			// fixed AUBIO implementation, thanks to Karl Helgason:
+			// (2.0f * s1 - s2 - s0) was incorrectly multiplied with -1
+			betterTau = tauEstimate + (s2 - s0) / (2 * (2 * s1 - s2 - s0));
+		}
+		return betterTau;
+	}
+}
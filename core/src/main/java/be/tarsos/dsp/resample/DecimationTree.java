@@ -0,0 +1,252 @@
+/*
+*      _______                       _____   _____ _____  
+*     |__   __|                     |  __ \ / ____|  __ \ 
+*        | | __ _ _ __ ___  ___  ___| |  | | (___ | |__) |
+*        | |/ _` | '__/ __|/ _ \/ __| |  | |\___ \|  ___/ 
+*        | | (_| | |  \__ \ (_) \__ \ |__| |____) | |     
+*        |_|\__,_|_|  |___/\___/|___/_____/|_____/|_|     
+*                                                         
+* -------------------------------------------------------------
+*
+* TarsosDSP is developed by Joren Six at IPEM, University Ghent
+*  
+* -------------------------------------------------------------
+*
+*  Info: http://0110.be/tag/TarsosDSP
+*  Github: https://github.com/JorenSix/TarsosDSP
+*  Releases: http://0110.be/releases/TarsosDSP/
+*  
+*  TarsosDSP includes modified source code by various authors,
+*  for credits and info, see README.
+* 
+*/
+
+
+
+
+package be.tarsos.dsp.resample;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import be.tarsos.dsp.AudioEvent;
+import be.tarsos.dsp.AudioProcessor;
+import be.tarsos.dsp.RebufferingProcessor;
+import be.tarsos.dsp.io.TarsosDSPAudioFormat;
+
+/**
+ * Feeds several processing chains with different sample rates, buffer sizes
+ * and overlaps from one full rate mono stream. The stream is decimated by a
+ * cascade of {@link HalfBandDecimator}s: stage one produces the stream at
+ * half the sample rate, stage two at a quarter, and so on. Only the stages
+ * needed by a branch are calculated and every stage is shared by all
+ * branches at that rate or lower.
+ * <p>
+ * A branch collects the samples at its rate in buffers of its own size and
+ * overlap with a {@link RebufferingProcessor} and sends these through its
+ * processors. Since the decimators are
+ * centered, sample <code>i</code> of a branch with factor <code>f</code>
+ * is aligned with sample <code>i * f</code> of the full rate stream: the time
+ * stamps of all branches refer to the same time line as the full rate
+ * stream. E.g. pitch tracking at 11.025kHz, MFCCs at 22.05kHz and onset
+ * detection at 44.1kHz can share a single decode:
+ * </p>
+ * 
+ * <pre>
+ * DecimationTree tree = new DecimationTree(dispatcher.getFormat());
+ * tree.addBranch(4, 1024, 512).addAudioProcessor(pitchProcessor);
+ * tree.addBranch(2, 512, 256).addAudioProcessor(mfcc);
+ * tree.addBranch(1, 512, 0).addAudioProcessor(onsetProcessor);
+ * dispatcher.addAudioProcessor(tree);
+ * </pre>
+ * <p>
+ * The tree only reads the new samples of each buffer it receives, the
+ * overlap of the feeding dispatcher does not matter. When processing
+ * finishes the decimators are flushed and every branch processes a last,
+ * zero padded buffer.
+ * </p>
+ * 
+ * @author Joren Six
+ */
+public class DecimationTree implements AudioProcessor {
+
+	private final TarsosDSPAudioFormat format;
+	private final List<Branch> branches;
+	/** decimators[k] halves the output of level k, producing level k + 1. */
+	private final List<HalfBandDecimator> decimators;
+	/** levels[k] holds the newest samples at 1/2^k of the sample rate. */
+	private final List<float[]> levels;
+
+	/**
+	 * Create a new decimation tree.
+	 * 
+	 * @param format
+	 *            The format of the full rate stream, it should have one
+	 *            channel.
+	 */
+	public DecimationTree(TarsosDSPAudioFormat format) {
+		if (format.getChannels() != 1) {
+			throw new IllegalArgumentException("A decimation tree expects a mono stream, got " + format.getChannels() + " channels");
+		}
+		this.format = format;
+		this.branches = new CopyOnWriteArrayList<Branch>();
+		this.decimators = new ArrayList<HalfBandDecimator>();
+		this.levels = new ArrayList<float[]>();
+		this.levels.add(null);
+	}
+
+	/**
+	 * Adds a processing chain.
+	 * 
+	 * @param factor
+	 *            The decimation factor: 1, 2, 4, 8, ...
+	 * @param bufferSize
+	 *            The buffer size in samples at the decimated rate.
+	 * @param overlap
+	 *            The overlap in samples at the decimated rate.
+	 * @return The new branch, add processors to it.
+	 */
+	public Branch addBranch(int factor, int bufferSize, int overlap) {
+		if (factor < 1 || Integer.bitCount(factor) != 1) {
+			throw new IllegalArgumentException("The decimation factor should be a power of two, got " + factor);
+		}
+		if (overlap < 0 || overlap >= bufferSize) {
+			throw new IllegalArgumentException("The overlap should be smaller than the buffer size: " + overlap + " >= " + bufferSize);
+		}
+		final int level = Integer.numberOfTrailingZeros(factor);
+		while (decimators.size() < level) {
+			decimators.add(new HalfBandDecimator());
+			levels.add(new float[0]);
+		}
+		final Branch branch = new Branch(level, bufferSize, overlap);
+		branches.add(branch);
+		return branch;
+	}
+
+	/**
+	 * @return The branches in the order they were added.
+	 */
+	public List<Branch> getBranches() {
+		return branches;
+	}
+
+	@Override
+	public boolean process(AudioEvent audioEvent) {
+		final float[] buffer = audioEvent.getFloatBuffer();
+		final int overlap = audioEvent.getOverlap();
+		feed(buffer, overlap, buffer.length - overlap, false);
+		return true;
+	}
+
+	/**
+	 * Runs new samples through the decimators and the branches.
+	 */
+	private void feed(float[] samples, int offset, int length, boolean flush) {
+		final int maxLevel = maxLevel();
+		int levelOffset = offset;
+		int levelLength = length;
+		float[] levelSamples = samples;
+		for (int level = 0; level <= maxLevel; level++) {
+			if (level > 0) {
+				final HalfBandDecimator decimator = decimators.get(level - 1);
+				// flushing appends look ahead samples of silence
+				int needed = decimator.outputLength(flush ? levelLength + decimator.getLookAhead() : levelLength);
+				float[] out = levels.get(level);
+				if (out.length < needed) {
+					out = new float[needed];
+					levels.set(level, out);
+				}
+				int produced = decimator.decimate(levelSamples, levelOffset, levelLength, out, 0);
+				if (flush) {
+					produced += decimator.flush(out, produced);
+				}
+				levelSamples = out;
+				levelOffset = 0;
+				levelLength = produced;
+			}
+			for (Branch branch : branches) {
+				if (branch.level == level) {
+					branch.feed(levelSamples, levelOffset, levelLength);
+				}
+			}
+		}
+	}
+
+	private int maxLevel() {
+		int max = 0;
+		for (Branch branch : branches) {
+			max = Math.max(max, branch.level);
+		}
+		return max;
+	}
+
+	@Override
+	public void processingFinished() {
+		feed(new float[0], 0, 0, true);
+		for (Branch branch : branches) {
+			branch.finish();
+		}
+	}
+
+	/**
+	 * A processing chain at a decimated rate with its own buffer size and
+	 * overlap. The framing is done by a {@link RebufferingProcessor}.
+	 */
+	public final class Branch {
+		private final int level;
+		private final RebufferingProcessor rebuffer;
+
+		private Branch(int level, int bufferSize, int overlap) {
+			this.level = level;
+			TarsosDSPAudioFormat branchFormat = new TarsosDSPAudioFormat(format.getSampleRate() / (1 << level), format.getSampleSizeInBits(), 1,
+					format.getEncoding() == TarsosDSPAudioFormat.Encoding.PCM_SIGNED, format.isBigEndian());
+			this.rebuffer = new RebufferingProcessor(branchFormat, bufferSize, overlap);
+		}
+
+		/**
+		 * Adds a processor to the end of the chain of this branch.
+		 * 
+		 * @param processor
+		 *            The processor to add.
+		 * @return This branch, for chaining.
+		 */
+		public Branch addAudioProcessor(AudioProcessor processor) {
+			rebuffer.addAudioProcessor(processor);
+			return this;
+		}
+
+		/**
+		 * Removes a processor from the chain of this branch.
+		 * 
+		 * @param processor
+		 *            The processor to remove.
+		 */
+		public void removeAudioProcessor(AudioProcessor processor) {
+			rebuffer.removeAudioProcessor(processor);
+		}
+
+		/**
+		 * @return The decimation factor of this branch.
+		 */
+		public int getFactor() {
+			return 1 << level;
+		}
+
+		/**
+		 * @return The format of the audio the processors of this branch
+		 *         receive.
+		 */
+		public TarsosDSPAudioFormat getFormat() {
+			return rebuffer.getFormat();
+		}
+
+		private void feed(float[] samples, int offset, int length) {
+			rebuffer.feed(samples, offset, length);
+		}
+
+		private void finish() {
+			rebuffer.processingFinished();
+		}
+	}
+}
@@ -0,0 +1,207 @@
+/*
+*      _______                       _____   _____ _____  
+*     |__   __|                     |  __ \ / ____|  __ \ 
+*        | | __ _ _ __ ___  ___  ___| |  | | (___ | |__) |
+*        | |/ _` | '__/ __|/ _ \/ __| |  | |\___ \|  ___/ 
+*        | | (_| | |  \__ \ (_) \__ \ |__| |____) | |     
+*        |_|\__,_|_|  |___/\___/|___/_____/|_____/|_|     
+*                                                         
+* -------------------------------------------------------------
+*
+* TarsosDSP is developed by Joren Six at IPEM, University Ghent
+*  
+* -------------------------------------------------------------
+*
+*  Info: http://0110.be/tag/TarsosDSP
+*  Github: https://github.com/JorenSix/TarsosDSP
+*  Releases: http://0110.be/releases/TarsosDSP/
+*  
+*  TarsosDSP includes modified source code by various authors,
+*  for credits and info, see README.
+* 
+*/
+
+
+
+
+package be.tarsos.dsp.resample;
+
+import java.util.Arrays;
+
+/**
+ * Halves the sample rate of a stream with a half-band low pass filter. In a
+ * half-band filter every other coefficient is zero and the center
+ * coefficient is one half, so an output sample costs one multiplication per
+ * pair of non-zero coefficients. Output samples are only calculated for the
+ * retained (even) input positions.
+ * <p>
+ * The filter is centered: output sample <code>n</code> is aligned with
+ * input sample <code>2n</code> and is available as soon as the input
+ * sample <code>2n + {@link #getLookAhead()}</code> is. Consequently a
+ * cascade of decimators introduces no time shift, only latency. Call
+ * {@link #flush(float[], int)} at the end of the stream to get the last
+ * output samples.
+ * </p>
+ * 
+ * @author Joren Six
+ */
+public class HalfBandDecimator {
+
+	/** The default number of non-zero coefficient pairs. */
+	public static final int DEFAULT_PAIRS = 12;
+
+	/** The coefficients at offsets 1, 3, 5, ... from the center. */
+	private final float[] coefficients;
+	private final int lookAhead;
+
+	private float[] history;
+	/** The number of valid samples in the history. */
+	private int filled;
+	/** The index in the history of the input sample aligned with the next output. */
+	private int center;
+
+	/**
+	 * Create a decimator with a default filter length.
+	 */
+	public HalfBandDecimator() {
+		this(DEFAULT_PAIRS);
+	}
+
+	/**
+	 * Create a decimator.
+	 * 
+	 * @param pairs
+	 *            The number of non-zero coefficient pairs. The filter is
+	 *            <code>4 * pairs - 1</code> taps long, longer filters have a
+	 *            narrower transition band around a quarter of the input
+	 *            sample rate.
+	 */
+	public HalfBandDecimator(int pairs) {
+		if (pairs < 1) {
+			throw new IllegalArgumentException("At least one coefficient pair is needed, got " + pairs);
+		}
+		this.coefficients = new float[pairs];
+		this.lookAhead = 2 * pairs - 1;
+		final double beta = 8.0;
+		final double i0Beta = PolyphaseResampler.bessel0(beta);
+		double sum = 0;
+		for (int i = 0; i < pairs; i++) {
+			final int offset = 2 * i + 1;
+			final double sinc = Math.sin(Math.PI * offset / 2.0) / (Math.PI * offset / 2.0);
+			final double r = offset / (double) (lookAhead + 1);
+			final double window = PolyphaseResampler.bessel0(beta * Math.sqrt(1 - r * r)) / i0Beta;
+			coefficients[i] = (float) (0.5 * sinc * window);
+			sum += 2 * coefficients[i];
+		}
+		// normalise to unity gain at DC
+		for (int i = 0; i < pairs; i++) {
+			coefficients[i] = (float) (coefficients[i] * 0.5 / sum);
+		}
+		this.history = new float[2 * lookAhead + 2048];
+		reset();
+	}
+
+	/**
+	 * Clears the history, the next sample starts a new stream.
+	 */
+	public void reset() {
+		Arrays.fill(history, 0, lookAhead, 0);
+		filled = lookAhead;
+		center = lookAhead;
+	}
+
+	/**
+	 * @return The number of input samples after the aligned sample that are
+	 *         needed to calculate an output sample.
+	 */
+	public int getLookAhead() {
+		return lookAhead;
+	}
+
+	/**
+	 * The number of output samples the next call to
+	 * {@link #decimate(float[], int, int, float[], int)} generates.
+	 * 
+	 * @param inputLength
+	 *            The number of new input samples.
+	 * @return The number of output samples.
+	 */
+	public int outputLength(int inputLength) {
+		final int last = filled + inputLength - 1 - lookAhead;
+		return last < center ? 0 : (last - center) / 2 + 1;
+	}
+
+	/**
+	 * Filters and decimates a block of samples.
+	 * 
+	 * @param input
+	 *            The input samples.
+	 * @param inputOffset
+	 *            The index of the first input sample.
+	 * @param inputLength
+	 *            The number of input samples.
+	 * @param output
+	 *            The destination, with room for {@link #outputLength(int)}
+	 *            samples.
+	 * @param outputOffset
+	 *            The index of the first output sample.
+	 * @return The number of output samples written.
+	 */
+	public int decimate(float[] input, int inputOffset, int inputLength, float[] output, int outputOffset) {
+		if (filled + inputLength > history.length) {
+			history = Arrays.copyOf(history, filled + inputLength);
+		}
+		System.arraycopy(input, inputOffset, history, filled, inputLength);
+		filled += inputLength;
+		return filter(output, outputOffset);
+	}
+
+	/**
+	 * Completes the stream: the output samples that are aligned with the
+	 * last input samples are calculated as if the input is followed by
+	 * silence.
+	 * 
+	 * @param output
+	 *            The destination, with room for
+	 *            <code>outputLength(getLookAhead())</code> samples.
+	 * @param outputOffset
+	 *            The index of the first output sample.
+	 * @return The number of output samples written.
+	 */
+	public int flush(float[] output, int outputOffset) {
+		if (filled + lookAhead > history.length) {
+			history = Arrays.copyOf(history, filled + lookAhead);
+		}
+		Arrays.fill(history, filled, filled + lookAhead, 0);
+		filled += lookAhead;
+		final int written = filter(output, outputOffset);
+		reset();
+		return written;
+	}
+
+	private int filter(float[] output, int outputOffset) {
+		final float[] x = history;
+		final float[] h = coefficients;
+		final int pairs = h.length;
+		int c = center;
+		int o = outputOffset;
+		while (c + lookAhead < filled) {
+			float sum = 0.5f * x[c];
+			for (int i = 0; i < pairs; i++) {
+				final int offset = 2 * i + 1;
+				sum += h[i] * (x[c - offset] + x[c + offset]);
+			}
+			output[o++] = sum;
+			c += 2;
+		}
+		// keep the samples needed for the next outputs
+		final int keepFrom = c - lookAhead;
+		if (keepFrom > 0) {
+			System.arraycopy(x, keepFrom, x, 0, filled - keepFrom);
+			filled -= keepFrom;
+			c -= keepFrom;
+		}
+		center = c;
+		return o - outputOffset;
+	}
+}
@@ -0,0 +1,379 @@
+/*
+*      _______                       _____   _____ _____  
+*     |__   __|                     |  __ \ / ____|  __ \ 
+*        | | __ _ _ __ ___  ___  ___| |  | | (___ | |__) |
+*        | |/ _` | '__/ __|/ _ \/ __| |  | |\___ \|  ___/ 
+*        | | (_| | |  \__ \ (_) \__ \ |__| |____) | |     
+*        |_|\__,_|_|  |___/\___/|___/_____/|_____/|_|     
+*                                                         
+* -------------------------------------------------------------
+*
+* TarsosDSP is developed by Joren Six at IPEM, University Ghent
+*  
+* -------------------------------------------------------------
+*
+*  Info: http://0110.be/tag/TarsosDSP
+*  Github: https://github.com/JorenSix/TarsosDSP
+*  Releases: http://0110.be/releases/TarsosDSP/
+*  
+*  TarsosDSP includes modified source code by various authors,
+*  for credits and info, see README.
+* 
+*/
+
+
+
+
+package be.tarsos.dsp.resample;
+
+import java.util.Arrays;
+
+import be.tarsos.dsp.AudioEvent;
+import be.tarsos.dsp.AudioProcessor;
+
+/**
+ * Converts audio between two fixed sample rates, e.g. 48kHz to 16kHz or
+ * 44.1kHz to 16kHz. The ratio is reduced to <code>up/down</code> and a
+ * Kaiser windowed sinc low pass filter is designed once and split in
+ * <code>up</code> phases. Every output sample is then a single dot product of
+ * one phase with the most recent input samples: no filter interpolation is
+ * done per sample, as {@link Resampler} does for arbitrary ratios.
+ * <p>
+ * The filter history is kept between calls so a stream can be resampled
+ * block by block. When used as an {@link AudioProcessor} only the new
+ * samples of each buffer (after the overlap) are resampled, so the
+ * dispatcher should run without overlap. The buffer is replaced by the
+ * resampled audio and the overlap is set to zero. The output arrays are
+ * reused: in the steady state no memory is allocated.
+ * </p>
+ * <p>
+ * The format of the audio event is not changed: it still describes the
+ * input sample rate. Time stamps and the number of processed samples stay
+ * those of the input stream, but processors after the resampler that need
+ * the sample rate should be created with the output sample rate. The
+ * processor only handles mono audio: the buffer is resampled as a single
+ * channel, so multichannel audio should first be mixed down, e.g. with a
+ * {@link be.tarsos.dsp.MultichannelToMono} processor.
+ * </p>
+ *
+ * @author Joren Six
+ */
+public class PolyphaseResampler implements AudioProcessor {
+
+	/** The default number of zero crossings of the sinc on each side. */
+	public static final int DEFAULT_ZERO_CROSSINGS = 16;
+
+	/** The default Kaiser window shape, about 80dB stop band attenuation. */
+	public static final double DEFAULT_KAISER_BETA = 8.0;
+
+	/** The default cutoff relative to the lowest Nyquist frequency. */
+	public static final double DEFAULT_ROLLOFF = 0.92;
+
+	private final int inputSampleRate;
+	private final int outputSampleRate;
+
+	/** The interpolation factor. */
+	private final int up;
+	/** The decimation factor. */
+	private final int down;
+
+	/** Coefficients per phase, reversed so they line up with the input. */
+	private final float[][] phases;
+	private final int tapsPerPhase;
+
+	/** Input history: the last tapsPerPhase - 1 samples followed by new input. */
+	private float[] history;
+	/** The number of valid samples in the history. */
+	private int filled;
+	/** The index in the history of the newest sample used for the next output. */
+	private int base;
+	/** The phase of the next output sample. */
+	private int phase;
+
+	/** Reused output buffers for the (at most two) output lengths of a block size. */
+	private float[] outputA;
+	private float[] outputB;
+
+	/**
+	 * Create a resampler with a default filter.
+	 * 
+	 * @param inputSampleRate
+	 *            The sample rate of the input in Hz.
+	 * @param outputSampleRate
+	 *            The sample rate of the output in Hz.
+	 */
+	public PolyphaseResampler(int inputSampleRate, int outputSampleRate) {
+		this(inputSampleRate, outputSampleRate, DEFAULT_ZERO_CROSSINGS, DEFAULT_ROLLOFF, DEFAULT_KAISER_BETA);
+	}
+
+	/**
+	 * Create a resampler.
+	 * 
+	 * @param inputSampleRate
+	 *            The sample rate of the input in Hz.
+	 * @param outputSampleRate
+	 *            The sample rate of the output in Hz.
+	 * @param zeroCrossings
+	 *            The number of zero crossings of the sinc on each side of the
+	 *            center. More zero crossings give a steeper filter at the
+	 *            cost of more multiplications per output sample.
+	 * @param rolloff
+	 *            The cutoff frequency relative to the lowest of the two
+	 *            Nyquist frequencies, e.g. 0.92.
+	 * @param kaiserBeta
+	 *            The shape of the Kaiser window, higher values give more stop
+	 *            band attenuation and a wider transition band.
+	 */
+	public PolyphaseResampler(int inputSampleRate, int outputSampleRate, int zeroCrossings, double rolloff, double kaiserBeta) {
+		if (inputSampleRate <= 0 || outputSampleRate <= 0) {
+			throw new IllegalArgumentException("Sample rates should be positive: " + inputSampleRate + " to " + outputSampleRate);
+		}
+		this.inputSampleRate = inputSampleRate;
+		this.outputSampleRate = outputSampleRate;
+		final int gcd = gcd(inputSampleRate, outputSampleRate);
+		this.up = outputSampleRate / gcd;
+		this.down = inputSampleRate / gcd;
+
+		// when decimating the sinc is stretched to the output Nyquist frequency
+		final double scale = Math.min(1.0, up / (double) down);
+		this.tapsPerPhase = 2 * (int) Math.ceil(zeroCrossings / scale);
+		final int length = tapsPerPhase * up;
+		// cutoff in cycles per sample at the upsampled rate
+		final double cutoff = 0.5 * rolloff * scale / up;
+		final double center = (length - 1) / 2.0;
+		final double i0Beta = bessel0(kaiserBeta);
+
+		this.phases = new float[up][tapsPerPhase];
+		for (int j = 0; j < length; j++) {
+			final double t = j - center;
+			final double x = 2 * cutoff * t;
+			final double sinc = t == 0 ? 1 : Math.sin(Math.PI * x) / (Math.PI * x);
+			final double r = t / center;
+			final double window = bessel0(kaiserBeta * Math.sqrt(Math.max(0, 1 - r * r))) / i0Beta;
+			// the gain of up compensates for the zeros stuffed in between input samples
+			final double h = up * 2 * cutoff * sinc * window;
+			phases[j % up][tapsPerPhase - 1 - j / up] = (float) h;
+		}
+		reset();
+	}
+
+	/**
+	 * Clears the filter history. The next sample is treated as the start of
+	 * a new stream.
+	 */
+	public void reset() {
+		if (history == null) {
+			history = new float[tapsPerPhase - 1 + 1024];
+		}
+		Arrays.fill(history, 0, tapsPerPhase - 1, 0);
+		filled = tapsPerPhase - 1;
+		base = tapsPerPhase - 1;
+		phase = 0;
+	}
+
+	/**
+	 * @return The sample rate of the input, in Hz.
+	 */
+	public int getInputSampleRate() {
+		return inputSampleRate;
+	}
+
+	/**
+	 * @return The sample rate of the output, in Hz.
+	 */
+	public int getOutputSampleRate() {
+		return outputSampleRate;
+	}
+
+	/**
+	 * @return The number of filter coefficients used per output sample.
+	 */
+	public int getTapsPerPhase() {
+		return tapsPerPhase;
+	}
+
+	/**
+	 * The delay introduced by the filter, expressed in input samples. The
+	 * output for the last input samples of a stream is only calculated by
+	 * {@link #flush(float[], int)}. Used as an {@link AudioProcessor} the
+	 * chain has no way to pass on these samples: the output is truncated by
+	 * this delay.
+	 * 
+	 * @return The group delay in input samples.
+	 */
+	public double getDelay() {
+		return (tapsPerPhase * up - 1) / 2.0 / up;
+	}
+
+	/**
+	 * The number of output samples the next call to
+	 * {@link #resample(float[], int, int, float[], int)} generates for a
+	 * number of input samples.
+	 * 
+	 * @param inputLength
+	 *            The number of input samples.
+	 * @return The exact number of output samples.
+	 */
+	public int outputLength(int inputLength) {
+		final long available = filled + inputLength;
+		if (base >= available) {
+			return 0;
+		}
+		// outputs n = 0,1,... while base + floor((phase + n*down)/up) < available
+		final long span = (available - 1 - base) * up + (up - 1) - phase;
+		return (int) (span / down) + 1;
+	}
+
+	/**
+	 * Resamples a block of input samples.
+	 * 
+	 * @param input
+	 *            The input samples.
+	 * @param inputOffset
+	 *            The index of the first input sample.
+	 * @param inputLength
+	 *            The number of input samples.
+	 * @param output
+	 *            The destination, should have room for
+	 *            {@link #outputLength(int)} samples.
+	 * @param outputOffset
+	 *            The index of the first output sample.
+	 * @return The number of output samples written.
+	 */
+	public int resample(float[] input, int inputOffset, int inputLength, float[] output, int outputOffset) {
+		if (filled + inputLength > history.length) {
+			history = Arrays.copyOf(history, filled + inputLength);
+		}
+		System.arraycopy(input, inputOffset, history, filled, inputLength);
+		filled += inputLength;
+
+		final float[] x = history;
+		final int taps = tapsPerPhase;
+		final int step = down / up;
+		final int stepPhase = down % up;
+		int b = base;
+		int p = phase;
+		int o = outputOffset;
+		while (b < filled) {
+			final float[] h = phases[p];
+			final int start = b - taps + 1;
+			float sum = 0;
+			for (int k = 0; k < taps; k++) {
+				sum += h[k] * x[start + k];
+			}
+			output[o++] = sum;
+			b += step;
+			p += stepPhase;
+			if (p >= up) {
+				p -= up;
+				b++;
+			}
+		}
+
+		// keep the samples needed for the next outputs
+		final int keepFrom = Math.min(b, filled) - taps + 1;
+		if (keepFrom > 0) {
+			System.arraycopy(x, keepFrom, x, 0, filled - keepFrom);
+			filled -= keepFrom;
+			b -= keepFrom;
+		}
+		base = b;
+		phase = p;
+		return o - outputOffset;
+	}
+
+	/**
+	 * The number of output samples {@link #flush(float[], int)} generates.
+	 * 
+	 * @return The number of output samples still in the filter.
+	 */
+	public int flushLength() {
+		return outputLength(padding());
+	}
+
+	/**
+	 * Completes the stream: the output samples that depend on the last input
+	 * samples are calculated as if the input is followed by silence. The
+	 * filter history is cleared afterwards.
+	 * 
+	 * @param output
+	 *            The destination, with room for {@link #flushLength()}
+	 *            samples.
+	 * @param outputOffset
+	 *            The index of the first output sample.
+	 * @return The number of output samples written.
+	 */
+	public int flush(float[] output, int outputOffset) {
+		final int padding = padding();
+		final int written = resample(new float[padding], 0, padding, output, outputOffset);
+		reset();
+		return written;
+	}
+
+	/**
+	 * @return The number of zeros needed to move the last input sample past the filter delay.
+	 */
+	private int padding() {
+		return (int) Math.ceil(getDelay());
+	}
+
+	@Override
+	public boolean process(AudioEvent audioEvent) {
+		final float[] src = audioEvent.getFloatBuffer();
+		final int overlap = audioEvent.getOverlap();
+		final int length = outputLength(src.length - overlap);
+		final float[] out = outputBuffer(length);
+		resample(src, overlap, src.length - overlap, out, 0);
+		audioEvent.setFloatBuffer(out);
+		audioEvent.setOverlap(0);
+		return true;
+	}
+
+	private float[] outputBuffer(int length) {
+		if (outputA != null && outputA.length == length) {
+			return outputA;
+		}
+		if (outputB != null && outputB.length == length) {
+			// keep the most recently used buffer in front
+			final float[] swap = outputA;
+			outputA = outputB;
+			outputB = swap;
+			return outputA;
+		}
+		outputB = outputA;
+		outputA = new float[length];
+		return outputA;
+	}
+
+	@Override
+	public void processingFinished() {
+
+	}
+
+	private static int gcd(int a, int b) {
+		while (b != 0) {
+			final int t = a % b;
+			a = b;
+			b = t;
+		}
+		return a;
+	}
+
+	/**
+	 * The zeroth order modified Bessel function of the first kind, used for
+	 * the Kaiser window.
+	 */
+	static double bessel0(double x) {
+		double sum = 1;
+		double term = 1;
+		final double half = x / 2;
+		for (int k = 1; k < 50; k++) {
+			term *= (half / k) * (half / k);
+			sum += term;
+			if (term < sum * 1e-12) {
+				break;
+			}
+		}
+		return sum;
+	}
+}
@@ -66,6 +66,7 @@ public class AmplitudeLFO implements AudioProcessor {
 			buffer[i] = gain * buffer[i];
 		}
 		phase = twoPiF * buffer.length / sampleRate + phase;
+		audioEvent.floatBufferChanged();
 		return true;
 	}
 
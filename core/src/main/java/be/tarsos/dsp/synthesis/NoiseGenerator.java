@@ -29,6 +29,7 @@ import be.tarsos.dsp.AudioProcessor;
 public class NoiseGenerator implements AudioProcessor{
 	
 	private double gain;
+	private final XorShiftRandom random = new XorShiftRandom();
 	
 	public NoiseGenerator(){
 		this(1.0);
@@ -41,9 +42,12 @@ public class NoiseGenerator implements AudioProcessor{
 	@Override
 	public boolean process(AudioEvent audioEvent) {
 		float[] buffer = audioEvent.getFloatBuffer();
+		final float gain = (float) this.gain;
+		//a generator per instance, Math.random() is synchronized
 		for(int i = 0 ; i < buffer.length ; i++){
-			buffer[i] += (float) (Math.random() * gain);
+			buffer[i] += random.nextFloat() * gain;
 		}
+		audioEvent.floatBufferChanged();
 		return true;
 	}
 
@@ -0,0 +1,225 @@
+/*
+*      _______                       _____   _____ _____  
+*     |__   __|                     |  __ \ / ____|  __ \ 
+*        | | __ _ _ __ ___  ___  ___| |  | | (___ | |__) |
+*        | |/ _` | '__/ __|/ _ \/ __| |  | |\___ \|  ___/ 
+*        | | (_| | |  \__ \ (_) \__ \ |__| |____) | |     
+*        |_|\__,_|_|  |___/\___/|___/_____/|_____/|_|     
+*                                                         
+* -------------------------------------------------------------
+*
+* TarsosDSP is developed by Joren Six at IPEM, University Ghent
+*  
+* -------------------------------------------------------------
+*
+*  Info: http://0110.be/tag/TarsosDSP
+*  Github: https://github.com/JorenSix/TarsosDSP
+*  Releases: http://0110.be/releases/TarsosDSP/
+*  
+*  TarsosDSP includes modified source code by various authors,
+*  for credits and info, see README.
+* 
+*/
+
+
+
+package be.tarsos.dsp.synthesis;
+
+import java.util.Arrays;
+
+import be.tarsos.dsp.AudioEvent;
+import be.tarsos.dsp.AudioProcessor;
+
+/**
+ * <p>
+ * Adds a bank of sine oscillators, partials, to the audio. It is meant for
+ * additive synthesis and resynthesis, e.g. from the peaks found by a
+ * {@link be.tarsos.dsp.SpectralPeakProcessor}, and renders thousands of
+ * partials in real time.
+ * </p>
+ * <p>
+ * Each oscillator is a 32 bit phase accumulator which wraps around for free.
+ * The upper bits of the phase index a shared sine table, the lower bits
+ * interpolate linearly between two table values. When the frequency or the
+ * amplitude of a partial changes it glides to the new value during the next
+ * block, which avoids clicks. A partial that starts from silence fades in at its
+ * frequency, with a random phase so that many partials do not add
+ * up to a peak. The state of the partials is kept in parallel arrays, which
+ * keeps the inner loop small.
+ * </p>
+ * <p>
+ * Only the new samples of each block, after the overlap, are rendered.
+ * </p>
+ *
+ * @author Joren Six
+ */
+public class OscillatorBank implements AudioProcessor {
+
+	private static final int TABLE_BITS = 12;
+	private static final int TABLE_SIZE = 1 << TABLE_BITS;
+	private static final int FRACTION_BITS = 32 - TABLE_BITS;
+	private static final int FRACTION_MASK = (1 << FRACTION_BITS) - 1;
+	private static final float FRACTION_SCALE = 1.0f / (1 << FRACTION_BITS);
+	/** One period of a sine, with the first value repeated at the end for the interpolation. */
+	private static final float[] SINE = new float[TABLE_SIZE + 1];
+	static {
+		for(int i = 0 ; i <= TABLE_SIZE ; i++){
+			SINE[i] = (float) Math.sin(2 * Math.PI * i / TABLE_SIZE);
+		}
+	}
+
+	private final double sampleRate;
+
+	private final int[] phases;
+	private final int[] increments;
+	private final int[] targetIncrements;
+	private final float[] amplitudes;
+	private final float[] targetAmplitudes;
+	/** One more than the index of the last partial that sounds or will sound. */
+	private int partialCount;
+
+	private final XorShiftRandom random;
+
+	/**
+	 * Create a new oscillator bank.
+	 * @param sampleRate The sample rate of the audio.
+	 * @param maxPartials The maximum number of partials.
+	 */
+	public OscillatorBank(double sampleRate, int maxPartials) {
+		this.sampleRate = sampleRate;
+		phases = new int[maxPartials];
+		increments = new int[maxPartials];
+		targetIncrements = new int[maxPartials];
+		amplitudes = new float[maxPartials];
+		targetAmplitudes = new float[maxPartials];
+		random = new XorShiftRandom();
+	}
+
+	/**
+	 * Sets the frequency and amplitude a partial reaches at the end of the
+	 * next block. Partials above the Nyquist frequency are silenced.
+	 *
+	 * @param index The index of the partial.
+	 * @param frequency The frequency in Hz.
+	 * @param amplitude The amplitude, zero silences the partial.
+	 */
+	public void setPartial(int index, double frequency, double amplitude) {
+		final double cyclesPerSample = frequency / sampleRate;
+		if(cyclesPerSample < 0 || cyclesPerSample >= 0.5){
+			amplitude = 0;
+		}
+		if(amplitude == 0){
+			targetAmplitudes[index] = 0;
+		} else {
+			final int increment = (int) Math.round(cyclesPerSample * 4294967296.0);
+			if(amplitudes[index] == 0){
+				//a new partial: no glide and a random start phase
+				increments[index] = increment;
+				phases[index] = random.nextInt();
+			}
+			targetIncrements[index] = increment;
+			targetAmplitudes[index] = (float) amplitude;
+			partialCount = Math.max(partialCount, index + 1);
+		}
+	}
+
+	/**
+	 * Sets the first partials and silences the others.
+	 * @param frequencies The frequencies in Hz.
+	 * @param amplitudes The amplitudes.
+	 * @param count The number of partials to set.
+	 */
+	public void setPartials(float[] frequencies, float[] amplitudes, int count) {
+		for(int i = 0 ; i < count ; i++){
+			setPartial(i, frequencies[i], amplitudes[i]);
+		}
+		Arrays.fill(targetAmplitudes, count, Math.max(count, partialCount), 0);
+	}
+
+	/**
+	 * Silences all partials immediately.
+	 */
+	public void clear() {
+		Arrays.fill(amplitudes, 0);
+		Arrays.fill(targetAmplitudes, 0);
+		partialCount = 0;
+	}
+
+	@Override
+	public boolean process(AudioEvent audioEvent) {
+		final float[] buffer = audioEvent.getFloatBuffer();
+		final int start = audioEvent.getOverlap();
+		final int length = buffer.length - start;
+		if(length <= 0){
+			return true;
+		}
+		final float inverseLength = 1.0f / length;
+		int lastSounding = -1;
+		for(int p = 0 ; p < partialCount ; p++){
+			final float amplitude = amplitudes[p];
+			final float targetAmplitude = targetAmplitudes[p];
+			if(amplitude == 0 && targetAmplitude == 0){
+				continue;
+			}
+			final int increment = increments[p];
+			final int targetIncrement = targetIncrements[p];
+			if(amplitude == targetAmplitude && increment == targetIncrement){
+				phases[p] = render(buffer, start, length, phases[p], increment, amplitude);
+			} else {
+				phases[p] = renderGlide(buffer, start, length, phases[p], increment, (targetIncrement - increment) / length, amplitude, (targetAmplitude - amplitude) * inverseLength);
+				increments[p] = targetIncrement;
+				amplitudes[p] = targetAmplitude;
+			}
+			if(targetAmplitude != 0){
+				lastSounding = p;
+			}
+		}
+		partialCount = lastSounding + 1;
+		audioEvent.floatBufferChanged();
+		return true;
+	}
+
+	private static int render(float[] buffer, int start, int length, int phase, int increment, float amplitude) {
+		final float[] table = SINE;
+		for(int i = start ; i < start + length ; i++){
+			final int index = phase >>> FRACTION_BITS;
+			final float fraction = (phase & FRACTION_MASK) * FRACTION_SCALE;
+			final float value = table[index];
+			buffer[i] += amplitude * (value + fraction * (table[index + 1] - value));
+			phase += increment;
+		}
+		return phase;
+	}
+
+	private static int renderGlide(float[] buffer, int start, int length, int phase, int increment, int incrementStep, float amplitude, float amplitudeStep) {
+		final float[] table = SINE;
+		for(int i = start ; i < start + length ; i++){
+			final int index = phase >>> FRACTION_BITS;
+			final float fraction = (phase & FRACTION_MASK) * FRACTION_SCALE;
+			final float value = table[index];
+			amplitude += amplitudeStep;
+			buffer[i] += amplitude * (value + fraction * (table[index + 1] - value));
+			phase += increment;
+			increment += incrementStep;
+		}
+		return phase;
+	}
+
+	@Override
+	public void processingFinished() {
+	}
+
+	/**
+	 * @return The number of partials that need to be rendered, including silent ones below the last sounding partial.
+	 */
+	public int getPartialCount() {
+		return partialCount;
+	}
+
+	/**
+	 * @return The maximum number of partials.
+	 */
+	public int getMaxPartials() {
+		return phases.length;
+	}
+}
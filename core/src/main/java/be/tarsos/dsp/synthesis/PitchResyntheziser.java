@@ -126,6 +126,7 @@ public class PitchResyntheziser implements PitchDetectionHandler {
 				audioBuffer[sample] = audioBuffer[sample] * envelope[sample];
 			}
 		}
+		audioEvent.floatBufferChanged();
 		
 		double timefactor = twoPiF * audioBuffer.length / samplerate; 
 		phase =  timefactor + phase;
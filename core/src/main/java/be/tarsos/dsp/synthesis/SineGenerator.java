@@ -53,6 +53,7 @@ public class SineGenerator implements AudioProcessor{
 			buffer[i] += (float) (gain * Math.sin(twoPiF * time + phase));
 		}
 		phase = twoPiF * buffer.length / sampleRate + phase;
+		audioEvent.floatBufferChanged();
 		return true;
 	}
 
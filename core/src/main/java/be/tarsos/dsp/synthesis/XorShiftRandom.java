@@ -0,0 +1,78 @@
+/*
+*      _______                       _____   _____ _____  
+*     |__   __|                     |  __ \ / ____|  __ \ 
+*        | | __ _ _ __ ___  ___  ___| |  | | (___ | |__) |
+*        | |/ _` | '__/ __|/ _ \/ __| |  | |\___ \|  ___/ 
+*        | | (_| | |  \__ \ (_) \__ \ |__| |____) | |     
+*        |_|\__,_|_|  |___/\___/|___/_____/|_____/|_|     
+*                                                         
+* -------------------------------------------------------------
+*
+* TarsosDSP is developed by Joren Six at IPEM, University Ghent
+*  
+* -------------------------------------------------------------
+*
+*  Info: http://0110.be/tag/TarsosDSP
+*  Github: https://github.com/JorenSix/TarsosDSP
+*  Releases: http://0110.be/releases/TarsosDSP/
+*  
+*  TarsosDSP includes modified source code by various authors,
+*  for credits and info, see README.
+* 
+*/
+
+
+
+package be.tarsos.dsp.synthesis;
+
+/**
+ * A small, fast and unsynchronized pseudo random number generator
+ * (xorshift64*). Unlike {@link Math#random()}, which is shared by all threads,
+ * each generator keeps its own state.
+ */
+final class XorShiftRandom {
+
+	private static long seedUniquifier = 0x2545F4914F6CDD1DL;
+
+	private long state;
+
+	XorShiftRandom() {
+		this(nextSeed());
+	}
+
+	XorShiftRandom(long seed) {
+		//the state should never be zero
+		state = seed == 0 ? 0x9E3779B97F4A7C15L : seed;
+	}
+
+	private static synchronized long nextSeed() {
+		seedUniquifier *= 0x9E3779B97F4A7C15L;
+		return seedUniquifier ^ System.nanoTime();
+	}
+
+	/**
+	 * @return The next 64 random bits.
+	 */
+	long nextLong() {
+		long x = state;
+		x ^= x >>> 12;
+		x ^= x << 25;
+		x ^= x >>> 27;
+		state = x;
+		return x * 0x2545F4914F6CDD1DL;
+	}
+
+	/**
+	 * @return A random value, uniformly distributed between zero (inclusive) and one (exclusive).
+	 */
+	float nextFloat() {
+		return (nextLong() >>> 40) * 0x1.0p-24f;
+	}
+
+	/**
+	 * @return 32 random bits.
+	 */
+	int nextInt() {
+		return (int) (nextLong() >>> 32);
+	}
+}
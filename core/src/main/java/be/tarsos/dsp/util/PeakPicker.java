@@ -23,8 +23,6 @@
 
 package be.tarsos.dsp.util;
 
-import java.util.Arrays;
-
 /**
  * Implements a moving mean adaptive threshold peak picker.
  * 
@@ -127,8 +125,9 @@ public class PeakPicker {
 			scratch[j] = onset_proc[j];
 			sum += scratch[j];
 		}
-		Arrays.sort(scratch);
-		median = scratch[scratch.length/2];
+		//the filtered window changes completely every frame, so the median
+		//is selected in linear time instead of kept up to date
+		median = RunningPercentile.select(scratch, length, length/2);
 		mean = sum/Float.valueOf(length);
 				
 		/* shift peek array */
@@ -0,0 +1,305 @@
+/*
+*      _______                       _____   _____ _____  
+*     |__   __|                     |  __ \ / ____|  __ \ 
+*        | | __ _ _ __ ___  ___  ___| |  | | (___ | |__) |
+*        | |/ _` | '__/ __|/ _ \/ __| |  | |\___ \|  ___/ 
+*        | | (_| | |  \__ \ (_) \__ \ |__| |____) | |     
+*        |_|\__,_|_|  |___/\___/|___/_____/|_____/|_|     
+*                                                         
+* -------------------------------------------------------------
+*
+* TarsosDSP is developed by Joren Six at IPEM, University Ghent
+*  
+* -------------------------------------------------------------
+*
+*  Info: http://0110.be/tag/TarsosDSP
+*  Github: https://github.com/JorenSix/TarsosDSP
+*  Releases: http://0110.be/releases/TarsosDSP/
+*  
+*  TarsosDSP includes modified source code by various authors,
+*  for credits and info, see README.
+* 
+*/
+
+
+
+package be.tarsos.dsp.util;
+
+/**
+ * <p>
+ * Keeps a percentile, e.g. the median, of the last values added to it. Adding
+ * a value takes O(log w) time for a window of w values.
+ * </p>
+ * <p>
+ * The window is split in two heaps: a max-heap with the smallest values, up to
+ * and including the requested rank, and a min-heap with the other values. The
+ * percentile is found at the top of the heaps. A full window replaces its
+ * oldest value in place and restores the heaps, so nothing is allocated after
+ * construction. The values and the heaps are kept in primitive arrays.
+ * </p>
+ * <p>
+ * Percentiles between ranks are interpolated linearly, as in
+ * {@link be.tarsos.dsp.SpectralPeakProcessor#percentile(double[], double)}:
+ * the median of an even number of values is the mean of the two middle ones.
+ * </p>
+ *
+ * @author Joren Six
+ */
+public class RunningPercentile {
+
+	private final double percentile;
+
+	/** The values in the window, in order of arrival. */
+	private final double[] values;
+	/** For each value: its position in the lower heap, or -1 - its position in the upper heap. */
+	private final int[] positions;
+	/** Max-heap of indexes in values. */
+	private final int[] lower;
+	/** Min-heap of indexes in values. */
+	private final int[] upper;
+	private int lowerSize;
+	private int upperSize;
+
+	/** The number of values in the window. */
+	private int size;
+	/** The index of the oldest value. */
+	private int oldest;
+
+	/**
+	 * Keep the median of a window of values.
+	 * @param windowLength The number of values in the window.
+	 */
+	public RunningPercentile(int windowLength) {
+		this(windowLength, 0.5);
+	}
+
+	/**
+	 * Keep a percentile of a window of values.
+	 * @param windowLength The number of values in the window.
+	 * @param percentile The percentile, between 0 and 1, 0.5 is the median.
+	 */
+	public RunningPercentile(int windowLength, double percentile) {
+		if(windowLength < 1){
+			throw new IllegalArgumentException("The window length should be positive, it is " + windowLength);
+		}
+		if(percentile < 0 || percentile > 1){
+			throw new IllegalArgumentException("Percentile out of range.");
+		}
+		this.percentile = percentile;
+		values = new double[windowLength];
+		positions = new int[windowLength];
+		lower = new int[windowLength];
+		upper = new int[windowLength];
+	}
+
+	/**
+	 * Adds a value. If the window is full the oldest value is removed.
+	 * @param value The value to add.
+	 */
+	public void add(double value) {
+		if(size == values.length){
+			final int index = oldest;
+			oldest = (oldest + 1) % values.length;
+			values[index] = value;
+			final int position = positions[index];
+			if(position >= 0){
+				siftUpLower(position);
+				siftDownLower(positions[index]);
+			} else {
+				siftUpUpper(-1 - position);
+				siftDownUpper(-1 - positions[index]);
+			}
+		} else {
+			final int index = (oldest + size) % values.length;
+			size++;
+			values[index] = value;
+			//the new value goes to the upper heap, rebalancing moves values to the lower heap
+			upper[upperSize] = index;
+			positions[index] = -1 - upperSize;
+			siftUpUpper(upperSize++);
+			final int lowerTarget = (int) (percentile * (size - 1)) + 1;
+			while(lowerSize < lowerTarget){
+				moveTopUpperToLower();
+			}
+		}
+		//the largest of the lower values should not exceed the smallest of the upper values
+		if(lowerSize > 0 && upperSize > 0 && values[lower[0]] > values[upper[0]]){
+			final int a = lower[0];
+			final int b = upper[0];
+			lower[0] = b;
+			positions[b] = 0;
+			upper[0] = a;
+			positions[a] = -1;
+			siftDownLower(0);
+			siftDownUpper(0);
+		}
+	}
+
+	/**
+	 * @return The percentile of the values in the window, or NaN if the window is empty.
+	 */
+	public double get() {
+		if(size == 0){
+			return Double.NaN;
+		}
+		final double t = percentile * (size - 1);
+		final int i = (int) t;
+		final double fraction = t - i;
+		final double value = values[lower[0]];
+		if(fraction == 0){
+			return value;
+		}
+		return (1 - fraction) * value + fraction * values[upper[0]];
+	}
+
+	/**
+	 * @return The number of values in the window.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Removes all values.
+	 */
+	public void clear() {
+		size = 0;
+		oldest = 0;
+		lowerSize = 0;
+		upperSize = 0;
+	}
+
+	private void moveTopUpperToLower() {
+		final int index = upper[0];
+		upperSize--;
+		if(upperSize > 0){
+			upper[0] = upper[upperSize];
+			positions[upper[0]] = -1;
+			siftDownUpper(0);
+		}
+		lower[lowerSize] = index;
+		positions[index] = lowerSize;
+		siftUpLower(lowerSize++);
+	}
+
+	private void siftUpLower(int position) {
+		final int index = lower[position];
+		final double value = values[index];
+		while(position > 0){
+			final int parent = (position - 1) >> 1;
+			if(values[lower[parent]] >= value){
+				break;
+			}
+			lower[position] = lower[parent];
+			positions[lower[position]] = position;
+			position = parent;
+		}
+		lower[position] = index;
+		positions[index] = position;
+	}
+
+	private void siftDownLower(int position) {
+		final int index = lower[position];
+		final double value = values[index];
+		while(true){
+			int child = 2 * position + 1;
+			if(child >= lowerSize){
+				break;
+			}
+			if(child + 1 < lowerSize && values[lower[child + 1]] > values[lower[child]]){
+				child++;
+			}
+			if(values[lower[child]] <= value){
+				break;
+			}
+			lower[position] = lower[child];
+			positions[lower[position]] = position;
+			position = child;
+		}
+		lower[position] = index;
+		positions[index] = position;
+	}
+
+	private void siftUpUpper(int position) {
+		final int index = upper[position];
+		final double value = values[index];
+		while(position > 0){
+			final int parent = (position - 1) >> 1;
+			if(values[upper[parent]] <= value){
+				break;
+			}
+			upper[position] = upper[parent];
+			positions[upper[position]] = -1 - position;
+			position = parent;
+		}
+		upper[position] = index;
+		positions[index] = -1 - position;
+	}
+
+	private void siftDownUpper(int position) {
+		final int index = upper[position];
+		final double value = values[index];
+		while(true){
+			int child = 2 * position + 1;
+			if(child >= upperSize){
+				break;
+			}
+			if(child + 1 < upperSize && values[upper[child + 1]] < values[upper[child]]){
+				child++;
+			}
+			if(values[upper[child]] >= value){
+				break;
+			}
+			upper[position] = upper[child];
+			positions[upper[position]] = -1 - position;
+			position = child;
+		}
+		upper[position] = index;
+		positions[index] = -1 - position;
+	}
+
+	/**
+	 * Finds the k-th smallest of the first values of an array, in linear
+	 * time on average. The order of these values is changed.
+	 *
+	 * @param values The values.
+	 * @param length The number of values to consider.
+	 * @param k The rank, zero for the smallest value.
+	 * @return The k-th smallest value.
+	 */
+	public static float select(float[] values, int length, int k) {
+		int left = 0;
+		int right = length - 1;
+		while(left < right){
+			//median of three pivot
+			final int middle = (left + right) >>> 1;
+			if(values[middle] < values[left]) swap(values, left, middle);
+			if(values[right] < values[left]) swap(values, left, right);
+			if(values[right] < values[middle]) swap(values, middle, right);
+			final float pivot = values[middle];
+			int i = left;
+			int j = right;
+			while(i <= j){
+				while(values[i] < pivot) i++;
+				while(values[j] > pivot) j--;
+				if(i <= j){
+					swap(values, i++, j--);
+				}
+			}
+			if(k <= j){
+				right = j;
+			} else if(k >= i){
+				left = i;
+			} else {
+				return values[k];
+			}
+		}
+		return values[k];
+	}
+
+	private static void swap(float[] values, int i, int j) {
+		final float value = values[i];
+		values[i] = values[j];
+		values[j] = value;
+	}
+}
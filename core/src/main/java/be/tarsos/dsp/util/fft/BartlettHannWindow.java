@@ -59,5 +59,9 @@ public class BartlettHannWindow extends WindowFunction
   {
     return (float) (0.62 - 0.48 * Math.abs(index / (length - 1) - 0.5) - 0.38 * Math.cos(TWO_PI * index / (length - 1)));
   }
-}
 
+  @Override
+  protected Object cacheKey() {
+    return NO_PARAMETERS;
+  }
+}
@@ -59,5 +59,9 @@ public class BartlettWindow extends WindowFunction
   {
       return 2f / (length - 1) * ((length - 1) / 2f - Math.abs(index - (length - 1) / 2f));
   }
-}
 
+  @Override
+  protected Object cacheKey() {
+    return NO_PARAMETERS;
+  }
+}
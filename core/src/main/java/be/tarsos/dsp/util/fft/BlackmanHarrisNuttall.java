@@ -23,4 +23,8 @@ public class BlackmanHarrisNuttall extends WindowFunction {
 		return sum;
 	}
 
+	@Override
+	protected Object cacheKey() {
+		return NO_PARAMETERS;
+	}
 }
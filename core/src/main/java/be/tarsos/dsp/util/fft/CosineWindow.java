@@ -57,4 +57,9 @@ public class CosineWindow extends WindowFunction {
 	protected float value(int length, int index) {
 		return (float) (Math.cos(Math.PI * index / (length - 1) - Math.PI / 2));
 	}
+
+	@Override
+	protected Object cacheKey() {
+		return NO_PARAMETERS;
+	}
 }
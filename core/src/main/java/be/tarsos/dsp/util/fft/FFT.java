@@ -176,7 +176,9 @@ public class FFT {
 		assert data.length / 2 == power.length;
 		assert data.length / 2 == phase.length;
 		if(windowFunction!=null){
-			windowFunction.apply(data);
+			for(int i = 0 ; i < data.length ; i++){
+				data[i] = data[i] * window[i];
+			}
 		}
 		fft.realForward(data);
 		powerAndPhaseFromFFT(data, power, phase);
@@ -62,5 +62,9 @@ public class HammingWindow extends WindowFunction {
 	protected float value(int length, int index) {
 		return 0.54f - 0.46f * (float) Math.cos(TWO_PI * index / (length - 1));
 	}
-}
 
+	@Override
+	protected Object cacheKey() {
+		return NO_PARAMETERS;
+	}
+}
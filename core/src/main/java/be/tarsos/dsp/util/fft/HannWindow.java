@@ -58,4 +58,9 @@ public class HannWindow extends WindowFunction {
 		//equal to 0.5 - 0.5 * Math.cos (TWO_PI * index / (length-1f));
 		return 0.5f * (1f - (float) Math.cos(TWO_PI * index / (length - 1f)));
 	}
+
+	@Override
+	protected Object cacheKey() {
+		return NO_PARAMETERS;
+	}
 }
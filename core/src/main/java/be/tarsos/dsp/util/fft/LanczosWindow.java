@@ -59,4 +59,9 @@ public class LanczosWindow extends WindowFunction {
 		float x = 2 * index / (float) (length - 1) - 1;
 		return (float) (Math.sin(Math.PI * x) / (Math.PI * x));
 	}
+
+	@Override
+	protected Object cacheKey() {
+		return NO_PARAMETERS;
+	}
 }
@@ -59,4 +59,9 @@ public class RectangularWindow extends WindowFunction {
 	protected float value(int length, int index) {
 		return 1f;
 	}
+
+	@Override
+	protected Object cacheKey() {
+		return NO_PARAMETERS;
+	}
 }
@@ -32,4 +32,8 @@ public class ScaledHammingWindow extends WindowFunction {
 		return (float) (scale * (25.0/46.0 - 21.0/46.0 * Math.cos(factor * index)));
 	}
 
+	@Override
+	protected Object cacheKey() {
+		return NO_PARAMETERS;
+	}
 }
@@ -59,4 +59,9 @@ public class TriangularWindow extends WindowFunction {
 		return 2f / length
 				* (length / 2f - Math.abs(index - (length - 1) / 2f));
 	}
+
+	@Override
+	protected Object cacheKey() {
+		return NO_PARAMETERS;
+	}
 }
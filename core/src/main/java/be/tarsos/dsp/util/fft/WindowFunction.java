@@ -41,6 +41,10 @@
 
 package be.tarsos.dsp.util.fft;
 
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
 /**
  * A Window function represents a curve which is applied to a sample buffer to
  * reduce the introduction of spectral leakage in the Fourier transform.
@@ -80,7 +84,22 @@ public abstract class WindowFunction {
 
 	/** The float value of 2*PI. Provided as a convenience for subclasses. */
 	protected static final float TWO_PI = (float) (2 * Math.PI);
+	
+	/**
+	 * The cache key for windows without parameters, see {@link #cacheKey()}.
+	 */
+	protected static final Object NO_PARAMETERS = new Object();
+	
+	/**
+	 * Curves shared between windows of the same type, length and parameters.
+	 * The curves are never handed out, so they can not be modified.
+	 */
+	private static final Map<CurveKey, float[]> sharedCurves = new ConcurrentHashMap<>();
+	
 	protected int length;
+	
+	/** The last curve used by this window, to skip the lookup in the shared cache. */
+	private volatile float[] curve;
 
 
 	/**
@@ -90,16 +109,17 @@ public abstract class WindowFunction {
 	}
 
 	/**
-	 * Apply the window function to a sample buffer.
+	 * Apply the window function to a sample buffer. The curve of the window
+	 * is calculated once for each length and then reused.
 	 * 
 	 * @param samples
 	 *            a sample buffer
 	 */
 	public void apply(float[] samples) {
 		this.length = samples.length;
-
+		final float[] curve = curve(samples.length);
 		for (int n = 0; n < samples.length; n++) {
-			samples[n] *= value(samples.length, n);
+			samples[n] *= curve[n];
 		}
 	}
 
@@ -108,9 +128,41 @@ public abstract class WindowFunction {
 	 * 
 	 * @param length
 	 *            the length of the window
-	 * @return the shape of the window function
+	 * @return the shape of the window function, a new array which can be modified
 	 */
 	public float[] generateCurve(int length) {
+		return curve(length).clone();
+	}
+	
+	/**
+	 * Returns the key which, together with the type and the length, determines
+	 * the curve of this window. Windows with an equal key share the same
+	 * curve. Windows with parameters should return an object with the
+	 * parameter values; windows without parameters return
+	 * {@link #NO_PARAMETERS}. The default, null, means that the curve is not
+	 * shared but only kept by this instance.
+	 * 
+	 * @return The key which determines the curve of this window, or null.
+	 */
+	protected Object cacheKey() {
+		return null;
+	}
+	
+	private float[] curve(int length) {
+		float[] current = curve;
+		if (current == null || current.length != length) {
+			final Object key = cacheKey();
+			if (key == null) {
+				current = calculateCurve(length);
+			} else {
+				current = sharedCurves.computeIfAbsent(new CurveKey(getClass(), key, length), k -> calculateCurve(length));
+			}
+			curve = current;
+		}
+		return current;
+	}
+	
+	private float[] calculateCurve(int length) {
 		float[] samples = new float[length];
 		for (int n = 0; n < length; n++) {
 			samples[n] = 1f * value(length, n);
@@ -125,4 +177,30 @@ public abstract class WindowFunction {
 	 * @return The value of the window function at the requested index.
 	 */
 	protected abstract float value(int length, int index);
+	
+	private static final class CurveKey {
+		private final Class<?> type;
+		private final Object parameters;
+		private final int length;
+		
+		private CurveKey(Class<?> type, Object parameters, int length) {
+			this.type = type;
+			this.parameters = parameters;
+			this.length = length;
+		}
+		
+		@Override
+		public boolean equals(Object other) {
+			if (!(other instanceof CurveKey)) {
+				return false;
+			}
+			CurveKey key = (CurveKey) other;
+			return type == key.type && length == key.length && parameters.equals(key.parameters);
+		}
+		
+		@Override
+		public int hashCode() {
+			return Objects.hash(type, parameters, length);
+		}
+	}
 }
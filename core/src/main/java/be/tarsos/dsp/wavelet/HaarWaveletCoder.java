@@ -64,6 +64,7 @@ public class HaarWaveletCoder implements AudioProcessor{
 			}
 		}
 
+		audioEvent.floatBufferChanged();
 		return true;
 	}
 
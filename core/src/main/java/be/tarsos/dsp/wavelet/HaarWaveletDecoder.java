@@ -38,6 +38,7 @@ public class HaarWaveletDecoder implements AudioProcessor{
 	public boolean process(AudioEvent audioEvent) {
 		float[] audioBuffer = audioEvent.getFloatBuffer();
 		transform.inverseTransform(audioBuffer);
+		audioEvent.floatBufferChanged();
 		return true;
 	}
 
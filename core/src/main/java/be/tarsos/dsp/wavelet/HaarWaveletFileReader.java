@@ -30,6 +30,10 @@ import java.io.IOException;
 import be.tarsos.dsp.AudioEvent;
 import be.tarsos.dsp.AudioProcessor;
 
+/**
+ * @deprecated Use {@link WaveletFileReader}, which supports any power of two block size, compresses sparse blocks and allows seeking.
+ */
+@Deprecated
 public class HaarWaveletFileReader implements AudioProcessor {
 
 	private final int compression;
@@ -0,0 +1,301 @@
+/*
+*      _______                       _____   _____ _____  
+*     |__   __|                     |  __ \ / ____|  __ \ 
+*        | | __ _ _ __ ___  ___  ___| |  | | (___ | |__) |
+*        | |/ _` | '__/ __|/ _ \/ __| |  | |\___ \|  ___/ 
+*        | | (_| | |  \__ \ (_) \__ \ |__| |____) | |     
+*        |_|\__,_|_|  |___/\___/|___/_____/|_____/|_|     
+*                                                         
+* -------------------------------------------------------------
+*
+* TarsosDSP is developed by Joren Six at IPEM, University Ghent
+*  
+* -------------------------------------------------------------
+*
+*  Info: http://0110.be/tag/TarsosDSP
+*  Github: https://github.com/JorenSix/TarsosDSP
+*  Releases: http://0110.be/releases/TarsosDSP/
+*  
+*  TarsosDSP includes modified source code by various authors,
+*  for credits and info, see README.
+* 
+*/
+
+
+
+package be.tarsos.dsp.wavelet;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.logging.Logger;
+
+import be.tarsos.dsp.AudioEvent;
+import be.tarsos.dsp.AudioProcessor;
+
+/**
+ * Reads blocks of wavelet coefficients written by {@link WaveletFileWriter}.
+ * Frames are read one after the other with {@link #readFrame(float[])} or, as
+ * an audio processor, into the buffer of each audio event, followed by a
+ * decoder such as {@link HaarWaveletDecoder}. If the file has an index,
+ * {@link #seek(int)} jumps to a frame.
+ *
+ * @author Joren Six
+ */
+public class WaveletFileReader implements AudioProcessor {
+
+	private static final Logger LOG = Logger.getLogger(WaveletFileReader.class.getName());
+
+	private final FileChannel channel;
+	private final int blockSize;
+	private final float sampleRate;
+	private final int indexInterval;
+
+	/** Offsets of every index interval frames, or null if the file has no index. */
+	private final long[] index;
+	private final int frameCount;
+	/** The file position where the frames end. */
+	private final long dataEnd;
+
+	private final ByteBuffer readBuffer;
+	/** The file position of the end of the read buffer. */
+	private long bufferEnd;
+	private int nextFrame;
+
+	private final float[] block;
+
+	/**
+	 * Opens a wavelet file.
+	 * @param fileName The file to read.
+	 * @throws IOException If the file can not be read or is not a wavelet file.
+	 */
+	public WaveletFileReader(String fileName) throws IOException {
+		channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ);
+
+		ByteBuffer header = ByteBuffer.allocate(WaveletFileWriter.HEADER_LENGTH).order(ByteOrder.LITTLE_ENDIAN);
+		readFully(header, 0);
+		byte[] magic = new byte[4];
+		header.get(magic);
+		if(!Arrays.equals(magic, WaveletFileWriter.HEADER_MAGIC) || header.get() != WaveletFileWriter.VERSION){
+			channel.close();
+			throw new IOException(fileName + " is not a wavelet file");
+		}
+		blockSize = header.getInt();
+		sampleRate = header.getFloat();
+		indexInterval = header.getInt();
+
+		//the index is missing if writing did not finish, the file can then only be read sequentially
+		long size = channel.size();
+		long[] offsets = null;
+		int frames = -1;
+		long end = size;
+		if(size >= WaveletFileWriter.HEADER_LENGTH + WaveletFileWriter.FOOTER_LENGTH){
+			ByteBuffer footer = ByteBuffer.allocate(WaveletFileWriter.FOOTER_LENGTH).order(ByteOrder.LITTLE_ENDIAN);
+			readFully(footer, size - WaveletFileWriter.FOOTER_LENGTH);
+			int footerFrames = footer.getInt();
+			int entries = footer.getInt();
+			long indexOffset = footer.getLong();
+			footer.get(magic);
+			if(Arrays.equals(magic, WaveletFileWriter.FOOTER_MAGIC) && entries >= 0 && indexOffset + 8L * entries + WaveletFileWriter.FOOTER_LENGTH == size){
+				ByteBuffer indexBuffer = ByteBuffer.allocate(8 * entries).order(ByteOrder.LITTLE_ENDIAN);
+				readFully(indexBuffer, indexOffset);
+				offsets = new long[entries];
+				indexBuffer.asLongBuffer().get(offsets);
+				frames = footerFrames;
+				end = indexOffset;
+			}
+		}
+		index = offsets;
+		frameCount = frames;
+		dataEnd = end;
+
+		readBuffer = ByteBuffer.allocate(Math.max(1 << 16, 2 * (4 + 5 * (2 * blockSize + 1)) + 5)).order(ByteOrder.LITTLE_ENDIAN);
+		readBuffer.limit(0);
+		bufferEnd = WaveletFileWriter.HEADER_LENGTH;
+		block = new float[blockSize];
+	}
+
+	private void readFully(ByteBuffer buffer, long position) throws IOException {
+		while(buffer.hasRemaining()){
+			int read = channel.read(buffer, position);
+			if(read < 0){
+				throw new IOException("Unexpected end of wavelet file");
+			}
+			position += read;
+		}
+		buffer.flip();
+	}
+
+	/**
+	 * Makes sure the read buffer holds at least the requested number of bytes,
+	 * unless the frames end first.
+	 * @return True if the bytes are available.
+	 */
+	private boolean fill(int bytes) throws IOException {
+		if(readBuffer.remaining() >= bytes){
+			return true;
+		}
+		readBuffer.compact();
+		while(readBuffer.position() < bytes && bufferEnd < dataEnd){
+			int limit = readBuffer.limit();
+			readBuffer.limit((int) Math.min(limit, readBuffer.position() + dataEnd - bufferEnd));
+			int read = channel.read(readBuffer, bufferEnd);
+			readBuffer.limit(limit);
+			if(read < 0){
+				break;
+			}
+			bufferEnd += read;
+		}
+		readBuffer.flip();
+		return readBuffer.remaining() >= bytes;
+	}
+
+	private int getVarint() throws IOException {
+		int value = 0;
+		for(int shift = 0 ; shift < 35 && readBuffer.hasRemaining() ; shift += 7){
+			final byte b = readBuffer.get();
+			value |= (b & 0x7F) << shift;
+			if(b >= 0){
+				return value;
+			}
+		}
+		throw new IOException("Corrupt wavelet file: invalid variable length integer");
+	}
+
+	/**
+	 * Reads the next frame of coefficients.
+	 *
+	 * @param coefficients The array to fill, at least the block size long.
+	 * @return False if there are no more frames.
+	 * @throws IOException If the file can not be read or is corrupt.
+	 */
+	public boolean readFrame(float[] coefficients) throws IOException {
+		if(!fill(5) && !readBuffer.hasRemaining()){
+			return false;
+		}
+		final int length = getVarint();
+		if(!fill(length)){
+			//the last frame was not written completely
+			return false;
+		}
+		final int frameEnd = readBuffer.position() + length;
+		final float factor = readBuffer.getFloat() / WaveletFileWriter.QUANTIZATION;
+
+		//mark the non-zero coefficients using the run lengths
+		boolean zeros = true;
+		int i = 0;
+		while(i < blockSize){
+			final int run = getVarint();
+			if(run > blockSize - i){
+				throw new IOException("Corrupt wavelet file: run lengths exceed the block size");
+			}
+			Arrays.fill(coefficients, i, i + run, zeros ? 0f : 1f);
+			i += run;
+			zeros = !zeros;
+		}
+		for(i = 0 ; i < blockSize ; i++){
+			if(coefficients[i] != 0){
+				final int encoded = getVarint();
+				coefficients[i] = ((encoded >>> 1) ^ -(encoded & 1)) * factor;
+			}
+		}
+		if(readBuffer.position() != frameEnd){
+			throw new IOException("Corrupt wavelet file: unexpected frame length");
+		}
+		nextFrame++;
+		return true;
+	}
+
+	/**
+	 * Jumps to a frame, the next call to {@link #readFrame(float[])} returns it.
+	 *
+	 * @param frame The index of the frame.
+	 * @throws IOException If the file can not be read.
+	 * @throws IllegalStateException If the file has no index.
+	 */
+	public void seek(int frame) throws IOException {
+		if(index == null){
+			throw new IllegalStateException("The wavelet file has no index, it can only be read sequentially");
+		}
+		if(frame < 0 || frame > frameCount){
+			throw new IllegalArgumentException("Frame " + frame + " is not between 0 and " + frameCount);
+		}
+		final int entry = Math.min(frame / indexInterval, index.length - 1);
+		readBuffer.limit(0);
+		bufferEnd = entry < 0 ? WaveletFileWriter.HEADER_LENGTH : index[entry];
+		nextFrame = entry < 0 ? 0 : entry * indexInterval;
+		//skip the frames between the index entry and the requested one
+		while(nextFrame < frame){
+			fill(5);
+			final int length = getVarint();
+			if(!fill(length)){
+				throw new IOException("Unexpected end of wavelet file");
+			}
+			readBuffer.position(readBuffer.position() + length);
+			nextFrame++;
+		}
+	}
+
+	/**
+	 * Jumps to the frame which contains a time.
+	 * @param seconds The time in seconds.
+	 * @throws IOException If the file can not be read.
+	 */
+	public void seekToTime(double seconds) throws IOException {
+		seek((int) Math.min(frameCount, Math.floor(seconds * sampleRate / blockSize)));
+	}
+
+	/**
+	 * Replaces the buffer of the audio event with the next frame.
+	 * @return False if there are no more frames, which stops the chain.
+	 */
+	@Override
+	public boolean process(AudioEvent audioEvent) {
+		try {
+			if(!readFrame(block)){
+				return false;
+			}
+		} catch (IOException e) {
+			String message = "Error while reading wavelet file: " + e.getMessage();
+			LOG.warning(message);
+			throw new Error(message);
+		}
+		audioEvent.setFloatBuffer(block);
+		return true;
+	}
+
+	@Override
+	public void processingFinished() {
+		try {
+			channel.close();
+		} catch (IOException e) {
+			LOG.warning("Error while closing wavelet file: " + e.getMessage());
+		}
+	}
+
+	public int getBlockSize(){
+		return blockSize;
+	}
+
+	public float getSampleRate(){
+		return sampleRate;
+	}
+
+	/**
+	 * @return The number of frames, or -1 if the file has no index.
+	 */
+	public int getFrameCount(){
+		return frameCount;
+	}
+
+	/**
+	 * @return The index of the frame returned by the next read.
+	 */
+	public int getNextFrame(){
+		return nextFrame;
+	}
+}
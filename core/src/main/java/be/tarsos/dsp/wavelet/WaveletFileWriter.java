@@ -0,0 +1,258 @@
+/*
+*      _______                       _____   _____ _____  
+*     |__   __|                     |  __ \ / ____|  __ \ 
+*        | | __ _ _ __ ___  ___  ___| |  | | (___ | |__) |
+*        | |/ _` | '__/ __|/ _ \/ __| |  | |\___ \|  ___/ 
+*        | | (_| | |  \__ \ (_) \__ \ |__| |____) | |     
+*        |_|\__,_|_|  |___/\___/|___/_____/|_____/|_|     
+*                                                         
+* -------------------------------------------------------------
+*
+* TarsosDSP is developed by Joren Six at IPEM, University Ghent
+*  
+* -------------------------------------------------------------
+*
+*  Info: http://0110.be/tag/TarsosDSP
+*  Github: https://github.com/JorenSix/TarsosDSP
+*  Releases: http://0110.be/releases/TarsosDSP/
+*  
+*  TarsosDSP includes modified source code by various authors,
+*  for credits and info, see README.
+* 
+*/
+
+
+
+package be.tarsos.dsp.wavelet;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.logging.Logger;
+
+import be.tarsos.dsp.AudioEvent;
+import be.tarsos.dsp.AudioProcessor;
+
+/**
+ * <p>
+ * Writes blocks of wavelet coefficients, e.g. the output of a
+ * {@link HaarWaveletCoder} or a
+ * {@link be.tarsos.dsp.wavelet.lift.Daubechies4WaveletCoder}, to a compressed
+ * file. Read the file with {@link WaveletFileReader}.
+ * </p>
+ * <p>
+ * The block size can be any power of two. Each block is quantized to 16 bits
+ * relative to its largest coefficient. The positions of the zero coefficients
+ * are stored as run lengths and the other coefficients as variable length
+ * integers, so sparse blocks take little space. The file ends with an index
+ * of frame offsets which allows seeking.
+ * </p>
+ * <p>
+ * The layout, all numbers little endian:
+ * </p>
+ * <pre>
+ * header: "TDWC", version byte, block size int, sample rate float, index interval int
+ * frame:  payload length varint, scale float, run lengths varints
+ *         (zeros, non-zeros, zeros, ...), zigzag varint per non-zero coefficient
+ * index:  offset long for every index interval frames
+ * footer: frame count int, index entries int, index offset long, "TDWI"
+ * </pre>
+ * 
+ * @author Joren Six
+ */
+public class WaveletFileWriter implements AudioProcessor {
+	
+	private static final Logger LOG = Logger.getLogger(WaveletFileWriter.class.getName());
+	
+	static final byte[] HEADER_MAGIC = {'T', 'D', 'W', 'C'};
+	static final byte[] FOOTER_MAGIC = {'T', 'D', 'W', 'I'};
+	static final byte VERSION = 1;
+	static final int HEADER_LENGTH = 17;
+	static final int FOOTER_LENGTH = 20;
+	static final float QUANTIZATION = 32767f;
+	
+	/**
+	 * The default number of frames between index entries.
+	 */
+	public static final int DEFAULT_INDEX_INTERVAL = 64;
+	
+	private final FileChannel channel;
+	private final int blockSize;
+	private final int indexInterval;
+	
+	private final ByteBuffer writeBuffer;
+	private final ByteBuffer frameBuffer;
+	private final int[] quantized;
+	
+	private long[] index;
+	private int indexEntries;
+	private int frameCount;
+	/** The file position of the start of the write buffer. */
+	private long position;
+	private boolean closed;
+	
+	/**
+	 * Create a new writer with the default index interval.
+	 * 
+	 * @param fileName The file to write to, it is replaced if it exists.
+	 * @param sampleRate The sample rate of the audio, stored in the header.
+	 * @param blockSize The number of coefficients in each block, a power of two.
+	 * @throws IOException If the file can not be created.
+	 */
+	public WaveletFileWriter(String fileName, float sampleRate, int blockSize) throws IOException {
+		this(fileName, sampleRate, blockSize, DEFAULT_INDEX_INTERVAL);
+	}
+	
+	/**
+	 * Create a new writer.
+	 * 
+	 * @param fileName The file to write to, it is replaced if it exists.
+	 * @param sampleRate The sample rate of the audio, stored in the header.
+	 * @param blockSize The number of coefficients in each block, a power of two.
+	 * @param indexInterval The number of frames between index entries. Seeking reads at most this many frames.
+	 * @throws IOException If the file can not be created.
+	 */
+	public WaveletFileWriter(String fileName, float sampleRate, int blockSize, int indexInterval) throws IOException {
+		if(blockSize < 2 || Integer.bitCount(blockSize) != 1){
+			throw new IllegalArgumentException("The block size should be a power of two, it is " + blockSize);
+		}
+		if(indexInterval < 1){
+			throw new IllegalArgumentException("The index interval should be positive, it is " + indexInterval);
+		}
+		this.blockSize = blockSize;
+		this.indexInterval = indexInterval;
+		
+		//scale, at most blockSize + 1 runs and blockSize coefficients of 5 bytes
+		frameBuffer = ByteBuffer.allocate(4 + 5 * (2 * blockSize + 1)).order(ByteOrder.LITTLE_ENDIAN);
+		writeBuffer = ByteBuffer.allocate(Math.max(1 << 16, 2 * frameBuffer.capacity())).order(ByteOrder.LITTLE_ENDIAN);
+		quantized = new int[blockSize];
+		index = new long[16];
+		
+		channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+		writeBuffer.put(HEADER_MAGIC);
+		writeBuffer.put(VERSION);
+		writeBuffer.putInt(blockSize);
+		writeBuffer.putFloat(sampleRate);
+		writeBuffer.putInt(indexInterval);
+	}
+
+	@Override
+	public boolean process(AudioEvent audioEvent) {
+		float[] coefficients = audioEvent.getFloatBuffer();
+		if(coefficients.length != blockSize){
+			throw new IllegalArgumentException("Expected a block of " + blockSize + " coefficients, got " + coefficients.length);
+		}
+		try {
+			writeFrame(coefficients);
+		} catch (IOException e) {
+			String message = "Error while writing wavelet file: " + e.getMessage();
+			LOG.warning(message);
+			throw new Error(message);
+		}
+		return true;
+	}
+	
+	private void writeFrame(float[] coefficients) throws IOException {
+		float max = 0;
+		for(int i = 0 ; i < blockSize ; i++){
+			max = Math.max(max, Math.abs(coefficients[i]));
+		}
+		final float scale = max == 0 ? 0 : QUANTIZATION / max;
+		for(int i = 0 ; i < blockSize ; i++){
+			quantized[i] = Math.round(coefficients[i] * scale);
+		}
+		
+		frameBuffer.clear();
+		frameBuffer.putFloat(max);
+		//alternating runs of zero and non-zero coefficients, starting with zeros
+		boolean zeros = true;
+		int run = 0;
+		for(int i = 0 ; i < blockSize ; i++){
+			if((quantized[i] == 0) != zeros){
+				putVarint(frameBuffer, run);
+				zeros = !zeros;
+				run = 0;
+			}
+			run++;
+		}
+		putVarint(frameBuffer, run);
+		for(int i = 0 ; i < blockSize ; i++){
+			final int value = quantized[i];
+			if(value != 0){
+				putVarint(frameBuffer, (value << 1) ^ (value >> 31));
+			}
+		}
+		frameBuffer.flip();
+		
+		if(writeBuffer.remaining() < frameBuffer.remaining() + 5){
+			flush();
+		}
+		if(frameCount % indexInterval == 0){
+			if(indexEntries == index.length){
+				index = Arrays.copyOf(index, indexEntries * 2);
+			}
+			index[indexEntries++] = position + writeBuffer.position();
+		}
+		putVarint(writeBuffer, frameBuffer.remaining());
+		writeBuffer.put(frameBuffer);
+		frameCount++;
+	}
+	
+	static void putVarint(ByteBuffer buffer, int value){
+		while((value & ~0x7F) != 0){
+			buffer.put((byte) ((value & 0x7F) | 0x80));
+			value >>>= 7;
+		}
+		buffer.put((byte) value);
+	}
+	
+	private void flush() throws IOException {
+		writeBuffer.flip();
+		while(writeBuffer.hasRemaining()){
+			position += channel.write(writeBuffer);
+		}
+		writeBuffer.clear();
+	}
+
+	/**
+	 * Writes the index and closes the file.
+	 */
+	@Override
+	public void processingFinished() {
+		if(closed){
+			return;
+		}
+		closed = true;
+		try {
+			flush();
+			long indexOffset = position;
+			for(int i = 0 ; i < indexEntries ; i++){
+				if(writeBuffer.remaining() < 8 + FOOTER_LENGTH){
+					flush();
+				}
+				writeBuffer.putLong(index[i]);
+			}
+			writeBuffer.putInt(frameCount);
+			writeBuffer.putInt(indexEntries);
+			writeBuffer.putLong(indexOffset);
+			writeBuffer.put(FOOTER_MAGIC);
+			flush();
+			channel.close();
+		} catch (IOException e) {
+			String message = "Error while closing wavelet file: " + e.getMessage();
+			LOG.warning(message);
+			throw new Error(message);
+		}
+	}
+	
+	/**
+	 * @return The number of frames written so far.
+	 */
+	public int getFrameCount(){
+		return frameCount;
+	}
+}
@@ -63,6 +63,7 @@ public class Daubechies4WaveletCoder implements AudioProcessor {
 				audioBuffer[i] = 0;
 			}
 		}
+		audioEvent.floatBufferChanged();
 		return true;
 	}
 
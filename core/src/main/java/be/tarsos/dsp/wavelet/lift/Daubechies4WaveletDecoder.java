@@ -38,6 +38,7 @@ public class Daubechies4WaveletDecoder implements AudioProcessor {
 	public boolean process(AudioEvent audioEvent) {
 		float[] audioBuffer = audioEvent.getFloatBuffer();
 		transform.inverseTrans(audioBuffer);
+		audioEvent.floatBufferChanged();
 		return true;
 	}
 
@@ -97,25 +97,26 @@ public abstract class LiftingSchemeBaseWavelet {
 	/** "enumeration" for inverse wavelet transform */
 	protected final int inverse = 2;
 
+	/**
+	 * Scratch buffer for split and merge, grown when needed. Because of this
+	 * buffer an instance should not be shared between threads.
+	 */
+	private float[] scratch = new float[0];
+
 	/**
 	 * Split the <i>vec</i> into even and odd elements, where the even elements
 	 * are in the first half of the vector and the odd elements are in the
-	 * second half.
+	 * second half. The odd elements are moved via a scratch buffer, which
+	 * makes this linear in N.
 	 */
 	protected void split(float[] vec, int N) {
-
-		int start = 1;
-		int end = N - 1;
-
-		while (start < end) {
-			for (int i = start; i < end; i = i + 2) {
-				float tmp = vec[i];
-				vec[i] = vec[i + 1];
-				vec[i + 1] = tmp;
-			}
-			start = start + 1;
-			end = end - 1;
+		final int half = N >> 1;
+		final float[] odd = scratch(half);
+		for (int i = 0; i < half; i++) {
+			odd[i] = vec[2 * i + 1];
+			vec[i] = vec[2 * i];
 		}
+		System.arraycopy(odd, 0, vec, half, half);
 	}
 
 	/**
@@ -125,19 +126,22 @@ public abstract class LiftingSchemeBaseWavelet {
 	 * in a region of length N.
 	 */
 	protected void merge(float[] vec, int N) {
-		int half = N >> 1;
-		int start = half - 1;
-		int end = half;
-
-		while (start > 0) {
-			for (int i = start; i < end; i = i + 2) {
-				float tmp = vec[i];
-				vec[i] = vec[i + 1];
-				vec[i + 1] = tmp;
-			}
-			start = start - 1;
-			end = end + 1;
+		final int half = N >> 1;
+		final float[] odd = scratch(half);
+		System.arraycopy(vec, half, odd, 0, half);
+		// from the back to the front: an even element is never overwritten
+		// before it is moved
+		for (int i = half - 1; i >= 0; i--) {
+			vec[2 * i] = vec[i];
+			vec[2 * i + 1] = odd[i];
+		}
+	}
+	
+	private float[] scratch(int length) {
+		if (scratch.length < length) {
+			scratch = new float[length];
 		}
+		return scratch;
 	}
 
 	/**
@@ -0,0 +1,333 @@
+/*
+*      _______                       _____   _____ _____  
+*     |__   __|                     |  __ \ / ____|  __ \ 
+*        | | __ _ _ __ ___  ___  ___| |  | | (___ | |__) |
+*        | |/ _` | '__/ __|/ _ \/ __| |  | |\___ \|  ___/ 
+*        | | (_| | |  \__ \ (_) \__ \ |__| |____) | |     
+*        |_|\__,_|_|  |___/\___/|___/_____/|_____/|_|     
+*                                                         
+* -------------------------------------------------------------
+*
+* TarsosDSP is developed by Joren Six at IPEM, University Ghent
+*  
+* -------------------------------------------------------------
+*
+*  Info: http://0110.be/tag/TarsosDSP
+*  Github: https://github.com/JorenSix/TarsosDSP
+*  Releases: http://0110.be/releases/TarsosDSP/
+*  
+*  TarsosDSP includes modified source code by various authors,
+*  for credits and info, see README.
+* 
+*/
+
+
+
+package be.tarsos.dsp.writer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Logger;
+
+import be.tarsos.dsp.AudioEvent;
+import be.tarsos.dsp.AudioProcessor;
+import be.tarsos.dsp.io.TarsosDSPAudioFloatConverter;
+import be.tarsos.dsp.io.TarsosDSPAudioFormat;
+
+/**
+ * <p>
+ * Writes the ongoing sound to a WAV file without doing disk I/O on the
+ * processing thread. Each audio block is copied into a preallocated ring
+ * buffer. A background thread converts the samples and writes them to a
+ * {@link FileChannel} in large batches. The ring buffer absorbs slow disk
+ * writes: only when the disk stays slower than the audio for longer than the
+ * ring buffer lasts, the processing thread waits for room.
+ * </p>
+ * <p>
+ * Samples are stored as 16 or 24 bit integers or as 32 bit floats. Files that
+ * grow past 4GB are finished as RF64 (EBU Tech 3306), which most audio
+ * software reads transparently. Only the new part of each block is written,
+ * the overlap with the previous block is skipped.
+ * </p>
+ *
+ * @author Joren Six
+ */
+public class AsyncWaveformWriter implements AudioProcessor {
+
+	private static final Logger LOG = Logger.getLogger(AsyncWaveformWriter.class.getName());
+
+	/**
+	 * The sample encodings supported by the writer.
+	 */
+	public enum Encoding {
+		/** 16 bit signed integers. */
+		PCM_16(16, WAVE_FORMAT_PCM),
+		/** 24 bit signed integers. */
+		PCM_24(24, WAVE_FORMAT_PCM),
+		/** 32 bit floats, values are not clipped. */
+		FLOAT_32(32, WAVE_FORMAT_IEEE_FLOAT);
+
+		private final int bits;
+		private final short formatTag;
+
+		Encoding(int bits, short formatTag){
+			this.bits = bits;
+			this.formatTag = formatTag;
+		}
+
+		/**
+		 * @return The number of bits per sample.
+		 */
+		public int getBits(){
+			return bits;
+		}
+	}
+
+	private static final short WAVE_FORMAT_PCM = 1;
+	private static final short WAVE_FORMAT_IEEE_FLOAT = 3;
+
+	/**
+	 * RIFF header, a JUNK chunk which is replaced by a ds64 chunk for RF64, the
+	 * fmt chunk and the data chunk header.
+	 */
+	private static final int HEADER_LENGTH = 12 + 36 + 24 + 8;
+	private static final long MAX_RIFF_SIZE = 0xFFFFFFFFL;
+
+	/** The number of samples converted and written in one batch. */
+	private static final int BATCH_SIZE = 1 << 15;
+	/** How long the background thread sleeps when there is nothing to write. */
+	private static final long IDLE_NANOS = 2000000;
+
+	private final FileChannel channel;
+	private final String fileName;
+	private final Encoding encoding;
+	private final int channels;
+	private final int sampleRate;
+	private final int bytesPerSample;
+
+	private final float[] ring;
+	private final int mask;
+	/** The number of samples put in the ring buffer, only changed by the processing thread. */
+	private volatile long samplesQueued;
+	/** The number of samples taken from the ring buffer, only changed by the writing thread. */
+	private volatile long samplesWritten;
+	private volatile boolean finished;
+	private volatile IOException failure;
+
+	private final Thread writerThread;
+	private final TarsosDSPAudioFloatConverter converter;
+	private final float[] batch;
+	private final ByteBuffer bytes;
+	private long dataLength;
+
+	/**
+	 * Create a writer with a ring buffer of about two seconds of audio.
+	 *
+	 * @param fileName The WAV file to write, it is replaced if it exists.
+	 * @param format The format of the audio, only the sample rate and the number of channels are used.
+	 * @param encoding The encoding of the samples in the file.
+	 * @throws IOException If the file can not be created.
+	 */
+	public AsyncWaveformWriter(String fileName, TarsosDSPAudioFormat format, Encoding encoding) throws IOException {
+		this(fileName, format, encoding, Math.round(format.getSampleRate() * 2));
+	}
+
+	/**
+	 * Create a writer.
+	 *
+	 * @param fileName The WAV file to write, it is replaced if it exists.
+	 * @param format The format of the audio, only the sample rate and the number of channels are used.
+	 * @param encoding The encoding of the samples in the file.
+	 * @param ringFrames The minimum number of sample frames the ring buffer holds. This
+	 *            determines how long disk writes can stall before the processing thread waits.
+	 * @throws IOException If the file can not be created.
+	 */
+	public AsyncWaveformWriter(String fileName, TarsosDSPAudioFormat format, Encoding encoding, int ringFrames) throws IOException {
+		this.fileName = fileName;
+		this.encoding = encoding;
+		this.channels = format.getChannels();
+		this.sampleRate = Math.round(format.getSampleRate());
+		this.bytesPerSample = encoding.bits / 8;
+
+		int capacity = Integer.highestOneBit(Math.max(BATCH_SIZE, ringFrames * channels) - 1) << 1;
+		ring = new float[capacity];
+		mask = capacity - 1;
+
+		TarsosDSPAudioFormat fileFormat;
+		if(encoding == Encoding.FLOAT_32){
+			fileFormat = new TarsosDSPAudioFormat(TarsosDSPAudioFloatConverter.PCM_FLOAT, sampleRate, 32, channels, 4 * channels, sampleRate, false);
+		} else {
+			fileFormat = new TarsosDSPAudioFormat(sampleRate, encoding.bits, channels, true, false);
+		}
+		converter = TarsosDSPAudioFloatConverter.getConverter(fileFormat);
+		batch = new float[BATCH_SIZE];
+		bytes = ByteBuffer.wrap(new byte[BATCH_SIZE * bytesPerSample]);
+
+		channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+		//a header with the lengths still unknown
+		writeHeader(0);
+
+		writerThread = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				writeLoop();
+			}
+		}, "Waveform writer " + fileName);
+		writerThread.setDaemon(true);
+		writerThread.start();
+	}
+
+	@Override
+	public boolean process(AudioEvent audioEvent) {
+		checkFailure();
+		final float[] buffer = audioEvent.getFloatBuffer();
+		int offset = Math.min(audioEvent.getOverlap(), buffer.length);
+		while(offset < buffer.length){
+			final long queued = samplesQueued;
+			final int free = ring.length - (int) (queued - samplesWritten);
+			if(free == 0){
+				//the disk is slower than the audio, wait for room
+				checkFailure();
+				LockSupport.unpark(writerThread);
+				LockSupport.parkNanos(IDLE_NANOS / 10);
+				continue;
+			}
+			final int length = Math.min(free, buffer.length - offset);
+			final int start = (int) (queued & mask);
+			final int first = Math.min(length, ring.length - start);
+			System.arraycopy(buffer, offset, ring, start, first);
+			System.arraycopy(buffer, offset + first, ring, 0, length - first);
+			samplesQueued = queued + length;
+			offset += length;
+		}
+		return true;
+	}
+
+	private void checkFailure(){
+		if(failure != null){
+			String message = "Error while writing " + fileName + ": " + failure.getMessage();
+			LOG.warning(message);
+			throw new Error(message);
+		}
+	}
+
+	private void writeLoop(){
+		try {
+			while(true){
+				//read the flag before the queue so no samples are missed at the end
+				final boolean last = finished;
+				final long written = samplesWritten;
+				final int available = (int) Math.min(samplesQueued - written, BATCH_SIZE);
+				if(available > 0){
+					writeBatch(written, available);
+					samplesWritten = written + available;
+				} else if(last){
+					break;
+				} else {
+					LockSupport.parkNanos(IDLE_NANOS);
+				}
+			}
+			if((dataLength & 1) == 1){
+				//chunks have an even length
+				channel.write(ByteBuffer.allocate(1), HEADER_LENGTH + dataLength);
+			}
+			writeHeader(dataLength);
+		} catch (IOException e) {
+			failure = e;
+		} finally {
+			try {
+				channel.close();
+			} catch (IOException e) {
+				if(failure == null){
+					failure = e;
+				}
+			}
+		}
+	}
+
+	private void writeBatch(long from, int length) throws IOException {
+		final int start = (int) (from & mask);
+		final int first = Math.min(length, ring.length - start);
+		System.arraycopy(ring, start, batch, 0, first);
+		System.arraycopy(ring, 0, batch, first, length - first);
+		if(encoding != Encoding.FLOAT_32){
+			//integer conversion wraps around instead of clipping
+			for(int i = 0 ; i < length ; i++){
+				batch[i] = Math.max(-1f, Math.min(1f, batch[i]));
+			}
+		}
+		converter.toByteArray(batch, 0, length, bytes.array(), 0);
+		bytes.clear();
+		bytes.limit(length * bytesPerSample);
+		while(bytes.hasRemaining()){
+			dataLength += channel.write(bytes, HEADER_LENGTH + dataLength);
+		}
+	}
+
+	private void writeHeader(long dataLength) throws IOException {
+		final int blockAlign = bytesPerSample * channels;
+		final long riffLength = HEADER_LENGTH - 8 + dataLength + (dataLength & 1);
+		final boolean rf64 = riffLength > MAX_RIFF_SIZE;
+
+		ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH).order(ByteOrder.LITTLE_ENDIAN);
+		header.put((rf64 ? "RF64" : "RIFF").getBytes());
+		header.putInt(rf64 ? -1 : (int) riffLength);
+		header.put("WAVE".getBytes());
+		//reserves room for the 64 bit sizes, ignored by readers of normal WAV files
+		header.put((rf64 ? "ds64" : "JUNK").getBytes());
+		header.putInt(28);
+		if(rf64){
+			header.putLong(riffLength);
+			header.putLong(dataLength);
+			header.putLong(dataLength / blockAlign);
+			header.putInt(0);
+		} else {
+			header.position(header.position() + 28);
+		}
+		header.put("fmt ".getBytes());
+		header.putInt(16);
+		header.putShort(encoding.formatTag);
+		header.putShort((short) channels);
+		header.putInt(sampleRate);
+		header.putInt(sampleRate * blockAlign);
+		header.putShort((short) blockAlign);
+		header.putShort((short) encoding.bits);
+		header.put("data".getBytes());
+		header.putInt(rf64 ? -1 : (int) dataLength);
+		header.flip();
+		long position = 0;
+		while(header.hasRemaining()){
+			position += channel.write(header, position);
+		}
+	}
+
+	/**
+	 * Waits until all audio is written, finishes the header and closes the file.
+	 */
+	@Override
+	public void processingFinished() {
+		if(finished){
+			return;
+		}
+		finished = true;
+		LockSupport.unpark(writerThread);
+		try {
+			writerThread.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		checkFailure();
+	}
+
+	/**
+	 * @return The number of samples which are waiting to be written to disk.
+	 */
+	public int getPendingSamples(){
+		return (int) (samplesQueued - samplesWritten);
+	}
+}
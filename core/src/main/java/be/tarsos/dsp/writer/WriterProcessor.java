@@ -12,6 +12,7 @@ import be.tarsos.dsp.io.TarsosDSPAudioFormat;
 /**
  * This class writes the ongoing sound to an output specified by the programmer
  *
+ * @see AsyncWaveformWriter
  */
 public class WriterProcessor implements AudioProcessor {
     RandomAccessFile output;
@@ -36,9 +37,10 @@ public class WriterProcessor implements AudioProcessor {
     @Override
     public boolean process(AudioEvent audioEvent) {
         try {
-            audioLen+=audioEvent.getByteBuffer().length;
+            byte[] buffer = audioEvent.getByteBuffer();
+            audioLen+=buffer.length;
             //write audio to the output
-            output.write(audioEvent.getByteBuffer());
+            output.write(buffer);
         } catch (IOException e) {
             e.printStackTrace();
         }
@@ -50,7 +52,7 @@ public class WriterProcessor implements AudioProcessor {
         //write header and data to the result output
         WaveHeader waveHeader=new WaveHeader(WaveHeader.FORMAT_PCM,
                 (short)audioFormat.getChannels(),
-                (int)audioFormat.getSampleRate(),(short)16,audioLen);//16 is for pcm, Read WaveHeader class for more details
+                (int)audioFormat.getSampleRate(),(short)audioFormat.getSampleSizeInBits(),audioLen);//Read WaveHeader class for more details
         ByteArrayOutputStream header=new ByteArrayOutputStream();
         try {
             waveHeader.write(header);
@@ -3,6 +3,7 @@ module TarsosDSP.core {
     exports be.tarsos.dsp.effects;
     exports be.tarsos.dsp.filters;
     exports be.tarsos.dsp.granulator;
+    exports be.tarsos.dsp.instrumentation;
     exports be.tarsos.dsp.io;
     exports be.tarsos.dsp.onsets;
     exports be.tarsos.dsp.pitch;
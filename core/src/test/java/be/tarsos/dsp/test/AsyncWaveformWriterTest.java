@@ -0,0 +1,119 @@
+/*
+*      _______                       _____   _____ _____  
+*     |__   __|                     |  __ \ / ____|  __ \ 
+*        | | __ _ _ __ ___  ___  ___| |  | | (___ | |__) |
+*        | |/ _` | '__/ __|/ _ \/ __| |  | |\___ \|  ___/ 
+*        | | (_| | |  \__ \ (_) \__ \ |__| |____) | |     
+*        |_|\__,_|_|  |___/\___/|___/_____/|_____/|_|     
+*                                                         
+* -------------------------------------------------------------
+*
+* TarsosDSP is developed by Joren Six at IPEM, University Ghent
+*  
+* -------------------------------------------------------------
+*
+*  Info: http://0110.be/tag/TarsosDSP
+*  Github: https://github.com/JorenSix/TarsosDSP
+*  Releases: http://0110.be/releases/TarsosDSP/
+*  
+*  TarsosDSP includes modified source code by various authors,
+*  for credits and info, see README.
+* 
+*/
+
+
+
+package be.tarsos.dsp.test;
+
+import java.io.File;
+import java.io.IOException;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.UnsupportedAudioFileException;
+
+import be.tarsos.dsp.AudioEvent;
+import be.tarsos.dsp.io.TarsosDSPAudioFloatConverter;
+import be.tarsos.dsp.io.TarsosDSPAudioFormat;
+import be.tarsos.dsp.io.jvm.JVMAudioInputStream;
+import be.tarsos.dsp.writer.AsyncWaveformWriter;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class AsyncWaveformWriterTest {
+
+	private static float[] write(File file, TarsosDSPAudioFormat format, AsyncWaveformWriter.Encoding encoding, int ringFrames) throws IOException {
+		final int channels = format.getChannels();
+		final int bufferSize = 1024 * channels;
+		final int overlap = 512 * channels;
+		float[] sine = TestUtilities.audioBufferSine(format.getSampleRate(), 440, (44100 + 333) * channels, 0.9);
+		//the second half of the signal is louder than full scale and should be clipped
+		for(int i = sine.length / 2 ; i < sine.length ; i++){
+			sine[i] *= 1.5f;
+		}
+		AsyncWaveformWriter writer = new AsyncWaveformWriter(file.getAbsolutePath(), format, encoding, ringFrames);
+		AudioEvent event = new AudioEvent(format);
+		//blocks overlap, only the new part of each block is written
+		int offset = 0;
+		event.setOverlap(0);
+		while(offset < sine.length){
+			int start = Math.max(0, offset - overlap);
+			int end = Math.min(sine.length, start + bufferSize);
+			float[] block = new float[end - start];
+			System.arraycopy(sine, start, block, 0, block.length);
+			event.setFloatBuffer(block);
+			event.setOverlap(offset - start);
+			writer.process(event);
+			offset = end;
+		}
+		writer.processingFinished();
+		return sine;
+	}
+
+	private static void assertFile(File file, float[] expected, TarsosDSPAudioFormat format, AsyncWaveformWriter.Encoding encoding) throws IOException, UnsupportedAudioFileException {
+		AudioInputStream stream = AudioSystem.getAudioInputStream(file);
+		AudioFormat fileFormat = stream.getFormat();
+		assertEquals(encoding.getBits(), fileFormat.getSampleSizeInBits(), "Unexpected sample size");
+		assertEquals(format.getChannels(), fileFormat.getChannels(), "Unexpected number of channels");
+		assertEquals(format.getSampleRate(), fileFormat.getSampleRate(), 0.0, "Unexpected sample rate");
+		assertEquals(expected.length / format.getChannels(), stream.getFrameLength(), "Unexpected number of frames");
+
+		byte[] data = new byte[(int) (stream.getFrameLength() * fileFormat.getFrameSize())];
+		int read = 0;
+		while(read < data.length){
+			read += stream.read(data, read, data.length - read);
+		}
+		stream.close();
+		float[] samples = new float[expected.length];
+		TarsosDSPAudioFloatConverter.getConverter(JVMAudioInputStream.toTarsosDSPFormat(fileFormat)).toFloatArray(data, samples);
+		boolean clipped = encoding != AsyncWaveformWriter.Encoding.FLOAT_32;
+		double delta = 2.0 / (1 << encoding.getBits());
+		for(int i = 0 ; i < expected.length ; i++){
+			float value = clipped ? Math.max(-1f, Math.min(1f, expected[i])) : expected[i];
+			assertEquals(value, samples[i], delta, encoding + " sample " + i);
+		}
+	}
+
+	@Test
+	public void testEncodings() throws IOException, UnsupportedAudioFileException {
+		TarsosDSPAudioFormat format = new TarsosDSPAudioFormat(44100, 16, 1, true, false);
+		for(AsyncWaveformWriter.Encoding encoding : AsyncWaveformWriter.Encoding.values()){
+			File file = File.createTempFile("async", ".wav");
+			file.deleteOnExit();
+			float[] expected = write(file, format, encoding, 44100);
+			assertFile(file, expected, format, encoding);
+		}
+	}
+
+	@Test
+	public void testSmallRingStereo() throws IOException, UnsupportedAudioFileException {
+		//a ring smaller than the audio makes the processing thread wait for the disk
+		TarsosDSPAudioFormat format = new TarsosDSPAudioFormat(44100, 16, 2, true, false);
+		File file = File.createTempFile("async", ".wav");
+		file.deleteOnExit();
+		float[] expected = write(file, format, AsyncWaveformWriter.Encoding.PCM_24, 1000);
+		assertFile(file, expected, format, AsyncWaveformWriter.Encoding.PCM_24);
+	}
+}
@@ -1,7 +1,9 @@
 package be.tarsos.dsp.test;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
+import java.util.Arrays;
 
 import javax.sound.sampled.AudioInputStream;
 import javax.sound.sampled.AudioSystem;
@@ -11,8 +13,12 @@ import javax.sound.sampled.UnsupportedAudioFileException;
 import be.tarsos.dsp.AudioDispatcher;
 import be.tarsos.dsp.AudioEvent;
 import be.tarsos.dsp.AudioProcessor;
+import be.tarsos.dsp.RebufferingProcessor;
 import be.tarsos.dsp.io.PipedAudioStream;
+import be.tarsos.dsp.io.TarsosDSPAudioFloatConverter;
+import be.tarsos.dsp.io.TarsosDSPAudioFormat;
 import be.tarsos.dsp.io.TarsosDSPAudioInputStream;
+import be.tarsos.dsp.io.UniversalAudioInputStream;
 import be.tarsos.dsp.io.jvm.JVMAudioInputStream;
 import org.junit.jupiter.api.Test;
 
@@ -127,4 +133,53 @@ public class AudioDispatcherTest {
 		});
 		adp.run();
 	}
+
+	@Test
+	public void testRebuffering(){
+		final int length = 20000;
+		final TarsosDSPAudioFormat format = new TarsosDSPAudioFormat(8000, 16, 1, true, false);
+		// a ramp: every sample value identifies its position
+		final float[] signal = new float[length];
+		for(int i = 0 ; i < length ; i++){
+			signal[i] = i / (float) length;
+		}
+		byte[] bytes = new byte[length * format.getFrameSize()];
+		TarsosDSPAudioFloatConverter converter = TarsosDSPAudioFloatConverter.getConverter(format);
+		converter.toByteArray(signal, bytes);
+		// the reference is the signal as decoded from the bytes
+		converter.toFloatArray(bytes, signal);
+		AudioDispatcher dispatcher = new AudioDispatcher(new UniversalAudioInputStream(new ByteArrayInputStream(bytes), format), 512, 256);
+
+		final int bufferSize = 3000;
+		final int overlap = 1000;
+		RebufferingProcessor rebuffer = new RebufferingProcessor(format, bufferSize, overlap);
+		final int[] windows = new int[1];
+		rebuffer.addAudioProcessor(new AudioProcessor() {
+			@Override
+			public boolean process(AudioEvent audioEvent) {
+				float[] buffer = audioEvent.getFloatBuffer();
+				assertEquals(bufferSize, buffer.length);
+				assertEquals(windows[0] == 0 ? 0 : overlap, audioEvent.getOverlap());
+				// the time stamp refers to the first new sample, as for the dispatcher
+				int firstNew = (int) Math.round(audioEvent.getTimeStamp() * 8000);
+				int start = firstNew - audioEvent.getOverlap();
+				assertEquals(windows[0] == 0 ? 0 : bufferSize + (windows[0] - 1) * (bufferSize - overlap), firstNew);
+				for(int i = 0 ; i < bufferSize ; i++){
+					float expected = start + i < length ? signal[start + i] : 0;
+					assertEquals(expected, buffer[i], 1e-6, "Sample " + (start + i));
+				}
+				// modifying the window should not change the next one
+				Arrays.fill(buffer, -1);
+				windows[0]++;
+				return true;
+			}
+			@Override
+			public void processingFinished() {
+			}
+		});
+		dispatcher.addAudioProcessor(rebuffer);
+		dispatcher.run();
+		// 20000 samples in windows of 3000 with a hop of 2000, the last one zero padded
+		assertEquals(10, windows[0]);
+	}
 }
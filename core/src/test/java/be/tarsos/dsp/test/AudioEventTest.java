@@ -0,0 +1,129 @@
+/*
+*      _______                       _____   _____ _____  
+*     |__   __|                     |  __ \ / ____|  __ \ 
+*        | | __ _ _ __ ___  ___  ___| |  | | (___ | |__) |
+*        | |/ _` | '__/ __|/ _ \/ __| |  | |\___ \|  ___/ 
+*        | | (_| | |  \__ \ (_) \__ \ |__| |____) | |     
+*        |_|\__,_|_|  |___/\___/|___/_____/|_____/|_|     
+*                                                         
+* -------------------------------------------------------------
+*
+* TarsosDSP is developed by Joren Six at IPEM, University Ghent
+*  
+* -------------------------------------------------------------
+*
+*  Info: http://0110.be/tag/TarsosDSP
+*  Github: https://github.com/JorenSix/TarsosDSP
+*  Releases: http://0110.be/releases/TarsosDSP/
+*  
+*  TarsosDSP includes modified source code by various authors,
+*  for credits and info, see README.
+* 
+*/
+
+
+
+package be.tarsos.dsp.test;
+
+import be.tarsos.dsp.AudioEvent;
+import be.tarsos.dsp.GainProcessor;
+import be.tarsos.dsp.ZeroCrossingRateProcessor;
+import be.tarsos.dsp.filters.LowPassFS;
+import be.tarsos.dsp.io.TarsosDSPAudioFormat;
+import be.tarsos.dsp.onsets.PercussionOnsetDetector;
+import be.tarsos.dsp.pitch.GeneralizedGoertzel;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AudioEventTest {
+
+	@Test
+	public void testStatistics() {
+		float[] buffer = TestUtilities.audioBufferSine(44100, 441, 1000, 0.5);
+		for(int i = 0 ; i < buffer.length ; i++){
+			buffer[i] += 0.1f;
+		}
+		AudioEvent event = new AudioEvent(new TarsosDSPAudioFormat(44100, 16, 1, true, false));
+		event.setFloatBuffer(buffer);
+
+		double sum = 0;
+		double peak = 0;
+		for(float sample : buffer){
+			sum += sample;
+			peak = Math.max(peak, Math.abs(sample));
+		}
+		assertEquals(AudioEvent.calculateRMS(buffer), event.getRMS(), 1e-12, "Unexpected RMS");
+		assertEquals(20 * Math.log10(event.getRMS()), event.getdBSPL(), 1e-12, "Unexpected level");
+		assertEquals(peak, event.getPeak(), 1e-7, "Unexpected peak");
+		assertEquals(sum / buffer.length, event.getDC(), 1e-7, "Unexpected DC offset");
+		assertEquals(0.1, event.getDC(), 1e-3, "The DC offset should be the added offset");
+
+		ZeroCrossingRateProcessor zcr = new ZeroCrossingRateProcessor();
+		zcr.process(event);
+		//ten periods, two crossings each
+		assertEquals(20 / 999.0, zcr.getZeroCrossingRate(), 1e-6, "Unexpected zero crossing rate");
+	}
+
+	@Test
+	public void testInPlaceChanges() {
+		float[] buffer = TestUtilities.audioBufferSine(44100, 441, 1000, 0.5);
+		AudioEvent event = new AudioEvent(new TarsosDSPAudioFormat(44100, 16, 1, true, false));
+		event.setFloatBuffer(buffer);
+		double rms = event.getRMS();
+		byte[] bytes = event.getByteBuffer().clone();
+
+		//the gain processor changes the buffer in place and marks it as changed
+		new GainProcessor(0.5).process(event);
+		assertEquals(rms / 2, event.getRMS(), 1e-6, "The RMS should follow the gain");
+		assertEquals(0.25, event.getPeak(), 1e-3, "The peak should follow the gain");
+		short first = (short) ((bytes[10] & 0xFF) | (bytes[11] << 8));
+		byte[] changed = event.getByteBuffer();
+		short second = (short) ((changed[10] & 0xFF) | (changed[11] << 8));
+		assertEquals(first / 2, second, 1, "The byte buffer should follow the gain");
+
+		//without notification the shared values are not recalculated
+		buffer[0] = 1f;
+		assertTrue(event.getPeak() < 1, "Statistics should be calculated once per block");
+		event.floatBufferChanged();
+		assertEquals(1, event.getPeak(), 0, "Statistics should be recalculated after a change");
+	}
+
+	@Test
+	public void testAnalysisKeepsBuffer() {
+		float[] buffer = TestUtilities.audioBufferSine(44100, 441, 1024, 0.5);
+		float[] original = buffer.clone();
+		AudioEvent event = new AudioEvent(new TarsosDSPAudioFormat(44100, 16, 1, true, false));
+		event.setFloatBuffer(buffer);
+		double rms = event.getRMS();
+
+		//analysis processors window or transform a copy, not the buffer of the event
+		new GeneralizedGoertzel(44100, 1024, new double[]{441, 882}, (time, frequencies, powers, allFrequencies, allPowers) -> {}).process(event);
+		new PercussionOnsetDetector(44100, 1024, 0, (time, salience) -> {}).process(event);
+		assertArrayEquals(original, event.getFloatBuffer(), 0f);
+		assertEquals(AudioEvent.calculateRMS(event.getFloatBuffer()), rms, 1e-12, "The RMS should still be valid");
+	}
+
+	@Test
+	public void testFilterChanges() {
+		float[] buffer = TestUtilities.audioBufferSine(44100, 5000, 4096, 0.5);
+		AudioEvent event = new AudioEvent(new TarsosDSPAudioFormat(44100, 16, 1, true, false));
+		event.setFloatBuffer(buffer);
+		double rms = event.getRMS();
+		//an earlier processor asked for the bytes, e.g. to play them
+		event.getByteBuffer();
+
+		//the IIR filters change the buffer in place and mark it as changed
+		new LowPassFS(200, 44100).process(event);
+		assertEquals(AudioEvent.calculateRMS(event.getFloatBuffer()), event.getRMS(), 1e-12, "The RMS should follow the filter");
+		assertTrue(event.getRMS() < rms / 10, "The filter should remove the sine");
+		byte[] filtered = event.getByteBuffer();
+		int maximum = 0;
+		for(int i = 0 ; i < filtered.length ; i += 2){
+			maximum = Math.max(maximum, Math.abs((short) ((filtered[i] & 0xFF) | (filtered[i + 1] << 8))));
+		}
+		assertTrue(maximum < Short.MAX_VALUE / 20, "The byte buffer should follow the filter");
+	}
+}
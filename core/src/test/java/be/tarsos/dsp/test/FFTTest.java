@@ -25,6 +25,7 @@
 package be.tarsos.dsp.test;
 
 import java.io.ByteArrayInputStream;
+import java.util.Arrays;
 
 import javax.sound.sampled.AudioInputStream;
 import javax.sound.sampled.LineUnavailableException;
@@ -40,6 +41,8 @@ import be.tarsos.dsp.io.jvm.JVMAudioInputStream;
 import be.tarsos.dsp.pitch.PitchDetectionResult;
 import be.tarsos.dsp.pitch.Yin;
 import be.tarsos.dsp.util.fft.FFT;
+import be.tarsos.dsp.util.fft.GaussWindow;
+import be.tarsos.dsp.util.fft.HannWindow;
 import org.junit.jupiter.api.Test;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -88,4 +91,27 @@ public class FFTTest {
 		});
         dispatcher.run();
 	}
+	
+	@Test
+	public void testWindowCurves() {
+		final int length = 1024;
+		float[] samples = new float[length];
+		Arrays.fill(samples, 1f);
+		new HannWindow().apply(samples);
+		for(int i = 0 ; i < length ; i++){
+			assertEquals(0.5 * (1 - Math.cos(2 * Math.PI * i / (length - 1))), samples[i], 1e-6, "Applied window should follow the Hann curve");
+		}
+		
+		//a modified curve should not change the cached one
+		float[] curve = new HannWindow().generateCurve(length);
+		Arrays.fill(curve, 0f);
+		Arrays.fill(samples, 1f);
+		new HannWindow().apply(samples);
+		assertEquals(1.0, samples[length / 2], 1e-3, "Cached curve should not be modified");
+		
+		//windows with different parameters do not share curves
+		float[] narrow = new GaussWindow(0.2).generateCurve(length);
+		float[] wide = new GaussWindow(0.4).generateCurve(length);
+		assertTrue(narrow[length / 4] < wide[length / 4], "Curves should follow the window parameters");
+	}
 }
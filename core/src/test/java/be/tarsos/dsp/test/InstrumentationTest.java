@@ -0,0 +1,122 @@
+/*
+*      _______                       _____   _____ _____  
+*     |__   __|                     |  __ \ / ____|  __ \ 
+*        | | __ _ _ __ ___  ___  ___| |  | | (___ | |__) |
+*        | |/ _` | '__/ __|/ _ \/ __| |  | |\___ \|  ___/ 
+*        | | (_| | |  \__ \ (_) \__ \ |__| |____) | |     
+*        |_|\__,_|_|  |___/\___/|___/_____/|_____/|_|     
+*                                                         
+* -------------------------------------------------------------
+*
+* TarsosDSP is developed by Joren Six at IPEM, University Ghent
+*  
+* -------------------------------------------------------------
+*
+*  Info: http://0110.be/tag/TarsosDSP
+*  Github: https://github.com/JorenSix/TarsosDSP
+*  Releases: http://0110.be/releases/TarsosDSP/
+*  
+*  TarsosDSP includes modified source code by various authors,
+*  for credits and info, see README.
+* 
+*/
+
+
+package be.tarsos.dsp.test;
+
+import javax.sound.sampled.UnsupportedAudioFileException;
+
+import be.tarsos.dsp.AudioDispatcher;
+import be.tarsos.dsp.AudioEvent;
+import be.tarsos.dsp.AudioProcessor;
+import be.tarsos.dsp.instrumentation.InstrumentedAudioProcessor;
+import be.tarsos.dsp.instrumentation.LatencyHistogram;
+import be.tarsos.dsp.instrumentation.MetricsRegistry;
+import be.tarsos.dsp.instrumentation.jvm.ThreadAllocationMeter;
+import be.tarsos.dsp.io.TarsosDSPAudioFloatConverter;
+import be.tarsos.dsp.io.TarsosDSPAudioFormat;
+import be.tarsos.dsp.io.jvm.AudioDispatcherFactory;
+import be.tarsos.dsp.io.jvm.JVMAudioInputStream;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class InstrumentationTest {
+
+	@Test
+	public void testHistogramPercentiles(){
+		LatencyHistogram histogram = new LatencyHistogram();
+		for(int i = 1 ; i <= 100000 ; i++){
+			histogram.record(i * 1000L);
+		}
+		assertEquals(100000, histogram.getCount());
+		assertEquals(100000000L, histogram.getMax());
+		assertEquals(50000500.0, histogram.getMean(), 0.001);
+		//the relative error of a bucket is bounded by 1/32
+		assertEquals(50000000, histogram.getValueAtPercentile(50), 50000000 / 32.0);
+		assertEquals(99000000, histogram.getValueAtPercentile(99), 99000000 / 32.0);
+		assertTrue(histogram.getValueAtPercentile(50) >= 50000000, "The highest equivalent value should be reported");
+		assertEquals(100000000L, histogram.getValueAtPercentile(100));
+		
+		histogram.reset();
+		assertEquals(0, histogram.getCount());
+		assertEquals(0, histogram.getValueAtPercentile(99));
+	}
+	
+	@Test
+	public void testInstrumentedChain() throws UnsupportedAudioFileException{
+		final int sampleRate = 44100;
+		final float[] floatBuffer = TestUtilities.audioBufferSine(sampleRate, 440, sampleRate, 0.5);
+		AudioDispatcher dispatcher = AudioDispatcherFactory.fromFloatArray(floatBuffer, sampleRate, 1024, 512);
+		MetricsRegistry registry = new MetricsRegistry(new ThreadAllocationMeter());
+		InstrumentedAudioProcessor allocating = registry.instrument(new AudioProcessor() {
+			@Override
+			public boolean process(AudioEvent audioEvent) {
+				float[] copy = audioEvent.getFloatBuffer().clone();
+				return copy.length > 0;
+			}
+
+			@Override
+			public void processingFinished() {
+			}
+		}, "allocating");
+		dispatcher.addAudioProcessor(allocating);
+		dispatcher.run();
+		
+		assertEquals(1, registry.getMetrics().size());
+		long calls = allocating.getLatencyHistogram().getCount();
+		assertTrue(calls > 80, "Each buffer should be recorded");
+		assertTrue(allocating.getRealtimeFactor() > 1, "Copying a buffer should be faster than real-time");
+		assertTrue(allocating.getAllocatedBytes() >= calls * 1024 * 4, "Each call allocates a copy of the buffer");
+	}
+
+	@Test
+	public void testMultichannelFrames() throws UnsupportedAudioFileException{
+		final int sampleRate = 44100;
+		final int channels = 2;
+		final TarsosDSPAudioFormat format = new TarsosDSPAudioFormat(sampleRate, 16, channels, true, false);
+		final float[] floatBuffer = TestUtilities.audioBufferSine(sampleRate, 440, sampleRate * channels, 0.5);
+		final byte[] bytes = new byte[floatBuffer.length * 2];
+		TarsosDSPAudioFloatConverter.getConverter(format).toByteArray(floatBuffer, bytes);
+		AudioDispatcher dispatcher = AudioDispatcherFactory.fromByteArray(bytes, JVMAudioInputStream.toAudioFormat(format), 1024, 0);
+		InstrumentedAudioProcessor instrumented = new InstrumentedAudioProcessor(new AudioProcessor() {
+			@Override
+			public boolean process(AudioEvent audioEvent) {
+				return true;
+			}
+
+			@Override
+			public void processingFinished() {
+			}
+		}, "stereo");
+		dispatcher.addAudioProcessor(instrumented);
+		dispatcher.run();
+
+		LatencyHistogram latencies = instrumented.getLatencyHistogram();
+		double seconds = latencies.getMean() * latencies.getCount() / 1e9;
+		//one second of stereo audio, the last buffer is zero padded
+		assertEquals(sampleRate, instrumented.getFramesPerSecond() * seconds, 1024, "A frame holds a sample of each channel");
+		assertEquals(1.0, instrumented.getRealtimeFactor() * seconds, 1024.0 / sampleRate, "The audio duration should not depend on the channels");
+	}
+}
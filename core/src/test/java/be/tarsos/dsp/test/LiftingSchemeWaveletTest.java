@@ -0,0 +1,89 @@
+/*
+*      _______                       _____   _____ _____  
+*     |__   __|                     |  __ \ / ____|  __ \ 
+*        | | __ _ _ __ ___  ___  ___| |  | | (___ | |__) |
+*        | |/ _` | '__/ __|/ _ \/ __| |  | |\___ \|  ___/ 
+*        | | (_| | |  \__ \ (_) \__ \ |__| |____) | |     
+*        |_|\__,_|_|  |___/\___/|___/_____/|_____/|_|     
+*                                                         
+* -------------------------------------------------------------
+*
+* TarsosDSP is developed by Joren Six at IPEM, University Ghent
+*  
+* -------------------------------------------------------------
+*
+*  Info: http://0110.be/tag/TarsosDSP
+*  Github: https://github.com/JorenSix/TarsosDSP
+*  Releases: http://0110.be/releases/TarsosDSP/
+*  
+*  TarsosDSP includes modified source code by various authors,
+*  for credits and info, see README.
+* 
+*/
+
+
+
+package be.tarsos.dsp.test;
+
+import java.util.Random;
+
+import be.tarsos.dsp.wavelet.lift.Daubechies4Wavelet;
+import be.tarsos.dsp.wavelet.lift.HaarWavelet;
+import be.tarsos.dsp.wavelet.lift.HaarWithPolynomialInterpolationWavelet;
+import be.tarsos.dsp.wavelet.lift.LiftingSchemeBaseWavelet;
+import be.tarsos.dsp.wavelet.lift.LineWavelet;
+import be.tarsos.dsp.wavelet.lift.PolynomialWavelets;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class LiftingSchemeWaveletTest {
+	
+	@Test
+	public void testHaarForwardTransform() {
+		float[] data = {25, 40, 8, 24, 48, 48, 40, 16};
+		new HaarWavelet().forwardTrans(data);
+		//average, followed by the coefficient bands of size 1, 2 and 4
+		float[] expected = {31.125f, 13.75f, -16.5f, -20f, 15f, 16f, 0f, -24f};
+		for(int i = 0 ; i < data.length ; i++){
+			assertEquals(expected[i], data[i], 1e-4, "Unexpected Haar coefficient at index " + i);
+		}
+	}
+
+	@Test
+	public void testRoundTrip() {
+		LiftingSchemeBaseWavelet[] wavelets = {new HaarWavelet(), new LineWavelet(), new Daubechies4Wavelet(), new PolynomialWavelets(), new HaarWithPolynomialInterpolationWavelet()};
+		Random random = new Random(5);
+		for(int length = 2 ; length <= 4096 ; length <<= 1){
+			float[] data = new float[length];
+			for(int i = 0 ; i < length ; i++){
+				data[i] = random.nextFloat() * 2 - 1;
+			}
+			for(LiftingSchemeBaseWavelet wavelet : wavelets){
+				float[] transformed = data.clone();
+				wavelet.forwardTrans(transformed);
+				wavelet.inverseTrans(transformed);
+				for(int i = 0 ; i < length ; i++){
+					assertEquals(data[i], transformed[i], 1e-3, wavelet.getClass().getSimpleName() + " should reconstruct a buffer of " + length + " samples");
+				}
+			}
+		}
+	}
+	
+	@Test
+	public void testLargeBuffer() {
+		//the buffer size used by the scalogram
+		float[] data = new float[131072];
+		Random random = new Random(7);
+		for(int i = 0 ; i < data.length ; i++){
+			data[i] = random.nextFloat() * 2 - 1;
+		}
+		float[] transformed = data.clone();
+		Daubechies4Wavelet wavelet = new Daubechies4Wavelet();
+		wavelet.forwardTrans(transformed);
+		wavelet.inverseTrans(transformed);
+		for(int i = 0 ; i < data.length ; i++){
+			assertEquals(data[i], transformed[i], 1e-3, "Daubechies4Wavelet should reconstruct a large buffer");
+		}
+	}
+}
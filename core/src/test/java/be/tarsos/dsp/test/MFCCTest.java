@@ -23,16 +23,20 @@
 
 package be.tarsos.dsp.test;
 
+import java.util.Arrays;
+
 import javax.sound.sampled.UnsupportedAudioFileException;
 
 
 import be.tarsos.dsp.AudioDispatcher;
 import be.tarsos.dsp.AudioEvent;
 import be.tarsos.dsp.AudioProcessor;
+import be.tarsos.dsp.io.TarsosDSPAudioFormat;
 import be.tarsos.dsp.io.jvm.AudioDispatcherFactory;
 import be.tarsos.dsp.mfcc.MFCC;
 import org.junit.jupiter.api.Test;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class MFCCTest {
@@ -64,5 +68,48 @@ public class MFCCTest {
 		//check if we are able to get here.
 		assertTrue(true);
 	}
+	
+	@Test
+	public void MFCCMatchesFilterSteps(){
+		int sampleRate = 44100;
+		int bufferSize = 1024;
+		float[] buffer = TestUtilities.audioBufferFlute();
+		buffer = Arrays.copyOf(buffer, bufferSize);
+		MFCC mfcc = new MFCC(bufferSize, sampleRate);
+		AudioEvent event = new AudioEvent(new TarsosDSPAudioFormat(sampleRate, 16, 1, true, false));
+		event.setFloatBuffer(buffer.clone());
+		mfcc.process(event);
+		
+		float[] expected = mfcc.cepCoefficients(mfcc.nonLinearTransformation(mfcc.melFilter(mfcc.magnitudeSpectrum(buffer.clone()), mfcc.getCenterFrequencies())));
+		float[] actual = mfcc.getMFCC();
+		for(int i = 0 ; i < expected.length ; i++){
+			assertEquals(expected[i], actual[i], 1e-3, "Precalculated filters should give the same coefficients");
+		}
+	}
+	
+	@Test
+	public void MFCCDeltasAndNormalization(){
+		float[][] features = new float[10][2];
+		for(int t = 0 ; t < features.length ; t++){
+			features[t][0] = 3 * t;
+			features[t][1] = 5;
+		}
+		float[][] deltas = MFCC.deltas(features, 2);
+		assertEquals(3, deltas[5][0], 1e-6, "Delta of a linear slope should be the slope");
+		assertEquals(0, deltas[5][1], 1e-6, "Delta of a constant should be zero");
+		float[][] deltaDeltas = MFCC.deltas(deltas, 2);
+		assertEquals(0, deltaDeltas[5][0], 1e-6, "Delta-delta of a linear slope should be zero");
+		
+		MFCC.meanVarianceNormalization(features);
+		float sum = 0, sumOfSquares = 0;
+		for(float[] frame : features){
+			sum += frame[0];
+			sumOfSquares += frame[0] * frame[0];
+			assertEquals(0, frame[1], 1e-6, "A constant should be centered");
+		}
+		assertEquals(0, sum / features.length, 1e-5, "Normalized features should have zero mean");
+		assertEquals(1, sumOfSquares / features.length, 1e-5, "Normalized features should have unit variance");
+	}
 
 }
+
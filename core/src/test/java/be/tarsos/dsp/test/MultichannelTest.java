@@ -0,0 +1,256 @@
+/*
+*      _______                       _____   _____ _____  
+*     |__   __|                     |  __ \ / ____|  __ \ 
+*        | | __ _ _ __ ___  ___  ___| |  | | (___ | |__) |
+*        | |/ _` | '__/ __|/ _ \/ __| |  | |\___ \|  ___/ 
+*        | | (_| | |  \__ \ (_) \__ \ |__| |____) | |     
+*        |_|\__,_|_|  |___/\___/|___/_____/|_____/|_|     
+*                                                         
+* -------------------------------------------------------------
+*
+* TarsosDSP is developed by Joren Six at IPEM, University Ghent
+*  
+* -------------------------------------------------------------
+*
+*  Info: http://0110.be/tag/TarsosDSP
+*  Github: https://github.com/JorenSix/TarsosDSP
+*  Releases: http://0110.be/releases/TarsosDSP/
+*  
+*  TarsosDSP includes modified source code by various authors,
+*  for credits and info, see README.
+* 
+*/
+
+
+
+
+package be.tarsos.dsp.test;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.LineUnavailableException;
+import javax.sound.sampled.UnsupportedAudioFileException;
+
+import be.tarsos.dsp.AudioDispatcher;
+import be.tarsos.dsp.AudioEvent;
+import be.tarsos.dsp.AudioProcessor;
+import be.tarsos.dsp.GainProcessor;
+import be.tarsos.dsp.PerChannelProcessor;
+import be.tarsos.dsp.io.TarsosDSPAudioFloatConverter;
+import be.tarsos.dsp.io.TarsosDSPAudioFormat;
+import be.tarsos.dsp.io.UniversalAudioInputStream;
+import be.tarsos.dsp.io.jvm.AudioDispatcherFactory;
+import be.tarsos.dsp.io.jvm.AudioPlayer;
+import be.tarsos.dsp.io.jvm.JVMAudioInputStream;
+import be.tarsos.dsp.io.jvm.WaveformWriter;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+public class MultichannelTest {
+
+	private static final int CHANNELS = 3;
+	private static final int FRAMES = 10000;
+
+	/**
+	 * Channel c of frame i has a value that identifies both.
+	 */
+	private static float expected(int channel, int frame) {
+		return (float) ((channel + 1) * 0.2 * Math.sin(frame * 0.01 * (channel + 1)));
+	}
+
+	private static byte[] bytes(TarsosDSPAudioFormat format) {
+		final int channels = format.getChannels();
+		float[] interleaved = new float[FRAMES * channels];
+		for (int i = 0; i < FRAMES; i++) {
+			for (int c = 0; c < channels; c++) {
+				interleaved[i * channels + c] = expected(c, i);
+			}
+		}
+		byte[] bytes = new byte[FRAMES * format.getFrameSize()];
+		TarsosDSPAudioFloatConverter.getConverter(format).toByteArray(interleaved, bytes);
+		return bytes;
+	}
+
+	private static AudioDispatcher dispatcher(TarsosDSPAudioFormat format, int bufferSize, int overlap) {
+		UniversalAudioInputStream stream = new UniversalAudioInputStream(new ByteArrayInputStream(bytes(format)), format);
+		return new AudioDispatcher(stream, bufferSize, overlap);
+	}
+
+	@Test
+	public void testChannelBuffers() {
+		final TarsosDSPAudioFormat format = new TarsosDSPAudioFormat(44100, 16, CHANNELS, true, false);
+		final int bufferSize = 1024;
+		final int overlap = 256;
+		final AudioDispatcher dispatcher = dispatcher(format, bufferSize, overlap);
+		dispatcher.setZeroPadFirstBuffer(false);
+		final int[] blocks = new int[1];
+		dispatcher.addAudioProcessor(new AudioProcessor() {
+			@Override
+			public boolean process(AudioEvent audioEvent) {
+				assertEquals(bufferSize * CHANNELS, audioEvent.getBufferSize(), "The buffer holds interleaved frames");
+				float[][] channels = audioEvent.getChannelBuffers();
+				assertEquals(CHANNELS, channels.length);
+				int firstFrame = (int) audioEvent.getSamplesProcessed() - (blocks[0] == 0 ? 0 : overlap);
+				for (int c = 0; c < CHANNELS; c++) {
+					assertEquals(bufferSize, channels[c].length);
+					for (int i = 0; i < bufferSize && firstFrame + i < FRAMES; i++) {
+						assertEquals(expected(c, firstFrame + i), channels[c][i], 1e-4, "Channel " + c + " frame " + (firstFrame + i));
+					}
+				}
+				blocks[0]++;
+				return true;
+			}
+
+			@Override
+			public void processingFinished() {
+			}
+		});
+		dispatcher.run();
+		assertEquals((FRAMES - overlap) / (bufferSize - overlap) + 1, blocks[0], "All frames should be dispatched");
+	}
+
+	@Test
+	public void testDeinterleavingConversion() {
+		for (int bits : new int[] { 8, 16, 24, 32 }) {
+			TarsosDSPAudioFormat format = new TarsosDSPAudioFormat(44100, bits, CHANNELS, true, false);
+			TarsosDSPAudioFloatConverter converter = TarsosDSPAudioFloatConverter.getConverter(format);
+			float[][] channels = new float[CHANNELS][FRAMES];
+			for (int c = 0; c < CHANNELS; c++) {
+				for (int i = 0; i < FRAMES; i++) {
+					channels[c][i] = expected(c, i);
+				}
+			}
+			byte[] bytes = new byte[FRAMES * format.getFrameSize()];
+			converter.toByteArray(channels, 0, FRAMES, bytes, 0);
+
+			float[] interleaved = converter.toFloatArray(bytes, new float[FRAMES * CHANNELS]);
+			float[][] deinterleaved = converter.toFloatArrays(bytes, 0, new float[CHANNELS][FRAMES], 0, FRAMES);
+			for (int c = 0; c < CHANNELS; c++) {
+				for (int i = 0; i < FRAMES; i++) {
+					assertEquals(interleaved[i * CHANNELS + c], deinterleaved[c][i], 0, "Deinterleaving should equal conversion of " + bits + " bits");
+					assertEquals(expected(c, i), deinterleaved[c][i], 1.0 / (1 << (bits - 2)), "Round trip of " + bits + " bits");
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testChannelBuffersFromBytes() {
+		final TarsosDSPAudioFormat format = new TarsosDSPAudioFormat(44100, 16, CHANNELS, true, false);
+		final int bufferSize = 1000;
+		// without overlap the channel buffers are converted from the bytes
+		final AudioDispatcher dispatcher = dispatcher(format, bufferSize, 0);
+		final int[] blocks = new int[1];
+		final AudioProcessor check = new AudioProcessor() {
+			@Override
+			public boolean process(AudioEvent audioEvent) {
+				float[] buffer = audioEvent.getFloatBuffer();
+				float[][] channels = audioEvent.getChannelBuffers();
+				for (int c = 0; c < CHANNELS; c++) {
+					for (int i = 0; i < bufferSize; i++) {
+						assertEquals(buffer[i * CHANNELS + c], channels[c][i], 0, "Channel " + c + " frame " + i);
+					}
+				}
+				blocks[0]++;
+				return true;
+			}
+
+			@Override
+			public void processingFinished() {
+			}
+		};
+		dispatcher.addAudioProcessor(check);
+		// after a change the channel buffers follow the float buffer
+		dispatcher.addAudioProcessor(new GainProcessor(0.5));
+		dispatcher.addAudioProcessor(check);
+		dispatcher.run();
+		assertEquals(2 * FRAMES / bufferSize, blocks[0], "All blocks should be checked twice");
+	}
+
+	@Test
+	public void testPerChannelProcessor() {
+		final TarsosDSPAudioFormat format = new TarsosDSPAudioFormat(8000, 16, CHANNELS, true, false);
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			final AudioDispatcher dispatcher = dispatcher(format, 512, 0);
+			// a different gain per channel, applied in parallel
+			dispatcher.addAudioProcessor(new PerChannelProcessor(format, c -> new GainProcessor(c + 1), executor));
+			final int[] frame = new int[1];
+			dispatcher.addAudioProcessor(new AudioProcessor() {
+				@Override
+				public boolean process(AudioEvent audioEvent) {
+					float[] buffer = audioEvent.getFloatBuffer();
+					for (int i = 0; i < buffer.length / CHANNELS && frame[0] < FRAMES; i++, frame[0]++) {
+						for (int c = 0; c < CHANNELS; c++) {
+							float value = (c + 1) * expected(c, frame[0]);
+							value = Math.max(-1, Math.min(1, value));
+							assertEquals(value, buffer[i * CHANNELS + c], 1e-3, "Gain of channel " + c);
+						}
+					}
+					return true;
+				}
+
+				@Override
+				public void processingFinished() {
+				}
+			});
+			dispatcher.run();
+			assertEquals(FRAMES, frame[0]);
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void testStereoWriter() throws UnsupportedAudioFileException, IOException {
+		final TarsosDSPAudioFormat format = new TarsosDSPAudioFormat(44100, 16, 2, true, false);
+		final AudioFormat audioFormat = JVMAudioInputStream.toAudioFormat(format);
+		final byte[] bytes = bytes(format);
+		final AudioDispatcher dispatcher = AudioDispatcherFactory.fromByteArray(bytes, audioFormat, 1024, 256);
+		// the writer skips the overlap, also in the first buffer
+		dispatcher.setZeroPadFirstBuffer(true);
+		File file = File.createTempFile("stereo", ".wav");
+		file.deleteOnExit();
+		dispatcher.addAudioProcessor(new WaveformWriter(audioFormat, file.getAbsolutePath()));
+		dispatcher.run();
+
+		AudioInputStream stream = AudioSystem.getAudioInputStream(file);
+		assertEquals(2, stream.getFormat().getChannels());
+		byte[] written = stream.readAllBytes();
+		stream.close();
+		// the last buffer is zero padded
+		assertTrue(written.length >= bytes.length && written.length < bytes.length + 1024 * format.getFrameSize(), "Unexpected length " + written.length);
+		float[] samples = TarsosDSPAudioFloatConverter.getConverter(format).toFloatArray(written, new float[written.length / 2]);
+		for (int i = 0; i < samples.length / 2; i++) {
+			for (int c = 0; c < 2; c++) {
+				assertEquals(i < FRAMES ? expected(c, i) : 0, samples[i * 2 + c], 1e-4, "Channel " + c + " frame " + i);
+			}
+		}
+	}
+
+	@Test
+	public void testStereoPlayer() throws UnsupportedAudioFileException {
+		final TarsosDSPAudioFormat format = new TarsosDSPAudioFormat(44100, 16, 2, true, false);
+		AudioPlayer player;
+		try {
+			player = new AudioPlayer(format, 4096);
+		} catch (LineUnavailableException | IllegalArgumentException e) {
+			player = null;
+		}
+		assumeTrue(player != null, "No audio output available");
+		final AudioDispatcher dispatcher = AudioDispatcherFactory.fromByteArray(bytes(format), JVMAudioInputStream.toAudioFormat(format), 1024, 256);
+		dispatcher.addAudioProcessor(player);
+		// the player used to write outside the byte buffer for stereo audio
+		dispatcher.run();
+	}
+}
@@ -0,0 +1,102 @@
+/*
+*      _______                       _____   _____ _____  
+*     |__   __|                     |  __ \ / ____|  __ \ 
+*        | | __ _ _ __ ___  ___  ___| |  | | (___ | |__) |
+*        | |/ _` | '__/ __|/ _ \/ __| |  | |\___ \|  ___/ 
+*        | | (_| | |  \__ \ (_) \__ \ |__| |____) | |     
+*        |_|\__,_|_|  |___/\___/|___/_____/|_____/|_|     
+*                                                         
+* -------------------------------------------------------------
+*
+* TarsosDSP is developed by Joren Six at IPEM, University Ghent
+*  
+* -------------------------------------------------------------
+*
+*  Info: http://0110.be/tag/TarsosDSP
+*  Github: https://github.com/JorenSix/TarsosDSP
+*  Releases: http://0110.be/releases/TarsosDSP/
+*  
+*  TarsosDSP includes modified source code by various authors,
+*  for credits and info, see README.
+* 
+*/
+
+
+package be.tarsos.dsp.test;
+
+import java.util.Arrays;
+
+import be.tarsos.dsp.AudioEvent;
+import be.tarsos.dsp.io.TarsosDSPAudioFormat;
+import be.tarsos.dsp.synthesis.OscillatorBank;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class OscillatorBankTest {
+
+	private static float[] render(OscillatorBank bank, int length){
+		AudioEvent event = new AudioEvent(new TarsosDSPAudioFormat(44100, 16, 1, true, false));
+		event.setFloatBuffer(new float[length]);
+		bank.process(event);
+		return event.getFloatBuffer();
+	}
+
+	/**
+	 * Fits a sinusoid with a known frequency and returns its amplitude and
+	 * the largest difference between the fit and the signal.
+	 */
+	private static double[] fit(float[] signal, double frequency){
+		double sine = 0, cosine = 0;
+		for(int i = 0 ; i < signal.length ; i++){
+			double angle = 2 * Math.PI * frequency * i / 44100.0;
+			sine += signal[i] * Math.sin(angle);
+			cosine += signal[i] * Math.cos(angle);
+		}
+		sine *= 2.0 / signal.length;
+		cosine *= 2.0 / signal.length;
+		double error = 0;
+		for(int i = 0 ; i < signal.length ; i++){
+			double angle = 2 * Math.PI * frequency * i / 44100.0;
+			error = Math.max(error, Math.abs(signal[i] - sine * Math.sin(angle) - cosine * Math.cos(angle)));
+		}
+		return new double[]{Math.sqrt(sine * sine + cosine * cosine), error};
+	}
+
+	@Test
+	public void testPartials() {
+		OscillatorBank bank = new OscillatorBank(44100, 8);
+		bank.setPartial(0, 441, 0.5);
+		bank.setPartial(3, 882, 0.25);
+		//above the Nyquist frequency
+		bank.setPartial(5, 30000, 0.5);
+		assertEquals(4, bank.getPartialCount());
+		//new partials fade in during the first block
+		render(bank, 4400);
+		float[] signal = render(bank, 4400);
+		assertEquals(0.5, fit(signal, 441)[0], 1e-4, "Unexpected amplitude of the first partial");
+		assertEquals(0.25, fit(signal, 882)[0], 1e-4, "Unexpected amplitude of the second partial");
+
+		bank.setPartial(3, 882, 0);
+		render(bank, 4400);
+		assertEquals(1, bank.getPartialCount(), "A silenced partial should not be rendered anymore");
+		double[] result = fit(render(bank, 4400), 441);
+		assertEquals(0.5, result[0], 1e-4, "Unexpected amplitude after silencing a partial");
+		assertEquals(0, result[1], 1e-4, "The table lookup should follow a sine");
+	}
+
+	@Test
+	public void testGlide() {
+		OscillatorBank bank = new OscillatorBank(44100, 1);
+		bank.setPartial(0, 441, 1.0);
+		render(bank, 1000);
+		bank.setPartial(0, 441, 0.0);
+		float[] signal = render(bank, 4410);
+		//the amplitude ramps down linearly during the block
+		double[] begin = fit(Arrays.copyOfRange(signal, 0, 100), 441);
+		double[] end = fit(Arrays.copyOfRange(signal, 4310, 4410), 441);
+		assertEquals(1.0, begin[0], 0.05, "The glide should start at the old amplitude");
+		assertEquals(0.0, end[0], 0.05, "The glide should end at the new amplitude");
+		assertEquals(0, bank.getPartialCount());
+	}
+}
@@ -0,0 +1,125 @@
+/*
+*      _______                       _____   _____ _____  
+*     |__   __|                     |  __ \ / ____|  __ \ 
+*        | | __ _ _ __ ___  ___  ___| |  | | (___ | |__) |
+*        | |/ _` | '__/ __|/ _ \/ __| |  | |\___ \|  ___/ 
+*        | | (_| | |  \__ \ (_) \__ \ |__| |____) | |     
+*        |_|\__,_|_|  |___/\___/|___/_____/|_____/|_|     
+*                                                         
+* -------------------------------------------------------------
+*
+* TarsosDSP is developed by Joren Six at IPEM, University Ghent
+*  
+* -------------------------------------------------------------
+*
+*  Info: http://0110.be/tag/TarsosDSP
+*  Github: https://github.com/JorenSix/TarsosDSP
+*  Releases: http://0110.be/releases/TarsosDSP/
+*  
+*  TarsosDSP includes modified source code by various authors,
+*  for credits and info, see README.
+* 
+*/
+
+
+
+package be.tarsos.dsp.test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import be.tarsos.dsp.AudioDispatcher;
+import be.tarsos.dsp.AudioEvent;
+import be.tarsos.dsp.AudioProcessor;
+import be.tarsos.dsp.PartialTracker;
+import be.tarsos.dsp.PartialTracker.Partial;
+import be.tarsos.dsp.SpectralPeakProcessor;
+import be.tarsos.dsp.io.jvm.AudioDispatcherFactory;
+import org.junit.jupiter.api.Test;
+
+import javax.sound.sampled.UnsupportedAudioFileException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PartialTrackerTest {
+
+	@Test
+	public void testLinking() {
+		final List<Partial> partials = new ArrayList<>();
+		PartialTracker tracker = new PartialTracker(new SpectralPeakProcessor(1024, 512, 44100), 17, 1.2f, 4, 50, partials::add);
+		for(int frame = 0 ; frame < 10 ; frame++){
+			if(frame == 5){
+				//the 440Hz partial skips a frame, the gap is bridged
+				tracker.track(frame * 0.01, new float[]{}, new float[]{}, 0);
+			} else if(frame < 4){
+				tracker.track(frame * 0.01, new float[]{440 + frame, 880}, new float[]{10, 5}, 2);
+			} else {
+				tracker.track(frame * 0.01, new float[]{440 + frame, 3000}, new float[]{10, 1}, frame == 9 ? 1 : 2);
+			}
+			if(frame == 6){
+				assertEquals(1, partials.size(), "The 880Hz partial should be finished after skipping three frames");
+				assertEquals(880, partials.get(0).getMeanFrequency(), 1e-3);
+				assertEquals(4, partials.get(0).getLength());
+			}
+		}
+		tracker.processingFinished();
+		assertEquals(3, partials.size(), "Unexpected number of partials");
+		Partial partial = partials.get(1);
+		assertEquals(0, partial.getId(), "The 440Hz partial started first");
+		assertEquals(9, partial.getLength(), "The gap should be bridged");
+		assertEquals(440, partial.getMinFrequency(), 1e-3);
+		assertEquals(449, partial.getMaxFrequency(), 1e-3);
+		assertEquals(0.09, partial.getEndTime(), 1e-9);
+		assertEquals(3000, partials.get(2).getMeanFrequency(), 1e-3);
+	}
+
+	@Test
+	public void testSines() throws UnsupportedAudioFileException {
+		final int sampleRate = 44100;
+		float[] signal = new float[3 * sampleRate];
+		for(int i = 0 ; i < signal.length ; i++){
+			signal[i] = (float) (0.3 * Math.sin(2 * Math.PI * 1000 * i / sampleRate));
+			if(i < 1.5 * sampleRate){
+				signal[i] += (float) (0.5 * Math.sin(2 * Math.PI * 440 * i / sampleRate));
+			}
+		}
+		final List<Partial> partials = new ArrayList<>();
+		final List<Partial> finishedWhileProcessing = new ArrayList<>();
+		AudioDispatcher dispatcher = AudioDispatcherFactory.fromFloatArray(signal, sampleRate, 2048, 1024);
+		SpectralPeakProcessor peakProcessor = new SpectralPeakProcessor(2048, 1024, sampleRate);
+		dispatcher.addAudioProcessor(peakProcessor);
+		dispatcher.addAudioProcessor(new PartialTracker(peakProcessor, 17, 1.2f, 10, 50, partials::add));
+		dispatcher.addAudioProcessor(new AudioProcessor() {
+			@Override
+			public boolean process(AudioEvent audioEvent) {
+				finishedWhileProcessing.clear();
+				finishedWhileProcessing.addAll(partials);
+				return true;
+			}
+
+			@Override
+			public void processingFinished() {
+			}
+		});
+		dispatcher.run();
+
+		Partial a = longest(finishedWhileProcessing, 440);
+		assertTrue(a != null, "The 440Hz partial should be passed on before the end of the audio");
+		assertEquals(440, a.getMeanFrequency(), 2, "Unexpected frequency");
+		assertEquals(1.5, a.getEndTime(), 0.1, "The 440Hz partial should end with the sine");
+		Partial b = longest(partials, 1000);
+		assertEquals(1000, b.getMeanFrequency(), 2, "Unexpected frequency");
+		assertTrue(b.getEndTime() - b.getStartTime() > 2.8, "The 1000Hz partial should last until the end");
+	}
+
+	private static Partial longest(List<Partial> partials, double frequency) {
+		Partial longest = null;
+		for(Partial partial : partials){
+			if(Math.abs(partial.getMeanFrequency() - frequency) < 50 && (longest == null || partial.getLength() > longest.getLength())){
+				longest = partial;
+			}
+		}
+		return longest;
+	}
+}
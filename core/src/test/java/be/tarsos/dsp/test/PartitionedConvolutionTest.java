@@ -0,0 +1,103 @@
+/*
+*      _______                       _____   _____ _____  
+*     |__   __|                     |  __ \ / ____|  __ \ 
+*        | | __ _ _ __ ___  ___  ___| |  | | (___ | |__) |
+*        | |/ _` | '__/ __|/ _ \/ __| |  | |\___ \|  ___/ 
+*        | | (_| | |  \__ \ (_) \__ \ |__| |____) | |     
+*        |_|\__,_|_|  |___/\___/|___/_____/|_____/|_|     
+*                                                         
+* -------------------------------------------------------------
+*
+* TarsosDSP is developed by Joren Six at IPEM, University Ghent
+*  
+* -------------------------------------------------------------
+*
+*  Info: http://0110.be/tag/TarsosDSP
+*  Github: https://github.com/JorenSix/TarsosDSP
+*  Releases: http://0110.be/releases/TarsosDSP/
+*  
+*  TarsosDSP includes modified source code by various authors,
+*  for credits and info, see README.
+* 
+*/
+
+
+
+package be.tarsos.dsp.test;
+
+import java.util.Random;
+
+import be.tarsos.dsp.AudioEvent;
+import be.tarsos.dsp.filters.PartitionedConvolution;
+import be.tarsos.dsp.io.TarsosDSPAudioFormat;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class PartitionedConvolutionTest {
+
+	private static float[] randomSignal(int length, long seed){
+		Random random = new Random(seed);
+		float[] signal = new float[length];
+		for(int i = 0 ; i < length ; i++){
+			signal[i] = random.nextFloat() * 2 - 1;
+		}
+		return signal;
+	}
+
+	/**
+	 * Convolves the input in blocks with overlap, as the audio dispatcher would.
+	 */
+	private static float[] convolve(PartitionedConvolution convolution, float[] input, int bufferSize, int overlap){
+		AudioEvent event = new AudioEvent(new TarsosDSPAudioFormat(44100, 16, 1, true, false));
+		float[] result = new float[input.length];
+		float[] buffer = new float[bufferSize];
+		int stepSize = bufferSize - overlap;
+		for(int start = 0 ; start + stepSize <= input.length ; start += stepSize){
+			System.arraycopy(buffer, stepSize, buffer, 0, overlap);
+			System.arraycopy(input, start, buffer, overlap, stepSize);
+			event.setFloatBuffer(buffer);
+			event.setOverlap(overlap);
+			convolution.process(event);
+			System.arraycopy(buffer, overlap, result, start, stepSize);
+		}
+		return result;
+	}
+
+	private static void assertConvolution(float[] impulseResponse, float[] input, float[] result){
+		for(int n = 0 ; n < result.length ; n++){
+			double expected = 0;
+			for(int k = 0 ; k < impulseResponse.length && k <= n ; k++){
+				expected += impulseResponse[k] * input[n - k];
+			}
+			assertEquals(expected, result[n], 2e-3, "Unexpected convolution result at sample " + n);
+		}
+	}
+
+	@Test
+	public void testUniformPartitions() {
+		float[] impulseResponse = randomSignal(3000, 1);
+		float[] input = randomSignal(16384, 2);
+		PartitionedConvolution convolution = new PartitionedConvolution(impulseResponse, 128);
+		assertEquals(24, convolution.getKernel().getPartitionCount());
+		assertConvolution(impulseResponse, input, convolve(convolution, input, 512, 256));
+	}
+
+	@Test
+	public void testNonUniformPartitions() {
+		float[] impulseResponse = randomSignal(5000, 3);
+		float[] input = randomSignal(16384, 4);
+		PartitionedConvolution.Kernel kernel = new PartitionedConvolution.Kernel(impulseResponse, 64, 1024);
+		//64, 64, 128, 128, 256, 256, 512, 512 and four partitions of 1024
+		assertEquals(12, kernel.getPartitionCount());
+		float[] expected = convolve(new PartitionedConvolution(impulseResponse, 64), input, 256, 0);
+		assertConvolution(impulseResponse, input, expected);
+		//a shared kernel gives the same result for every processor
+		for(int i = 0 ; i < 2 ; i++){
+			float[] result = convolve(new PartitionedConvolution(kernel), input, 256, 0);
+			for(int n = 0 ; n < result.length ; n++){
+				assertEquals(expected[n], result[n], 1e-3, "Non-uniform partitions should give the same result at sample " + n);
+			}
+		}
+	}
+}
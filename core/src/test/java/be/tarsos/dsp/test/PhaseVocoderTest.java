@@ -0,0 +1,70 @@
+/*
+*      _______                       _____   _____ _____  
+*     |__   __|                     |  __ \ / ____|  __ \ 
+*        | | __ _ _ __ ___  ___  ___| |  | | (___ | |__) |
+*        | |/ _` | '__/ __|/ _ \/ __| |  | |\___ \|  ___/ 
+*        | | (_| | |  \__ \ (_) \__ \ |__| |____) | |     
+*        |_|\__,_|_|  |___/\___/|___/_____/|_____/|_|     
+*                                                         
+* -------------------------------------------------------------
+*
+* TarsosDSP is developed by Joren Six at IPEM, University Ghent
+*  
+* -------------------------------------------------------------
+*
+*  Info: http://0110.be/tag/TarsosDSP
+*  Github: https://github.com/JorenSix/TarsosDSP
+*  Releases: http://0110.be/releases/TarsosDSP/
+*  
+*  TarsosDSP includes modified source code by various authors,
+*  for credits and info, see README.
+* 
+*/
+
+
+
+package be.tarsos.dsp.test;
+
+import be.tarsos.dsp.PhaseVocoder;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class PhaseVocoderTest {
+	
+	private static final int SAMPLE_RATE = 44100;
+	private static final int SIZE = 2048;
+	private static final int OVERLAP = 1536;
+
+	@Test
+	public void testIdentity(){
+		float[] signal = TestUtilities.audioBufferSine();
+		float[] output = TestUtilities.processBlocks(new PhaseVocoder(SIZE, OVERLAP), signal, SAMPLE_RATE, SIZE, OVERLAP);
+		//the first samples are not covered by enough overlapping windows
+		for(int i = SIZE ; i < output.length ; i++){
+			assertEquals(signal[i], output[i], 1e-4, "Without tempo or pitch change the input should be reconstructed");
+		}
+	}
+	
+	@Test
+	public void testTempoAndPitch(){
+		float[] signal = TestUtilities.audioBufferSine(SAMPLE_RATE, 440, SAMPLE_RATE * 5, 0.5);
+		double[][] tempoAndPitch = {{0.7, 1.0}, {1.3, 1.0}, {1.0, 2.0}, {1.0, 0.75}, {1.3, 1.5}};
+		for(double[] parameters : tempoAndPitch){
+			double tempo = parameters[0];
+			double pitch = parameters[1];
+			float[] output = TestUtilities.processBlocks(new PhaseVocoder(tempo, pitch, SIZE, OVERLAP), signal, SAMPLE_RATE, SIZE, OVERLAP);
+			double expectedLength = (signal.length - OVERLAP) / tempo;
+			assertEquals(expectedLength, output.length, SIZE / tempo, "The output length should follow the tempo");
+			
+			//count upward zero crossings in one second of steady state output
+			int crossings = 0;
+			for(int i = SIZE * 4 + 1 ; i < SIZE * 4 + SAMPLE_RATE ; i++){
+				if(output[i - 1] < 0 && output[i] >= 0){
+					crossings++;
+				}
+			}
+			assertEquals(440 * pitch, crossings, 2, "The frequency should follow the pitch shift factor");
+		}
+	}
+}
@@ -26,6 +26,8 @@ package be.tarsos.dsp.test;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
 import be.tarsos.dsp.pitch.PitchDetector;
+import be.tarsos.dsp.pitch.StreamingYin;
+import be.tarsos.dsp.pitch.Yin;
 import be.tarsos.dsp.pitch.PitchProcessor.PitchEstimationAlgorithm;
 import org.junit.jupiter.api.Test;
 
@@ -119,4 +121,23 @@ public class PitchDetectorTests {
 		}
 		//System.out.println();
 	}	
+	
+	@Test
+	public void testStreamingYin(){
+		float[] audioBuffer = TestUtilities.audioBufferFlute();
+		int bufferSize = 1024;
+		int overlap = 768;
+		PitchDetector yin = new Yin(44100, bufferSize);
+		PitchDetector streamingYin = new StreamingYin(44100, bufferSize, overlap);
+		float[] shortAudioBuffer = new float[bufferSize];
+		for(int start = 0 ; start + bufferSize <= audioBuffer.length ; start += bufferSize - overlap){
+			System.arraycopy(audioBuffer, start, shortAudioBuffer, 0, shortAudioBuffer.length);
+			float expected = yin.getPitch(shortAudioBuffer).getPitch();
+			float pitch = streamingYin.getPitch(shortAudioBuffer).getPitch();
+			assertEquals(expected,pitch,0.01,"Expected the same pitch as YIN at sample " + start);
+		}
+		//a buffer that does not continue the previous one is recalculated
+		System.arraycopy(TestUtilities.audioBufferSine(), 0, shortAudioBuffer, 0, shortAudioBuffer.length);
+		assertEquals(440,streamingYin.getPitch(shortAudioBuffer).getPitch(),1.5,"Expected about 440Hz after a jump");
+	}
 }
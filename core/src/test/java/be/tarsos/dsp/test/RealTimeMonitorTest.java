@@ -0,0 +1,147 @@
+/*
+*      _______                       _____   _____ _____  
+*     |__   __|                     |  __ \ / ____|  __ \ 
+*        | | __ _ _ __ ___  ___  ___| |  | | (___ | |__) |
+*        | |/ _` | '__/ __|/ _ \/ __| |  | |\___ \|  ___/ 
+*        | | (_| | |  \__ \ (_) \__ \ |__| |____) | |     
+*        |_|\__,_|_|  |___/\___/|___/_____/|_____/|_|     
+*                                                         
+* -------------------------------------------------------------
+*
+* TarsosDSP is developed by Joren Six at IPEM, University Ghent
+*  
+* -------------------------------------------------------------
+*
+*  Info: http://0110.be/tag/TarsosDSP
+*  Github: https://github.com/JorenSix/TarsosDSP
+*  Releases: http://0110.be/releases/TarsosDSP/
+*  
+*  TarsosDSP includes modified source code by various authors,
+*  for credits and info, see README.
+* 
+*/
+
+
+package be.tarsos.dsp.test;
+
+import javax.sound.sampled.UnsupportedAudioFileException;
+
+import be.tarsos.dsp.AudioDispatcher;
+import be.tarsos.dsp.AudioEvent;
+import be.tarsos.dsp.AudioProcessor;
+import be.tarsos.dsp.RealTimeMonitor;
+import be.tarsos.dsp.io.jvm.AudioDispatcherFactory;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+public class RealTimeMonitorTest {
+
+	/**
+	 * A clock that only advances when told to.
+	 */
+	private final long[] now = new long[1];
+
+	private AudioProcessor advanceClock(final long nanos) {
+		return new AudioProcessor() {
+			@Override
+			public boolean process(AudioEvent audioEvent) {
+				now[0] += nanos;
+				return true;
+			}
+
+			@Override
+			public void processingFinished() {
+			}
+		};
+	}
+
+	@Test
+	public void testDeadlineOverrunsAndShedding() throws UnsupportedAudioFileException{
+		final int sampleRate = 44100;
+		//a period of 10ms
+		final int bufferSize = 441;
+		final float[] floatBuffer = TestUtilities.audioBufferSine(sampleRate, 440, bufferSize * 20, 0.5);
+		AudioDispatcher dispatcher = AudioDispatcherFactory.fromFloatArray(floatBuffer, sampleRate, bufferSize, 0);
+		
+		RealTimeMonitor monitor = dispatcher.enableRealTimeMode();
+		assertEquals(10000000, monitor.getPeriodNanos(), "The period should be 10ms");
+		monitor.setClock(() -> now[0]);
+		monitor.setShedding(true);
+		
+		//takes 15ms on the monitor clock
+		AudioProcessor slowProcessor = advanceClock(15000000);
+		monitor.setNonEssential(slowProcessor);
+		dispatcher.addAudioProcessor(slowProcessor);
+		dispatcher.run();
+		
+		RealTimeMonitor.ProcessorTiming timing = monitor.getTiming(slowProcessor);
+		assertEquals(20, monitor.getBuffersProcessed(), "Each buffer should be counted");
+		//processed, shed, restored: every other buffer is shed
+		assertEquals(10, timing.getCalls(), "Every other buffer should be processed");
+		assertEquals(10, timing.getShed(), "Every other buffer should be shed");
+		assertEquals(timing.getCalls(), monitor.getDeadlineOverruns(), "Each call of the slow processor should overrun the deadline");
+		assertEquals(15000000, timing.getMaxNanos());
+		//a float array is not a live source
+		assertEquals(0, monitor.getDroppedBuffers() + monitor.getDuplicatedBuffers(), "Xrun detection should be disabled by default");
+	}
+	
+	@Test
+	public void testXrunDetection() throws UnsupportedAudioFileException{
+		final int sampleRate = 44100;
+		final int bufferSize = 441;
+		final float[] floatBuffer = TestUtilities.audioBufferSine(sampleRate, 440, bufferSize * 40, 0.5);
+		AudioDispatcher dispatcher = AudioDispatcherFactory.fromFloatArray(floatBuffer, sampleRate, bufferSize, 0);
+		RealTimeMonitor monitor = dispatcher.enableRealTimeMode();
+		monitor.setClock(() -> now[0]);
+		monitor.setXrunDetection(true, 0.035);
+		//the tolerance should survive a change of the framing
+		dispatcher.setStepSizeAndOverlap(bufferSize, 0);
+		
+		//the wall clock runs twice as fast as the 10ms buffers: 10ms is lost each buffer
+		AudioProcessor slowSource = advanceClock(20000000);
+		monitor.excludeFromDeadline(slowSource);
+		dispatcher.addAudioProcessor(slowSource);
+		dispatcher.run();
+		
+		//the drift after the last buffer is 39 * 10ms, the first 35ms are tolerated 
+		assertEquals(36, monitor.getDroppedBuffers(), "Buffers lost beyond the tolerance should be counted");
+		assertEquals(0, monitor.getDuplicatedBuffers());
+		assertEquals(0, monitor.getDeadlineOverruns(), "An excluded processor does not count for the deadline");
+	}
+
+	@Test
+	public void testXrunCatchUp() throws UnsupportedAudioFileException{
+		final int sampleRate = 44100;
+		final int bufferSize = 441;
+		final float[] floatBuffer = TestUtilities.audioBufferSine(sampleRate, 440, bufferSize * 40, 0.5);
+		AudioDispatcher dispatcher = AudioDispatcherFactory.fromFloatArray(floatBuffer, sampleRate, bufferSize, 0);
+		RealTimeMonitor monitor = dispatcher.enableRealTimeMode();
+		monitor.setClock(() -> now[0]);
+		monitor.setXrunDetection(true, 0.035);
+		
+		//a buffered capture line: the stream lags 100ms behind the wall clock,
+		//catches up without losing audio, runs in time and finally runs 90ms ahead
+		final long[] advance = new long[40];
+		for(int i = 0 ; i < advance.length ; i++){
+			advance[i] = i < 10 ? 20000000 : i < 20 ? 0 : i < 30 ? 10000000 : 0;
+		}
+		final int[] buffer = new int[1];
+		dispatcher.addAudioProcessor(new AudioProcessor() {
+			@Override
+			public boolean process(AudioEvent audioEvent) {
+				now[0] += advance[buffer[0]++];
+				return true;
+			}
+
+			@Override
+			public void processingFinished() {
+			}
+		});
+		dispatcher.run();
+		
+		//a lag of 100ms with 35ms tolerated
+		assertEquals(7, monitor.getDroppedBuffers(), "The lag should be counted once");
+		//catching up is not counted, only the 90ms lead with 35ms tolerated
+		assertEquals(6, monitor.getDuplicatedBuffers(), "Only running ahead of the wall clock should count as duplicated");
+	}
+}
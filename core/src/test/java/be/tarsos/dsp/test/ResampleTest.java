@@ -0,0 +1,215 @@
+/*
+*      _______                       _____   _____ _____  
+*     |__   __|                     |  __ \ / ____|  __ \ 
+*        | | __ _ _ __ ___  ___  ___| |  | | (___ | |__) |
+*        | |/ _` | '__/ __|/ _ \/ __| |  | |\___ \|  ___/ 
+*        | | (_| | |  \__ \ (_) \__ \ |__| |____) | |     
+*        |_|\__,_|_|  |___/\___/|___/_____/|_____/|_|     
+*                                                         
+* -------------------------------------------------------------
+*
+* TarsosDSP is developed by Joren Six at IPEM, University Ghent
+*  
+* -------------------------------------------------------------
+*
+*  Info: http://0110.be/tag/TarsosDSP
+*  Github: https://github.com/JorenSix/TarsosDSP
+*  Releases: http://0110.be/releases/TarsosDSP/
+*  
+*  TarsosDSP includes modified source code by various authors,
+*  for credits and info, see README.
+* 
+*/
+
+
+
+
+package be.tarsos.dsp.test;
+
+import java.io.ByteArrayInputStream;
+import java.util.Arrays;
+
+import be.tarsos.dsp.AudioDispatcher;
+import be.tarsos.dsp.AudioEvent;
+import be.tarsos.dsp.AudioProcessor;
+import be.tarsos.dsp.io.TarsosDSPAudioFloatConverter;
+import be.tarsos.dsp.io.TarsosDSPAudioFormat;
+import be.tarsos.dsp.io.UniversalAudioInputStream;
+import be.tarsos.dsp.resample.DecimationTree;
+import be.tarsos.dsp.resample.PolyphaseResampler;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ResampleTest {
+
+	private static float[] sine(double frequency, int sampleRate, int length) {
+		float[] buffer = new float[length];
+		for (int i = 0; i < length; i++) {
+			buffer[i] = (float) Math.sin(2 * Math.PI * frequency * i / sampleRate);
+		}
+		return buffer;
+	}
+
+	@Test
+	public void testPolyphaseResampler() {
+		int[][] rates = { { 48000, 16000 }, { 44100, 16000 }, { 16000, 44100 }, { 44100, 48000 } };
+		int[] blockSizes = { 1024, 333, 4096 };
+		for (int[] rate : rates) {
+			for (int blockSize : blockSizes) {
+				final int inputRate = rate[0];
+				final int outputRate = rate[1];
+				final double frequency = 440;
+				PolyphaseResampler resampler = new PolyphaseResampler(inputRate, outputRate);
+				float[] input = sine(frequency, inputRate, inputRate);
+				float[] output = new float[outputRate + 1];
+				int written = 0;
+				for (int start = 0; start < input.length; start += blockSize) {
+					int length = Math.min(blockSize, input.length - start);
+					int expected = resampler.outputLength(length);
+					int actual = resampler.resample(input, start, length, output, written);
+					assertEquals(expected, actual, "The predicted number of output samples should be written");
+					written += actual;
+				}
+				assertEquals(outputRate, written, "One second in, one second out");
+
+				double delay = resampler.getDelay() / inputRate;
+				for (int i = outputRate / 10; i < outputRate - outputRate / 10; i++) {
+					double expected = Math.sin(2 * Math.PI * frequency * (i / (double) outputRate - delay));
+					assertEquals(expected, output[i], 1e-3, inputRate + "Hz to " + outputRate + "Hz, sample " + i);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testPolyphaseResamplerFlush() {
+		int[][] rates = { { 48000, 16000 }, { 44100, 16000 }, { 16000, 44100 }, { 44100, 48000 } };
+		for (int[] rate : rates) {
+			final int inputRate = rate[0];
+			final int outputRate = rate[1];
+			PolyphaseResampler resampler = new PolyphaseResampler(inputRate, outputRate);
+			float[] input = sine(440, inputRate, inputRate);
+			float[] output = new float[outputRate + resampler.flushLength()];
+			int written = resampler.resample(input, 0, input.length, output, 0);
+			int expected = resampler.flushLength();
+			int flushed = resampler.flush(output, written);
+			assertEquals(expected, flushed, "The predicted number of samples should be flushed");
+
+			// the output, delayed by the filter, should cover the whole input
+			double end = (written + flushed) / (double) outputRate - resampler.getDelay() / inputRate;
+			assertTrue(end >= 1 - 1.0 / outputRate, inputRate + "Hz to " + outputRate + "Hz ends at " + end + "s");
+			float[] tail = Arrays.copyOfRange(output, written, written + flushed / 2);
+			assertTrue(AudioEvent.calculateRMS(tail) > 0.5, "The delayed end of the sine should be flushed");
+
+			// the history is cleared: the stream starts again
+			float[] again = new float[output.length];
+			assertEquals(written, resampler.resample(input, 0, input.length, again, 0));
+			assertEquals(output[100], again[100], 0, "Flushing should reset the filter");
+		}
+	}
+
+	@Test
+	public void testPolyphaseResamplerStopBand() {
+		// 12kHz is above the Nyquist frequency of 16kHz audio and should be removed
+		PolyphaseResampler resampler = new PolyphaseResampler(48000, 16000);
+		float[] input = sine(12000, 48000, 48000);
+		float[] output = new float[resampler.outputLength(input.length)];
+		resampler.resample(input, 0, input.length, output, 0);
+		// skip the onset, the abrupt start of the sine is not band limited
+		float[] steadyState = Arrays.copyOfRange(output, 1600, output.length);
+		double rms = AudioEvent.calculateRMS(steadyState);
+		assertTrue(rms < 1e-3, "Frequencies above the new Nyquist frequency should be attenuated, rms is " + rms);
+	}
+
+	@Test
+	public void testPolyphaseResamplerReusesBuffers() {
+		TarsosDSPAudioFormat format = new TarsosDSPAudioFormat(44100, 16, 1, true, false);
+		PolyphaseResampler resampler = new PolyphaseResampler(44100, 16000);
+		AudioEvent event = new AudioEvent(format);
+		float[] input = sine(440, 44100, 1024);
+		float[][] seen = new float[2][];
+		for (int block = 0; block < 200; block++) {
+			event.setFloatBuffer(input);
+			event.setOverlap(0);
+			resampler.process(event);
+			float[] out = event.getFloatBuffer();
+			int length = out.length;
+			assertTrue(length == 371 || length == 372, "Block of 1024 samples at 16/44.1 gives 371 or 372 samples, got " + length);
+			int slot = length - 371;
+			if (block > 10) {
+				assertSame(seen[slot], out, "Output buffers should be reused");
+			}
+			seen[slot] = out;
+		}
+	}
+
+	/**
+	 * Finds the time of the loudest sample seen by a processor and checks
+	 * the level of a tone.
+	 */
+	private static class ClickLocator implements AudioProcessor {
+		private double clickTime;
+		private float clickValue;
+		private double sumOfSquares;
+		private int samples;
+
+		@Override
+		public boolean process(AudioEvent audioEvent) {
+			float[] buffer = audioEvent.getFloatBuffer();
+			int overlap = audioEvent.getOverlap();
+			for (int i = overlap; i < buffer.length; i++) {
+				double time = audioEvent.getTimeStamp() + (i - overlap) / audioEvent.getSampleRate();
+				if (time > 0.5 && buffer[i] > clickValue) {
+					clickValue = buffer[i];
+					clickTime = time;
+				}
+				if (time > 0.1 && time < 0.4) {
+					sumOfSquares += buffer[i] * buffer[i];
+					samples++;
+				}
+			}
+			return true;
+		}
+
+		@Override
+		public void processingFinished() {
+		}
+	}
+
+	@Test
+	public void testDecimationTree() {
+		final int sampleRate = 44100;
+		final double clickTime = 0.75;
+		// a 200Hz tone at -6dB followed by a click
+		float[] signal = new float[sampleRate];
+		for (int i = 0; i < sampleRate / 2; i++) {
+			signal[i] = (float) (0.5 * Math.sin(2 * Math.PI * 200 * i / sampleRate));
+		}
+		signal[(int) (clickTime * sampleRate)] = 1.0f;
+
+		TarsosDSPAudioFormat format = new TarsosDSPAudioFormat(sampleRate, 16, 1, true, false);
+		byte[] bytes = new byte[signal.length * format.getFrameSize()];
+		TarsosDSPAudioFloatConverter.getConverter(format).toByteArray(signal, bytes);
+		AudioDispatcher dispatcher = new AudioDispatcher(new UniversalAudioInputStream(new ByteArrayInputStream(bytes), format), 1000, 0);
+
+		DecimationTree tree = new DecimationTree(format);
+		int[] factors = { 1, 2, 4, 8 };
+		ClickLocator[] locators = new ClickLocator[factors.length];
+		for (int i = 0; i < factors.length; i++) {
+			locators[i] = new ClickLocator();
+			tree.addBranch(factors[i], 256 * (i + 1), 64 * i).addAudioProcessor(locators[i]);
+		}
+		dispatcher.addAudioProcessor(tree);
+		dispatcher.run();
+
+		for (int i = 0; i < factors.length; i++) {
+			double branchRate = sampleRate / (double) factors[i];
+			assertEquals(clickTime, locators[i].clickTime, 0.5 / branchRate, "The click should be aligned in the branch with factor " + factors[i]);
+			double rms = Math.sqrt(locators[i].sumOfSquares / locators[i].samples);
+			assertEquals(0.5 / Math.sqrt(2), rms, 0.005, "The tone should pass unchanged with factor " + factors[i]);
+		}
+	}
+}
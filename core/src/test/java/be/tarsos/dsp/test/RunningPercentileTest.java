@@ -0,0 +1,75 @@
+/*
+*      _______                       _____   _____ _____  
+*     |__   __|                     |  __ \ / ____|  __ \ 
+*        | | __ _ _ __ ___  ___  ___| |  | | (___ | |__) |
+*        | |/ _` | '__/ __|/ _ \/ __| |  | |\___ \|  ___/ 
+*        | | (_| | |  \__ \ (_) \__ \ |__| |____) | |     
+*        |_|\__,_|_|  |___/\___/|___/_____/|_____/|_|     
+*                                                         
+* -------------------------------------------------------------
+*
+* TarsosDSP is developed by Joren Six at IPEM, University Ghent
+*  
+* -------------------------------------------------------------
+*
+*  Info: http://0110.be/tag/TarsosDSP
+*  Github: https://github.com/JorenSix/TarsosDSP
+*  Releases: http://0110.be/releases/TarsosDSP/
+*  
+*  TarsosDSP includes modified source code by various authors,
+*  for credits and info, see README.
+* 
+*/
+
+
+
+package be.tarsos.dsp.test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import be.tarsos.dsp.util.RunningPercentile;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class RunningPercentileTest {
+
+	@Test
+	public void testSlidingWindow() {
+		Random random = new Random(11);
+		for(int windowLength : new int[]{1, 2, 5, 8, 31}){
+			for(double percentile : new double[]{0, 0.25, 0.5, 0.9, 1}){
+				RunningPercentile running = new RunningPercentile(windowLength, percentile);
+				double[] history = new double[500];
+				for(int i = 0 ; i < history.length ; i++){
+					//few distinct values, to test ties as well
+					history[i] = random.nextInt(20);
+					running.add(history[i]);
+					double[] window = Arrays.copyOfRange(history, Math.max(0, i - windowLength + 1), i + 1);
+					Arrays.sort(window);
+					double t = percentile * (window.length - 1);
+					int rank = (int) t;
+					double expected = rank == t ? window[rank] : (rank + 1 - t) * window[rank] + (t - rank) * window[rank + 1];
+					assertEquals(expected, running.get(), 1e-9, "Unexpected percentile " + percentile + " for window " + windowLength + " at " + i);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testSelect() {
+		Random random = new Random(12);
+		for(int length = 1 ; length < 50 ; length++){
+			float[] values = new float[length];
+			for(int i = 0 ; i < length ; i++){
+				values[i] = random.nextInt(10);
+			}
+			float[] sorted = values.clone();
+			Arrays.sort(sorted);
+			for(int k = 0 ; k < length ; k++){
+				assertEquals(sorted[k], RunningPercentile.select(values.clone(), length, k), 0, "Unexpected value of rank " + k);
+			}
+		}
+	}
+}
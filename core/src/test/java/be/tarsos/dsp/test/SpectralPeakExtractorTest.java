@@ -0,0 +1,66 @@
+/*
+*      _______                       _____   _____ _____  
+*     |__   __|                     |  __ \ / ____|  __ \ 
+*        | | __ _ _ __ ___  ___  ___| |  | | (___ | |__) |
+*        | |/ _` | '__/ __|/ _ \/ __| |  | |\___ \|  ___/ 
+*        | | (_| | |  \__ \ (_) \__ \ |__| |____) | |     
+*        |_|\__,_|_|  |___/\___/|___/_____/|_____/|_|     
+*                                                         
+* -------------------------------------------------------------
+*
+* TarsosDSP is developed by Joren Six at IPEM, University Ghent
+*  
+* -------------------------------------------------------------
+*
+*  Info: http://0110.be/tag/TarsosDSP
+*  Github: https://github.com/JorenSix/TarsosDSP
+*  Releases: http://0110.be/releases/TarsosDSP/
+*  
+*  TarsosDSP includes modified source code by various authors,
+*  for credits and info, see README.
+* 
+*/
+
+
+
+package be.tarsos.dsp.test;
+
+import java.util.List;
+import java.util.Random;
+
+import be.tarsos.dsp.SpectralPeakExtractor;
+import be.tarsos.dsp.SpectralPeakProcessor;
+import be.tarsos.dsp.SpectralPeakProcessor.SpectralPeak;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class SpectralPeakExtractorTest {
+
+	@Test
+	public void testSameAsPeakList() {
+		Random random = new Random(21);
+		SpectralPeakExtractor extractor = new SpectralPeakExtractor(20, 50);
+		for(int frame = 0 ; frame < 50 ; frame++){
+			float[] magnitudes = new float[512];
+			float[] frequencies = new float[512];
+			for(int i = 0 ; i < magnitudes.length ; i++){
+				magnitudes[i] = random.nextFloat() * random.nextFloat();
+				frequencies[i] = (i + random.nextFloat() - 0.5f) * 44100 / 1024f + 1;
+			}
+			float[] noiseFloor = SpectralPeakProcessor.calculateNoiseFloor(magnitudes, 17, 1.2f);
+			List<Integer> maxima = SpectralPeakProcessor.findLocalMaxima(magnitudes, noiseFloor);
+			List<SpectralPeak> expected = SpectralPeakProcessor.findPeaks(magnitudes, frequencies, maxima, 20, 50);
+
+			int count = extractor.extract(magnitudes, frequencies, noiseFloor);
+			assertEquals(expected.size(), count, "Unexpected number of peaks in frame " + frame);
+			List<SpectralPeak> actual = extractor.getPeakList(0);
+			for(int i = 0 ; i < count ; i++){
+				assertEquals(expected.get(i).getBin(), extractor.getBins()[i], "Unexpected bin of peak " + i);
+				assertEquals(expected.get(i).getFrequencyInHertz(), extractor.getFrequencies()[i], 0, "Unexpected frequency of peak " + i);
+				assertEquals(expected.get(i).getMagnitude(), actual.get(i).getMagnitude(), 0, "Unexpected magnitude of peak " + i);
+				assertEquals(expected.get(i).getRefFrequencyInHertz(), actual.get(i).getRefFrequencyInHertz(), 0, "Unexpected reference frequency");
+			}
+		}
+	}
+}
@@ -0,0 +1,124 @@
+/*
+*      _______                       _____   _____ _____  
+*     |__   __|                     |  __ \ / ____|  __ \ 
+*        | | __ _ _ __ ___  ___  ___| |  | | (___ | |__) |
+*        | |/ _` | '__/ __|/ _ \/ __| |  | |\___ \|  ___/ 
+*        | | (_| | |  \__ \ (_) \__ \ |__| |____) | |     
+*        |_|\__,_|_|  |___/\___/|___/_____/|_____/|_|     
+*                                                         
+* -------------------------------------------------------------
+*
+* TarsosDSP is developed by Joren Six at IPEM, University Ghent
+*  
+* -------------------------------------------------------------
+*
+*  Info: http://0110.be/tag/TarsosDSP
+*  Github: https://github.com/JorenSix/TarsosDSP
+*  Releases: http://0110.be/releases/TarsosDSP/
+*  
+*  TarsosDSP includes modified source code by various authors,
+*  for credits and info, see README.
+* 
+*/
+
+
+
+package be.tarsos.dsp.test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import be.tarsos.dsp.AudioEvent;
+import be.tarsos.dsp.AudioProcessor;
+import be.tarsos.dsp.ConstantQ;
+import be.tarsos.dsp.SpectralPeakProcessor;
+import be.tarsos.dsp.SpectrumProcessor;
+import be.tarsos.dsp.io.TarsosDSPAudioFormat;
+import be.tarsos.dsp.mfcc.MFCC;
+import be.tarsos.dsp.onsets.ComplexOnsetDetector;
+import be.tarsos.dsp.util.fft.HammingWindow;
+import be.tarsos.dsp.util.fft.HannWindow;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class SpectrumProcessorTest {
+	
+	private static final int SAMPLE_RATE = 44100;
+	private static final int SIZE = 1024;
+	private static final int OVERLAP = 512;
+
+	/**
+	 * Processors using a shared spectrum should give the same results as
+	 * processors calculating their own FFT with the same window.
+	 */
+	@Test
+	public void testSharedSpectrum(){
+		float[] signal = signal();
+		
+		SpectrumProcessor hamming = new SpectrumProcessor(SIZE, new HammingWindow());
+		MFCC ownMFCC = new MFCC(SIZE, SAMPLE_RATE);
+		MFCC sharedMFCC = new MFCC(hamming, SAMPLE_RATE);
+		SpectralPeakProcessor ownPeaks = new SpectralPeakProcessor(SIZE, OVERLAP, SAMPLE_RATE);
+		SpectralPeakProcessor sharedPeaks = new SpectralPeakProcessor(hamming, OVERLAP, SAMPLE_RATE);
+		
+		SpectrumProcessor hann = new SpectrumProcessor(SIZE, new HannWindow());
+		final List<Double> ownOnsets = new ArrayList<>();
+		final List<Double> sharedOnsets = new ArrayList<>();
+		ComplexOnsetDetector ownOnsetDetector = new ComplexOnsetDetector(SIZE);
+		ownOnsetDetector.setHandler((time, salience) -> ownOnsets.add(time));
+		ComplexOnsetDetector sharedOnsetDetector = new ComplexOnsetDetector(hann, 0.3, 0.03, -70);
+		sharedOnsetDetector.setHandler((time, salience) -> sharedOnsets.add(time));
+		
+		AudioProcessor[] chain = {hamming, ownMFCC, sharedMFCC, ownPeaks, sharedPeaks, hann, ownOnsetDetector, sharedOnsetDetector};
+		AudioEvent event = new AudioEvent(new TarsosDSPAudioFormat(SAMPLE_RATE, 16, 1, true, false));
+		float[] buffer = new float[SIZE];
+		for(int start = 0 ; start + SIZE <= signal.length ; start += SIZE - OVERLAP){
+			System.arraycopy(signal, start, buffer, 0, SIZE);
+			event.setFloatBuffer(buffer);
+			event.setOverlap(OVERLAP);
+			event.setBytesProcessed(start * 2L);
+			for(AudioProcessor processor : chain){
+				processor.process(event);
+			}
+			assertArrayEquals(ownMFCC.getMFCC(), sharedMFCC.getMFCC(), 1e-3f);
+			assertArrayEquals(ownPeaks.getMagnitudes(), sharedPeaks.getMagnitudes(), 1e-3f);
+			assertArrayEquals(ownPeaks.getFrequencyEstimates(), sharedPeaks.getFrequencyEstimates(), 1e-3f);
+		}
+		assertFalse(ownOnsets.isEmpty(), "The clicks should be detected as onsets");
+		assertEquals(ownOnsets, sharedOnsets, "Onsets should not depend on the spectrum source");
+	}
+	
+	@Test
+	public void testSharedConstantQ(){
+		ConstantQ own = new ConstantQ(SAMPLE_RATE, 110, 1760, 12);
+		SpectrumProcessor spectrum = new SpectrumProcessor(own.getFFTlength());
+		ConstantQ shared = new ConstantQ(spectrum, SAMPLE_RATE, 110, 1760, 12, 0.001f, 1.0f);
+		
+		float[] signal = signal();
+		AudioEvent event = new AudioEvent(new TarsosDSPAudioFormat(SAMPLE_RATE, 16, 1, true, false));
+		float[] buffer = new float[own.getFFTlength()];
+		System.arraycopy(signal, 0, buffer, 0, buffer.length);
+		event.setFloatBuffer(buffer);
+		spectrum.process(event);
+		own.process(event);
+		shared.process(event);
+		assertArrayEquals(own.getMagnitudes(), shared.getMagnitudes(), 1e-6f);
+		
+		assertThrows(IllegalArgumentException.class, () -> new ConstantQ(new SpectrumProcessor(own.getFFTlength(), new HannWindow()), SAMPLE_RATE, 110, 1760, 12, 0.001f, 1.0f));
+	}
+	
+	private static float[] signal(){
+		float[] signal = TestUtilities.audioBufferSine(SAMPLE_RATE, 440, SAMPLE_RATE * 2, 0.3);
+		//add a few clicks for the onset detector
+		for(int click = SAMPLE_RATE / 4 ; click < signal.length ; click += SAMPLE_RATE / 4){
+			for(int i = 0 ; i < 200 ; i++){
+				signal[click + i] += (float) (0.5 * Math.sin(2 * Math.PI * 3000 * i / SAMPLE_RATE));
+			}
+		}
+		return signal;
+	}
+}
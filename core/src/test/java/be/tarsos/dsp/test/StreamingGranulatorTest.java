@@ -0,0 +1,142 @@
+/*
+*      _______                       _____   _____ _____  
+*     |__   __|                     |  __ \ / ____|  __ \ 
+*        | | __ _ _ __ ___  ___  ___| |  | | (___ | |__) |
+*        | |/ _` | '__/ __|/ _ \/ __| |  | |\___ \|  ___/ 
+*        | | (_| | |  \__ \ (_) \__ \ |__| |____) | |     
+*        |_|\__,_|_|  |___/\___/|___/_____/|_____/|_|     
+*                                                         
+* -------------------------------------------------------------
+*
+* TarsosDSP is developed by Joren Six at IPEM, University Ghent
+*  
+* -------------------------------------------------------------
+*
+*  Info: http://0110.be/tag/TarsosDSP
+*  Github: https://github.com/JorenSix/TarsosDSP
+*  Releases: http://0110.be/releases/TarsosDSP/
+*  
+*  TarsosDSP includes modified source code by various authors,
+*  for credits and info, see README.
+* 
+*/
+
+
+
+package be.tarsos.dsp.test;
+
+import be.tarsos.dsp.AudioEvent;
+import be.tarsos.dsp.AudioProcessor;
+import be.tarsos.dsp.granulator.Granulator;
+import be.tarsos.dsp.granulator.StreamingGranulator;
+import be.tarsos.dsp.instrumentation.jvm.ThreadAllocationMeter;
+import be.tarsos.dsp.io.TarsosDSPAudioFormat;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class StreamingGranulatorTest {
+
+	private static final int SAMPLE_RATE = 44100;
+	private static final int BUFFER_SIZE = 1024;
+
+	private final AudioEvent event = new AudioEvent(new TarsosDSPAudioFormat(SAMPLE_RATE, 16, 1, true, false));
+	private final float[] block = new float[BUFFER_SIZE];
+
+	/**
+	 * Feeds a block of a 440Hz sine to the granulator.
+	 * @param index The index of the block in the stream.
+	 * @return The output block.
+	 */
+	private float[] process(AudioProcessor granulator, int index) {
+		for(int i = 0 ; i < BUFFER_SIZE ; i++){
+			long sample = (long) index * BUFFER_SIZE + i;
+			block[i] = (float) (0.5 * Math.sin(2 * Math.PI * 440 * sample / SAMPLE_RATE));
+		}
+		event.setFloatBuffer(block);
+		event.setOverlap(0);
+		granulator.process(event);
+		return event.getFloatBuffer();
+	}
+
+	private static double rms(float[] buffer) {
+		double sum = 0;
+		for(float value : buffer){
+			assertTrue(Float.isFinite(value), "The output should be finite");
+			sum += value * value;
+		}
+		return Math.sqrt(sum / buffer.length);
+	}
+
+	@Test
+	public void testBoundedMemory() {
+		StreamingGranulator granulator = new StreamingGranulator(SAMPLE_RATE, BUFFER_SIZE, 500, 16);
+		granulator.setPitchShiftFactor(1.3f);
+		granulator.setTimestretchFactor(0.7f);
+		float[] output = process(granulator, 0);
+		for(int i = 1 ; i < 100 ; i++){
+			assertSame(output, process(granulator, i), "The output buffer should be reused");
+		}
+
+		//about ten minutes of audio, more than the history holds many times over
+		ThreadAllocationMeter meter = new ThreadAllocationMeter();
+		long before = meter.currentThreadAllocatedBytes();
+		double rms = 0;
+		for(int i = 100 ; i < 25100 ; i++){
+			rms = rms(process(granulator, i));
+			assertTrue(granulator.getActiveGrainCount() <= 16, "The grain pool should not grow");
+		}
+		long after = meter.currentThreadAllocatedBytes();
+		if(before >= 0 && after >= 0){
+			assertTrue(after - before < 25000, "Processing should not allocate per block, allocated " + (after - before) + " bytes");
+		}
+		assertTrue(rms > 0.05, "The position should stay within the history, the output is silent");
+	}
+
+	@Test
+	public void testLevelComparedToGranulator() {
+		//a live stream can not be stretched faster than real time
+		for(float[] factors : new float[][]{{1.0f, 1.0f}, {1.5f, 1.0f}, {1.0f, 0.6f}, {0.7f, 0.9f}}){
+			Granulator reference = new Granulator(SAMPLE_RATE, BUFFER_SIZE);
+			StreamingGranulator granulator = new StreamingGranulator(SAMPLE_RATE, BUFFER_SIZE);
+			reference.setPitchShiftFactor(factors[0]);
+			reference.setTimestretchFactor(factors[1]);
+			reference.setGrainRandomness(0);
+			granulator.setPitchShiftFactor(factors[0]);
+			granulator.setTimestretchFactor(factors[1]);
+			granulator.setGrainRandomness(0);
+
+			double referenceLevel = 0, level = 0;
+			for(int i = 0 ; i < 100 ; i++){
+				float[] expected = process(reference, i).clone();
+				float[] actual = process(granulator, i);
+				assertEquals(BUFFER_SIZE, actual.length, "Unexpected output length");
+				if(i >= 20){
+					referenceLevel += rms(expected);
+					level += rms(actual);
+				}
+			}
+			assertEquals(1, level / referenceLevel, 0.05, "Unexpected level for pitch " + factors[0] + " and time stretch " + factors[1]);
+		}
+	}
+
+	@Test
+	public void testDroppedGrains() {
+		StreamingGranulator granulator = new StreamingGranulator(SAMPLE_RATE, BUFFER_SIZE, 500, 4);
+		granulator.setGrainInterval(5);
+		granulator.setGrainSize(200);
+		for(int i = 0 ; i < 50 ; i++){
+			rms(process(granulator, i));
+			assertTrue(granulator.getActiveGrainCount() <= 4);
+		}
+		assertTrue(granulator.getDroppedGrainCount() > 0, "Grains should be dropped when the pool is exhausted");
+
+		StreamingGranulator large = new StreamingGranulator(SAMPLE_RATE, BUFFER_SIZE);
+		for(int i = 0 ; i < 50 ; i++){
+			process(large, i);
+		}
+		assertEquals(0, large.getDroppedGrainCount(), "The default pool should be large enough for the default settings");
+	}
+}
@@ -38,6 +38,8 @@ import be.tarsos.dsp.AudioDispatcher;
 import be.tarsos.dsp.AudioEvent;
 import be.tarsos.dsp.AudioProcessor;
 import be.tarsos.dsp.SilenceDetector;
+import be.tarsos.dsp.filters.BiquadCascade;
+import be.tarsos.dsp.filters.FilterDesign;
 import be.tarsos.dsp.filters.HighPass;
 import be.tarsos.dsp.filters.LowPassFS;
 import be.tarsos.dsp.io.TarsosDSPAudioFloatConverter;
@@ -47,6 +49,7 @@ import be.tarsos.dsp.io.jvm.JVMAudioInputStream;
 import be.tarsos.dsp.io.jvm.WaveformWriter;
 import org.junit.jupiter.api.Test;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 
@@ -107,4 +110,52 @@ public class TestFilters {
 		f.delete();
 	}
 
+	@Test
+	public void testFilterDesign() {
+		final double sampleRate = 44100;
+		for (int order = 1; order <= 8; order++) {
+			BiquadCascade lowPass = new BiquadCascade(FilterDesign.butterworthLowPass(order, 1000, sampleRate));
+			assertEquals(1.0, lowPass.magnitudeAt(0, sampleRate), 1e-9, "Butterworth low pass should pass DC");
+			assertEquals(Math.sqrt(0.5), lowPass.magnitudeAt(1000, sampleRate), 1e-9, "Butterworth low pass should be -3dB at the cutoff");
+			BiquadCascade highPass = new BiquadCascade(FilterDesign.butterworthHighPass(order, 1000, sampleRate));
+			assertEquals(Math.sqrt(0.5), highPass.magnitudeAt(1000, sampleRate), 1e-9, "Butterworth high pass should be -3dB at the cutoff");
+			assertEquals(1.0, highPass.magnitudeAt(sampleRate / 2, sampleRate), 1e-9, "Butterworth high pass should pass Nyquist");
+
+			BiquadCascade chebyshev = new BiquadCascade(FilterDesign.chebyshevLowPass(order, 1, 1000, sampleRate));
+			final double rippleGain = Math.pow(10, -1 / 20.0);
+			assertEquals(rippleGain, chebyshev.magnitudeAt(1000, sampleRate), 1e-9, "Chebyshev low pass should end the pass band at the ripple");
+			for (double f = 0; f < 1000; f += 50) {
+				double gain = chebyshev.magnitudeAt(f, sampleRate);
+				assertTrue(gain <= 1 + 1e-9 && gain >= rippleGain - 1e-9, "Chebyshev pass band gain should stay within the ripple");
+			}
+		}
+	}
+
+	@Test
+	public void testInterleavedCascade() {
+		final int channels = 5;
+		final int frames = 1000;
+		final double[] sections = FilterDesign.butterworthHighPass(5, 300, 8000);
+		final BiquadCascade interleaved = new BiquadCascade(sections, channels);
+		final float[] buffer = new float[channels * frames];
+		final float[][] separate = new float[channels][frames];
+		for (int f = 0; f < frames; f++) {
+			for (int ch = 0; ch < channels; ch++) {
+				float value = (float) Math.sin(f * 0.01 * (ch + 1)) + (f % 7 == ch ? 0.5f : 0);
+				buffer[f * channels + ch] = value;
+				separate[ch][f] = value;
+			}
+		}
+		// filter in two blocks to check the state is kept between calls
+		interleaved.filter(buffer, 0, 400);
+		interleaved.filter(buffer, 400 * channels, frames - 400);
+		for (int ch = 0; ch < channels; ch++) {
+			BiquadCascade mono = new BiquadCascade(sections);
+			mono.filter(separate[ch], 0, frames);
+			for (int f = 0; f < frames; f++) {
+				assertEquals(separate[ch][f], buffer[f * channels + ch], 1e-5, "Interleaved filtering should equal filtering each channel");
+			}
+		}
+	}
+
 }
@@ -24,7 +24,10 @@
 
 package be.tarsos.dsp.test;
 
+import be.tarsos.dsp.AudioEvent;
+import be.tarsos.dsp.AudioProcessor;
 import be.tarsos.dsp.io.TarsosDSPAudioFloatConverter;
+import be.tarsos.dsp.io.TarsosDSPAudioFormat;
 import be.tarsos.dsp.io.jvm.JVMAudioInputStream;
 
 import javax.sound.sampled.AudioFormat;
@@ -36,6 +39,8 @@ import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
 import java.net.URLConnection;
+import java.util.ArrayList;
+import java.util.List;
 
 
 public class TestUtilities {
@@ -233,4 +238,37 @@ public class TestUtilities {
         return buffer;
     }
 
-}
\ No newline at end of file
+    /**
+     * Sends consecutive, overlapping blocks of a mono signal through a
+     * processor and concatenates the buffers it outputs. The blocks are
+     * copied, the signal is not changed.
+     *
+     * @param processor The processor, e.g. one that changes the tempo.
+     * @param signal The input signal.
+     * @param sampleRate The sample rate of the signal in Hz.
+     * @param size The size of the blocks in samples.
+     * @param overlap The overlap between consecutive blocks in samples.
+     * @return The concatenated output of the processor.
+     */
+    public static float[] processBlocks(AudioProcessor processor, float[] signal, float sampleRate, int size, int overlap) {
+        AudioEvent event = new AudioEvent(new TarsosDSPAudioFormat(sampleRate, 16, 1, true, false));
+        List<float[]> blocks = new ArrayList<>();
+        int total = 0;
+        for (int start = 0; start + size <= signal.length; start += size - overlap) {
+            float[] buffer = new float[size];
+            System.arraycopy(signal, start, buffer, 0, size);
+            event.setFloatBuffer(buffer);
+            processor.process(event);
+            blocks.add(event.getFloatBuffer().clone());
+            total += event.getFloatBuffer().length;
+        }
+        float[] output = new float[total];
+        int position = 0;
+        for (float[] block : blocks) {
+            System.arraycopy(block, 0, output, position, block.length);
+            position += block.length;
+        }
+        return output;
+    }
+
+}
@@ -0,0 +1,65 @@
+/*
+*      _______                       _____   _____ _____  
+*     |__   __|                     |  __ \ / ____|  __ \ 
+*        | | __ _ _ __ ___  ___  ___| |  | | (___ | |__) |
+*        | |/ _` | '__/ __|/ _ \/ __| |  | |\___ \|  ___/ 
+*        | | (_| | |  \__ \ (_) \__ \ |__| |____) | |     
+*        |_|\__,_|_|  |___/\___/|___/_____/|_____/|_|     
+*                                                         
+* -------------------------------------------------------------
+*
+* TarsosDSP is developed by Joren Six at IPEM, University Ghent
+*  
+* -------------------------------------------------------------
+*
+*  Info: http://0110.be/tag/TarsosDSP
+*  Github: https://github.com/JorenSix/TarsosDSP
+*  Releases: http://0110.be/releases/TarsosDSP/
+*  
+*  TarsosDSP includes modified source code by various authors,
+*  for credits and info, see README.
+* 
+*/
+
+
+
+package be.tarsos.dsp.test;
+
+import java.util.Random;
+
+import be.tarsos.dsp.WaveformSimilarityBasedOverlapAdd;
+import be.tarsos.dsp.WaveformSimilarityBasedOverlapAdd.Parameters;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class WaveformSimilarityBasedOverlapAddTest {
+
+	/**
+	 * The FFT based overlap search should find the same offsets as the
+	 * direct search and thus produce the same output.
+	 */
+	@Test
+	public void testFFTSearch(){
+		final int sampleRate = 44100;
+		Random random = new Random(3);
+		float[] signal = new float[sampleRate * 5];
+		for(int i = 0 ; i < signal.length ; i++){
+			signal[i] = (float) (0.3 * Math.sin(2 * Math.PI * 220 * i / sampleRate)
+					+ 0.2 * Math.sin(2 * Math.PI * 331.3 * i / sampleRate + Math.sin(i / 20000.0))
+					+ 0.05 * random.nextGaussian());
+		}
+		for(double tempo : new double[]{0.7, 1.3, 2.0}){
+			float[] direct = stretch(new WaveformSimilarityBasedOverlapAdd(Parameters.musicDefaults(tempo, sampleRate), false), signal, sampleRate);
+			float[] fft = stretch(new WaveformSimilarityBasedOverlapAdd(Parameters.musicDefaults(tempo, sampleRate), true), signal, sampleRate);
+			assertEquals(direct.length, fft.length, "Output length should not depend on the search method");
+			for(int i = 0 ; i < direct.length ; i++){
+				assertEquals(direct[i], fft[i], 1e-5, "Output should not depend on the search method");
+			}
+		}
+	}
+
+	private static float[] stretch(WaveformSimilarityBasedOverlapAdd wsola, float[] signal, int sampleRate){
+		return TestUtilities.processBlocks(wsola, signal, sampleRate, wsola.getInputBufferSize(), wsola.getOverlap());
+	}
+}
@@ -0,0 +1,136 @@
+/*
+*      _______                       _____   _____ _____  
+*     |__   __|                     |  __ \ / ____|  __ \ 
+*        | | __ _ _ __ ___  ___  ___| |  | | (___ | |__) |
+*        | |/ _` | '__/ __|/ _ \/ __| |  | |\___ \|  ___/ 
+*        | | (_| | |  \__ \ (_) \__ \ |__| |____) | |     
+*        |_|\__,_|_|  |___/\___/|___/_____/|_____/|_|     
+*                                                         
+* -------------------------------------------------------------
+*
+* TarsosDSP is developed by Joren Six at IPEM, University Ghent
+*  
+* -------------------------------------------------------------
+*
+*  Info: http://0110.be/tag/TarsosDSP
+*  Github: https://github.com/JorenSix/TarsosDSP
+*  Releases: http://0110.be/releases/TarsosDSP/
+*  
+*  TarsosDSP includes modified source code by various authors,
+*  for credits and info, see README.
+* 
+*/
+
+
+
+package be.tarsos.dsp.test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+
+import be.tarsos.dsp.AudioEvent;
+import be.tarsos.dsp.io.TarsosDSPAudioFormat;
+import be.tarsos.dsp.wavelet.WaveletFileReader;
+import be.tarsos.dsp.wavelet.WaveletFileWriter;
+import be.tarsos.dsp.wavelet.lift.Daubechies4Wavelet;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class WaveletFileTest {
+	
+	private static float[][] codedBlocks(int blocks, int blockSize){
+		Daubechies4Wavelet wavelet = new Daubechies4Wavelet();
+		float[] audio = TestUtilities.audioBufferSine(44100, 440, blocks * blockSize, 0.8);
+		Random random = new Random(3);
+		float[][] coded = new float[blocks][];
+		for(int b = 0 ; b < blocks ; b++){
+			float[] block = Arrays.copyOfRange(audio, b * blockSize, (b + 1) * blockSize);
+			for(int i = 0 ; i < blockSize ; i++){
+				block[i] += random.nextFloat() * 0.01f;
+			}
+			wavelet.forwardTrans(block);
+			//keep the largest eighth of the coefficients
+			float[] sorted = block.clone();
+			for(int i = 0 ; i < blockSize ; i++){
+				sorted[i] = Math.abs(sorted[i]);
+			}
+			Arrays.sort(sorted);
+			float threshold = sorted[blockSize - blockSize / 8];
+			for(int i = 0 ; i < blockSize ; i++){
+				if(Math.abs(block[i]) < threshold){
+					block[i] = 0;
+				}
+			}
+			coded[b] = block;
+		}
+		//a silent block
+		Arrays.fill(coded[blocks / 2], 0);
+		return coded;
+	}
+	
+	private static File write(float[][] coded, int blockSize, int indexInterval) throws IOException {
+		File file = File.createTempFile("wavelet", ".tdwc");
+		file.deleteOnExit();
+		WaveletFileWriter writer = new WaveletFileWriter(file.getAbsolutePath(), 44100, blockSize, indexInterval);
+		AudioEvent event = new AudioEvent(new TarsosDSPAudioFormat(44100, 16, 1, true, false));
+		for(float[] block : coded){
+			event.setFloatBuffer(block.clone());
+			writer.process(event);
+		}
+		writer.processingFinished();
+		return file;
+	}
+	
+	private static void assertBlock(float[] expected, float[] actual, String message){
+		float max = 0;
+		for(float value : expected){
+			max = Math.max(max, Math.abs(value));
+		}
+		for(int i = 0 ; i < expected.length ; i++){
+			assertEquals(expected[i], actual[i], max / 32767.0 + 1e-7, message + " at coefficient " + i);
+		}
+	}
+
+	@Test
+	public void testWriteAndRead() throws IOException {
+		final int blockSize = 256;
+		float[][] coded = codedBlocks(300, blockSize);
+		File file = write(coded, blockSize, 16);
+		assertTrue(file.length() < coded.length * blockSize * 2, "Sparse blocks should take less space than 16 bit samples");
+		
+		WaveletFileReader reader = new WaveletFileReader(file.getAbsolutePath());
+		assertEquals(blockSize, reader.getBlockSize());
+		assertEquals(coded.length, reader.getFrameCount());
+		float[] block = new float[blockSize];
+		for(int b = 0 ; b < coded.length ; b++){
+			assertTrue(reader.readFrame(block), "Frame " + b + " should be available");
+			assertBlock(coded[b], block, "Frame " + b);
+		}
+		assertTrue(!reader.readFrame(block), "There should be no frames after the last one");
+		reader.processingFinished();
+	}
+	
+	@Test
+	public void testSeek() throws IOException {
+		final int blockSize = 64;
+		float[][] coded = codedBlocks(1000, blockSize);
+		File file = write(coded, blockSize, 64);
+		WaveletFileReader reader = new WaveletFileReader(file.getAbsolutePath());
+		float[] block = new float[blockSize];
+		for(int frame : new int[]{999, 0, 500, 64, 63, 129, 1000}){
+			reader.seek(frame);
+			if(frame == coded.length){
+				assertTrue(!reader.readFrame(block), "Seeking to the end should leave no frames");
+			} else {
+				assertTrue(reader.readFrame(block));
+				assertBlock(coded[frame], block, "Frame " + frame + " after seeking");
+				assertTrue(reader.readFrame(block) == (frame + 1 < coded.length));
+			}
+		}
+		reader.processingFinished();
+	}
+}
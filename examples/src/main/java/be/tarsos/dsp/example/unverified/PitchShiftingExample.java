@@ -240,6 +240,10 @@ public class PitchShiftingExample extends JFrame {
 		
 	}
 	
+	private static AudioFormat monoFormat(AudioFormat format){
+		return new AudioFormat(format.getEncoding(), format.getSampleRate(), format.getSampleSizeInBits(), 1, format.getFrameSize() / format.getChannels(), format.getFrameRate(), format.isBigEndian());
+	}
+	
 	public static double centToFactor(double cents){
 		return 1 / Math.pow(Math.E,cents*Math.log(2)/1200/Math.log(Math.E)); 
 	}
@@ -260,7 +264,8 @@ public class PitchShiftingExample extends JFrame {
 			}
 			rateTransposer = new RateTransposer(currentFactor);
 			gain = new GainProcessor(1.0);
-			audioPlayer = new AudioPlayer(format);
+			//stereo files are folded to mono before playback
+			audioPlayer = new AudioPlayer(monoFormat(format));
 			sampleRate = format.getSampleRate();
 			
 			//can not time travel, unfortunately. It would be nice to go back and kill Hitler or something...
@@ -281,7 +286,7 @@ public class PitchShiftingExample extends JFrame {
 					dispatcher = new AudioDispatcher(audioStream, wsola.getInputBufferSize(),wsola.getOverlap()); 
 			 }else{
 					if(format.getChannels() != 1){
-						dispatcher = AudioDispatcherFactory.fromFile(inputFile,wsola.getInputBufferSize() * format.getChannels(),wsola.getOverlap() * format.getChannels());
+						dispatcher = AudioDispatcherFactory.fromFile(inputFile,wsola.getInputBufferSize(),wsola.getOverlap());
 						dispatcher.addAudioProcessor(new MultichannelToMono(format.getChannels(),true));
 					}else{
 						dispatcher = AudioDispatcherFactory.fromFile(inputFile,wsola.getInputBufferSize(),wsola.getOverlap());
@@ -375,10 +380,11 @@ public class PitchShiftingExample extends JFrame {
 		double factor = PitchShiftingExample.centToFactor(cents);
 		RateTransposer rateTransposer = new RateTransposer(factor);
 		WaveformSimilarityBasedOverlapAdd wsola = new WaveformSimilarityBasedOverlapAdd(Parameters.musicDefaults(factor, sampleRate));
-		WaveformWriter writer = new WaveformWriter(format,target);
+		//stereo files are folded to mono before writing
+		WaveformWriter writer = new WaveformWriter(monoFormat(format),target);
 		AudioDispatcher dispatcher;
 		if(format.getChannels() != 1){
-			dispatcher = AudioDispatcherFactory.fromFile(inputFile,wsola.getInputBufferSize() * format.getChannels(),wsola.getOverlap() * format.getChannels());
+			dispatcher = AudioDispatcherFactory.fromFile(inputFile,wsola.getInputBufferSize(),wsola.getOverlap());
 			dispatcher.addAudioProcessor(new MultichannelToMono(format.getChannels(),true));
 		}else{
 			dispatcher = AudioDispatcherFactory.fromFile(inputFile,wsola.getInputBufferSize(),wsola.getOverlap());
@@ -23,14 +23,11 @@
 
 package be.tarsos.dsp.example.unverified.dissonance;
 
-import java.util.ArrayList;
-import java.util.List;
-
 import javax.sound.sampled.UnsupportedAudioFileException;
 
 import be.tarsos.dsp.AudioDispatcher;
-import be.tarsos.dsp.AudioEvent;
-import be.tarsos.dsp.AudioProcessor;
+import be.tarsos.dsp.PartialHandler;
+import be.tarsos.dsp.PartialTracker;
 import be.tarsos.dsp.SpectralPeakProcessor;
 import be.tarsos.dsp.io.PipedAudioStream;
 import be.tarsos.dsp.io.TarsosDSPAudioInputStream;
@@ -39,10 +36,10 @@ public class SpectralPeakFollowerExample {
 	private final int sampleRate = 44100;
 	private final int fftsize = 32768/2;
 	private final int overlap = fftsize/2;//50% overlap
-	//private final int noiseFloorMedianFilterLenth = fftsize/117;//35
-	//private final float noiseFloorFactor = 1.5f;
+	private final int noiseFloorMedianFilterLenth = fftsize/117;//35
+	private final float noiseFloorFactor = 1.5f;
 	private final String fileName;
-	//private final int numberOfSpectralPeaks;
+	private final int numberOfSpectralPeaks;
 	
 	/**
 	 * Peaks are only allowed between the highest peak minus 2400 and plus 7200 cents (8 octaves in total)
@@ -52,13 +49,9 @@ public class SpectralPeakFollowerExample {
 
 	
 	
-	private final List<float[]> magnitudesList = new ArrayList<float[]>();
-	private final List<float[]> frequencyEstimatesList = new ArrayList<float[]>();
-	
-	
 	public SpectralPeakFollowerExample(String fileName,int numberOfSpectralPeaks){
 		this.fileName = fileName;
-		//this.numberOfSpectralPeaks = numberOfSpectralPeaks;
+		this.numberOfSpectralPeaks = numberOfSpectralPeaks;
 		
 	}
 	
@@ -69,18 +62,13 @@ public class SpectralPeakFollowerExample {
 		final SpectralPeakProcessor spectralPeakFollower = new SpectralPeakProcessor(fftsize, overlap, sampleRate);
 		AudioDispatcher dispatcher = new AudioDispatcher(stream, fftsize, overlap);
 		dispatcher.addAudioProcessor(spectralPeakFollower);
-		dispatcher.addAudioProcessor(new AudioProcessor() {
-			@Override
-			public void processingFinished() {
-			}
-			
+		//partials are printed when they end, frames are not kept
+		dispatcher.addAudioProcessor(new PartialTracker(spectralPeakFollower, noiseFloorMedianFilterLenth, noiseFloorFactor, numberOfSpectralPeaks, 50, new PartialHandler() {
 			@Override
-			public boolean process(AudioEvent audioEvent) {
-				magnitudesList.add(spectralPeakFollower.getMagnitudes());
-				frequencyEstimatesList.add(spectralPeakFollower.getFrequencyEstimates());
-				return true;
+			public void handlePartial(PartialTracker.Partial partial) {
+				System.out.println(partial);
 			}
-		});
+		}));
 		dispatcher.run();
 	}
 	
@@ -0,0 +1,164 @@
+/*
+*      _______                       _____   _____ _____  
+*     |__   __|                     |  __ \ / ____|  __ \ 
+*        | | __ _ _ __ ___  ___  ___| |  | | (___ | |__) |
+*        | |/ _` | '__/ __|/ _ \/ __| |  | |\___ \|  ___/ 
+*        | | (_| | |  \__ \ (_) \__ \ |__| |____) | |     
+*        |_|\__,_|_|  |___/\___/|___/_____/|_____/|_|     
+*                                                         
+* -------------------------------------------------------------
+*
+* TarsosDSP is developed by Joren Six at IPEM, University Ghent
+*  
+* -------------------------------------------------------------
+*
+*  Info: http://0110.be/tag/TarsosDSP
+*  Github: https://github.com/JorenSix/TarsosDSP
+*  Releases: http://0110.be/releases/TarsosDSP/
+*  
+*  TarsosDSP includes modified source code by various authors,
+*  for credits and info, see README.
+* 
+*/
+
+
+
+package be.tarsos.dsp.instrumentation.jvm;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import be.tarsos.dsp.instrumentation.LatencyHistogram;
+import be.tarsos.dsp.instrumentation.MetricsReporter;
+import be.tarsos.dsp.instrumentation.ProcessorMetrics;
+
+/**
+ * Publishes processor metrics as MXBeans on the platform MBean server, under
+ * <code>be.tarsos.dsp:type=AudioProcessor,name=...</code>. The beans read the
+ * live metrics so reporting once is enough, e.g. right after the chain is set
+ * up. Metrics that are already published are skipped.
+ * 
+ * @author Joren Six
+ */
+public class JMXMetricsReporter implements MetricsReporter {
+	
+	private static final Logger LOG = Logger.getLogger(JMXMetricsReporter.class.getName());
+	
+	private final MBeanServer server;
+	private final String domain;
+	
+	/**
+	 * Publish on the platform MBean server in the be.tarsos.dsp domain.
+	 */
+	public JMXMetricsReporter(){
+		this(ManagementFactory.getPlatformMBeanServer(), "be.tarsos.dsp");
+	}
+	
+	/**
+	 * Publish on an MBean server.
+	 * @param server The server to register the beans with.
+	 * @param domain The JMX domain to use.
+	 */
+	public JMXMetricsReporter(MBeanServer server, String domain){
+		this.server = server;
+		this.domain = domain;
+	}
+
+	@Override
+	public void report(List<ProcessorMetrics> metrics) {
+		for(ProcessorMetrics m : metrics){
+			try {
+				ObjectName objectName = objectName(m);
+				if(!server.isRegistered(objectName)){
+					server.registerMBean(new MetricsBean(m), objectName);
+				}
+			} catch (JMException e) {
+				LOG.log(Level.WARNING, "Could not publish metrics for " + m.getName(), e);
+			}
+		}
+	}
+	
+	/**
+	 * Remove the published beans of the metrics.
+	 * @param metrics The metrics to remove.
+	 */
+	public void unregister(List<ProcessorMetrics> metrics){
+		for(ProcessorMetrics m : metrics){
+			try {
+				ObjectName objectName = objectName(m);
+				if(server.isRegistered(objectName)){
+					server.unregisterMBean(objectName);
+				}
+			} catch (JMException e) {
+				LOG.log(Level.WARNING, "Could not remove metrics for " + m.getName(), e);
+			}
+		}
+	}
+	
+	private ObjectName objectName(ProcessorMetrics m) throws JMException{
+		return new ObjectName(domain + ":type=AudioProcessor,name=" + ObjectName.quote(m.getName()));
+	}
+	
+	private static class MetricsBean implements ProcessorMetricsMXBean {
+		private final ProcessorMetrics metrics;
+		
+		public MetricsBean(ProcessorMetrics metrics){
+			this.metrics = metrics;
+		}
+		
+		private LatencyHistogram histogram(){
+			return metrics.getLatencyHistogram();
+		}
+
+		@Override
+		public long getCalls() {
+			return histogram().getCount();
+		}
+
+		@Override
+		public double getMeanLatencyMicros() {
+			return histogram().getMean() / 1000.0;
+		}
+
+		@Override
+		public double getMedianLatencyMicros() {
+			return histogram().getValueAtPercentile(50) / 1000.0;
+		}
+
+		@Override
+		public double getP99LatencyMicros() {
+			return histogram().getValueAtPercentile(99) / 1000.0;
+		}
+
+		@Override
+		public double getMaxLatencyMicros() {
+			return histogram().getMax() / 1000.0;
+		}
+
+		@Override
+		public double getFramesPerSecond() {
+			return metrics.getFramesPerSecond();
+		}
+
+		@Override
+		public double getRealtimeFactor() {
+			return metrics.getRealtimeFactor();
+		}
+
+		@Override
+		public long getAllocatedBytes() {
+			return metrics.getAllocatedBytes();
+		}
+
+		@Override
+		public void reset() {
+			metrics.reset();
+		}
+	}
+}
@@ -0,0 +1,79 @@
+/*
+*      _______                       _____   _____ _____  
+*     |__   __|                     |  __ \ / ____|  __ \ 
+*        | | __ _ _ __ ___  ___  ___| |  | | (___ | |__) |
+*        | |/ _` | '__/ __|/ _ \/ __| |  | |\___ \|  ___/ 
+*        | | (_| | |  \__ \ (_) \__ \ |__| |____) | |     
+*        |_|\__,_|_|  |___/\___/|___/_____/|_____/|_|     
+*                                                         
+* -------------------------------------------------------------
+*
+* TarsosDSP is developed by Joren Six at IPEM, University Ghent
+*  
+* -------------------------------------------------------------
+*
+*  Info: http://0110.be/tag/TarsosDSP
+*  Github: https://github.com/JorenSix/TarsosDSP
+*  Releases: http://0110.be/releases/TarsosDSP/
+*  
+*  TarsosDSP includes modified source code by various authors,
+*  for credits and info, see README.
+* 
+*/
+
+
+
+package be.tarsos.dsp.instrumentation.jvm;
+
+/**
+ * The management interface to expose processor metrics via JMX.
+ * 
+ * @author Joren Six
+ */
+public interface ProcessorMetricsMXBean {
+	
+	/**
+	 * @return The number of process calls.
+	 */
+	long getCalls();
+	
+	/**
+	 * @return The mean latency in microseconds.
+	 */
+	double getMeanLatencyMicros();
+	
+	/**
+	 * @return The median latency in microseconds.
+	 */
+	double getMedianLatencyMicros();
+	
+	/**
+	 * @return The 99th percentile latency in microseconds.
+	 */
+	double getP99LatencyMicros();
+	
+	/**
+	 * @return The maximum latency in microseconds.
+	 */
+	double getMaxLatencyMicros();
+	
+	/**
+	 * @return The number of sample frames processed per second of processing time.
+	 */
+	double getFramesPerSecond();
+	
+	/**
+	 * @return The number of seconds of audio processed per second of processing time.
+	 */
+	double getRealtimeFactor();
+	
+	/**
+	 * @return The number of bytes allocated during process calls, negative if unknown.
+	 */
+	long getAllocatedBytes();
+	
+	/**
+	 * Reset the metrics.
+	 */
+	void reset();
+}
@@ -0,0 +1,68 @@
+/*
+*      _______                       _____   _____ _____  
+*     |__   __|                     |  __ \ / ____|  __ \ 
+*        | | __ _ _ __ ___  ___  ___| |  | | (___ | |__) |
+*        | |/ _` | '__/ __|/ _ \/ __| |  | |\___ \|  ___/ 
+*        | | (_| | |  \__ \ (_) \__ \ |__| |____) | |     
+*        |_|\__,_|_|  |___/\___/|___/_____/|_____/|_|     
+*                                                         
+* -------------------------------------------------------------
+*
+* TarsosDSP is developed by Joren Six at IPEM, University Ghent
+*  
+* -------------------------------------------------------------
+*
+*  Info: http://0110.be/tag/TarsosDSP
+*  Github: https://github.com/JorenSix/TarsosDSP
+*  Releases: http://0110.be/releases/TarsosDSP/
+*  
+*  TarsosDSP includes modified source code by various authors,
+*  for credits and info, see README.
+* 
+*/
+
+
+
+package be.tarsos.dsp.instrumentation.jvm;
+
+import java.lang.management.ManagementFactory;
+
+import be.tarsos.dsp.instrumentation.AllocationMeter;
+
+/**
+ * Measures allocated bytes per thread with the HotSpot specific
+ * <code>com.sun.management.ThreadMXBean</code>. If the running JVM does not
+ * support it, a negative number is returned.
+ * 
+ * @author Joren Six
+ */
+public class ThreadAllocationMeter implements AllocationMeter {
+	
+	private final com.sun.management.ThreadMXBean threadBean;
+	
+	/**
+	 * Create a new meter and enable allocation measurement if supported.
+	 */
+	public ThreadAllocationMeter(){
+		java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		if(bean instanceof com.sun.management.ThreadMXBean){
+			com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean) bean;
+			if(sunBean.isThreadAllocatedMemorySupported()){
+				sunBean.setThreadAllocatedMemoryEnabled(true);
+				threadBean = sunBean;
+			}else{
+				threadBean = null;
+			}
+		}else{
+			threadBean = null;
+		}
+	}
+
+	@Override
+	public long currentThreadAllocatedBytes() {
+		if(threadBean == null){
+			return -1;
+		}
+		return threadBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+}
@@ -219,6 +219,34 @@ public class AudioDispatcherFactory {
 			throw new IllegalArgumentException("The file " + source + " is not a readable file. Does it exist?");
 		}
 	}
+
+	/**
+	 * Create a multichannel stream from a piped sub process and use that to
+	 * create a new {@link AudioDispatcher}. All channels are decoded by one
+	 * sub process and are interleaved in the float buffer, see
+	 * {@link be.tarsos.dsp.AudioEvent#getChannelBuffers()}.
+	 * 
+	 * @param source
+	 *            The file or stream to capture.
+	 * @param targetSampleRate
+	 *            The target sample rate.
+	 * @param channels
+	 *            The number of channels to decode.
+	 * @param audioBufferSize
+	 *            The number of sample frames used in the buffer.
+	 * @param bufferOverlap
+	 *            The overlap in sample frames.
+	 * @return A new audioprocessor.
+	 */
+	public static AudioDispatcher fromMultichannelPipe(final String source,final int targetSampleRate, final int channels, final int audioBufferSize,final int bufferOverlap){
+		if(source.startsWith("http") || (new File(source).exists() && new File(source).isFile() && new File(source).canRead())){
+			PipedAudioStream f = new PipedAudioStream(source);
+			TarsosDSPAudioInputStream audioStream = f.getStream(targetSampleRate,0,-1,channels);
+			return new AudioDispatcher(audioStream, audioBufferSize, bufferOverlap);
+		}else{
+			throw new IllegalArgumentException("The file " + source + " is not a readable file. Does it exist?");
+		}
+	}
 	
 	
 	/**
@@ -53,6 +53,13 @@ public final class AudioPlayer implements AudioProcessor {
 
 	
 	private final AudioFormat format;
+	
+	/**
+	 * The number of times the line ran empty before new data was written.
+	 */
+	private volatile long underruns;
+	
+	private boolean started;
 
 	/**
 	 * Creates a new audio player.
@@ -87,13 +94,24 @@ public final class AudioPlayer implements AudioProcessor {
 		return line.getMicrosecondPosition();
 	}
 	
+	/**
+	 * An underrun happens when the line has played all data before new data
+	 * is written. It results in an audible glitch. 
+	 * @return The number of underruns since the player started.
+	 */
+	public long getUnderrunCount(){
+		return underruns;
+	}
+	
 	@Override
 	public boolean process(AudioEvent audioEvent) {
-		int byteOverlap = audioEvent.getOverlap() * format.getFrameSize();
-		int byteStepSize = audioEvent.getBufferSize() * format.getFrameSize() - byteOverlap;
+		// the overlap and buffer size count interleaved samples, not frames
+		final int bytesPerSample = format.getFrameSize() / format.getChannels();
+		int byteOverlap = audioEvent.getOverlap() * bytesPerSample;
+		int byteStepSize = audioEvent.getBufferSize() * bytesPerSample - byteOverlap;
 		if(audioEvent.getTimeStamp() == 0){
 			byteOverlap = 0;
-			byteStepSize = audioEvent.getBufferSize() * format.getFrameSize();
+			byteStepSize = audioEvent.getBufferSize() * bytesPerSample;
 		}
 		// overlap in samples * nr of bytes / sample = bytes overlap
 		
@@ -105,6 +123,12 @@ public final class AudioPlayer implements AudioProcessor {
 		}
 		*/
 		
+		// If the whole line buffer is available the line ran empty.
+		if(started && line.available() >= line.getBufferSize()){
+			underruns++;
+		}
+		started = true;
+		
 		int bytesWritten = line.write(audioEvent.getByteBuffer(), byteOverlap, byteStepSize);
 		if(bytesWritten != byteStepSize){
 			System.err.println(String.format("Expected to write %d bytes but only wrote %d bytes",byteStepSize,bytesWritten));
@@ -103,8 +103,10 @@ public class WaveformWriter implements AudioProcessor {
 	
 	@Override
 	public boolean process(AudioEvent audioEvent) {
-		this.byteOverlap = audioEvent.getOverlap() * format.getFrameSize();
-		this.byteStepSize = audioEvent.getBufferSize() * format.getFrameSize() - byteOverlap;
+		// the overlap and buffer size count interleaved samples, not frames
+		final int bytesPerSample = format.getFrameSize() / format.getChannels();
+		this.byteOverlap = audioEvent.getOverlap() * bytesPerSample;
+		this.byteStepSize = audioEvent.getBufferSize() * bytesPerSample - byteOverlap;
 		try {
 			rawOutputStream.write(audioEvent.getByteBuffer(), byteOverlap, byteStepSize);
 		} catch (IOException e) {
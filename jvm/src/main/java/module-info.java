@@ -1,4 +1,5 @@
 module TarsosDSP.jvm {
+    exports be.tarsos.dsp.instrumentation.jvm;
     exports be.tarsos.dsp.io.jvm;
     exports be.tarsos.dsp.ui;
     exports be.tarsos.dsp.ui.layers;
@@ -6,6 +7,8 @@ module TarsosDSP.jvm {
 
     requires java.desktop;
     requires java.logging;
+    requires java.management;
+    requires jdk.management;
 
     requires TarsosDSP.core;
 }
\ No newline at end of file